@@ -5,6 +5,7 @@ import java.io.IOException;
 import src.conf.SettingsFileManager;
 import src.conf.SimulationSettings;
 import src.traj.TrajectoryPlanner;
+import src.univ.EphemerisProducer;
 import src.univ.Universe;
 import src.visu.Visualiser;
 
@@ -17,7 +18,7 @@ public class App
 		try 
 		{
 			settings = SettingsFileManager.load();
-			Universe universe = new Universe(settings);
+			Universe universe = Universe.startInBackground(settings, EphemerisProducer.DEFAULT_CHUNK_SIZE);
 			Visualiser.getInstance().addUniverse(universe);
 			TrajectoryPlanner.integratedPlot(universe, settings);
 		}
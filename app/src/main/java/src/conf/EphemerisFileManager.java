@@ -0,0 +1,159 @@
+package src.conf;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.time.LocalDateTime;
+
+import src.peng.Vector3d;
+import src.univ.CelestialBody;
+import src.univ.ChebyshevEphemeris;
+
+/**
+ * Saves and loads {@link ChebyshevEphemeris} objects as a single binary file holding the
+ * coefficients of every body, instead of one text line per step as {@link DataFileManager} does.
+ */
+public abstract class EphemerisFileManager extends FileManager
+{
+	private static final String EXTENSION = ".cheb";
+	private static final int VERSION = 1;
+
+	public static void overwrite(ChebyshevEphemeris ephemeris)
+	{
+		String filePath = getFilePath(createFileName(ephemeris.getStartTime(), ephemeris.getNoOfSteps(), ephemeris.getStepSize()));
+		try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filePath, false))))
+		{
+			write(out, ephemeris);
+		}
+		catch (IOException e)
+		{
+			System.out.println("Unable to save ephemeris data");
+			e.printStackTrace();
+		}
+	}
+
+	public static ChebyshevEphemeris load(SimulationSettings settings) throws IOException
+	{
+		String filePath = getFilePath(createFileName(settings.startTime, settings.noOfSteps, settings.stepSize));
+		File file = new File(filePath);
+		if(!file.exists())
+		{
+			throw new FileNotFoundException(filePath + " Not found");
+		}
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try
+		{
+			return read(in);
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	/**
+	 * Write the header of every body followed by its coefficients
+	 */
+	public static void write(DataOutputStream out, ChebyshevEphemeris ephemeris) throws IOException
+	{
+		int degree = ephemeris.getDegree();
+		out.writeInt(VERSION);
+		out.writeUTF(zipDateTime(ephemeris.getStartTime()));
+		out.writeDouble(ephemeris.getStepSize());
+		out.writeInt(ephemeris.getNoOfSteps());
+		out.writeInt(degree);
+		out.writeInt(ephemeris.getNoOfBodies());
+
+		for(int i = 0; i < ephemeris.getNoOfBodies(); i++)
+		{
+			CelestialBody template = ephemeris.getTemplates()[i];
+			out.writeUTF(template.name);
+			out.writeDouble(template.mass);
+			out.writeDouble(template.radius);
+			out.writeUTF(String.valueOf(template.image));
+			out.writeUTF(String.valueOf(template.icon));
+
+			double[][] segments = ephemeris.getCoefficients(i);
+			out.writeInt(ephemeris.getSegmentLength(i));
+			out.writeInt(segments.length);
+			for(double[] segment: segments)
+			{
+				for(int k = 0; k < 3 * (degree + 1); k++)
+				{
+					out.writeDouble(segment[k]);
+				}
+			}
+		}
+	}
+
+	public static ChebyshevEphemeris read(DataInputStream in) throws IOException
+	{
+		int version = in.readInt();
+		if(version != VERSION)
+		{
+			throw new IOException("Unsupported ephemeris version " + version);
+		}
+		LocalDateTime startTime = parseDateTime(in.readUTF());
+		double stepSize = in.readDouble();
+		int noOfSteps = in.readInt();
+		int degree = in.readInt();
+		int noOfBodies = in.readInt();
+
+		CelestialBody[] templates = new CelestialBody[noOfBodies];
+		int[] segmentLength = new int[noOfBodies];
+		double[][][] coefficients = new double[noOfBodies][][];
+		for(int i = 0; i < noOfBodies; i++)
+		{
+			String name = in.readUTF();
+			double mass = in.readDouble();
+			double radius = in.readDouble();
+			String image = in.readUTF();
+			String icon = in.readUTF();
+			templates[i] = new CelestialBody(new Vector3d(0,0,0),
+											 new Vector3d(0,0,0),
+											 mass,
+											 radius,
+											 name,
+											 image.equals("null") ? null : image,
+											 icon.equals("null") ? null : icon,
+											 startTime);
+
+			segmentLength[i] = in.readInt();
+			coefficients[i] = new double[in.readInt()][3 * (degree + 1)];
+			for(double[] segment: coefficients[i])
+			{
+				for(int k = 0; k < segment.length; k++)
+				{
+					segment[k] = in.readDouble();
+				}
+			}
+		}
+		return new ChebyshevEphemeris(templates, startTime, stepSize, noOfSteps, degree, segmentLength, coefficients);
+	}
+
+	private static String createFileName(LocalDateTime startTime, int noOfSteps, double stepSize)
+	{
+		StringBuilder fileName = new StringBuilder();
+		fileName.append("ephemeris_");
+		fileName.append(zipDateTime(startTime) + "_");
+		fileName.append(noOfSteps + "_");
+		fileName.append((int) stepSize);
+		fileName.append(EXTENSION);
+		return fileName.toString();
+	}
+
+	private static String getFilePath(String fileName)
+	{
+		FileSystem fileSystem = FileSystems.getDefault();
+		String path = fileSystem.getPath("").toAbsolutePath().toString();
+		return path.concat("/src/main/java/src/data/" + fileName);
+	}
+}
@@ -0,0 +1,61 @@
+package src.conf;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+
+import javax.imageio.ImageIO;
+
+import src.traj.LaunchWindowScanner;
+
+/**
+ * Saves the result of a {@link LaunchWindowScanner} as a porkchop matrix: one row per departure step,
+ * one column per flight time, total delta-v in m/s in every cell.
+ * Written in one pass rather than line by line through {@link Logger}, a scan easily has a million cells.
+ */
+public abstract class PorkchopFileManager extends FileManager
+{
+	public static void saveCSV(LaunchWindowScanner scanner, String name) throws IOException
+	{
+		BufferedWriter writer = new BufferedWriter(new FileWriter(getFilePath(name + ".csv"), false));
+		try
+		{
+			writer.write("departure step \\ flight steps");
+			for(int j = 0; j < scanner.getNoOfFlights(); j++)
+			{
+				writer.write("," + scanner.getFlightSteps(j));
+			}
+			writer.newLine();
+			for(int i = 0; i < scanner.getNoOfDepartures(); i++)
+			{
+				writer.write(String.valueOf(scanner.getDepartureStep(i)));
+				for(int j = 0; j < scanner.getNoOfFlights(); j++)
+				{
+					double deltaV = scanner.getDeltaV(i, j);
+					writer.write(Double.isNaN(deltaV) ? "," : "," + (float) deltaV);
+				}
+				writer.newLine();
+			}
+		}
+		finally
+		{
+			writer.close();
+		}
+	}
+
+	public static void saveImage(BufferedImage image, String name) throws IOException
+	{
+		ImageIO.write(image, "png", new File(getFilePath(name + ".png")));
+	}
+
+	private static String getFilePath(String fileName)
+	{
+		FileSystem fileSystem = FileSystems.getDefault();
+		String path = fileSystem.getPath("").toAbsolutePath().toString();
+		return path.concat("/src/main/java/src/data/" + fileName);
+	}
+}
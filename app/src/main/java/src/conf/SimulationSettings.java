@@ -3,6 +3,7 @@ package src.conf;
 import java.time.LocalDateTime;
 import src.peng.Vector3dInterface;
 import src.peng.Vector3d;
+import src.prob.Spacecraft;
 import src.univ.CelestialBody;
 
 public class SimulationSettings 
@@ -16,6 +17,7 @@ public class SimulationSettings
 	public double stepSize;
 	public String[] waypoints;
 	public int stepOffset = 0;
+	public Spacecraft spacecraft = Spacecraft.probe();		// As the probe starts, each leg burns its own value
 
 	public SimulationSettings(CelestialBody[] celestialBodies,
 			                  Vector3dInterface probeStartPosition,
@@ -43,7 +45,7 @@ public class SimulationSettings
 	
 	public SimulationSettings copy()
 	{
-		return new SimulationSettings(celestialBodies,
+		SimulationSettings copy = new SimulationSettings(celestialBodies,
                 	probeStartPosition,
 				    probeStartVelocity,
 				    startTime,
@@ -51,6 +53,8 @@ public class SimulationSettings
 				    noOfSteps,
 				    stepSize,
 				    waypoints);
+		copy.spacecraft = spacecraft;
+		return copy;
 	}
 	
 	public int getStartStep()
@@ -0,0 +1,40 @@
+package src.land;
+
+import java.util.SplittableRandom;
+
+/**
+ * Pressure and temperature of a planet's atmosphere against height above the surface, as the drag of a descent
+ * needs them. Models are immutable and cheap to query, so one can be shared by every descent of a Monte Carlo set.
+ */
+public interface AtmosphereModel
+{
+	public static final double SPECIFIC_GAS_CONSTANT = 301.2;		// J/(kg K), nitrogen with some methane, 27.6 g/mol
+
+	/**
+	 * @param height above the surface, m
+	 * @return pressure in bar, 0 above the top of the atmosphere
+	 */
+	public double pressure(double height);
+
+	/**
+	 * @param height above the surface, m
+	 * @return temperature in K
+	 */
+	public double temperature(double height);
+
+	/**
+	 * @param height above the surface, m
+	 * @return density in kg/m^3 from the ideal gas law
+	 */
+	public default double density(double height)
+	{
+		return pressure(height) * 1e5 / (SPECIFIC_GAS_CONSTANT * temperature(height));
+	}
+
+	/**
+	 * A random atmosphere about this one, the same stream gives the same atmosphere
+	 * @param random stream to draw the perturbation from
+	 * @param sigma standard deviation of the pressure, as a fraction of this one
+	 */
+	public AtmosphereModel perturbed(SplittableRandom random, double sigma);
+}
@@ -0,0 +1,15 @@
+package src.land;
+
+/**
+ * Flies a lander with attitude in a {@link LanderPropagator}: once a step, after drag, it sets the main engine
+ * and side thruster commands for the step from the state.
+ */
+@FunctionalInterface
+public interface AttitudeControl
+{
+	/**
+	 * @param state to read, not to change
+	 * @param command zeroed before every step
+	 */
+	public void command(LanderState state, double planetRadius, double stepSize, LanderCommand command);
+}
@@ -0,0 +1,35 @@
+package src.land;
+
+import src.peng.Vector3d;
+
+/**
+ * Measurements of a finished descent, whichever simulation flew it
+ */
+public interface Descent
+{
+	/**
+	 * @return false if the descent hit the safety cutoff before reaching the surface
+	 */
+	public boolean hasLanded();
+
+	public Vector3d getTouchdownPosition();
+
+	public Vector3d getTouchdownVelocity();
+
+	/**
+	 * @return lean from upright at touchdown in radians, 0 for a descent without attitude
+	 */
+	public double getTouchdownTilt();
+
+	public double getFlightTime();
+
+	/**
+	 * @return largest acceleration from drag and the controller, in m/s^2
+	 */
+	public double getPeakDeceleration();
+
+	/**
+	 * @return sum of the velocity changes made by the controller
+	 */
+	public double getControllerDeltaV();
+}
@@ -0,0 +1,189 @@
+package src.land;
+
+import java.util.Arrays;
+
+/**
+ * The phases of a descent after entry, each started by an event: a drogue parachute at a height, the main
+ * parachute at a lower height with the drogue released, the heat shield jettisoned a time after the main opens
+ * and, with a terminal controller, powered descent at a height with the main cut away. Flown on a
+ * {@link LanderPropagator} the events happen at their heights and times whatever the step size.
+ *
+ * Parachutes open at an even rate over their fill times from the moment they are deployed. A phase whose height
+ * has already been passed when it comes up starts straight away.
+ *
+ * The sequence keeps the state of a descent, so use a new one for every descent.
+ */
+public class DescentSequence implements LanderControl, AttitudeControl, LanderEvent
+{
+	public enum Phase {ENTRY, DROGUE, MAIN, JETTISONED, POWERED}
+
+	public static final double DEFAULT_DROGUE_HEIGHT = 20000;		// m
+	public static final double DEFAULT_DROGUE_AREA = 50;			// m^2
+	public static final double DEFAULT_DROGUE_FILL_TIME = 2;		// s
+	public static final double DEFAULT_MAIN_HEIGHT = 5000;			// m, as OpenLoopController
+	public static final double DEFAULT_MAIN_AREA = 1000;			// m^2
+	public static final double DEFAULT_MAIN_FILL_TIME = OpenLoopController.FILL_TIME;
+	public static final double DEFAULT_HEAT_SHIELD_AREA = 2;		// m^2, beyond the lander's own
+	public static final double DEFAULT_JETTISON_DELAY = 10;			// s, after the main opens
+
+	private double drogueHeight = DEFAULT_DROGUE_HEIGHT;
+	private double drogueArea = DEFAULT_DROGUE_AREA;
+	private double drogueFillTime = DEFAULT_DROGUE_FILL_TIME;
+	private double mainHeight = DEFAULT_MAIN_HEIGHT;
+	private double mainArea = DEFAULT_MAIN_AREA;
+	private double mainFillTime = DEFAULT_MAIN_FILL_TIME;
+	private double heatShieldArea = DEFAULT_HEAT_SHIELD_AREA;
+	private double jettisonDelay = DEFAULT_JETTISON_DELAY;
+	private double poweredHeight;
+	private AttitudeControl terminal;					// Null for a descent on the main parachute to the ground
+
+	private Phase phase = Phase.ENTRY;
+	private double stepEnd;								// s, of the step the area was last set for
+	private final double[] phaseTimes = new double[Phase.values().length];
+	private final double[] phaseHeights = new double[Phase.values().length];
+
+	public DescentSequence()
+	{
+		Arrays.fill(phaseTimes, 1, phaseTimes.length, Double.NaN);
+		Arrays.fill(phaseHeights, Double.NaN);
+	}
+
+	/**
+	 * @param height m above the surface the drogue opens at
+	 * @param area m^2 of the open drogue
+	 * @param fillTime s for it to open
+	 */
+	public void setDrogue(double height, double area, double fillTime)
+	{
+		checkParachute(area, fillTime);
+		drogueHeight = height;
+		drogueArea = area;
+		drogueFillTime = fillTime;
+	}
+
+	/**
+	 * @param height m above the surface the main opens and the drogue is released at
+	 */
+	public void setMain(double height, double area, double fillTime)
+	{
+		checkParachute(area, fillTime);
+		mainHeight = height;
+		mainArea = area;
+		mainFillTime = fillTime;
+	}
+
+	/**
+	 * @param area m^2 the heat shield adds to the lander until it is jettisoned
+	 * @param jettisonDelay s after the main opens
+	 */
+	public void setHeatShield(double area, double jettisonDelay)
+	{
+		if(area < 0 || jettisonDelay < 0)
+			throw new IllegalArgumentException("Heat shield area and jettison delay must not be negative");
+		heatShieldArea = area;
+		this.jettisonDelay = jettisonDelay;
+	}
+
+	/**
+	 * @param height m above the surface the main is cut away and the terminal controller takes over at, after
+	 * the heat shield has gone
+	 * @param terminal flies the rest of the descent, such as a {@link PoweredDescentController}
+	 */
+	public void setPoweredDescent(double height, AttitudeControl terminal)
+	{
+		if(terminal == null)
+			throw new IllegalArgumentException("Powered descent needs a controller");
+		poweredHeight = height;
+		this.terminal = terminal;
+	}
+
+	@Override
+	public void act(LanderState state, double planetRadius, double stepSize)
+	{
+		stepEnd = state.time + stepSize;
+		state.area = getArea(stepEnd);
+	}
+
+	@Override
+	public void command(LanderState state, double planetRadius, double stepSize, LanderCommand command)
+	{
+		if(phase == Phase.POWERED)
+			terminal.command(state, planetRadius, stepSize, command);
+	}
+
+	@Override
+	public double eventFunction(LanderState state, double planetRadius)
+	{
+		switch(phase)
+		{
+			case ENTRY:
+				return state.height(planetRadius) - drogueHeight;
+			case DROGUE:
+				return state.height(planetRadius) - mainHeight;
+			case MAIN:
+				return phaseTimes[Phase.MAIN.ordinal()] + jettisonDelay - state.time;
+			case JETTISONED:
+				if(terminal == null)
+					return Double.POSITIVE_INFINITY;
+				return state.height(planetRadius) - poweredHeight;
+			default:
+				return Double.POSITIVE_INFINITY;
+		}
+	}
+
+	/**
+	 * Start the next phase, with its area at the end of the step for the drag of the next, as the propagator
+	 * holds the controls of a step over the rest of it once an event has cut it
+	 */
+	@Override
+	public void eventOccurred(LanderState state, double planetRadius)
+	{
+		phase = Phase.values()[phase.ordinal() + 1];
+		phaseTimes[phase.ordinal()] = state.time;
+		phaseHeights[phase.ordinal()] = state.height(planetRadius);
+		state.area = getArea(Math.max(stepEnd, state.time));
+	}
+
+	/**
+	 * @return m^2 the air pushes on at the time, lander, heat shield and parachute
+	 */
+	public double getArea(double time)
+	{
+		double area = LandingController.LANDER_AREA;
+		if(phase.compareTo(Phase.JETTISONED) < 0)
+			area += heatShieldArea;
+		if(phase == Phase.DROGUE)
+			area += drogueArea * opening(Phase.DROGUE, drogueFillTime, time);
+		else if(phase == Phase.MAIN || phase == Phase.JETTISONED)
+			area += mainArea * opening(Phase.MAIN, mainFillTime, time);
+		return area;
+	}
+
+	public Phase getPhase()		{return phase;}
+
+	/**
+	 * @return s from the start of the descent the phase began at, NaN if it has not
+	 */
+	public double getPhaseTime(Phase phase)		{return phaseTimes[phase.ordinal()];}
+
+	/**
+	 * @return m above the surface the phase began at, NaN if it has not or for entry
+	 */
+	public double getPhaseHeight(Phase phase)	{return phaseHeights[phase.ordinal()];}
+
+	/*
+	 * Fraction of a parachute deployed at the start of the phase open at the time
+	 */
+	private double opening(Phase deployed, double fillTime, double time)
+	{
+		if(fillTime == 0)
+			return 1;
+		return Math.min(Math.max((time - phaseTimes[deployed.ordinal()]) / fillTime, 0), 1);
+	}
+
+	private static void checkParachute(double area, double fillTime)
+	{
+		if(area < 0 || fillTime < 0)
+			throw new IllegalArgumentException("Parachute area and fill time must not be negative");
+	}
+}
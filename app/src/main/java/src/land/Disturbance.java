@@ -0,0 +1,44 @@
+package src.land;
+
+import java.util.SplittableRandom;
+
+/**
+ * Wind the lander flies through, felt as drag on its speed relative to the air. A descent updates its
+ * disturbance once a step before the drag and reads the wind for the step from it, so gusts that keep state
+ * between steps need their own copy per descent from {@link #sample}.
+ */
+public interface Disturbance
+{
+	/**
+	 * Calm air, the wind of every descent unless one is set
+	 */
+	public static final Disturbance NONE = new Disturbance()
+	{
+		@Override public void update(double height, double stepSize)	{}
+		@Override public double getHorizontalWind()						{return 0;}
+		@Override public double getVerticalWind()						{return 0;}
+		@Override public Disturbance sample(SplittableRandom random)		{return this;}
+	};
+
+	/**
+	 * Set the wind for the next step
+	 * @param height above the surface, m
+	 */
+	public void update(double height, double stepSize);
+
+	/**
+	 * @return wind along the surface for the step, m/s, positive anticlockwise
+	 */
+	public double getHorizontalWind();
+
+	/**
+	 * @return wind away from the planet for the step, m/s
+	 */
+	public double getVerticalWind();
+
+	/**
+	 * @param random stream to draw the gusts of the copy from, the same stream gives the same gusts
+	 * @return a copy for one descent, this one if it keeps no state
+	 */
+	public Disturbance sample(SplittableRandom random);
+}
@@ -0,0 +1,65 @@
+package src.land;
+
+/**
+ * Powered landing that cancels the known nonlinear dynamics: the thrust is found for the acceleration the
+ * guidance wants in the planet's rotating radial and horizontal directions, including gravity and the terms
+ * from flying round the planet, and is divided by the cosine of the lean so only its upward part counts. The
+ * lean is then a double integrator for the side thrusters. Drag is not modelled and is left to the feedback.
+ */
+public class FeedbackLinearisingController extends PoweredDescentController
+{
+	public static final int GAINS = 4;
+
+	private final double vertical;
+	private final double lateral;
+	private final double attitudeProportional;
+	private final double attitudeDerivative;
+
+	/**
+	 * @param gains vertical, from descent rate error to acceleration, 1/s; lateral, from speed along the surface
+	 * to acceleration, 1/s; attitude proportional, 1/s^2, and derivative, 1/s, from lean error to angular acceleration
+	 */
+	public FeedbackLinearisingController(LanderBody body, double planetMass, double[] gains)
+	{
+		super(body, planetMass);
+		if(gains.length != GAINS)
+			throw new IllegalArgumentException("A feedback linearising controller needs " + GAINS + " gains");
+		vertical = gains[0];
+		lateral = gains[1];
+		attitudeProportional = gains[2];
+		attitudeDerivative = gains[3];
+	}
+
+	/**
+	 * @return gains tuned for the 6 t reference lander lit under its parachute. With the dynamics cancelled they
+	 * are the rates of the loops: the descent rate error falls off in about 1.4 s, the speed along the surface
+	 * in about 7 s, and the lean is overdamped.
+	 */
+	public static double[] defaultGains()
+	{
+		return new double[] {0.7, 0.15, 0.6, 3};
+	}
+
+	@Override
+	protected void control(LanderState state, double planetRadius, double stepSize, LanderCommand command)
+	{
+		double r = state.distance();
+		double radialVelocity = state.radialVelocity();
+		double horizontalVelocity = state.horizontalVelocity();
+
+		// Thrust for the wanted accelerations in polar coordinates
+		double radial = vertical * (targetRadialVelocity(r - planetRadius) - radialVelocity);
+		double horizontal = -lateral * horizontalVelocity;
+		double radialThrust = radial + gravity(state) - horizontalVelocity * horizontalVelocity / r;
+		double horizontalThrust = horizontal + radialVelocity * horizontalVelocity / r;
+
+		double tilt = state.tilt();
+		double cosine = Math.cos(tilt);
+		command.throttle = cosine > 0 ? throttle(radialThrust / cosine) : 0;
+
+		// The lean turns with the lander less the turn of the local vertical
+		double targetTilt = limitTilt(Math.atan2(horizontalThrust, radialThrust));
+		double tiltRate = state.angularVelocity - horizontalVelocity / r;
+		command.torque = torque(attitudeProportional * (targetTilt - tilt) - attitudeDerivative * tiltRate);
+	}
+}
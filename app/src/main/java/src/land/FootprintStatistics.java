@@ -0,0 +1,85 @@
+package src.land;
+
+/**
+ * Streaming mean and covariance of touchdown points in the landing plane, from which the dispersion ellipse
+ * of the landing footprint follows. Mergeable in the same way as {@link RunningStatistics}.
+ */
+public class FootprintStatistics
+{
+	private long count = 0;
+	private double meanX = 0;
+	private double meanY = 0;
+	private double sumXX = 0;		// Sums of products of differences from the means
+	private double sumYY = 0;
+	private double sumXY = 0;
+
+	public void add(double x, double y)
+	{
+		count++;
+		double deltaX = x - meanX;
+		double deltaY = y - meanY;
+		meanX += deltaX / count;
+		meanY += deltaY / count;
+		sumXX += deltaX * (x - meanX);
+		sumYY += deltaY * (y - meanY);
+		sumXY += deltaX * (y - meanY);
+	}
+
+	public void merge(FootprintStatistics other)
+	{
+		if(other.count == 0)
+			return;
+		long total = count + other.count;
+		double deltaX = other.meanX - meanX;
+		double deltaY = other.meanY - meanY;
+		double weight = (double) count * other.count / total;
+		sumXX += other.sumXX + deltaX * deltaX * weight;
+		sumYY += other.sumYY + deltaY * deltaY * weight;
+		sumXY += other.sumXY + deltaX * deltaY * weight;
+		meanX += deltaX * other.count / total;
+		meanY += deltaY * other.count / total;
+		count = total;
+	}
+
+	public long getCount()			{return count;}
+	public double getMeanX()		{return meanX;}
+	public double getMeanY()		{return meanY;}
+	public double getVarianceX()	{return count < 2 ? Double.NaN : sumXX / (count - 1);}
+	public double getVarianceY()	{return count < 2 ? Double.NaN : sumYY / (count - 1);}
+	public double getCovariance()	{return count < 2 ? Double.NaN : sumXY / (count - 1);}
+
+	/**
+	 * @param sigmas size of the ellipse in standard deviations, 3 holds about 99% of a normal footprint
+	 * @return semi major axis of the dispersion ellipse
+	 */
+	public double getSemiMajorAxis(double sigmas)
+	{
+		return sigmas * Math.sqrt(eigenvalue(1));
+	}
+
+	public double getSemiMinorAxis(double sigmas)
+	{
+		return sigmas * Math.sqrt(Math.max(0, eigenvalue(-1)));
+	}
+
+	/**
+	 * @return angle of the major axis from the x axis, in radians
+	 */
+	public double getOrientation()
+	{
+		return 0.5 * Math.atan2(2 * getCovariance(), getVarianceX() - getVarianceY());
+	}
+
+	/*
+	 * Eigenvalues of the 2x2 covariance matrix, the larger for sign 1 and the smaller for -1
+	 */
+	private double eigenvalue(int sign)
+	{
+		double a = getVarianceX();
+		double b = getCovariance();
+		double d = getVarianceY();
+		double half = 0.5 * (a + d);
+		double root = Math.sqrt(0.25 * (a - d) * (a - d) + b * b);
+		return half + sign * root;
+	}
+}
@@ -0,0 +1,158 @@
+package src.land;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+
+/**
+ * Tunes the gains of a landing controller by flying every candidate gain set through the same dispersed
+ * descents of a {@link MonteCarloLanding}, gain sets in parallel. Each gain set sees the same descents, so
+ * differences between them come from the gains and not from the draws.
+ *
+ * A descent succeeds if it lands no faster than the largest touchdown speed and leaning no further than the
+ * largest touchdown tilt. Gain sets are ranked by how often they succeed and then by the fuel they burn.
+ */
+public class GainTuner
+{
+	public static final double DEFAULT_MAX_TOUCHDOWN_SPEED = 2;				// m/s
+	public static final double DEFAULT_MAX_TOUCHDOWN_TILT = Math.toRadians(10);
+
+	private final MonteCarloLanding scenario;
+	private final LanderBody body;
+	private final Function<double[], AttitudeControl> controllers;
+	private double maxTouchdownSpeed = DEFAULT_MAX_TOUCHDOWN_SPEED;
+	private double maxTouchdownTilt = DEFAULT_MAX_TOUCHDOWN_TILT;
+
+	/**
+	 * @param scenario the dispersions to fly through
+	 * @param body mass and actuators of the lander
+	 * @param controllers makes a new controller from a gain set, for example
+	 * gains -> new PidLandingController(body, planetMass, gains)
+	 */
+	public GainTuner(MonteCarloLanding scenario, LanderBody body, Function<double[], AttitudeControl> controllers)
+	{
+		this.scenario = scenario;
+		this.body = body;
+		this.controllers = controllers;
+	}
+
+	public void setRequirements(double maxTouchdownSpeed, double maxTouchdownTilt)
+	{
+		this.maxTouchdownSpeed = maxTouchdownSpeed;
+		this.maxTouchdownTilt = maxTouchdownTilt;
+	}
+
+	/**
+	 * @param gainSets candidates to fly
+	 * @param runs dispersed descents per gain set
+	 * @param seed seed of the descents, the same for every gain set
+	 * @return a result for every gain set, best first
+	 */
+	public List<Result> evaluate(List<double[]> gainSets, int runs, long seed)
+	{
+		if(runs < 1)
+			throw new IllegalArgumentException("At least one run is needed");
+		return IntStream.range(0, gainSets.size()).parallel()
+				.mapToObj(i -> evaluate(gainSets.get(i), runs, seed))
+				.sorted()
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Draw gain sets uniformly between the bounds and fly them
+	 * @param lower smallest value of every gain
+	 * @param upper largest value of every gain
+	 * @param candidates number of gain sets to draw
+	 */
+	public List<Result> search(double[] lower, double[] upper, int candidates, int runs, long seed)
+	{
+		if(lower.length != upper.length)
+			throw new IllegalArgumentException("Bounds must have the same number of gains");
+		SplittableRandom random = new SplittableRandom(seed);
+		List<double[]> gainSets = new ArrayList<double[]>(candidates);
+		for(int i = 0; i < candidates; i++)
+		{
+			double[] gains = new double[lower.length];
+			for(int j = 0; j < gains.length; j++)
+				gains[j] = lower[j] + random.nextDouble() * (upper[j] - lower[j]);
+			gainSets.add(gains);
+		}
+		return evaluate(gainSets, runs, seed);
+	}
+
+	/**
+	 * Fly one gain set through the descents, one after another
+	 */
+	public Result evaluate(double[] gains, int runs, long seed)
+	{
+		LandingStatistics statistics = new LandingStatistics();
+		int successes = 0;
+		for(int run = 0; run < runs; run++)
+		{
+			Descent descent = scenario.sample(MonteCarloLanding.runSeed(seed, run), body, controllers.apply(gains));
+			double fuel = MonteCarloLanding.PROBE.fuelForDeltaV(body.mass, descent.getControllerDeltaV());
+			statistics.add(descent, scenario.getPlanetRadius(), fuel);
+			if(descent.hasLanded()
+					&& descent.getTouchdownVelocity().norm() <= maxTouchdownSpeed
+					&& Math.abs(descent.getTouchdownTilt()) <= maxTouchdownTilt)
+				successes++;
+		}
+		return new Result(gains.clone(), statistics, successes);
+	}
+
+	public static class Result implements Comparable<Result>
+	{
+		private final double[] gains;
+		private final LandingStatistics statistics;
+		private final int successes;
+
+		private Result(double[] gains, LandingStatistics statistics, int successes)
+		{
+			this.gains = gains;
+			this.statistics = statistics;
+			this.successes = successes;
+		}
+
+		public double[] getGains()					{return gains.clone();}
+		public LandingStatistics getStatistics()	{return statistics;}
+		public int getSuccesses()					{return successes;}
+
+		/**
+		 * @return fraction of the descents that met the requirements, the robustness of the gains
+		 */
+		public double getSuccessRate()
+		{
+			return (double) successes / statistics.getRuns();
+		}
+
+		/**
+		 * More successes first, then less fuel
+		 */
+		@Override
+		public int compareTo(Result other)
+		{
+			int bySuccess = Integer.compare(other.successes, successes);
+			if(bySuccess != 0)
+				return bySuccess;
+			return Double.compare(fuelOrWorst(), other.fuelOrWorst());
+		}
+
+		private double fuelOrWorst()
+		{
+			double fuel = statistics.getFuel().getMean();
+			return Double.isNaN(fuel) ? Double.POSITIVE_INFINITY : fuel;
+		}
+
+		@Override
+		public String toString()
+		{
+			return Arrays.toString(gains) + " succeeded " + getSuccessRate()
+				+ ", touchdown speed " + statistics.getTouchdownSpeed() + ", fuel " + statistics.getFuel();
+		}
+	}
+}
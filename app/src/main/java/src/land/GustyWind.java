@@ -0,0 +1,97 @@
+package src.land;
+
+import java.util.SplittableRandom;
+
+/**
+ * A mean wind with random gusts on top, each component an Ornstein-Uhlenbeck process: the gust decays towards
+ * calm over the time constant and is driven by white noise so it keeps its standard deviation. This is the
+ * first order Dryden model with the time constant the turbulence scale length over the airspeed, see
+ * {@link #dryden}.
+ *
+ * The decay and noise coefficients are worked out once for the step size, so a step costs one Box-Muller pair
+ * of normal draws for both components. A gusty wind is a template, every descent flies its own
+ * {@link #sample} with its own stream.
+ */
+public class GustyWind implements Disturbance
+{
+	private final Disturbance mean;
+	private final double horizontalSigma;		// m/s
+	private final double verticalSigma;			// m/s
+	private final double timeConstant;			// s
+	private final SplittableRandom random;		// Null for the template
+
+	private double designStepSize = Double.NaN;
+	private double correlation;
+	private double innovation;
+	private double horizontalGust = 0;
+	private double verticalGust = 0;
+
+	/**
+	 * @param mean wind the gusts blow about, {@link Disturbance#NONE} for gusts in calm air
+	 * @param horizontalSigma standard deviation of the gusts along the surface, m/s
+	 * @param verticalSigma standard deviation of the gusts up and down, m/s
+	 * @param timeConstant over which a gust dies away, s
+	 */
+	public GustyWind(Disturbance mean, double horizontalSigma, double verticalSigma, double timeConstant)
+	{
+		this(mean, horizontalSigma, verticalSigma, timeConstant, null);
+	}
+
+	private GustyWind(Disturbance mean, double horizontalSigma, double verticalSigma, double timeConstant, SplittableRandom random)
+	{
+		if(horizontalSigma < 0 || verticalSigma < 0 || !(timeConstant > 0))
+			throw new IllegalArgumentException("Gusts need standard deviations that are not negative and a positive time constant");
+		this.mean = mean;
+		this.horizontalSigma = horizontalSigma;
+		this.verticalSigma = verticalSigma;
+		this.timeConstant = timeConstant;
+		this.random = random;
+	}
+
+	/**
+	 * First order Dryden gusts for a lander falling through turbulence of the given scale
+	 * @param scaleLength turbulence scale length, m
+	 * @param airspeed typical speed of the lander through the air, m/s
+	 */
+	public static GustyWind dryden(Disturbance mean, double horizontalSigma, double verticalSigma, double scaleLength, double airspeed)
+	{
+		return new GustyWind(mean, horizontalSigma, verticalSigma, scaleLength / airspeed);
+	}
+
+	@Override
+	public void update(double height, double stepSize)
+	{
+		if(random == null)
+			throw new IllegalStateException("Gusts are drawn by a sample of the wind for each descent");
+		mean.update(height, stepSize);
+		if(stepSize != designStepSize)
+		{
+			correlation = Math.exp(-stepSize / timeConstant);
+			innovation = Math.sqrt(1 - correlation * correlation);
+			designStepSize = stepSize;
+		}
+
+		// Both normal draws of one Box-Muller pair
+		double radius = Math.sqrt(-2 * Math.log(1 - random.nextDouble()));
+		double angle = 2 * Math.PI * random.nextDouble();
+		horizontalGust = correlation * horizontalGust + innovation * horizontalSigma * radius * Math.cos(angle);
+		verticalGust = correlation * verticalGust + innovation * verticalSigma * radius * Math.sin(angle);
+	}
+
+	@Override public double getHorizontalWind()	{return mean.getHorizontalWind() + horizontalGust;}
+	@Override public double getVerticalWind()	{return mean.getVerticalWind() + verticalGust;}
+
+	/**
+	 * @return gusts of their own, starting from a draw of their steady distribution
+	 */
+	@Override
+	public Disturbance sample(SplittableRandom random)
+	{
+		GustyWind sample = new GustyWind(mean.sample(random), horizontalSigma, verticalSigma, timeConstant, random.split());
+		sample.horizontalGust = horizontalSigma * MonteCarloLanding.gaussian(random);
+		sample.verticalGust = verticalSigma * MonteCarloLanding.gaussian(random);
+		return sample;
+	}
+
+	public double getTimeConstant()	{return timeConstant;}
+}
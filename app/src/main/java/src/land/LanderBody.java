@@ -0,0 +1,35 @@
+package src.land;
+
+/**
+ * Mass properties and actuators of a lander for a descent with attitude: a main engine along the lander's
+ * axis and side thrusters that turn it.
+ */
+public class LanderBody
+{
+	public final double mass;				// kg
+	public final double momentOfInertia;	// kg m^2, about the axis out of the landing plane
+	public final double maxThrust;			// N, main engine at full throttle
+	public final double maxTorque;			// N m, side thrusters at full command
+
+	public LanderBody(double mass, double momentOfInertia, double maxThrust, double maxTorque)
+	{
+		if(!(mass > 0) || !(momentOfInertia > 0))
+			throw new IllegalArgumentException("Mass and moment of inertia must be positive");
+		if(maxThrust < 0 || maxTorque < 0)
+			throw new IllegalArgumentException("Thrust and torque limits must not be negative");
+		this.mass = mass;
+		this.momentOfInertia = momentOfInertia;
+		this.maxThrust = maxThrust;
+		this.maxTorque = maxTorque;
+	}
+
+	/**
+	 * @return acceleration of the main engine at full throttle, m/s^2
+	 */
+	public double getMaxAcceleration()			{return maxThrust / mass;}
+
+	/**
+	 * @return angular acceleration of the side thrusters at full command, rad/s^2
+	 */
+	public double getMaxAngularAcceleration()	{return maxTorque / momentOfInertia;}
+}
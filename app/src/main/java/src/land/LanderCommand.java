@@ -0,0 +1,16 @@
+package src.land;
+
+/**
+ * Actuator commands for one step, filled in by an {@link AttitudeControl}. Commands out of range are clamped.
+ */
+public class LanderCommand
+{
+	public double throttle = 0;		// Main engine, 0 to 1 of the maximum thrust
+	public double torque = 0;		// Side thrusters, -1 to 1 of the maximum torque, positive anticlockwise
+
+	public void reset()
+	{
+		throttle = 0;
+		torque = 0;
+	}
+}
@@ -0,0 +1,13 @@
+package src.land;
+
+/**
+ * What a controller does to the lander once a step in a {@link LanderPropagator}, after drag and before gravity
+ */
+@FunctionalInterface
+public interface LanderControl
+{
+	/**
+	 * Change the state in place: the velocity for a burn, the drag area for a parachute
+	 */
+	public void act(LanderState state, double planetRadius, double stepSize);
+}
@@ -0,0 +1,20 @@
+package src.land;
+
+/**
+ * Something that happens to a descent when its event function falls to zero, such as a parachute opening at a
+ * height. The propagator finds the crossing inside the step that passes it and splits the step there, so the
+ * event happens where it should and not at the end of a step.
+ */
+public interface LanderEvent
+{
+	/**
+	 * @return positive before the event, zero or less once it is due, continuous in the state
+	 */
+	public double eventFunction(LanderState state, double planetRadius);
+
+	/**
+	 * Called with the state at the crossing. The event function must be positive again afterwards, or
+	 * Double.POSITIVE_INFINITY once there are no more events.
+	 */
+	public void eventOccurred(LanderState state, double planetRadius);
+}
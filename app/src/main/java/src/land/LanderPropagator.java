@@ -0,0 +1,360 @@
+package src.land;
+
+import java.util.List;
+
+import src.peng.NewtonGravityFunction;
+import src.peng.Vector3d;
+
+/**
+ * Flies a planar descent on plain doubles: central gravity of a planet fixed at the origin, the drag law of
+ * {@link LandingController} through the wind of a {@link Disturbance} and a {@link LanderControl}, integrated
+ * with the same velocity Verlet step as the general solver. Nothing is allocated per step, the trajectory is
+ * only sampled when asked for.
+ *
+ * {@link LanderEvent}s are found to within {@link #EVENT_TOLERANCE}: a step that passes one is bisected for
+ * the crossing and split there, the drag and controls of the step holding over the bisection. The wind and
+ * controls are asked once a step, so the rest of a split step flies on them with only the drag found again.
+ *
+ * A descent with a {@link LanderBody} and an {@link AttitudeControl} also flies the attitude: the main engine
+ * pushes along the lander's axis and the side thrusters turn it, both held constant over a step, in the same
+ * loop and with the same Verlet update for the angle as for the position.
+ *
+ * A propagator keeps the measurements of the descent it flew last, so use one per thread.
+ */
+public class LanderPropagator implements Descent
+{
+	public static final double SAFETY_CUTOFF = 300000;		// s, as in LandingController
+	public static final double EVENT_TOLERANCE = 1e-6;		// s, to which the time of an event is found
+	private static final int MAX_EVENTS_AT_ONCE = 16;
+
+	private final double mu;
+	private final double planetRadius;
+	private final double stepSize;
+	private AtmosphereModel atmosphere = new LinearAtmosphere();
+	private Disturbance wind = Disturbance.NONE;
+	private double dragCoefficient = LandingController.DRAG_COEFFICIENT;
+	private final LanderCommand command = new LanderCommand();
+
+	// The step in progress, kept so it can be cut short at an event
+	private double ax;
+	private double ay;
+	private double startX;
+	private double startY;
+	private double startVx;
+	private double startVy;
+	private double startAngle;
+	private double startAngularVelocity;
+	private double startTime;
+	private double startAx;
+	private double startAy;
+	private double horizontalWind;
+	private double verticalWind;
+	private double controlArea;				// Set by the control for the step
+	private double dragAcceleration;		// Negative, along the direction of motion through the air
+	private double airX;
+	private double airY;
+	private double impulseX;				// Velocity change of the LanderControl
+	private double impulseY;
+	private double thrust;
+	private double thrustX;
+	private double thrustY;
+	private double angularAcceleration;
+
+	private Vector3d touchdownPosition;
+	private Vector3d touchdownVelocity;
+	private double touchdownTilt;
+	private double flightTime;
+	private double peakDeceleration;
+	private double controllerDeltaV;
+	private boolean landed;
+
+	public LanderPropagator(double planetMass, double planetRadius, double stepSize)
+	{
+		this.mu = NewtonGravityFunction.GRAVITY * planetMass;
+		this.planetRadius = planetRadius;
+		this.stepSize = stepSize;
+	}
+
+	/**
+	 * Fly the state down to the surface without keeping the trajectory
+	 * @return true if the lander reached the surface before the safety cutoff
+	 */
+	public boolean propagate(LanderState state, LanderControl control)
+	{
+		return propagate(state, control, null, 0);
+	}
+
+	/**
+	 * @param state changed in place, the touchdown state when this returns
+	 * @param control may be null for a ballistic descent
+	 * @param trajectory filled with the position every sampleInterval steps and at touchdown, may be null
+	 * @param sampleInterval steps between samples, 1 for every step as {@link LandingController} keeps
+	 */
+	public boolean propagate(LanderState state, LanderControl control, List<LanderObject> trajectory, int sampleInterval)
+	{
+		return propagate(state, control, null, null, trajectory, sampleInterval);
+	}
+
+	/**
+	 * Fly a lander with attitude down to the surface without keeping the trajectory
+	 */
+	public boolean propagate(LanderState state, LanderBody body, AttitudeControl control)
+	{
+		return propagate(state, body, control, null, 0);
+	}
+
+	/**
+	 * @param body mass and actuators of the lander
+	 * @param control sets the engine and thrusters every step
+	 * @param trajectory filled as for a descent without attitude, with the tilt from upright in degrees
+	 */
+	public boolean propagate(LanderState state, LanderBody body, AttitudeControl control, List<LanderObject> trajectory, int sampleInterval)
+	{
+		if(control == null)
+			throw new IllegalArgumentException("A descent with attitude needs a control");
+		return propagate(state, null, body, control, trajectory, sampleInterval);
+	}
+
+	/**
+	 * Fly a lander with attitude that also has a {@link LanderControl}, such as a parachute before a powered landing
+	 * @param control may be null
+	 * @param attitude may be null for a descent without attitude
+	 */
+	public boolean propagate(LanderState state, LanderControl control, LanderBody body, AttitudeControl attitude, List<LanderObject> trajectory, int sampleInterval)
+	{
+		return propagate(state, control, body, attitude, null, trajectory, sampleInterval);
+	}
+
+	/**
+	 * Fly a descent sequence, under power at the end if it has a body
+	 * @param body null for a sequence without a powered phase
+	 */
+	public boolean propagate(LanderState state, DescentSequence sequence, LanderBody body, List<LanderObject> trajectory, int sampleInterval)
+	{
+		return propagate(state, sequence, body, body == null ? null : sequence, sequence, trajectory, sampleInterval);
+	}
+
+	/**
+	 * @param events may be null, otherwise fired where their event functions cross zero, before the step if
+	 * they are already due
+	 */
+	public boolean propagate(LanderState state, LanderControl control, LanderBody body, AttitudeControl attitude, LanderEvent events, List<LanderObject> trajectory, int sampleInterval)
+	{
+		if(attitude != null && body == null)
+			throw new IllegalArgumentException("A descent with attitude needs a body");
+		if(trajectory != null && sampleInterval < 1)
+			throw new IllegalArgumentException("Sample interval must be at least one step");
+
+		peakDeceleration = 0;
+		controllerDeltaV = 0;
+		landed = true;
+		long step = 0;
+
+		double r = state.distance();
+		double gravity = -mu / (r * r * r);
+		ax = gravity * state.x;
+		ay = gravity * state.y;
+		while(r > planetRadius)
+		{
+			// A step that passes an event is split at it
+			double remaining = stepSize;
+			boolean begun = false;
+			while(remaining > 0 && r > planetRadius)
+			{
+				if(events != null)
+					fireDueEvents(state, events);
+				if(begun)
+					resume(state, remaining, controlArea);
+				else
+					begin(state, control, body, attitude, remaining);
+				begun = true;
+				double length = remaining;
+				drift(state, length);
+				if(events != null && events.eventFunction(state, planetRadius) <= 0)
+				{
+					length = locate(state, events, remaining);
+					events.eventOccurred(state, planetRadius);
+				}
+
+				double kickX = dragAcceleration * length * airX + impulseX;
+				double kickY = dragAcceleration * length * airY + impulseY;
+				controllerDeltaV += Math.hypot(impulseX, impulseY) + thrust * length;
+				peakDeceleration = Math.max(peakDeceleration, Math.hypot(kickX / length + thrustX, kickY / length + thrustY));
+				remaining = length == remaining ? 0 : remaining - length;
+				r = state.distance();
+			}
+			step++;
+
+			if(trajectory != null && (step % sampleInterval == 0 || r <= planetRadius))
+				trajectory.add(new LanderObject(state.getPosition(), Math.toDegrees(state.tilt())));
+
+			if(state.time > SAFETY_CUTOFF)
+			{
+				landed = false;
+				break;
+			}
+		}
+		touchdownPosition = state.getPosition();
+		touchdownVelocity = state.getVelocity();
+		touchdownTilt = state.tilt();
+		flightTime = state.time;
+		return landed;
+	}
+
+	/*
+	 * Start a step of the given length: drag through the wind and the controls at the start of the step,
+	 * which hold for the whole of it
+	 */
+	private void begin(LanderState state, LanderControl control, LanderBody body, AttitudeControl attitude, double length)
+	{
+		wind.update(state.height(planetRadius), length);
+		horizontalWind = wind.getHorizontalWind();
+		verticalWind = wind.getVerticalWind();
+		resume(state, length, state.area);
+		double draggedX = state.vx;
+		double draggedY = state.vy;
+		if(control != null)
+			control.act(state, planetRadius, length);
+		controlArea = state.area;
+		impulseX = state.vx - draggedX;
+		impulseY = state.vy - draggedY;
+
+		// Engine and thrusters, as accelerations over the step
+		thrust = 0;
+		thrustX = 0;
+		thrustY = 0;
+		angularAcceleration = 0;
+		if(attitude != null)
+		{
+			command.reset();
+			attitude.command(state, planetRadius, length, command);
+			thrust = Math.min(Math.max(command.throttle, 0), 1) * body.getMaxAcceleration();
+			thrustX = thrust * Math.cos(state.angle);
+			thrustY = thrust * Math.sin(state.angle);
+			angularAcceleration = Math.min(Math.max(command.torque, -1), 1) * body.getMaxAngularAcceleration();
+		}
+	}
+
+	/*
+	 * Start the rest of a step cut short at an event: drag through the wind of the step on the area the control
+	 * set for it, the engine and thrusters held, and the impulse of the control already given. What the event
+	 * changes takes effect from the next step.
+	 */
+	private void resume(LanderState state, double length, double area)
+	{
+		startX = state.x;
+		startY = state.y;
+		startVx = state.vx;
+		startVy = state.vy;
+		startAngle = state.angle;
+		startAngularVelocity = state.angularVelocity;
+		startTime = state.time;
+		startAx = ax;
+		startAy = ay;
+
+		// Drag, as a change of velocity over the step against the motion through the air
+		double r = state.distance();
+		double relativeX = state.vx - (verticalWind * state.x - horizontalWind * state.y) / r;
+		double relativeY = state.vy - (verticalWind * state.y + horizontalWind * state.x) / r;
+		double airSpeed = Math.sqrt(relativeX * relativeX + relativeY * relativeY);
+		dragAcceleration = 0;
+		airX = 0;
+		airY = 0;
+		if(airSpeed > 0)
+		{
+			double pressure = atmosphere.pressure(r - planetRadius);
+			dragAcceleration = -dragCoefficient * pressure * area * airSpeed * airSpeed / 2;
+			airX = relativeX / airSpeed;
+			airY = relativeY / airSpeed;
+			state.vx += dragAcceleration * length * airX;
+			state.vy += dragAcceleration * length * airY;
+		}
+		impulseX = 0;
+		impulseY = 0;
+	}
+
+	/*
+	 * Set the state to the end of the step begun, cut to the given length, by velocity Verlet under the
+	 * planet's gravity
+	 */
+	private void drift(LanderState state, double length)
+	{
+		double vx = startVx + dragAcceleration * length * airX + impulseX;
+		double vy = startVy + dragAcceleration * length * airY + impulseY;
+		state.x = startX + vx * length + 0.5 * (startAx + thrustX) * length * length;
+		state.y = startY + vy * length + 0.5 * (startAy + thrustY) * length * length;
+		double r = state.distance();
+		double gravity = -mu / (r * r * r);
+		ax = gravity * state.x;
+		ay = gravity * state.y;
+		state.vx = vx + (0.5 * (startAx + ax) + thrustX) * length;
+		state.vy = vy + (0.5 * (startAy + ay) + thrustY) * length;
+		state.angle = startAngle + startAngularVelocity * length + 0.5 * angularAcceleration * length * length;
+		state.angularVelocity = startAngularVelocity + angularAcceleration * length;
+		state.time = startTime + length;
+	}
+
+	/*
+	 * Bisect the step begun for where the event function crosses zero, leaving the state just past it
+	 * @return length of the step to the event
+	 */
+	private double locate(LanderState state, LanderEvent events, double length)
+	{
+		double before = 0;
+		double after = length;
+		while(after - before > EVENT_TOLERANCE)
+		{
+			double middle = 0.5 * (before + after);
+			drift(state, middle);
+			if(events.eventFunction(state, planetRadius) <= 0)
+				after = middle;
+			else
+				before = middle;
+		}
+		drift(state, after);
+		return after;
+	}
+
+	private void fireDueEvents(LanderState state, LanderEvent events)
+	{
+		for(int i = 0; events.eventFunction(state, planetRadius) <= 0; i++)
+		{
+			if(i == MAX_EVENTS_AT_ONCE)
+				throw new IllegalStateException("An event function stays due after its event");
+			events.eventOccurred(state, planetRadius);
+		}
+	}
+
+	/**
+	 * @param atmosphere to fly through, the linear one of LandingController unless set
+	 */
+	public void setAtmosphere(AtmosphereModel atmosphere)
+	{
+		this.atmosphere = atmosphere;
+	}
+
+	/**
+	 * @param dragCoefficient drag per unit of pressure, area and speed squared, that of LandingController unless set
+	 */
+	public void setDragCoefficient(double dragCoefficient)
+	{
+		this.dragCoefficient = dragCoefficient;
+	}
+
+	/**
+	 * @param wind to fly through, a {@link Disturbance#sample} of its own for the descent, calm unless set
+	 */
+	public void setWind(Disturbance wind)
+	{
+		this.wind = wind;
+	}
+
+	public double getStepSize()						{return stepSize;}
+	@Override public boolean hasLanded()			{return landed;}
+	@Override public Vector3d getTouchdownPosition()	{return touchdownPosition;}
+	@Override public Vector3d getTouchdownVelocity()	{return touchdownVelocity;}
+	@Override public double getTouchdownTilt()		{return touchdownTilt;}
+	@Override public double getFlightTime()			{return flightTime;}
+	@Override public double getPeakDeceleration()	{return peakDeceleration;}
+	@Override public double getControllerDeltaV()	{return controllerDeltaV;}
+}
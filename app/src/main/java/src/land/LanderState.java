@@ -0,0 +1,89 @@
+package src.land;
+
+import src.peng.Vector3d;
+
+/**
+ * Planar state of a lander relative to the centre of the planet, kept in plain doubles and changed in place
+ * so a descent does not allocate per step. The attitude is the direction the main engine pushes the lander,
+ * measured from the x axis, so an upright lander points away from the planet.
+ */
+public class LanderState
+{
+	public double x;
+	public double y;
+	public double vx;
+	public double vy;
+	public double angle;				// rad
+	public double angularVelocity = 0;	// rad/s, anticlockwise
+	public double time = 0;
+	public double area = LandingController.LANDER_AREA;		// Drag area, a parachute adds to it
+
+	public LanderState(double x, double y, double vx, double vy)
+	{
+		this.x = x;
+		this.y = y;
+		this.vx = vx;
+		this.vy = vy;
+		this.angle = Math.atan2(y, x);
+	}
+
+	/**
+	 * Project a state relative to the planet onto the landing plane, as {@link LandingController} does
+	 */
+	public LanderState(Vector3d position, Vector3d velocity)
+	{
+		this(position.getX(), position.getY(), velocity.getX(), velocity.getY());
+	}
+
+	public double distance()
+	{
+		return Math.sqrt(x * x + y * y);
+	}
+
+	public double speed()
+	{
+		return Math.sqrt(vx * vx + vy * vy);
+	}
+
+	/**
+	 * @return speed away from the centre of the planet
+	 */
+	public double radialVelocity()
+	{
+		return (x * vx + y * vy) / distance();
+	}
+
+	/**
+	 * @return speed along the surface, positive anticlockwise
+	 */
+	public double horizontalVelocity()
+	{
+		return (x * vy - y * vx) / distance();
+	}
+
+	/**
+	 * @return height above the surface of a planet with the given radius
+	 */
+	public double height(double planetRadius)
+	{
+		return distance() - planetRadius;
+	}
+
+	/**
+	 * @return angle of the lander from upright, in (-pi, pi], positive leaning anticlockwise
+	 */
+	public double tilt()
+	{
+		return Math.IEEEremainder(angle - Math.atan2(y, x), 2 * Math.PI);
+	}
+
+	public Vector3d getPosition()
+	{
+		return new Vector3d(x, y, 0);
+	}
+
+	public Vector3d getVelocity()
+	{
+		return new Vector3d(vx, vy, 0);
+	}
+}
@@ -1,6 +1,8 @@
 package src.land;
 
 import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.function.DoubleSupplier;
 
 import src.conf.Logger;
 import src.peng.NewtonGravityFunction;
@@ -10,17 +12,33 @@ import src.peng.Vector3d;
 import src.solv.ODESolver;
 import src.solv.Verlet;
 
-public class LandingController 
+public class LandingController implements Descent
 {
-	protected final double LANDER_AREA = 3.822; 		// Mars InSight lander was 1.56 meters in diameter, pi * radius^2
-	private final double DRAG_COEFFICIENT = 1.1e-4;	// page 1187, from https://pdfs.semanticscholar.org/5410/30f5b4c387a3d5d06fbee8549347d6bddf82.pdf
+	protected static final double LANDER_AREA = 3.822; 		// Mars InSight lander was 1.56 meters in diameter, pi * radius^2
+	static final double DRAG_COEFFICIENT = 1.1e-4;	// page 1187, from https://pdfs.semanticscholar.org/5410/30f5b4c387a3d5d06fbee8549347d6bddf82.pdf
 	private final double airPresSeaLevel = 1.5;		// 1.5 bars
 	private final double grav = 1.352;				// acceleration due to gravity
 	private final double k = 1.38064852e-23;		// Boltzmann constants
 	private final double m = 27.60867588e-3;		// average molar mass of air molecules
 	
 	protected double stepSize = 1;	
+	protected double time;							// s, since the start of the descent
 	protected String logFileName = "landing_controller";
+	
+	private DoubleSupplier random = Math::random;	// Temperature draws
+	private double pressureScale = 1;				// Multiplies the sea level pressure
+	private AtmosphereModel atmosphere = new LinearAtmosphere();
+	private double landerArea = LANDER_AREA;		// m^2, without a parachute
+	private Disturbance disturbance = Disturbance.NONE;
+	private boolean recording = true;				// Log every step and keep the trajectory
+	
+	// Measured on the last descent
+	private Vector3d touchdownPosition;
+	private Vector3d touchdownVelocity;
+	private double flightTime;
+	private double peakDeceleration;
+	private double controllerDeltaV;
+	private boolean landed;
 		
 	public ArrayList<LanderObject> plotTrajectory(Vector3d landerLocation, 
 			 						 Vector3d landerVelocity,
@@ -46,24 +64,45 @@ public class LandingController
 		
 		ArrayList<LanderObject> trajectory = new ArrayList<LanderObject>();
 		
-		Logger.logCSV(logFileName, "Time,Pos X, Pos Y, Pos Z, Vel X, Vel Y, Vel Z");
+		if(recording)
+			Logger.logCSV(logFileName, "Time,Pos X, Pos Y, Pos Z, Vel X, Vel Y, Vel Z");
 		
-		double time = 0;
+		time = 0;
+		peakDeceleration = 0;
+		controllerDeltaV = 0;
+		landed = true;
 		while(!testHeight(currentState, planetRadius))
 		{
-			Logger.logCSV(logFileName, time + "," + currentState.position.get(0).toCSV() + currentState.velocity.get(0).toCSV());
+			if(recording)
+				Logger.logCSV(logFileName, time + "," + currentState.position.get(0).toCSV() + currentState.velocity.get(0).toCSV());
 						
+			disturbance.update(currentState.position.get(0).norm() - planetRadius, stepSize);
 			Vector3d drag = calculateDrag(currentState.velocity.get(0), currentState.position.get(0), stepSize, planetRadius);
-			currentState.velocity.set(0, currentState.velocity.get(0).sub(drag));
+			Vector3d velocityBefore = currentState.velocity.get(0);
+			currentState.velocity.set(0, velocityBefore.sub(drag));
+			Vector3d velocityAfterDrag = currentState.velocity.get(0);
 			currentState = controllerAction(currentState, planetRadius);
+			
+			// Everything but gravity, what an accelerometer on the lander would read
+			Vector3d velocityAfterControl = currentState.velocity.get(0);
+			controllerDeltaV += velocityAfterControl.dist(velocityAfterDrag);
+			peakDeceleration = Math.max(peakDeceleration, velocityAfterControl.dist(velocityBefore) / stepSize);
+			
 			currentState = solver.step(f, time, currentState, stepSize);
 			
-			trajectory.add(new LanderObject(currentState.position.get(0), 0));
+			if(recording)
+				trajectory.add(new LanderObject(currentState.position.get(0), 0));
 			time = time + stepSize;
 			
 			if(time > 300000)// Safety cutoff
+			{
+				landed = false;
 				break;
+			}
 		}
+		touchdownPosition = currentState.position.get(0);
+		touchdownVelocity = currentState.velocity.get(0);
+		flightTime = time;
 		
 		return trajectory;
 	}
@@ -118,18 +157,35 @@ public class LandingController
 	 */
 	public Vector3d calculateDrag(Vector3d velocity, Vector3d position, double stepSize, double radius)
 	{
-		if (velocity.getX() == 0 && velocity.getY() == 0)
+		Vector3d airVelocity = velocity.sub(windVelocity(position));		// drag acts on the motion through the air
+		if (airVelocity.getX() == 0 && airVelocity.getY() == 0)
 			return new Vector3d(0,0,0);
 		
 		double totalArea = getTotalArea();
-		double veloMagnitude = velocity.norm();
+		double veloMagnitude = airVelocity.norm();
 		double drag = DRAG_COEFFICIENT * airPressureScaling(position, radius) * ((totalArea * (veloMagnitude * veloMagnitude))/2);
 		drag = drag * stepSize;
 		
-		Vector3d direction = velocity.unitVector();
+		Vector3d direction = airVelocity.unitVector();
 		return direction.mul(drag);						//scale the unit vector by the constants we have, to get the actual drag force vector	
 	}
 	
+	/**
+	 * @return velocity of the air at the position, from the wind of the disturbance for this step
+	 */
+	public Vector3d windVelocity(Vector3d position)
+	{
+		double horizontal = disturbance.getHorizontalWind();
+		double vertical = disturbance.getVerticalWind();
+		if (horizontal == 0 && vertical == 0)
+			return new Vector3d(0,0,0);
+		
+		double r = position.norm();
+		double x = position.getX() / r;
+		double y = position.getY() / r;
+		return new Vector3d(vertical * x - horizontal * y, vertical * y + horizontal * x, 0);
+	}
+	
 	/** Converts: Arraylist<Vector3d>  ->  Vector3d[] 
 	 */
 	protected Vector3d[] toArray(ArrayList<Vector3d> input)
@@ -144,7 +200,7 @@ public class LandingController
 	
 	protected double getTotalArea()
 	{
-		return LANDER_AREA;
+		return landerArea;
 	}
 	
 	/*
@@ -174,37 +230,112 @@ public class LandingController
 		else if (0<height && height<50000) {
 			long min = (long) 71;
 			long max = (long) 81;
-			double randValue = (double)Math.floor(Math.random()*(max-min+1)+min);
+			double randValue = (double)Math.floor(random.getAsDouble()*(max-min+1)+min);
 			return randValue;
 		}
 		else if (height>=50000 && height<200000) {
 			long min = (long) 71;
 			long max = (long) 180;
-			double randValue = (double)Math.floor(Math.random()*(max-min+1)+min);
+			double randValue = (double)Math.floor(random.getAsDouble()*(max-min+1)+min);
 			return randValue;
 		}
 		else {
 			long min = (long) 160;
 			long max = (long) 180;
-			double randValue = (double)Math.floor(Math.random()*(max-min+1)+min);
+			double randValue = (double)Math.floor(random.getAsDouble()*(max-min+1)+min);
 			return randValue;
 		}
 	}
 	
 	public double airPressureScaling(Vector3d point, double radius) {
 		
-		double atmosphereMaxRange = 600000;
-		double originToPoint = point.dist(new Vector3d());
-		double realDistance = originToPoint - radius;
-		
-		if (realDistance>=atmosphereMaxRange) {
-			return 0;
-		}
-		else if (-radius<realDistance && realDistance<=0) {			//touching or inside the planet
-			return airPresSeaLevel;
-		}
-		
-		double scaleOfDistance = 1-(realDistance/atmosphereMaxRange);
-		return scaleOfDistance*airPresSeaLevel;
+		double realDistance = point.norm() - radius;
+		return pressureScale*atmosphere.pressure(realDistance);
+	}
+	
+	/**
+	 * @param atmosphere to fly through, a linear fall off to 600 km unless set
+	 */
+	public void setAtmosphere(AtmosphereModel atmosphere)
+	{
+		this.atmosphere = atmosphere;
+	}
+	
+	/**
+	 * @param landerArea m^2 of the lander alone, that of InSight unless set
+	 */
+	public void setLanderArea(double landerArea)
+	{
+		this.landerArea = landerArea;
+	}
+	
+	protected double getLanderArea()
+	{
+		return landerArea;
+	}
+	
+	/**
+	 * Draw the temperatures from a seeded generator instead of Math.random, so a descent can be repeated
+	 */
+	public void setRandom(SplittableRandom random)
+	{
+		this.random = random::nextDouble;
 	}
+	
+	/**
+	 * @param pressureScale multiplies the sea level pressure, 1 for the nominal atmosphere
+	 */
+	public void setPressureScale(double pressureScale)
+	{
+		this.pressureScale = pressureScale;
+	}
+	
+	/**
+	 * @param disturbance wind to fly through, a {@link Disturbance#sample} of its own for the descent, calm unless set
+	 */
+	public void setDisturbance(Disturbance disturbance)
+	{
+		this.disturbance = disturbance;
+	}
+	
+	/**
+	 * @return the wind of the current step, for controllers that can measure it
+	 */
+	protected Disturbance getDisturbance()
+	{
+		return disturbance;
+	}
+	
+	/**
+	 * @param recording false to neither log the descent nor keep its trajectory, only the measurements
+	 */
+	public void setRecording(boolean recording)
+	{
+		this.recording = recording;
+	}
+	
+	protected boolean isRecording()
+	{
+		return recording;
+	}
+	
+	public Vector3d getTouchdownPosition()	{return touchdownPosition;}
+	public Vector3d getTouchdownVelocity()	{return touchdownVelocity;}
+	public double getTouchdownTilt()		{return 0;}
+	public double getFlightTime()			{return flightTime;}
+	
+	/**
+	 * @return largest acceleration from drag and the controller on the last descent, in m/s^2
+	 */
+	public double getPeakDeceleration()		{return peakDeceleration;}
+	
+	/**
+	 * @return sum of the velocity changes made by the controller on the last descent
+	 */
+	public double getControllerDeltaV()		{return controllerDeltaV;}
+	
+	/**
+	 * @return false if the last descent hit the safety cutoff before reaching the surface
+	 */
+	public boolean hasLanded()				{return landed;}
 }
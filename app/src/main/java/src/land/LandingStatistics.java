@@ -0,0 +1,75 @@
+package src.land;
+
+/**
+ * Aggregate of many simulated descents, built one descent at a time so no trajectory has to be kept.
+ * Descents that hit the safety cutoff are only counted, the other statistics cover the landings.
+ */
+public class LandingStatistics
+{
+	private final FootprintStatistics footprint = new FootprintStatistics();
+	private final RunningStatistics downrange = new RunningStatistics();
+	private final RunningStatistics touchdownSpeed = new RunningStatistics();
+	private final RunningStatistics peakDeceleration = new RunningStatistics();
+	private final RunningStatistics controllerDeltaV = new RunningStatistics();
+	private final RunningStatistics fuel = new RunningStatistics();
+	private final RunningStatistics flightTime = new RunningStatistics();
+	private long runs = 0;
+
+	/**
+	 * @param descent a finished descent
+	 * @param planetRadius used to turn the touchdown point into a distance along the surface
+	 * @param fuel mass of fuel the controller's burns took
+	 */
+	public void add(Descent descent, double planetRadius, double fuel)
+	{
+		runs++;
+		if(!descent.hasLanded())
+			return;
+		double x = descent.getTouchdownPosition().getX();
+		double y = descent.getTouchdownPosition().getY();
+		footprint.add(x, y);
+		downrange.add(planetRadius * Math.atan2(y, x));
+		touchdownSpeed.add(descent.getTouchdownVelocity().norm());
+		peakDeceleration.add(descent.getPeakDeceleration());
+		controllerDeltaV.add(descent.getControllerDeltaV());
+		this.fuel.add(fuel);
+		flightTime.add(descent.getFlightTime());
+	}
+
+	public void merge(LandingStatistics other)
+	{
+		runs += other.runs;
+		footprint.merge(other.footprint);
+		downrange.merge(other.downrange);
+		touchdownSpeed.merge(other.touchdownSpeed);
+		peakDeceleration.merge(other.peakDeceleration);
+		controllerDeltaV.merge(other.controllerDeltaV);
+		fuel.merge(other.fuel);
+		flightTime.merge(other.flightTime);
+	}
+
+	public long getRuns()							{return runs;}
+	public long getLandings()						{return footprint.getCount();}
+	public FootprintStatistics getFootprint()		{return footprint;}
+
+	/**
+	 * @return distance along the surface from the x axis to the touchdown point
+	 */
+	public RunningStatistics getDownrange()			{return downrange;}
+	public RunningStatistics getTouchdownSpeed()	{return touchdownSpeed;}
+	public RunningStatistics getPeakDeceleration()	{return peakDeceleration;}
+	public RunningStatistics getControllerDeltaV()	{return controllerDeltaV;}
+	public RunningStatistics getFuel()				{return fuel;}
+	public RunningStatistics getFlightTime()		{return flightTime;}
+
+	@Override
+	public String toString()
+	{
+		return getLandings() + " of " + runs + " landed\n"
+			+ "Footprint 3 sigma: " + footprint.getSemiMajorAxis(3) + " x " + footprint.getSemiMinorAxis(3) + " m\n"
+			+ "Downrange: " + downrange + "\n"
+			+ "Touchdown speed: " + touchdownSpeed + "\n"
+			+ "Peak deceleration: " + peakDeceleration + "\n"
+			+ "Fuel: " + fuel;
+	}
+}
@@ -0,0 +1,64 @@
+package src.land;
+
+import java.util.SplittableRandom;
+
+/**
+ * The atmosphere LandingController has always flown through: the pressure falls linearly from 1.5 bar at the
+ * surface to nothing at 600 km.
+ */
+public class LinearAtmosphere implements AtmosphereModel
+{
+	public static final double TOP = 600000;					// m
+	public static final double SEA_LEVEL_PRESSURE = 1.5;		// bar
+
+	private final double scale;
+
+	public LinearAtmosphere()
+	{
+		this(1);
+	}
+
+	/**
+	 * @param scale multiplies the pressure at every height, 1 for the nominal atmosphere
+	 */
+	public LinearAtmosphere(double scale)
+	{
+		this.scale = scale;
+	}
+
+	@Override
+	public double pressure(double height)
+	{
+		if(height >= TOP)
+			return 0;
+		if(height <= 0)
+			return scale * SEA_LEVEL_PRESSURE;
+		return (1 - height / TOP) * scale * SEA_LEVEL_PRESSURE;
+	}
+
+	/**
+	 * The middle of the ranges LandingController.generateTemp draws from
+	 */
+	@Override
+	public double temperature(double height)
+	{
+		if(height <= 0)
+			return 94;
+		if(height < 50000)
+			return 76;
+		if(height < 200000)
+			return 125.5;
+		return 170;
+	}
+
+	/**
+	 * The same profile with the pressure scaled by a single draw
+	 */
+	@Override
+	public AtmosphereModel perturbed(SplittableRandom random, double sigma)
+	{
+		return new LinearAtmosphere(scale * Math.max(0, 1 + MonteCarloLanding.gaussian(random) * sigma));
+	}
+
+	public double getScale()	{return scale;}
+}
@@ -0,0 +1,147 @@
+package src.land;
+
+/**
+ * Powered landing with linear quadratic regulators designed about hover, each solved once from the discrete
+ * Riccati equation for the step size of the descent:
+ * - vertical: the descent rate error and its integral, with the acceleration on top of the weight as input
+ * - lateral: the speed along the surface, with the lean as input, which sets the lean the attitude loop follows
+ * - attitude: the lean error and its rate, with the angular acceleration as input
+ *
+ * The weights are on the states, the inputs are weighted by Bryson's rule from the actuator limits and the
+ * largest lean, so a weight of 1 asks for a unit error to use the whole of an actuator.
+ */
+public class LqrLandingController extends PoweredDescentController
+{
+	public static final int GAINS = 5;
+	private static final int MAX_ITERATIONS = 100000;
+	private static final double TOLERANCE = 1e-10;
+
+	private final double[] weights;
+	private double designStepSize = Double.NaN;
+	private double[] verticalGain;
+	private double lateralGain;
+	private double[] attitudeGain;
+	private double errorIntegral = 0;
+
+	/**
+	 * @param gains state weights: descent rate error integral, descent rate error, speed along the surface,
+	 * lean error and lean rate
+	 */
+	public LqrLandingController(LanderBody body, double planetMass, double[] gains)
+	{
+		super(body, planetMass);
+		if(gains.length != GAINS)
+			throw new IllegalArgumentException("An LQR landing controller needs " + GAINS + " weights");
+		this.weights = gains.clone();
+	}
+
+	/**
+	 * @return state weights tuned for the 6 t reference lander lit under its parachute: the descent rate weighs
+	 * a hundred times its integral, which only has to take out the drag, and the lean rate four times the lean
+	 * for a well damped turn
+	 */
+	public static double[] defaultGains()
+	{
+		return new double[] {0.002, 0.2, 0.04, 1, 4};
+	}
+
+	@Override
+	protected void control(LanderState state, double planetRadius, double stepSize, LanderCommand command)
+	{
+		double g = gravity(state);
+		if(stepSize != designStepSize)
+			design(stepSize, g);
+
+		double error = state.radialVelocity() - targetRadialVelocity(state.height(planetRadius));
+		// Clamped so the integral alone never asks for more than the engine has, as PidController does
+		double limit = body.getMaxAcceleration() / verticalGain[0];
+		errorIntegral = Math.min(Math.max(errorIntegral + error * stepSize, -limit), limit);
+		command.throttle = throttle(g - verticalGain[0] * errorIntegral - verticalGain[1] * error);
+
+		double targetTilt = limitTilt(-lateralGain * state.horizontalVelocity());
+		double tiltRate = state.angularVelocity - state.horizontalVelocity() / state.distance();
+		command.torque = torque(-attitudeGain[0] * (state.tilt() - targetTilt) - attitudeGain[1] * tiltRate);
+	}
+
+	/*
+	 * Solve the three regulators for the step size, linearised about hover in the given gravity
+	 */
+	private void design(double dt, double g)
+	{
+		double acceleration = body.getMaxAcceleration();
+		double angularAcceleration = body.getMaxAngularAcceleration();
+
+		double[][] doubleIntegrator = {{1, dt}, {0, 1}};
+		double[] doubleIntegratorInput = {dt * dt / 2, dt};
+		verticalGain = gain(doubleIntegrator, doubleIntegratorInput, new double[][] {{weights[0], 0}, {0, weights[1]}}, 1 / (acceleration * acceleration));
+		lateralGain = gain(new double[][] {{1}}, new double[] {g * dt}, new double[][] {{weights[2]}}, 1 / (getMaxTilt() * getMaxTilt()))[0];
+		attitudeGain = gain(doubleIntegrator, doubleIntegratorInput, new double[][] {{weights[3], 0}, {0, weights[4]}}, 1 / (angularAcceleration * angularAcceleration));
+		designStepSize = dt;
+	}
+
+	/**
+	 * Feedback gain of the discrete regulator for x' = Ax + Bu with a single input, minimising the sum of
+	 * x^T Q x + r u^2, from the Riccati equation iterated to its fixed point
+	 * @return K such that u = -Kx
+	 */
+	static double[] gain(double[][] a, double[] b, double[][] q, double r)
+	{
+		int n = b.length;
+		double[][] p = new double[n][];
+		for(int i = 0; i < n; i++)
+			p[i] = q[i].clone();
+		double[] k = new double[n];
+
+		for(int iteration = 0; iteration < MAX_ITERATIONS; iteration++)
+		{
+			// K = (r + B^T P B)^-1 B^T P A
+			double[] pb = multiply(p, b);
+			double s = r + dot(b, pb);
+			for(int j = 0; j < n; j++)
+			{
+				double sum = 0;
+				for(int i = 0; i < n; i++)
+					sum += pb[i] * a[i][j];
+				k[j] = sum / s;
+			}
+
+			// P = Q + A^T P A - s K K^T
+			double change = 0;
+			double size = 0;
+			double[][] next = new double[n][n];
+			for(int i = 0; i < n; i++)
+			{
+				for(int j = 0; j < n; j++)
+				{
+					double sum = 0;
+					for(int l = 0; l < n; l++)
+						for(int m = 0; m < n; m++)
+							sum += a[l][i] * p[l][m] * a[m][j];
+					next[i][j] = q[i][j] + sum - s * k[i] * k[j];
+					change = Math.max(change, Math.abs(next[i][j] - p[i][j]));
+					size = Math.max(size, Math.abs(next[i][j]));
+				}
+			}
+			p = next;
+			if(change <= TOLERANCE * size)
+				return k;
+		}
+		throw new RuntimeException("Riccati iteration did not converge");
+	}
+
+	private static double[] multiply(double[][] matrix, double[] vector)
+	{
+		double[] result = new double[vector.length];
+		for(int i = 0; i < vector.length; i++)
+			result[i] = dot(matrix[i], vector);
+		return result;
+	}
+
+	private static double dot(double[] a, double[] b)
+	{
+		double sum = 0;
+		for(int i = 0; i < a.length; i++)
+			sum += a[i] * b[i];
+		return sum;
+	}
+}
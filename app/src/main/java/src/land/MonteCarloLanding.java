@@ -0,0 +1,202 @@
+package src.land;
+
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import src.peng.Vector3d;
+import src.prob.Spacecraft;
+
+/**
+ * Flies many parachute descents with dispersed entry states, atmospheres, winds and parachutes and gathers
+ * statistics of the landings: footprint ellipse, touchdown speed, peak deceleration and fuel.
+ *
+ * Every descent draws from its own SplittableRandom, seeded from the seed of the whole set by its index, so a set
+ * is the same whatever order the descents run in and a single descent can be flown again on its own with
+ * {@link #sample}. Descents run in parallel on a {@link LanderPropagator} and are folded into the statistics
+ * as they finish. Each parachute opens as an event, at its drawn height and not at the end of a step.
+ */
+public class MonteCarloLanding
+{
+	public static final double TITAN_MASS = 1.34553e23;		// kg
+	public static final double TITAN_RADIUS = 2575.5e3;		// m
+	private static final double STEP_SIZE = 1;				// s, as LandingController
+	static final Spacecraft PROBE = Spacecraft.probe();		// Engine the lander's fuel is counted with
+
+	private final double planetMass;
+	private final double planetRadius;
+	private final double landerMass;
+
+	private Vector3d entryPosition;
+	private Vector3d entryVelocity;
+	private double positionSigma = 1e3;				// m, per axis in the landing plane
+	private double velocitySigma = 10;				// m/s, per axis in the landing plane
+	private AtmosphereModel atmosphere = new LinearAtmosphere();
+	private double pressureSigma = 0.1;				// Relative to the nominal atmosphere
+	private double deployHeight = 5000;				// m, nominal parachute opening height
+	private double deployHeightSigma = 250;
+	private double parachuteArea = 1000;			// m^2, nominal open parachute
+	private double parachuteAreaSigma = 50;
+	private Disturbance wind = Disturbance.NONE;
+	private LanderBody body;						// Null for a descent on the parachute alone
+	private Supplier<AttitudeControl> controls;
+
+	/**
+	 * Descents onto Titan from the top of the atmosphere
+	 */
+	public MonteCarloLanding()
+	{
+		this(TITAN_MASS, TITAN_RADIUS, PROBE.getLanderMass());
+		entryPosition = new Vector3d(TITAN_RADIUS + 600e3, 0, 0);
+		entryVelocity = new Vector3d(0, 1200, 0);
+	}
+
+	public MonteCarloLanding(double planetMass, double planetRadius, double landerMass)
+	{
+		this.planetMass = planetMass;
+		this.planetRadius = planetRadius;
+		this.landerMass = landerMass;
+	}
+
+	/**
+	 * @param position nominal entry point relative to the centre of the planet
+	 * @param velocity nominal entry velocity relative to the planet
+	 * @param positionSigma standard deviation per axis, m
+	 * @param velocitySigma standard deviation per axis, m/s
+	 */
+	public void setEntry(Vector3d position, Vector3d velocity, double positionSigma, double velocitySigma)
+	{
+		this.entryPosition = position;
+		this.entryVelocity = velocity;
+		this.positionSigma = positionSigma;
+		this.velocitySigma = velocitySigma;
+	}
+
+	/**
+	 * @param pressureSigma standard deviation of the surface pressure, as a fraction of the nominal one
+	 */
+	public void setAtmosphere(double pressureSigma)
+	{
+		this.pressureSigma = pressureSigma;
+	}
+
+	/**
+	 * @param atmosphere nominal atmosphere, each descent flies through {@link AtmosphereModel#perturbed} of it
+	 * @param pressureSigma standard deviation of the pressure, as a fraction of the nominal one
+	 */
+	public void setAtmosphere(AtmosphereModel atmosphere, double pressureSigma)
+	{
+		this.atmosphere = atmosphere;
+		this.pressureSigma = pressureSigma;
+	}
+
+	public void setParachute(double deployHeight, double deployHeightSigma, double parachuteArea, double parachuteAreaSigma)
+	{
+		this.deployHeight = deployHeight;
+		this.deployHeightSigma = deployHeightSigma;
+		this.parachuteArea = parachuteArea;
+		this.parachuteAreaSigma = parachuteAreaSigma;
+	}
+
+	/**
+	 * @param wind every descent flies through its own {@link Disturbance#sample} of it
+	 */
+	public void setWind(Disturbance wind)
+	{
+		this.wind = wind;
+	}
+
+	/**
+	 * Land under power below the parachute
+	 * @param body mass and actuators of the lander
+	 * @param controls makes a new controller for every descent, as controllers keep state
+	 */
+	public void setLander(LanderBody body, Supplier<AttitudeControl> controls)
+	{
+		this.body = body;
+		this.controls = controls;
+	}
+
+	/**
+	 * Fly the descents in parallel
+	 * @param runs number of descents
+	 * @param seed seed of the whole set, the same seed gives the same statistics
+	 */
+	public LandingStatistics run(int runs, long seed)
+	{
+		return run(runs, seed, true);
+	}
+
+	public LandingStatistics run(int runs, long seed, boolean parallel)
+	{
+		if(runs < 1)
+			throw new IllegalArgumentException("At least one run is needed");
+		IntStream indices = IntStream.range(0, runs);
+		if(parallel)
+			indices = indices.parallel();
+		return indices.collect(LandingStatistics::new, (statistics, run) ->
+		{
+			Descent descent = sample(runSeed(seed, run));
+			double fuel = PROBE.fuelForDeltaV(landerMass, descent.getControllerDeltaV());
+			statistics.add(descent, planetRadius, fuel);
+		}, LandingStatistics::merge);
+	}
+
+	/**
+	 * Fly one descent
+	 * @param runSeed seed of the descent, {@link #runSeed} of the set seed and its index to repeat a descent of a set
+	 * @return the measurements of the descent
+	 */
+	public Descent sample(long runSeed)
+	{
+		return sample(runSeed, body, body == null ? null : controls.get());
+	}
+
+	/**
+	 * Fly one descent with the given lander under power below the parachute, with the same dispersions as
+	 * {@link #sample(long)} for the same seed whatever the controller
+	 * @param body null for a descent on the parachute alone
+	 * @param control a new controller, null for a descent on the parachute alone
+	 */
+	public Descent sample(long runSeed, LanderBody body, AttitudeControl control)
+	{
+		SplittableRandom random = new SplittableRandom(runSeed);
+		Vector3d position = entryPosition.add(new Vector3d(gaussian(random) * positionSigma, gaussian(random) * positionSigma, 0));
+		Vector3d velocity = entryVelocity.add(new Vector3d(gaussian(random) * velocitySigma, gaussian(random) * velocitySigma, 0));
+		AtmosphereModel atmosphere = this.atmosphere.perturbed(random, pressureSigma);
+		double height = Math.max(0, deployHeight + gaussian(random) * deployHeightSigma);
+		double area = Math.max(0, parachuteArea + gaussian(random) * parachuteAreaSigma);
+
+		OpenLoopController controller = new OpenLoopController(height, area);
+		controller.setRecording(false);
+		LanderPropagator propagator = new LanderPropagator(planetMass, planetRadius, STEP_SIZE);
+		propagator.setAtmosphere(atmosphere);
+		propagator.setWind(wind.sample(random));
+		propagator.propagate(new LanderState(position, velocity), controller, body, control, controller, null, 0);
+		return propagator;
+	}
+
+	public double getPlanetMass()		{return planetMass;}
+	public double getPlanetRadius()		{return planetRadius;}
+
+	/**
+	 * @return seed of descent number run in the set with the given seed
+	 */
+	public static long runSeed(long seed, int run)
+	{
+		// The SplittableRandom mixing function over a Weyl sequence, as consecutive calls to nextLong would give
+		long z = seed + (run + 1) * 0x9e3779b97f4a7c15L;
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	/*
+	 * Standard normal draw, Box-Muller
+	 */
+	static double gaussian(SplittableRandom random)
+	{
+		double u = 1 - random.nextDouble();
+		return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * random.nextDouble());
+	}
+}
@@ -3,12 +3,15 @@ package src.land;
 import src.conf.Logger;
 import src.peng.State;
 
-public class OpenLoopController extends LandingController
+public class OpenLoopController extends LandingController implements LanderControl, LanderEvent
 {
+	public static final double FILL_TIME = 20;		// s, for the parachute to open fully
 	private final double PARACHUTE_AREA = 1000;
 	private boolean parachuteDeployed = false;	
 	private double deployParachuteHeight = 5000;
-	private int parachuteState = 0;
+	private double parachuteArea = PARACHUTE_AREA;
+	private double deployTime;
+	private double stepEnd;						// Of the step the area was last set for
 	
 	public OpenLoopController() 
 	{
@@ -16,33 +19,87 @@ public class OpenLoopController extends LandingController
 		logFileName = "openloop_controller";
 	}
 	
+	/**
+	 * @param deployParachuteHeight height above the surface the parachute opens at
+	 * @param parachuteArea area of the open parachute
+	 */
+	public OpenLoopController(double deployParachuteHeight, double parachuteArea) 
+	{
+		this();
+		this.deployParachuteHeight = deployParachuteHeight;
+		this.parachuteArea = parachuteArea;
+	}
+	
 	@Override
 	protected State controllerAction(State currentState, double planetRadius)
 	{
 		if(!parachuteDeployed && testHeight(currentState, planetRadius + deployParachuteHeight))
-			deployParachute();
+			deployParachute(time);
 		return currentState;
 	}
 	
+	/**
+	 * The same parachute for a {@link LanderPropagator}, the area set for the drag of the next step. Without
+	 * the parachute as an event the parachute opens at the start of the step below the height.
+	 */
+	@Override
+	public void act(LanderState state, double planetRadius, double stepSize)
+	{
+		if(!parachuteDeployed && state.height(planetRadius) <= deployParachuteHeight)
+			deployParachute(state.time);
+		stepEnd = state.time + stepSize;
+		state.area = getTotalArea(stepEnd);
+	}
+	
+	/**
+	 * Deployment as an event, so the parachute opens at its height and not at the start of a step
+	 */
+	@Override
+	public double eventFunction(LanderState state, double planetRadius)
+	{
+		if(parachuteDeployed)
+			return Double.POSITIVE_INFINITY;
+		return state.height(planetRadius) - deployParachuteHeight;
+	}
+	
+	/**
+	 * Deploy the parachute, with its area at the end of the step as the controls of a step cut by an event hold
+	 * over the rest of it
+	 */
+	@Override
+	public void eventOccurred(LanderState state, double planetRadius)
+	{
+		deployParachute(state.time);
+		state.area = getTotalArea(Math.max(stepEnd, state.time));
+	}
+	
+	@Override
 	protected double getTotalArea()
 	{
-		double totalArea = 	LANDER_AREA;	
+		return getTotalArea(time);
+	}
+	
+	protected double getTotalArea(double time)
+	{
+		double totalArea = 	getLanderArea();	
 		if(parachuteDeployed)
-			totalArea = totalArea + getParachuteState();
+			totalArea = totalArea + getParachuteState(time);
 		return totalArea;
 	}
 	
-	private void deployParachute()
+	private void deployParachute(double time)
 	{
 		parachuteDeployed = true;
-		Logger.logCSV(logFileName, "Parachute Deployed!");
+		deployTime = time;
+		if(isRecording())
+			Logger.logCSV(logFileName, "Parachute Deployed!");
 	}
-			
-	protected double getParachuteState()
+	
+	/**
+	 * @return area of the parachute, opening at an even rate over {@link #FILL_TIME} from the deployment
+	 */
+	protected double getParachuteState(double time)
 	{
-		if(parachuteState < 100)
-			parachuteState = parachuteState + 5;
-		
-		return (PARACHUTE_AREA/100) * parachuteState;
+		return parachuteArea * Math.min(Math.max((time - deployTime) / FILL_TIME, 0), 1);
 	}
 }
@@ -0,0 +1,55 @@
+package src.land;
+
+/**
+ * Proportional, integral and derivative feedback on one error signal. The integral is clamped so a saturated
+ * actuator does not wind it up, and the derivative is taken of the error between calls.
+ */
+public class PidController
+{
+	private final double proportional;
+	private final double integral;
+	private final double derivative;
+	private double integralLimit = Double.POSITIVE_INFINITY;
+
+	private double errorIntegral = 0;
+	private double previousError = Double.NaN;
+
+	public PidController(double proportional, double integral, double derivative)
+	{
+		this.proportional = proportional;
+		this.integral = integral;
+		this.derivative = derivative;
+	}
+
+	/**
+	 * @param integralLimit largest magnitude of the integral term's contribution to the output
+	 */
+	public void setIntegralLimit(double integralLimit)
+	{
+		this.integralLimit = integralLimit;
+	}
+
+	/**
+	 * @param error target minus measurement
+	 * @param stepSize time since the last update
+	 * @return controller output
+	 */
+	public double update(double error, double stepSize)
+	{
+		if(integral != 0)
+		{
+			errorIntegral += error * stepSize;
+			double limit = integralLimit / Math.abs(integral);
+			errorIntegral = Math.min(Math.max(errorIntegral, -limit), limit);
+		}
+		double rate = Double.isNaN(previousError) ? 0 : (error - previousError) / stepSize;
+		previousError = error;
+		return proportional * error + integral * errorIntegral + derivative * rate;
+	}
+
+	public void reset()
+	{
+		errorIntegral = 0;
+		previousError = Double.NaN;
+	}
+}
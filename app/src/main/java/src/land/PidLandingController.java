@@ -0,0 +1,49 @@
+package src.land;
+
+/**
+ * Powered landing with three PID loops: the descent rate sets the throttle on top of the weight, the speed along
+ * the surface sets the lean the guidance asks for and the lean sets the side thrusters.
+ */
+public class PidLandingController extends PoweredDescentController
+{
+	public static final int GAINS = 7;
+
+	private final PidController vertical;
+	private final PidController attitude;
+	private final double lateral;
+
+	/**
+	 * @param gains vertical P, I and D, from descent rate error to acceleration; lateral, from speed along the
+	 * surface to lean; attitude P, I and D, from lean error to angular acceleration
+	 */
+	public PidLandingController(LanderBody body, double planetMass, double[] gains)
+	{
+		super(body, planetMass);
+		if(gains.length != GAINS)
+			throw new IllegalArgumentException("A PID landing controller needs " + GAINS + " gains");
+		vertical = new PidController(gains[0], gains[1], gains[2]);
+		vertical.setIntegralLimit(body.getMaxAcceleration());
+		lateral = gains[3];
+		attitude = new PidController(gains[4], gains[5], gains[6]);
+		attitude.setIntegralLimit(body.getMaxAngularAcceleration());
+	}
+
+	/**
+	 * @return gains tuned for the 6 t reference lander with a 30 kN engine, lit at {@link #DEFAULT_IGNITION_HEIGHT}
+	 * under its parachute: a small lateral gain keeps the lean shallow, and the attitude loop is heavily damped
+	 * as the side thrusters turn it slowly
+	 */
+	public static double[] defaultGains()
+	{
+		return new double[] {0.6, 0.08, 0.5, 0.06, 1, 0.1, 4};
+	}
+
+	@Override
+	protected void control(LanderState state, double planetRadius, double stepSize, LanderCommand command)
+	{
+		double targetVelocity = targetRadialVelocity(state.height(planetRadius));
+		command.throttle = throttle(gravity(state) + vertical.update(targetVelocity - state.radialVelocity(), stepSize));
+		double targetTilt = limitTilt(-lateral * state.horizontalVelocity());
+		command.torque = torque(attitude.update(targetTilt - state.tilt(), stepSize));
+	}
+}
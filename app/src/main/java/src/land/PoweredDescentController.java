@@ -0,0 +1,100 @@
+package src.land;
+
+import src.peng.NewtonGravityFunction;
+
+/**
+ * Common guidance for the controllers of a powered landing. Above the ignition height the engine and thrusters
+ * stay off and the lander falls, on its parachute if it has one. Below it the controllers follow a descent rate
+ * that falls linearly with height to the touchdown speed, and null the speed along the surface by leaning the
+ * thrust, no further than the largest tilt.
+ *
+ * Controllers keep state between steps, so use a new one for every descent.
+ */
+public abstract class PoweredDescentController implements AttitudeControl
+{
+	public static final double DEFAULT_IGNITION_HEIGHT = 2000;				// m
+	public static final double DEFAULT_TOUCHDOWN_SPEED = 1;				// m/s
+	public static final double DEFAULT_DESCENT_TIME = 20;				// s, height over the descent rate above touchdown speed
+	public static final double DEFAULT_MAX_TILT = Math.toRadians(20);
+
+	protected final LanderBody body;
+	private final double mu;
+	private double ignitionHeight = DEFAULT_IGNITION_HEIGHT;
+	private double touchdownSpeed = DEFAULT_TOUCHDOWN_SPEED;
+	private double descentTime = DEFAULT_DESCENT_TIME;
+	private double maxTilt = DEFAULT_MAX_TILT;
+
+	public PoweredDescentController(LanderBody body, double planetMass)
+	{
+		this.body = body;
+		this.mu = NewtonGravityFunction.GRAVITY * planetMass;
+	}
+
+	@Override
+	public void command(LanderState state, double planetRadius, double stepSize, LanderCommand command)
+	{
+		if(state.height(planetRadius) <= ignitionHeight)
+			control(state, planetRadius, stepSize, command);
+	}
+
+	/**
+	 * Set the engine and thrusters for a step below the ignition height
+	 */
+	protected abstract void control(LanderState state, double planetRadius, double stepSize, LanderCommand command);
+
+	/**
+	 * @param ignitionHeight m above the surface
+	 * @param touchdownSpeed m/s, the descent rate the guidance ends at
+	 * @param descentTime s, the descent rate above the touchdown speed is the height over this
+	 * @param maxTilt rad, largest lean the guidance asks for
+	 */
+	public void setGuidance(double ignitionHeight, double touchdownSpeed, double descentTime, double maxTilt)
+	{
+		if(!(descentTime > 0) || maxTilt < 0)
+			throw new IllegalArgumentException("Descent time must be positive and the largest tilt not negative");
+		this.ignitionHeight = ignitionHeight;
+		this.touchdownSpeed = touchdownSpeed;
+		this.descentTime = descentTime;
+		this.maxTilt = maxTilt;
+	}
+
+	/**
+	 * @return radial velocity the guidance asks for at the height, negative downwards
+	 */
+	protected double targetRadialVelocity(double height)
+	{
+		return -(touchdownSpeed + Math.max(0, height) / descentTime);
+	}
+
+	/**
+	 * @return acceleration of gravity at the lander
+	 */
+	protected double gravity(LanderState state)
+	{
+		double r = state.distance();
+		return mu / (r * r);
+	}
+
+	protected double limitTilt(double tilt)
+	{
+		return Math.min(Math.max(tilt, -maxTilt), maxTilt);
+	}
+
+	/**
+	 * @return acceleration as a throttle of the main engine, not yet clamped
+	 */
+	protected double throttle(double acceleration)
+	{
+		return acceleration / body.getMaxAcceleration();
+	}
+
+	/**
+	 * @return angular acceleration as a side thruster command, not yet clamped
+	 */
+	protected double torque(double angularAcceleration)
+	{
+		return angularAcceleration / body.getMaxAngularAcceleration();
+	}
+
+	public double getMaxTilt()		{return maxTilt;}
+}
@@ -0,0 +1,54 @@
+package src.land;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+
+/**
+ * Reads the comma separated tables shipped next to the landing classes: one row per line, lines starting
+ * with # are comments.
+ */
+final class ResourceTable
+{
+	private ResourceTable()
+	{
+	}
+
+	/**
+	 * @return the table by column, columns[j][i] is the value in column j of row i
+	 */
+	static double[][] read(String resourceName, int columns)
+	{
+		InputStream stream = ResourceTable.class.getResourceAsStream(resourceName);
+		if(stream == null)
+			throw new RuntimeException(resourceName + " Not found");
+
+		ArrayList<String[]> rows = new ArrayList<String[]>();
+		try(BufferedReader reader = new BufferedReader(new InputStreamReader(stream)))
+		{
+			String line;
+			while((line = reader.readLine()) != null)
+			{
+				line = line.strip();
+				if(line.isEmpty() || line.startsWith("#"))
+					continue;
+				String[] values = line.split(",");
+				if(values.length != columns)
+					throw new RuntimeException(resourceName + " has a row without " + columns + " values: " + line);
+				rows.add(values);
+			}
+		}
+		catch(IOException e)
+		{
+			throw new RuntimeException("Unable to read " + resourceName, e);
+		}
+
+		double[][] table = new double[columns][rows.size()];
+		for(int i = 0; i < rows.size(); i++)
+			for(int j = 0; j < columns; j++)
+				table[j][i] = Double.valueOf(rows.get(i)[j].strip());
+		return table;
+	}
+}
@@ -0,0 +1,64 @@
+package src.land;
+
+/**
+ * Mean, variance and range of a stream of values without keeping the values, using Welford's update.
+ * Two statistics gathered apart can be merged, so parallel runs can each keep their own and combine at the end.
+ */
+public class RunningStatistics
+{
+	private long count = 0;
+	private double mean = 0;
+	private double sumOfSquares = 0;		// Sum of squared differences from the mean
+	private double min = Double.POSITIVE_INFINITY;
+	private double max = Double.NEGATIVE_INFINITY;
+
+	public void add(double value)
+	{
+		count++;
+		double delta = value - mean;
+		mean += delta / count;
+		sumOfSquares += delta * (value - mean);
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+	}
+
+	/**
+	 * Add every value the other statistics have seen (Chan et al. pairwise combination)
+	 */
+	public void merge(RunningStatistics other)
+	{
+		if(other.count == 0)
+			return;
+		long total = count + other.count;
+		double delta = other.mean - mean;
+		sumOfSquares += other.sumOfSquares + delta * delta * count * other.count / total;
+		mean += delta * other.count / total;
+		count = total;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+
+	public long getCount()		{return count;}
+	public double getMean()		{return count == 0 ? Double.NaN : mean;}
+	public double getMin()		{return min;}
+	public double getMax()		{return max;}
+
+	/**
+	 * @return sample variance, NaN for fewer than two values
+	 */
+	public double getVariance()
+	{
+		return count < 2 ? Double.NaN : sumOfSquares / (count - 1);
+	}
+
+	public double getStandardDeviation()
+	{
+		return Math.sqrt(getVariance());
+	}
+
+	@Override
+	public String toString()
+	{
+		return "mean " + getMean() + " sd " + getStandardDeviation() + " min " + min + " max " + max + " (" + count + ")";
+	}
+}
@@ -0,0 +1,157 @@
+package src.land;
+
+import java.util.SplittableRandom;
+
+/**
+ * An atmosphere given as a table of temperatures and pressures at measured heights, such as the Huygens HASI
+ * profile of Titan in {@link #titan}.
+ *
+ * The table is resampled once onto a uniform grid, the pressure interpolated in its logarithm between the
+ * measured heights, so a lookup in the landing loop is an index and a linear interpolation without a search
+ * or a call to Math.exp. With the default 1 km grid the interpolation is within 0.1% of the resampled profile.
+ */
+public class TabulatedAtmosphere implements AtmosphereModel
+{
+	public static final double GRID_SPACING = 1000;				// m
+	public static final double CORRELATION_HEIGHT = 20000;		// m, over which a perturbation of the pressure stays alike
+	private static final String TITAN_TABLE = "titan_atmosphere.csv";
+	private static TabulatedAtmosphere titan;
+
+	private final double bottom;
+	private final double top;
+	private final double spacing;
+	private final double[] temperatures;		// K, at every grid height from the bottom to the top
+	private final double[] pressures;			// bar
+
+	/**
+	 * @param heights above the surface in m, strictly increasing
+	 * @param temperatures in K at the heights
+	 * @param pressures in bar at the heights
+	 */
+	public TabulatedAtmosphere(double[] heights, double[] temperatures, double[] pressures)
+	{
+		this(heights, temperatures, pressures, GRID_SPACING);
+	}
+
+	public TabulatedAtmosphere(double[] heights, double[] temperatures, double[] pressures, double spacing)
+	{
+		if(heights.length < 2 || temperatures.length != heights.length || pressures.length != heights.length)
+			throw new IllegalArgumentException("A table needs at least two rows of height, temperature and pressure");
+		if(!(spacing > 0))
+			throw new IllegalArgumentException("Grid spacing must be positive");
+		for(int i = 0; i < heights.length; i++)
+		{
+			if(i > 0 && !(heights[i] > heights[i - 1]))
+				throw new IllegalArgumentException("Heights must be strictly increasing");
+			if(!(temperatures[i] > 0) || !(pressures[i] > 0))
+				throw new IllegalArgumentException("Temperatures and pressures must be positive");
+		}
+
+		bottom = heights[0];
+		top = heights[heights.length - 1];
+		int points = (int) Math.ceil((top - bottom) / spacing) + 1;
+		this.spacing = (top - bottom) / (points - 1);
+		this.temperatures = new double[points];
+		this.pressures = new double[points];
+		int row = 0;
+		for(int i = 0; i < points; i++)
+		{
+			double height = i == points - 1 ? top : bottom + i * this.spacing;
+			while(row < heights.length - 2 && height > heights[row + 1])
+				row++;
+			double fraction = (height - heights[row]) / (heights[row + 1] - heights[row]);
+			this.temperatures[i] = temperatures[row] + fraction * (temperatures[row + 1] - temperatures[row]);
+			this.pressures[i] = pressures[row] * Math.pow(pressures[row + 1] / pressures[row], fraction);
+		}
+	}
+
+	private TabulatedAtmosphere(TabulatedAtmosphere atmosphere, double[] pressures)
+	{
+		this.bottom = atmosphere.bottom;
+		this.top = atmosphere.top;
+		this.spacing = atmosphere.spacing;
+		this.temperatures = atmosphere.temperatures;
+		this.pressures = pressures;
+	}
+
+	/**
+	 * @return Titan's atmosphere from the surface to 600 km, read once from the table shipped with the lander
+	 */
+	public static synchronized TabulatedAtmosphere titan()
+	{
+		if(titan == null)
+			titan = load(TITAN_TABLE);
+		return titan;
+	}
+
+	/**
+	 * Read a table from a resource next to this class: comma separated height in km, temperature in K and
+	 * pressure in bar, one height per line, lines starting with # are comments
+	 */
+	public static TabulatedAtmosphere load(String resourceName)
+	{
+		double[][] table = ResourceTable.read(resourceName, 3);
+		double[] heights = table[0];
+		for(int i = 0; i < heights.length; i++)
+			heights[i] *= 1e3;
+		return new TabulatedAtmosphere(heights, table[1], table[2]);
+	}
+
+	/**
+	 * @return the pressure at the lowest height of the table below it and 0 above the highest
+	 */
+	@Override
+	public double pressure(double height)
+	{
+		if(height >= top)
+			return 0;
+		return interpolate(pressures, height);
+	}
+
+	@Override
+	public double temperature(double height)
+	{
+		return interpolate(temperatures, height);
+	}
+
+	/**
+	 * A copy with the pressure at every height multiplied by exp of a random offset. The offsets follow a first
+	 * order autoregressive process up the grid, each with standard deviation sigma and correlated over
+	 * {@link #CORRELATION_HEIGHT}, so layers denser or thinner than the table come out instead of one scale.
+	 * The temperatures are kept.
+	 */
+	@Override
+	public AtmosphereModel perturbed(SplittableRandom random, double sigma)
+	{
+		double correlation = Math.exp(-spacing / CORRELATION_HEIGHT);
+		double innovation = sigma * Math.sqrt(1 - correlation * correlation);
+		double[] perturbed = new double[pressures.length];
+		double offset = MonteCarloLanding.gaussian(random) * sigma;
+		for(int i = 0; i < pressures.length; i++)
+		{
+			if(i > 0)
+				offset = correlation * offset + MonteCarloLanding.gaussian(random) * innovation;
+			perturbed[i] = pressures[i] * Math.exp(offset);
+		}
+		return new TabulatedAtmosphere(this, perturbed);
+	}
+
+	public double getBottom()	{return bottom;}
+	public double getTop()		{return top;}
+	public double getSpacing()	{return spacing;}
+
+	/*
+	 * Linear interpolation on the uniform grid, clamped to the ends
+	 */
+	private double interpolate(double[] values, double height)
+	{
+		if(height <= bottom)
+			return values[0];
+		double index = (height - bottom) / spacing;
+		int i = (int) index;
+		if(i >= values.length - 1)
+			return values[values.length - 1];
+		double fraction = index - i;
+		return values[i] + fraction * (values[i + 1] - values[i]);
+	}
+}
@@ -0,0 +1,280 @@
+package src.land;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.DoubleFunction;
+import java.util.stream.IntStream;
+
+import src.peng.Vector3d;
+
+/**
+ * Sweeps the design of a parachute landing: flies one nominal descent for every configuration of the parameters
+ * that are varied, the rest held at their nominal values, and writes what each descent measured to a CSV file.
+ *
+ * A design is given by column, design[j][i] the value of the j-th varied parameter in configuration i, either a
+ * full grid or a Latin hypercube sample. Configurations run in blocks of {@link #BLOCK_SIZE}: a block is flown
+ * in parallel on the common fork join pool, which steals work between its threads as descents take different
+ * times, into one column of results per measurement, and then written out in order before the next block.
+ * Memory stays at one block however many configurations there are, and the file is the same whatever the
+ * number of threads.
+ */
+public class TradeStudy
+{
+	public static final int BLOCK_SIZE = 4096;
+	private static final String[] RESULTS = {"landed", "flight_time", "touchdown_speed", "downrange", "peak_deceleration", "delta_v"};
+
+	public enum Parameter
+	{
+		PARACHUTE_AREA(1000),											// m^2, as OpenLoopController
+		DEPLOY_HEIGHT(5000),											// m
+		BURN_HEIGHT(PoweredDescentController.DEFAULT_IGNITION_HEIGHT),	// m, only with a lander under power
+		LANDER_AREA(LandingController.LANDER_AREA),						// m^2
+		DRAG_COEFFICIENT(LandingController.DRAG_COEFFICIENT);
+
+		private final double nominal;
+
+		private Parameter(double nominal)
+		{
+			this.nominal = nominal;
+		}
+
+		public double getNominal()	{return nominal;}
+
+		/**
+		 * @return the name of the column in the output
+		 */
+		public String column()
+		{
+			return name().toLowerCase();
+		}
+	}
+
+	private final double planetMass;
+	private final double planetRadius;
+	private final Vector3d entryPosition;
+	private final Vector3d entryVelocity;
+	private final EnumMap<Parameter, double[]> ranges = new EnumMap<Parameter, double[]>(Parameter.class);
+	private AtmosphereModel atmosphere = new LinearAtmosphere();
+	private double stepSize = 1;						// s, as LandingController
+	private LanderBody body;							// Null for a descent on the parachute alone
+	private DoubleFunction<AttitudeControl> controls;
+
+	/**
+	 * Descents onto Titan from the top of the atmosphere, as {@link MonteCarloLanding}
+	 */
+	public TradeStudy()
+	{
+		this(MonteCarloLanding.TITAN_MASS, MonteCarloLanding.TITAN_RADIUS,
+				new Vector3d(MonteCarloLanding.TITAN_RADIUS + 600e3, 0, 0), new Vector3d(0, 1200, 0));
+	}
+
+	/**
+	 * @param entryPosition relative to the centre of the planet
+	 * @param entryVelocity relative to the planet
+	 */
+	public TradeStudy(double planetMass, double planetRadius, Vector3d entryPosition, Vector3d entryVelocity)
+	{
+		this.planetMass = planetMass;
+		this.planetRadius = planetRadius;
+		this.entryPosition = entryPosition;
+		this.entryVelocity = entryVelocity;
+	}
+
+	/**
+	 * Vary a parameter between the bounds, instead of holding it at its nominal value
+	 */
+	public void vary(Parameter parameter, double lower, double upper)
+	{
+		if(!(upper >= lower))
+			throw new IllegalArgumentException("Upper bound of " + parameter + " below its lower bound");
+		ranges.put(parameter, new double[] {lower, upper});
+	}
+
+	/**
+	 * @return the parameters varied, in the order of the columns of a design
+	 */
+	public List<Parameter> getParameters()
+	{
+		return new ArrayList<Parameter>(ranges.keySet());
+	}
+
+	public void setAtmosphere(AtmosphereModel atmosphere)
+	{
+		this.atmosphere = atmosphere;
+	}
+
+	public void setStepSize(double stepSize)
+	{
+		if(!(stepSize > 0))
+			throw new IllegalArgumentException("Step size must be positive");
+		this.stepSize = stepSize;
+	}
+
+	/**
+	 * Land under power below the parachute
+	 * @param controls makes a new controller for every descent given the height to start the engine at
+	 */
+	public void setLander(LanderBody body, DoubleFunction<AttitudeControl> controls)
+	{
+		this.body = body;
+		this.controls = controls;
+	}
+
+	/**
+	 * @param points values of every varied parameter, evenly spaced from its lower to its upper bound
+	 * @return all points^parameters combinations, the last parameter changing fastest
+	 */
+	public double[][] grid(int points)
+	{
+		if(points < 2)
+			throw new IllegalArgumentException("A grid needs at least two points per parameter");
+		if(ranges.isEmpty())
+			throw new IllegalStateException("No parameter is varied");
+		List<double[]> bounds = new ArrayList<double[]>(ranges.values());
+		double size = Math.pow(points, bounds.size());
+		if(size > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("A grid of " + size + " configurations is too large");
+
+		double[][] design = new double[bounds.size()][(int) size];
+		for(int i = 0; i < design[0].length; i++)
+		{
+			int index = i;
+			for(int j = bounds.size() - 1; j >= 0; j--)
+			{
+				double[] range = bounds.get(j);
+				design[j][i] = range[0] + (range[1] - range[0]) * (index % points) / (points - 1);
+				index /= points;
+			}
+		}
+		return design;
+	}
+
+	/**
+	 * Split the range of every varied parameter into as many strata as samples and take each stratum exactly
+	 * once, at a random point in it, the strata of the parameters paired at random
+	 */
+	public double[][] latinHypercube(int samples, long seed)
+	{
+		if(samples < 1)
+			throw new IllegalArgumentException("At least one sample is needed");
+		SplittableRandom random = new SplittableRandom(seed);
+		List<double[]> bounds = new ArrayList<double[]>(ranges.values());
+		double[][] design = new double[bounds.size()][samples];
+		int[] strata = new int[samples];
+		for(int j = 0; j < bounds.size(); j++)
+		{
+			for(int i = 0; i < samples; i++)
+				strata[i] = i;
+			for(int i = samples - 1; i > 0; i--)
+			{
+				int other = random.nextInt(i + 1);
+				int swap = strata[i];
+				strata[i] = strata[other];
+				strata[other] = swap;
+			}
+			double[] range = bounds.get(j);
+			for(int i = 0; i < samples; i++)
+				design[j][i] = range[0] + (range[1] - range[0]) * (strata[i] + random.nextDouble()) / samples;
+		}
+		return design;
+	}
+
+	/**
+	 * Fly the descent of one configuration
+	 * @param values of the varied parameters, in the order of {@link #getParameters}
+	 */
+	public Descent fly(double[] values)
+	{
+		if(values.length != ranges.size())
+			throw new IllegalArgumentException("Expected " + ranges.size() + " values, one per varied parameter");
+		if(body == null && ranges.containsKey(Parameter.BURN_HEIGHT))
+			throw new IllegalStateException("Varying the burn height needs a lander");
+
+		double[] configuration = new double[Parameter.values().length];
+		for(Parameter parameter : Parameter.values())
+			configuration[parameter.ordinal()] = parameter.getNominal();
+		int j = 0;
+		for(Parameter parameter : ranges.keySet())
+			configuration[parameter.ordinal()] = values[j++];
+
+		OpenLoopController parachute = new OpenLoopController(configuration[Parameter.DEPLOY_HEIGHT.ordinal()], configuration[Parameter.PARACHUTE_AREA.ordinal()]);
+		parachute.setRecording(false);
+		parachute.setLanderArea(configuration[Parameter.LANDER_AREA.ordinal()]);
+		LanderPropagator propagator = new LanderPropagator(planetMass, planetRadius, stepSize);
+		propagator.setAtmosphere(atmosphere);
+		propagator.setDragCoefficient(configuration[Parameter.DRAG_COEFFICIENT.ordinal()]);
+		LanderState state = new LanderState(entryPosition, entryVelocity);
+		state.area = configuration[Parameter.LANDER_AREA.ordinal()];
+		AttitudeControl control = body == null ? null : controls.apply(configuration[Parameter.BURN_HEIGHT.ordinal()]);
+		propagator.propagate(state, parachute, body, control, parachute, null, 0);
+		return propagator;
+	}
+
+	/**
+	 * Fly every configuration of the design and write a line of CSV for each: the values of the varied
+	 * parameters, whether it landed (1 or 0), flight time, touchdown speed, downrange, peak deceleration and
+	 * the delta v of the lander's controls
+	 * @param design by column, as from {@link #grid} or {@link #latinHypercube}
+	 * @return number of configurations that landed
+	 */
+	public int run(double[][] design, Writer out)
+	{
+		if(design.length != ranges.size())
+			throw new IllegalArgumentException("Expected " + ranges.size() + " columns, one per varied parameter");
+		int configurations = design.length == 0 ? 0 : design[0].length;
+		double[][] results = new double[RESULTS.length][Math.min(BLOCK_SIZE, configurations)];
+		StringBuilder text = new StringBuilder();
+		int landings = 0;
+		try
+		{
+			for(Parameter parameter : ranges.keySet())
+				text.append(parameter.column()).append(',');
+			out.append(text).append(String.join(",", RESULTS)).append('\n');
+
+			for(int start = 0; start < configurations; start += BLOCK_SIZE)
+			{
+				int first = start;
+				int length = Math.min(BLOCK_SIZE, configurations - start);
+				IntStream.range(0, length).parallel().forEach(i ->
+				{
+					double[] values = new double[design.length];
+					for(int j = 0; j < design.length; j++)
+						values[j] = design[j][first + i];
+					Descent descent = fly(values);
+					Vector3d touchdown = descent.getTouchdownPosition();
+					double x = touchdown.getX() * entryPosition.getX() + touchdown.getY() * entryPosition.getY();
+					double y = entryPosition.getX() * touchdown.getY() - entryPosition.getY() * touchdown.getX();
+					results[0][i] = descent.hasLanded() ? 1 : 0;
+					results[1][i] = descent.getFlightTime();
+					results[2][i] = descent.getTouchdownVelocity().norm();
+					results[3][i] = planetRadius * Math.atan2(y, x);			// Anticlockwise from the entry point
+					results[4][i] = descent.getPeakDeceleration();
+					results[5][i] = descent.getControllerDeltaV();
+				});
+
+				text.setLength(0);
+				for(int i = 0; i < length; i++)
+				{
+					for(int j = 0; j < design.length; j++)
+						text.append(design[j][first + i]).append(',');
+					text.append((int) results[0][i]);
+					for(int k = 1; k < RESULTS.length; k++)
+						text.append(',').append(results[k][i]);
+					text.append('\n');
+					landings += (int) results[0][i];
+				}
+				out.append(text);
+			}
+			out.flush();
+		}
+		catch(IOException e)
+		{
+			throw new RuntimeException("Unable to write the trade study", e);
+		}
+		return landings;
+	}
+}
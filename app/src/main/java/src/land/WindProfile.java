@@ -0,0 +1,102 @@
+package src.land;
+
+import java.util.SplittableRandom;
+
+/**
+ * Steady horizontal wind against height, such as the zonal wind Huygens measured on Titan in {@link #titan}.
+ * The profile is resampled once onto a uniform grid so a lookup is an index and a linear interpolation.
+ */
+public class WindProfile implements Disturbance
+{
+	public static final double GRID_SPACING = 1000;		// m
+	private static final String TITAN_TABLE = "titan_wind.csv";
+	private static WindProfile titan;
+
+	private final double bottom;
+	private final double spacing;
+	private final double[] winds;			// m/s, at every grid height from the bottom to the top of the table
+	private double wind = 0;
+
+	/**
+	 * @param heights above the surface in m, strictly increasing
+	 * @param winds along the surface at the heights, m/s, positive anticlockwise
+	 */
+	public WindProfile(double[] heights, double[] winds)
+	{
+		if(heights.length < 2 || winds.length != heights.length)
+			throw new IllegalArgumentException("A wind profile needs at least two rows of height and wind");
+		for(int i = 1; i < heights.length; i++)
+			if(!(heights[i] > heights[i - 1]))
+				throw new IllegalArgumentException("Heights must be strictly increasing");
+
+		bottom = heights[0];
+		double top = heights[heights.length - 1];
+		int points = (int) Math.ceil((top - bottom) / GRID_SPACING) + 1;
+		spacing = (top - bottom) / (points - 1);
+		this.winds = new double[points];
+		int row = 0;
+		for(int i = 0; i < points; i++)
+		{
+			double height = i == points - 1 ? top : bottom + i * spacing;
+			while(row < heights.length - 2 && height > heights[row + 1])
+				row++;
+			double fraction = (height - heights[row]) / (heights[row + 1] - heights[row]);
+			this.winds[i] = winds[row] + fraction * (winds[row + 1] - winds[row]);
+		}
+	}
+
+	private WindProfile(WindProfile profile)
+	{
+		this.bottom = profile.bottom;
+		this.spacing = profile.spacing;
+		this.winds = profile.winds;
+	}
+
+	/**
+	 * @return Titan's zonal wind up to 140 km, read once from the table shipped with the lander
+	 */
+	public static synchronized WindProfile titan()
+	{
+		if(titan == null)
+		{
+			double[][] table = ResourceTable.read(TITAN_TABLE, 2);
+			for(int i = 0; i < table[0].length; i++)
+				table[0][i] *= 1e3;
+			titan = new WindProfile(table[0], table[1]);
+		}
+		return titan;
+	}
+
+	/**
+	 * @return wind at the height, the wind at the ends of the table beyond them
+	 */
+	public double windAt(double height)
+	{
+		if(height <= bottom)
+			return winds[0];
+		double index = (height - bottom) / spacing;
+		int i = (int) index;
+		if(i >= winds.length - 1)
+			return winds[winds.length - 1];
+		double fraction = index - i;
+		return winds[i] + fraction * (winds[i + 1] - winds[i]);
+	}
+
+	@Override
+	public void update(double height, double stepSize)
+	{
+		wind = windAt(height);
+	}
+
+	@Override public double getHorizontalWind()	{return wind;}
+	@Override public double getVerticalWind()	{return 0;}
+
+	/**
+	 * @return a copy sharing the table, as the wind of the last update is kept
+	 */
+	@Override
+	public Disturbance sample(SplittableRandom random)
+	{
+		return new WindProfile(this);
+	}
+}
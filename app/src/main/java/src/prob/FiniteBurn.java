@@ -0,0 +1,93 @@
+package src.prob;
+
+import src.peng.Vector3d;
+
+/**
+ * An arc of thrust: the engine of a {@link Spacecraft} held at a throttle along a fixed direction from a start
+ * time for a duration, the mass falling with the mass flow as it burns. The engine cuts out once the tank is
+ * empty, however long the burn was planned for. Times are seconds from the start of the propagation the burn is
+ * flown in.
+ */
+public final class FiniteBurn
+{
+	private final double startTime;
+	private final double duration;
+	private final Vector3d direction;		// Unit vector
+	private final double throttle;			// Of full thrust, in (0, 1]
+
+	public FiniteBurn(double startTime, double duration, Vector3d direction, double throttle)
+	{
+		if(duration < 0 || !(throttle > 0) || throttle > 1)
+			throw new IllegalArgumentException("Duration must not be negative and throttle in (0, 1]");
+		if(!(direction.norm() > 0))
+			throw new IllegalArgumentException("A burn needs a direction");
+		this.startTime = startTime;
+		this.duration = duration;
+		this.direction = direction.unitVector();
+		this.throttle = throttle;
+	}
+
+	/**
+	 * The finite burn at full throttle that stands in for an impulsive one, centred on the time of the impulse
+	 * so the loss from burning over an arc is split either side of it
+	 * @param spacecraft as it is before the burn
+	 * @param time s, of the impulsive burn
+	 */
+	public static FiniteBurn centred(Spacecraft spacecraft, double time, Vector3d deltaV)
+	{
+		double duration = spacecraft.getBurnTime(deltaV.norm());
+		return new FiniteBurn(time - duration / 2, duration, deltaV, 1);
+	}
+
+	/**
+	 * @return s of the burn between the two times
+	 */
+	public double overlap(double from, double to)
+	{
+		return Math.max(0, Math.min(to, startTime + duration) - Math.max(from, startTime));
+	}
+
+	/**
+	 * @param spacecraft as it is at the first of the two times
+	 * @return s the engine runs between the two times, less than the overlap if the fuel runs out first
+	 */
+	public double thrustTime(Spacecraft spacecraft, double from, double to)
+	{
+		return fuelled(spacecraft, overlap(from, to));
+	}
+
+	/**
+	 * @return the spacecraft after the part of the burn between the two times
+	 */
+	public Spacecraft apply(Spacecraft spacecraft, double from, double to)
+	{
+		return burnFor(spacecraft, thrustTime(spacecraft, from, to));
+	}
+
+	/**
+	 * @return the spacecraft after the whole burn
+	 */
+	public Spacecraft apply(Spacecraft spacecraft)
+	{
+		return burnFor(spacecraft, fuelled(spacecraft, duration));
+	}
+
+	private Spacecraft burnFor(Spacecraft spacecraft, double seconds)
+	{
+		Spacecraft after = spacecraft.burnFor(throttle * seconds);
+		return after.getFuelMass() < 0 ? after.withFuel(0) : after;		// Rounding of a burn that empties the tank
+	}
+
+	private double fuelled(Spacecraft spacecraft, double seconds)
+	{
+		if(!(spacecraft.getFuelMass() > 0))
+			return 0;
+		return Math.min(seconds, spacecraft.getFuelMass() / (throttle * spacecraft.getMassFlow()));
+	}
+
+	public double getStartTime()		{return startTime;}
+	public double getEndTime()			{return startTime + duration;}
+	public double getDuration()			{return duration;}
+	public Vector3d getDirection()		{return direction;}
+	public double getThrottle()			{return throttle;}
+}
@@ -2,64 +2,107 @@ package src.prob;
 
 import src.peng.Vector3d;
 
-public class Probe 
+/**
+ * The probe of the mission as it flies, holding its {@link Spacecraft}. Planning and parallel evaluation take
+ * a Spacecraft of their own instead of the probe.
+ */
+public class Probe
 {
-	private final double EXHAUST_VELOCITY = 2e4;	// m/s
-	private final double DRY_MASS = 7.8e4;			// kg
-	private final double LANDER_MASS = 6e3;			// kg
-	
-	private double fuelMass = 1e5;
-	private boolean landerAttached = true;
-	
+	static final double EXHAUST_VELOCITY = 2e4;	// m/s
+	static final double DRY_MASS = 7.8e4;			// kg
+	static final double LANDER_MASS = 6e3;			// kg
+	static final double FUEL_MASS = 1e5;			// kg
+
+	private Spacecraft spacecraft = Spacecraft.probe();
+
 	private static Probe instance;
-	
+
 	private Probe()
 	{
 		// Left private for singleton
 	}
-	
-	public static Probe getInstance()
+
+	public static synchronized Probe getInstance()
 	{
 		if(instance == null)
-			instance = new Probe();				
+			instance = new Probe();
 		return instance;
 	}
-	
+
 	public double getMass()
 	{
-		double totalMass = DRY_MASS + fuelMass;
-		
-		if(landerAttached)
-			totalMass += LANDER_MASS;
-		
-		return totalMass;
+		return spacecraft.getMass();
 	}
-	
+
 	public void releaseLander()
 	{
-		landerAttached = false;
+		spacecraft = spacecraft.releaseLander();
+	}
+
+	/**
+	 * Impulsive burn from one velocity to the other, the fuel from the rocket equation
+	 */
+	public void burn(Vector3d startVelocity, Vector3d finishVelocity)
+	{
+		spacecraft = spacecraft.burn(finishVelocity.dist(startVelocity));
 	}
-		
+
+	/**
+	 * Impulsive burn as {@link #burn(Vector3d, Vector3d)}, the fuel of an impulse does not depend on the step size
+	 * @param stepSize ignored
+	 */
 	public void burn(Vector3d startVelocity, Vector3d finishVelocity, double stepSize)
-	{		
-		// (mass * (v2 - v1) / t) / (2e4 * t)
-		Vector3d deltaVelocity = finishVelocity.sub(startVelocity);
-		double deltaVelocityNorm = Math.abs(deltaVelocity.norm());
-		double acceleration = deltaVelocityNorm / stepSize;
-		double massOfFuelUsed = (getMass() * acceleration)/(EXHAUST_VELOCITY * stepSize);
-
-		fuelMass = fuelMass - massOfFuelUsed;	
+	{
+		burn(startVelocity, finishVelocity);
 	}
-	
+
 	public double getFuelMass()
 	{
-		return fuelMass;
+		return spacecraft.getFuelMass();
+	}
+
+	/**
+	 * Rocket equation, does not change the fuel on board
+	 * @param mass total mass before the burn
+	 * @param deltaV impulsive change of speed
+	 * @return mass of fuel the burn uses
+	 */
+	public double fuelForDeltaV(double mass, double deltaV)
+	{
+		return spacecraft.fuelForDeltaV(mass, deltaV);
+	}
+
+	public double getExhaustVelocity()
+	{
+		return spacecraft.getExhaustVelocity();
+	}
+
+	public double getDryMass()
+	{
+		return DRY_MASS;
+	}
+
+	public double getLanderMass()
+	{
+		return LANDER_MASS;
 	}
-	
+
+	public boolean isLanderAttached()
+	{
+		return spacecraft.isLanderAttached();
+	}
+
+	/**
+	 * @return the probe as it is now, a value that later burns do not change
+	 */
+	public Spacecraft getSpacecraft()
+	{
+		return spacecraft;
+	}
+
 	public void reset()
 	{
-		fuelMass = 1e5;
-		landerAttached = true;
+		spacecraft = Spacecraft.probe();
 	}
-		
+
 }
@@ -0,0 +1,170 @@
+package src.prob;
+
+/**
+ * Mass and engine of a spacecraft as an immutable value: every burn gives a new spacecraft, so each optimiser
+ * candidate or parallel evaluation can carry its own without sharing the {@link Probe}.
+ *
+ * The engine has a specific impulse and a thrust, from which its mass flow follows. Burns use the rocket
+ * equation. A plan that needs more fuel than is carried is not refused, it leaves negative fuel, see
+ * {@link #hasFuel}.
+ */
+public final class Spacecraft
+{
+	public static final double STANDARD_GRAVITY = 9.80665;			// m/s^2, relates specific impulse to exhaust velocity
+	public static final double PROBE_THRUST = 4e5;					// N, assumed for the probe's main engine
+
+	private final double dryMass;			// kg
+	private final double fuelMass;			// kg
+	private final double landerMass;		// kg, 0 once released
+	private final double specificImpulse;	// s
+	private final double thrust;			// N, at full throttle
+
+	/**
+	 * @param specificImpulse s, the exhaust velocity over standard gravity
+	 * @param thrust N at full throttle
+	 */
+	public Spacecraft(double dryMass, double fuelMass, double landerMass, double specificImpulse, double thrust)
+	{
+		if(!(dryMass > 0) || landerMass < 0)
+			throw new IllegalArgumentException("Dry mass must be positive and lander mass not negative");
+		if(!(specificImpulse > 0) || thrust < 0)
+			throw new IllegalArgumentException("Specific impulse must be positive and thrust not negative");
+		this.dryMass = dryMass;
+		this.fuelMass = fuelMass;
+		this.landerMass = landerMass;
+		this.specificImpulse = specificImpulse;
+		this.thrust = thrust;
+	}
+
+	/**
+	 * @return the probe fully fuelled with the lander on board, with the masses and exhaust velocity of {@link Probe}
+	 */
+	public static Spacecraft probe()
+	{
+		return new Spacecraft(Probe.DRY_MASS, Probe.FUEL_MASS, Probe.LANDER_MASS, Probe.EXHAUST_VELOCITY / STANDARD_GRAVITY, PROBE_THRUST);
+	}
+
+	public double getMass()
+	{
+		return dryMass + fuelMass + landerMass;
+	}
+
+	public double getExhaustVelocity()
+	{
+		return specificImpulse * STANDARD_GRAVITY;
+	}
+
+	/**
+	 * @return kg/s the engine burns at full throttle
+	 */
+	public double getMassFlow()
+	{
+		return thrust / getExhaustVelocity();
+	}
+
+	/**
+	 * @return the change of speed the fuel on board still gives
+	 */
+	public double getDeltaVCapacity()
+	{
+		if(!hasFuel())
+			return 0;
+		return getExhaustVelocity() * Math.log(getMass() / (getMass() - fuelMass));
+	}
+
+	/**
+	 * @return false if more fuel has been burnt than was carried
+	 */
+	public boolean hasFuel()
+	{
+		return fuelMass >= 0;
+	}
+
+	/**
+	 * Rocket equation
+	 * @param mass total mass before the burn
+	 * @param deltaV impulsive change of speed
+	 * @return mass of fuel the burn uses
+	 */
+	public double fuelForDeltaV(double mass, double deltaV)
+	{
+		return mass * (1 - Math.exp(-deltaV / getExhaustVelocity()));
+	}
+
+	/**
+	 * @return mass of fuel the burn uses from the spacecraft as it is
+	 */
+	public double fuelForDeltaV(double deltaV)
+	{
+		return fuelForDeltaV(getMass(), deltaV);
+	}
+
+	/**
+	 * @return s the engine takes at full throttle to give the change of speed
+	 */
+	public double getBurnTime(double deltaV)
+	{
+		if(thrust == 0)
+			return deltaV == 0 ? 0 : Double.POSITIVE_INFINITY;
+		return fuelForDeltaV(deltaV) / getMassFlow();
+	}
+
+	/**
+	 * @return the spacecraft after an impulsive burn
+	 */
+	public Spacecraft burn(double deltaV)
+	{
+		return withFuel(fuelMass - fuelForDeltaV(deltaV));
+	}
+
+	/**
+	 * @return the spacecraft after the engine has run for the time at full throttle
+	 */
+	public Spacecraft burnFor(double seconds)
+	{
+		return withFuel(fuelMass - getMassFlow() * seconds);
+	}
+
+	public Spacecraft withFuel(double fuelMass)
+	{
+		return new Spacecraft(dryMass, fuelMass, landerMass, specificImpulse, thrust);
+	}
+
+	public Spacecraft releaseLander()
+	{
+		return new Spacecraft(dryMass, fuelMass, 0, specificImpulse, thrust);
+	}
+
+	public double getDryMass()				{return dryMass;}
+	public double getFuelMass()				{return fuelMass;}
+	public double getLanderMass()			{return landerMass;}
+	public double getSpecificImpulse()		{return specificImpulse;}
+	public double getThrust()				{return thrust;}
+	public boolean isLanderAttached()		{return landerMass > 0;}
+
+	@Override
+	public boolean equals(Object o)
+	{
+		if(!(o instanceof Spacecraft))
+			return false;
+		Spacecraft other = (Spacecraft) o;
+		return dryMass == other.dryMass && fuelMass == other.fuelMass && landerMass == other.landerMass
+				&& specificImpulse == other.specificImpulse && thrust == other.thrust;
+	}
+
+	@Override
+	public int hashCode()
+	{
+		int hash = Double.hashCode(dryMass);
+		hash = 31 * hash + Double.hashCode(fuelMass);
+		hash = 31 * hash + Double.hashCode(landerMass);
+		hash = 31 * hash + Double.hashCode(specificImpulse);
+		return 31 * hash + Double.hashCode(thrust);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "Spacecraft of " + getMass() + " kg with " + fuelMass + " kg of fuel, Isp " + specificImpulse + " s, thrust " + thrust + " N";
+	}
+}
@@ -0,0 +1,250 @@
+package src.traj;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Covariance matrix adaptation evolution strategy, following Hansen's tutorial (arXiv:1604.00772).
+ * Samples a generation from a multivariate normal distribution, moves the mean towards the better half
+ * and adapts step size and covariance from the successful steps, so it learns the scaling and
+ * correlation of the velocity components instead of searching along fixed axes.
+ */
+public class CMAES implements Optimizer
+{
+	private final Random random;
+
+	public CMAES()
+	{
+		this(new Random());
+	}
+
+	public CMAES(long seed)
+	{
+		this(new Random(seed));
+	}
+
+	private CMAES(Random random)
+	{
+		this.random = random;
+	}
+
+	@Override
+	public double[] minimize(FitnessEvaluator evaluator, double[] start, double[] scale, double tolerance, int maxEvaluations)
+	{
+		int n = start.length;
+		int lambda = 4 + (int) Math.floor(3 * Math.log(n));
+		int mu = lambda / 2;
+		double[] weights = new double[mu];
+		double sum = 0;
+		for(int i = 0; i < mu; i++)
+		{
+			weights[i] = Math.log(mu + 0.5) - Math.log(i + 1);
+			sum += weights[i];
+		}
+		double squares = 0;
+		for(int i = 0; i < mu; i++)
+		{
+			weights[i] /= sum;
+			squares += weights[i] * weights[i];
+		}
+		double muEff = 1 / squares;
+
+		// Adaptation constants
+		double cSigma = (muEff + 2) / (n + muEff + 5);
+		double dSigma = 1 + 2 * Math.max(0, Math.sqrt((muEff - 1) / (n + 1)) - 1) + cSigma;
+		double cc = (4 + muEff / n) / (n + 4 + 2 * muEff / n);
+		double c1 = 2 / ((n + 1.3) * (n + 1.3) + muEff);
+		double cMu = Math.min(1 - c1, 2 * (muEff - 2 + 1 / muEff) / ((n + 2) * (n + 2) + muEff));
+		double chiN = Math.sqrt(n) * (1 - 1.0 / (4 * n) + 1.0 / (21 * n * n));
+
+		double[] mean = start.clone();
+		double sigma = 1;
+		double[][] c = new double[n][n];
+		for(int i = 0; i < n; i++)
+		{
+			c[i][i] = scale[i] * scale[i];
+		}
+		double[] pSigma = new double[n];
+		double[] pc = new double[n];
+		double[][] b = new double[n][n];
+		double[] d = new double[n];
+		decompose(c, b, d);
+
+		double[] best = start.clone();
+		double bestValue = evaluator.evaluate(start);
+		int evaluations = 1;
+
+		for(int generation = 0; evaluations + lambda <= maxEvaluations; generation++)
+		{
+			double[][] y = new double[lambda][n];
+			double[][] x = new double[lambda][n];
+			for(int k = 0; k < lambda; k++)
+			{
+				double[] z = new double[n];
+				for(int i = 0; i < n; i++)
+				{
+					z[i] = d[i] * random.nextGaussian();
+				}
+				for(int i = 0; i < n; i++)
+				{
+					for(int j = 0; j < n; j++)
+					{
+						y[k][i] += b[i][j] * z[j];
+					}
+					x[k][i] = mean[i] + sigma * y[k][i];
+				}
+			}
+			double[] values = evaluator.evaluate(x);
+			evaluations += lambda;
+
+			Integer[] order = new Integer[lambda];
+			for(int k = 0; k < lambda; k++)
+			{
+				order[k] = k;
+			}
+			Arrays.sort(order, (p, q) -> Double.compare(values[p], values[q]));
+			if(values[order[0]] < bestValue)
+			{
+				bestValue = values[order[0]];
+				best = x[order[0]].clone();
+			}
+
+			// Weighted recombination of the best mu steps
+			double[] yw = new double[n];
+			for(int k = 0; k < mu; k++)
+			{
+				for(int i = 0; i < n; i++)
+				{
+					yw[i] += weights[k] * y[order[k]][i];
+				}
+			}
+			for(int i = 0; i < n; i++)
+			{
+				mean[i] += sigma * yw[i];
+			}
+
+			// Evolution paths, pSigma uses C^-1/2 yw = B D^-1 B^T yw
+			double[] btyw = new double[n];
+			for(int i = 0; i < n; i++)
+			{
+				for(int j = 0; j < n; j++)
+				{
+					btyw[i] += b[j][i] * yw[j];
+				}
+				btyw[i] /= d[i];
+			}
+			double pSigmaNorm = 0;
+			for(int i = 0; i < n; i++)
+			{
+				double whitened = 0;
+				for(int j = 0; j < n; j++)
+				{
+					whitened += b[i][j] * btyw[j];
+				}
+				pSigma[i] = (1 - cSigma) * pSigma[i] + Math.sqrt(cSigma * (2 - cSigma) * muEff) * whitened;
+				pSigmaNorm += pSigma[i] * pSigma[i];
+			}
+			pSigmaNorm = Math.sqrt(pSigmaNorm);
+			boolean hSigma = pSigmaNorm / Math.sqrt(1 - Math.pow(1 - cSigma, 2 * (generation + 1))) < (1.4 + 2.0 / (n + 1)) * chiN;
+			for(int i = 0; i < n; i++)
+			{
+				pc[i] = (1 - cc) * pc[i] + (hSigma ? Math.sqrt(cc * (2 - cc) * muEff) * yw[i] : 0);
+			}
+
+			// Rank one and rank mu covariance update
+			double lostVariance = hSigma ? 0 : c1 * cc * (2 - cc);
+			for(int i = 0; i < n; i++)
+			{
+				for(int j = 0; j <= i; j++)
+				{
+					double rankMu = 0;
+					for(int k = 0; k < mu; k++)
+					{
+						rankMu += weights[k] * y[order[k]][i] * y[order[k]][j];
+					}
+					c[i][j] = (1 - c1 - cMu + lostVariance) * c[i][j] + c1 * pc[i] * pc[j] + cMu * rankMu;
+					c[j][i] = c[i][j];
+				}
+			}
+			sigma *= Math.exp((cSigma / dSigma) * (pSigmaNorm / chiN - 1));
+			decompose(c, b, d);
+
+			double largest = 0;
+			for(int i = 0; i < n; i++)
+			{
+				largest = Math.max(largest, d[i]);
+			}
+			if(sigma * largest < tolerance)
+				break;
+		}
+		return best;
+	}
+
+	/**
+	 * Jacobi eigenvalue iteration for the symmetric covariance, C = B diag(d^2) B^T.
+	 * The problems here have a handful of dimensions, where this is simple and exact enough.
+	 */
+	private static void decompose(double[][] c, double[][] b, double[] d)
+	{
+		int n = c.length;
+		double[][] a = new double[n][];
+		for(int i = 0; i < n; i++)
+		{
+			a[i] = c[i].clone();
+			Arrays.fill(b[i], 0);
+			b[i][i] = 1;
+		}
+		for(int sweep = 0; sweep < 50; sweep++)
+		{
+			double offDiagonal = 0;
+			for(int p = 0; p < n; p++)
+			{
+				for(int q = p + 1; q < n; q++)
+				{
+					offDiagonal += a[p][q] * a[p][q];
+				}
+			}
+			if(offDiagonal < 1e-30)
+				break;
+			for(int p = 0; p < n; p++)
+			{
+				for(int q = p + 1; q < n; q++)
+				{
+					if(a[p][q] == 0)
+						continue;
+					double theta = (a[q][q] - a[p][p]) / (2 * a[p][q]);
+					double t = Math.signum(theta) / (Math.abs(theta) + Math.sqrt(theta * theta + 1));
+					if(theta == 0)
+						t = 1;
+					double cos = 1 / Math.sqrt(t * t + 1);
+					double sin = t * cos;
+					for(int k = 0; k < n; k++)
+					{
+						double akp = a[k][p];
+						double akq = a[k][q];
+						a[k][p] = cos * akp - sin * akq;
+						a[k][q] = sin * akp + cos * akq;
+					}
+					for(int k = 0; k < n; k++)
+					{
+						double apk = a[p][k];
+						double aqk = a[q][k];
+						a[p][k] = cos * apk - sin * aqk;
+						a[q][k] = sin * apk + cos * aqk;
+					}
+					for(int k = 0; k < n; k++)
+					{
+						double bkp = b[k][p];
+						double bkq = b[k][q];
+						b[k][p] = cos * bkp - sin * bkq;
+						b[k][q] = sin * bkp + cos * bkq;
+					}
+				}
+			}
+		}
+		for(int i = 0; i < n; i++)
+		{
+			d[i] = Math.sqrt(Math.max(a[i][i], 1e-300));
+		}
+	}
+}
@@ -0,0 +1,157 @@
+package src.traj;
+
+import src.peng.Vector3d;
+
+/**
+ * Follows the distance between the probe and a body while a route is propagated, so the closest approach is
+ * known without keeping or scanning the trajectory afterwards. Around every local minimum of the sampled
+ * distance the relative motion is interpolated with cubic Hermite polynomials, from the positions and velocities
+ * at the neighbouring steps, which places the closest approach between steps instead of on the nearest one.
+ *
+ * Once the probe moves away from the body and is further than a given multiple of the closest approach so far
+ * the tracker reports it as receding, and a propagator can stop there.
+ */
+public class ClosestApproachTracker
+{
+	public static final double NEVER = Double.POSITIVE_INFINITY;		// Receding factor that never stops a route
+	private static final int REFINEMENT_ITERATIONS = 40;				// Golden section, shrinks the step by 1e-8
+	private static final double GOLDEN = (Math.sqrt(5) - 1) / 2;
+
+	private final int target;
+	private final double recedingFactor;
+
+	// The last three samples, oldest first
+	private final double[] times = new double[3];
+	private final Vector3d[] probePositions = new Vector3d[3];
+	private final Vector3d[] probeVelocities = new Vector3d[3];
+	private final Vector3d[] relativePositions = new Vector3d[3];
+	private final Vector3d[] relativeVelocities = new Vector3d[3];
+	private final double[] distances = new double[3];
+	private int samples = 0;
+
+	private double distance = Double.POSITIVE_INFINITY;
+	private double time = Double.NaN;
+	private Vector3d point;
+	private boolean receding = false;
+
+	/**
+	 * Track a body without ever reporting the probe as receding
+	 * @param target index of the body in the state
+	 */
+	public ClosestApproachTracker(int target)
+	{
+		this(target, NEVER);
+	}
+
+	/**
+	 * @param recedingFactor report the probe as receding once it moves away further than this multiple of the closest approach
+	 */
+	public ClosestApproachTracker(int target, double recedingFactor)
+	{
+		if(recedingFactor < 1)
+		{
+			throw new IllegalArgumentException("Receding factor must be at least 1");
+		}
+		this.target = target;
+		this.recedingFactor = recedingFactor;
+	}
+
+	/**
+	 * Add the state of the probe and the body at the next step
+	 * @param time seconds, increasing from one call to the next
+	 */
+	public void observe(double time, Vector3d probePosition, Vector3d probeVelocity, Vector3d targetPosition, Vector3d targetVelocity)
+	{
+		for(int i = 0; i < 2; i++)
+		{
+			times[i] = times[i + 1];
+			probePositions[i] = probePositions[i + 1];
+			probeVelocities[i] = probeVelocities[i + 1];
+			relativePositions[i] = relativePositions[i + 1];
+			relativeVelocities[i] = relativeVelocities[i + 1];
+			distances[i] = distances[i + 1];
+		}
+		times[2] = time;
+		probePositions[2] = probePosition;
+		probeVelocities[2] = probeVelocity;
+		relativePositions[2] = probePosition.sub(targetPosition);
+		relativeVelocities[2] = probeVelocity.sub(targetVelocity);
+		distances[2] = relativePositions[2].norm();
+		samples++;
+
+		if(distances[2] < distance)
+		{
+			distance = distances[2];
+			this.time = time;
+			point = probePosition;
+		}
+		else if(samples >= 2 && this.time == times[1])
+		{
+			// The previous sample was a minimum, the true one lies on either side of it
+			if(samples >= 3)
+				refine(0);
+			refine(1);
+		}
+
+		receding = relativePositions[2].dotProduct(relativeVelocities[2]) > 0 && distances[2] > recedingFactor * distance;
+	}
+
+	/*
+	 * Golden section search for the closest approach between sample i and i + 1
+	 */
+	private void refine(int i)
+	{
+		double low = 0;
+		double high = 1;
+		for(int iteration = 0; iteration < REFINEMENT_ITERATIONS; iteration++)
+		{
+			double a = high - GOLDEN * (high - low);
+			double b = low + GOLDEN * (high - low);
+			if(interpolate(relativePositions, relativeVelocities, i, a).norm() < interpolate(relativePositions, relativeVelocities, i, b).norm())
+				high = b;
+			else
+				low = a;
+		}
+		double s = 0.5 * (low + high);
+		double refined = interpolate(relativePositions, relativeVelocities, i, s).norm();
+		if(refined < distance)
+		{
+			distance = refined;
+			time = times[i] + s * (times[i + 1] - times[i]);
+			point = interpolate(probePositions, probeVelocities, i, s);
+		}
+	}
+
+	/*
+	 * Cubic Hermite interpolation between sample i and i + 1 at the fraction s of the step
+	 */
+	private Vector3d interpolate(Vector3d[] positions, Vector3d[] velocities, int i, double s)
+	{
+		double h = times[i + 1] - times[i];
+		double s2 = s * s;
+		double s3 = s2 * s;
+		return positions[i].mul(2 * s3 - 3 * s2 + 1)
+			.addMul(h * (s3 - 2 * s2 + s), velocities[i])
+			.addMul(-2 * s3 + 3 * s2, positions[i + 1])
+			.addMul(h * (s3 - s2), velocities[i + 1]);
+	}
+
+	public void reset()
+	{
+		samples = 0;
+		distance = Double.POSITIVE_INFINITY;
+		time = Double.NaN;
+		point = null;
+		receding = false;
+	}
+
+	/**
+	 * @return true once the probe moves away and is clearly past its closest approach
+	 */
+	public boolean isReceding()		{return receding;}
+	public double getDistance()		{return distance;}
+	public double getTime()			{return time;}
+	public Vector3d getPoint()		{return point;}
+	public int getTarget()			{return target;}
+	public int getSamples()			{return samples;}
+}
@@ -0,0 +1,126 @@
+package src.traj;
+
+import java.util.Random;
+
+/**
+ * Differential evolution, DE/rand/1/bin. Every generation is one batch of evaluations, so it spreads
+ * well over cores, and it copes with costs that have several local minima.
+ */
+public class DifferentialEvolution implements Optimizer
+{
+	private final Random random;
+	private double differentialWeight = 0.7;
+	private double crossover = 0.9;
+	private int populationSize = 0;									// 0 picks ten per dimension
+
+	public DifferentialEvolution()
+	{
+		this(new Random());
+	}
+
+	public DifferentialEvolution(long seed)
+	{
+		this(new Random(seed));
+	}
+
+	private DifferentialEvolution(Random random)
+	{
+		this.random = random;
+	}
+
+	@Override
+	public double[] minimize(FitnessEvaluator evaluator, double[] start, double[] scale, double tolerance, int maxEvaluations)
+	{
+		int n = start.length;
+		int size = populationSize > 0 ? populationSize : Math.max(8, 10 * n);
+		double[][] population = new double[size][n];
+		population[0] = start.clone();
+		for(int i = 1; i < size; i++)
+		{
+			for(int j = 0; j < n; j++)
+			{
+				population[i][j] = start[j] + scale[j] * (2 * random.nextDouble() - 1);
+			}
+		}
+		double[] values = evaluator.evaluate(population);
+		int evaluations = size;
+
+		while(evaluations + size <= maxEvaluations && spread(population) > tolerance)
+		{
+			double[][] trials = new double[size][];
+			for(int i = 0; i < size; i++)
+			{
+				trials[i] = mutate(population, i);
+			}
+			double[] trialValues = evaluator.evaluate(trials);
+			evaluations += size;
+			for(int i = 0; i < size; i++)
+			{
+				if(trialValues[i] <= values[i])
+				{
+					population[i] = trials[i];
+					values[i] = trialValues[i];
+				}
+			}
+		}
+
+		int best = 0;
+		for(int i = 1; i < size; i++)
+		{
+			if(values[i] < values[best])
+				best = i;
+		}
+		return population[best];
+	}
+
+	private double[] mutate(double[][] population, int target)
+	{
+		int size = population.length;
+		int n = population[target].length;
+		int a, b, c;
+		do { a = random.nextInt(size); } while(a == target);
+		do { b = random.nextInt(size); } while(b == target || b == a);
+		do { c = random.nextInt(size); } while(c == target || c == a || c == b);
+
+		double[] trial = population[target].clone();
+		int forced = random.nextInt(n);									// At least one coordinate comes from the mutant
+		for(int j = 0; j < n; j++)
+		{
+			if(j == forced || random.nextDouble() < crossover)
+				trial[j] = population[a][j] + differentialWeight * (population[b][j] - population[c][j]);
+		}
+		return trial;
+	}
+
+	/*
+	 * Widest range of any coordinate over the population
+	 */
+	private static double spread(double[][] population)
+	{
+		double spread = 0;
+		for(int j = 0; j < population[0].length; j++)
+		{
+			double min = Double.POSITIVE_INFINITY;
+			double max = Double.NEGATIVE_INFINITY;
+			for(double[] each: population)
+			{
+				min = Math.min(min, each[j]);
+				max = Math.max(max, each[j]);
+			}
+			spread = Math.max(spread, max - min);
+		}
+		return spread;
+	}
+
+	public void setDifferentialWeight(double weight)	{differentialWeight = weight;}
+	public void setCrossover(double probability)		{crossover = probability;}
+
+	public void setPopulationSize(int size)
+	{
+		if(size < 4)
+		{
+			throw new IllegalArgumentException("Mutation needs at least four members");
+		}
+		populationSize = size;
+	}
+}
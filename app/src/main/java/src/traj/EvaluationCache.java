@@ -0,0 +1,147 @@
+package src.traj;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import src.peng.Vector3dInterface;
+
+/**
+ * Bounded memo of propagation results keyed on everything that determines a probe route:
+ * start position, start velocity, step offset, number of steps and step size.
+ * Positions and velocities are quantised before hashing so candidates that only differ by rounding
+ * noise share an entry. The least recently used entry is evicted once the capacity is reached.
+ *
+ * A miss is evaluated outside the lock so parallel evaluations do not serialise on the cache;
+ * two threads missing on the same key at once both propagate and the second result is kept.
+ */
+public class EvaluationCache<V>
+{
+	public static final int DEFAULT_CAPACITY = 4096;
+	public static final double DEFAULT_POSITION_QUANTUM = 1e-3;		// m
+	public static final double DEFAULT_VELOCITY_QUANTUM = 1e-10;	// m/s, 4 mm over a 3784 step transfer, below the Newton tolerance
+
+	private final double positionQuantum;
+	private final double velocityQuantum;
+	private final LinkedHashMap<Key, V> entries;
+
+	private long hits = 0;
+	private long misses = 0;
+	private long evictions = 0;
+
+	public EvaluationCache()
+	{
+		this(DEFAULT_CAPACITY);
+	}
+
+	public EvaluationCache(int capacity)
+	{
+		this(capacity, DEFAULT_POSITION_QUANTUM, DEFAULT_VELOCITY_QUANTUM);
+	}
+
+	public EvaluationCache(int capacity, double positionQuantum, double velocityQuantum)
+	{
+		if(capacity < 1 || positionQuantum <= 0 || velocityQuantum <= 0)
+		{
+			throw new IllegalArgumentException("Capacity and quanta must be positive");
+		}
+		this.positionQuantum = positionQuantum;
+		this.velocityQuantum = velocityQuantum;
+		this.entries = new LinkedHashMap<Key, V>(16, 0.75f, true)
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, V> eldest)
+			{
+				if(size() > capacity)
+				{
+					evictions++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * @param evaluation propagates the route, only called on a miss, a null result is returned but not cached
+	 * @return the cached result for the route, evaluating it first if it is not cached
+	 */
+	public V get(Vector3dInterface position, Vector3dInterface velocity, int stepOffset, int steps, double stepSize, Supplier<V> evaluation)
+	{
+		Key key = new Key(position, velocity, stepOffset, steps, stepSize);
+		synchronized(this)
+		{
+			V value = entries.get(key);
+			if(value != null)
+			{
+				hits++;
+				return value;
+			}
+			misses++;
+		}
+		V value = evaluation.get();
+		if(value == null)
+			return null;
+		synchronized(this)
+		{
+			entries.put(key, value);
+		}
+		return value;
+	}
+
+	public synchronized void clear()
+	{
+		entries.clear();
+	}
+
+	public synchronized int size()				{return entries.size();}
+	public synchronized long getHits()			{return hits;}
+	public synchronized long getMisses()		{return misses;}
+	public synchronized long getEvictions()		{return evictions;}
+
+	/**
+	 * @return fraction of lookups answered from the cache, 0 before the first lookup
+	 */
+	public synchronized double getHitRate()
+	{
+		long lookups = hits + misses;
+		return lookups == 0 ? 0 : (double) hits / lookups;
+	}
+
+	private class Key
+	{
+		private final long[] values;
+		private final int hash;
+
+		private Key(Vector3dInterface position, Vector3dInterface velocity, int stepOffset, int steps, double stepSize)
+		{
+			values = new long[] {
+				Math.round(position.getX() / positionQuantum),
+				Math.round(position.getY() / positionQuantum),
+				Math.round(position.getZ() / positionQuantum),
+				Math.round(velocity.getX() / velocityQuantum),
+				Math.round(velocity.getY() / velocityQuantum),
+				Math.round(velocity.getZ() / velocityQuantum),
+				stepOffset,
+				steps,
+				Double.doubleToLongBits(stepSize)
+			};
+			hash = Arrays.hashCode(values);
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			return o instanceof EvaluationCache.Key && Arrays.equals(values, ((EvaluationCache<?>.Key) o).values);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hash;
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package src.traj;
+
+import java.util.stream.IntStream;
+
+/**
+ * Evaluates batches of candidates for an {@link Optimizer}, in parallel unless told otherwise,
+ * and keeps count of the evaluations and the best candidate seen so far.
+ * NaN costs count as infinitely bad so a diverged propagation never wins.
+ */
+public class FitnessEvaluator
+{
+	private final FitnessFunction function;
+	private final boolean parallel;
+
+	private long evaluations = 0;
+	private double[] best;
+	private double bestValue = Double.POSITIVE_INFINITY;
+
+	public FitnessEvaluator(FitnessFunction function)
+	{
+		this(function, true);
+	}
+
+	/**
+	 * @param parallel false for fitness functions that are not thread safe
+	 */
+	public FitnessEvaluator(FitnessFunction function, boolean parallel)
+	{
+		this.function = function;
+		this.parallel = parallel;
+	}
+
+	public double evaluate(double[] x)
+	{
+		double value = function.evaluate(x.clone());
+		if(Double.isNaN(value))
+			value = Double.POSITIVE_INFINITY;
+		record(x, value);
+		return value;
+	}
+
+	/**
+	 * @return the cost of every point, in the same order
+	 */
+	public double[] evaluate(double[][] points)
+	{
+		double[] values = new double[points.length];
+		IntStream indices = IntStream.range(0, points.length);
+		if(parallel)
+			indices = indices.parallel();
+		indices.forEach(i -> values[i] = evaluate(points[i]));
+		return values;
+	}
+
+	private synchronized void record(double[] x, double value)
+	{
+		evaluations++;
+		if(value < bestValue || best == null)
+		{
+			bestValue = value;
+			best = x.clone();
+		}
+	}
+
+	public synchronized long getEvaluations()
+	{
+		return evaluations;
+	}
+
+	public synchronized double[] getBest()
+	{
+		return best == null ? null : best.clone();
+	}
+
+	public synchronized double getBestValue()
+	{
+		return bestValue;
+	}
+}
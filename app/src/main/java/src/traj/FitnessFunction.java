@@ -0,0 +1,10 @@
+package src.traj;
+
+/**
+ * Cost of a candidate solution, lower is better.
+ * Implementations are called from several threads at once by a parallel {@link FitnessEvaluator}.
+ */
+public interface FitnessFunction
+{
+	public double evaluate(double[] x);
+}
@@ -0,0 +1,26 @@
+package src.traj;
+
+import src.peng.Vector3d;
+import src.prob.Spacecraft;
+
+/**
+ * Where a probe is, how fast it is going and what it weighs, the state a powered propagation carries from step
+ * to step.
+ */
+public final class FlightState
+{
+	private final Vector3d position;
+	private final Vector3d velocity;
+	private final Spacecraft spacecraft;
+
+	public FlightState(Vector3d position, Vector3d velocity, Spacecraft spacecraft)
+	{
+		this.position = position;
+		this.velocity = velocity;
+		this.spacecraft = spacecraft;
+	}
+
+	public Vector3d getPosition()			{return position;}
+	public Vector3d getVelocity()			{return velocity;}
+	public Spacecraft getSpacecraft()		{return spacecraft;}
+}
@@ -0,0 +1,188 @@
+package src.traj;
+
+import src.peng.NewtonGravityFunction;
+import src.peng.Vector3d;
+import src.univ.CelestialBody;
+import src.univ.Universe;
+
+/**
+ * Solves Lambert's problem with the universal variable method: the two-body orbit that connects
+ * two positions in a given time of flight. The N-body correctors use the departure velocity as their
+ * initial guess, so they only have to correct for the perturbations of the other bodies.
+ */
+public class LambertSolver
+{
+	private static final int ITERATION_LIMIT = 200;
+	private static final double TOLERANCE = 1e-10;				// Relative error on the time of flight
+	private static final int SUN = 0;
+
+	private final Vector3d departureVelocity;
+	private final Vector3d arrivalVelocity;
+	private final double z;
+
+	/**
+	 * @param r1 departure position relative to the central body
+	 * @param r2 arrival position relative to the central body
+	 * @param timeOfFlight in seconds
+	 * @param mu gravitational parameter of the central body
+	 * @param prograde true to travel anticlockwise about +z, like the planets
+	 */
+	public LambertSolver(Vector3d r1, Vector3d r2, double timeOfFlight, double mu, boolean prograde)
+	{
+		if(timeOfFlight <= 0 || mu <= 0)
+		{
+			throw new IllegalArgumentException("Time of flight and gravitational parameter must be positive");
+		}
+		double r1Norm = r1.norm();
+		double r2Norm = r2.norm();
+		double crossZ = r1.getX() * r2.getY() - r1.getY() * r2.getX();
+		double angle = Math.acos(Math.max(-1, Math.min(1, r1.dotProduct(r2) / (r1Norm * r2Norm))));
+		if(prograde != (crossZ >= 0))
+			angle = 2 * Math.PI - angle;
+
+		double a = Math.sin(angle) * Math.sqrt(r1Norm * r2Norm / (1 - Math.cos(angle)));
+		if(Double.isNaN(a) || Math.abs(a) < 1e-12 * (r1Norm + r2Norm))
+		{
+			throw new IllegalArgumentException("Transfer angle of 0 or 180 degrees does not define a transfer plane");
+		}
+
+		z = solveForZ(r1Norm, r2Norm, a, timeOfFlight, mu);
+		double y = y(z, r1Norm, r2Norm, a);
+
+		// Lagrange coefficients
+		double f = 1 - y / r1Norm;
+		double g = a * Math.sqrt(y / mu);
+		double gDot = 1 - y / r2Norm;
+
+		departureVelocity = r2.sub(r1.mul(f)).mul(1 / g);
+		arrivalVelocity = r2.mul(gDot).sub(r1).mul(1 / g);
+	}
+
+	/**
+	 * Time of flight increases monotonically with z on the single revolution branch, so Newton steps on z
+	 * safeguarded by bisection on [zLow, 4 pi^2) always converge, usually in a handful of iterations
+	 */
+	private static double solveForZ(double r1, double r2, double a, double timeOfFlight, double mu)
+	{
+		double zHigh = 4 * Math.PI * Math.PI;
+		double zLow = -zHigh;
+		while(timeOfFlight(zLow, r1, r2, a, mu) > timeOfFlight)		// Fast hyperbolic transfers sit further down
+		{
+			zLow *= 2;
+			if(zLow < -1e8)
+				throw new RuntimeException("Lambert solver could not bracket the time of flight");
+		}
+
+		double z = 0;
+		for(int i = 0; i < ITERATION_LIMIT; i++)
+		{
+			double t = timeOfFlight(z, r1, r2, a, mu);
+			if(Math.abs(t - timeOfFlight) < TOLERANCE * timeOfFlight)
+				return z;
+			if(t < timeOfFlight)
+				zLow = z;
+			else
+				zHigh = z;
+			double next = t == Double.NEGATIVE_INFINITY ? Double.NaN : z - (t - timeOfFlight) / timeOfFlightDerivative(z, r1, r2, a, mu);
+			z = next > zLow && next < zHigh ? next : 0.5 * (zLow + zHigh);
+		}
+		return z;
+	}
+
+	/**
+	 * dt/dz, Curtis equation 5.43
+	 */
+	private static double timeOfFlightDerivative(double z, double r1, double r2, double a, double mu)
+	{
+		double y = y(z, r1, r2, a);
+		double c = stumpffC(z);
+		double s = stumpffS(z);
+		double derivative;
+		if(Math.abs(z) < 1e-3)
+			derivative = Math.sqrt(2) / 40 * Math.pow(y, 1.5) + a / 8 * (Math.sqrt(y) + a * Math.sqrt(1 / (2 * y)));
+		else
+			derivative = Math.pow(y / c, 1.5) * (1 / (2 * z) * (c - 1.5 * s / c) + 0.75 * s * s / c)
+					   + a / 8 * (3 * s / c * Math.sqrt(y) + a * Math.sqrt(c / y));
+		return derivative / Math.sqrt(mu);
+	}
+
+	private static double timeOfFlight(double z, double r1, double r2, double a, double mu)
+	{
+		double y = y(z, r1, r2, a);
+		if(y < 0)
+			return Double.NEGATIVE_INFINITY;					// Not reachable for this z, the solution lies above it
+		double x = Math.sqrt(y / stumpffC(z));
+		return (x * x * x * stumpffS(z) + a * Math.sqrt(y)) / Math.sqrt(mu);
+	}
+
+	private static double y(double z, double r1, double r2, double a)
+	{
+		return r1 + r2 + a * (z * stumpffS(z) - 1) / Math.sqrt(stumpffC(z));
+	}
+
+	private static double stumpffC(double z)
+	{
+		if(Math.abs(z) < 1e-3)
+			return 0.5 - z / 24 + z * z / 720;					// Series avoids cancellation near zero
+		if(z > 0)
+			return (1 - Math.cos(Math.sqrt(z))) / z;
+		return (Math.cosh(Math.sqrt(-z)) - 1) / -z;
+	}
+
+	private static double stumpffS(double z)
+	{
+		if(Math.abs(z) < 1e-3)
+			return 1.0 / 6 - z / 120 + z * z / 5040;
+		if(z > 0)
+		{
+			double s = Math.sqrt(z);
+			return (s - Math.sin(s)) / (s * s * s);
+		}
+		double s = Math.sqrt(-z);
+		return (Math.sinh(s) - s) / (s * s * s);
+	}
+
+	/**
+	 * Heliocentric Lambert transfer between two points of a universe, as an absolute initial velocity.
+	 * The probe starts on the surface of the origin body and the integrators take steps of hours, so the first
+	 * Verlet step alone would add half a step of surface gravity to the transfer. The seed is offset by that
+	 * amount to cancel it, otherwise the seed misses by more than a fixed guess does.
+	 * @param origin index of the body the probe launches from
+	 * @param departureStep step of the universe at which the probe leaves the launch point
+	 * @param arrivalStep step of the universe at which the probe should reach the target point
+	 * @param stepSize seconds per step
+	 */
+	public static Vector3d seedVelocity(Universe universe, int origin, Vector3d launchPoint, int departureStep, Vector3d targetPoint,
+										int arrivalStep, double stepSize)
+	{
+		CelestialBody sunAtDeparture = universe.getBody(SUN, departureStep);
+		CelestialBody sunAtArrival = universe.getBody(SUN, arrivalStep);
+		double mu = NewtonGravityFunction.GRAVITY * universe.masses[SUN];
+		LambertSolver solver = new LambertSolver(launchPoint.sub(sunAtDeparture.location), targetPoint.sub(sunAtArrival.location),
+												 (arrivalStep - departureStep) * stepSize, mu, true);
+		Vector3d velocity = solver.getDepartureVelocity().add(sunAtDeparture.velocity);
+
+		Vector3d fromOrigin = launchPoint.sub(universe.getBody(origin, departureStep).location);
+		double r = fromOrigin.norm();
+		double originMu = NewtonGravityFunction.GRAVITY * universe.masses[origin];
+		return velocity.addMul(0.5 * stepSize * originMu / (r * r * r), fromOrigin);
+	}
+
+	public Vector3d getDepartureVelocity()
+	{
+		return departureVelocity;
+	}
+
+	public Vector3d getArrivalVelocity()
+	{
+		return arrivalVelocity;
+	}
+
+	/**
+	 * @return the universal variable, positive for elliptic and negative for hyperbolic transfers
+	 */
+	public double getZ()
+	{
+		return z;
+	}
+}
@@ -0,0 +1,182 @@
+package src.traj;
+
+import java.util.stream.IntStream;
+
+import src.peng.NewtonGravityFunction;
+import src.peng.Vector3d;
+import src.univ.CelestialBody;
+import src.univ.Universe;
+
+/**
+ * Sweeps a grid of departure steps and flight times between two bodies of a universe and stores the
+ * two-body Lambert delta-v of every cell, the data behind a porkchop plot. The ephemeris is read once
+ * up front on the calling thread, the cells are then solved in parallel without touching the universe.
+ */
+public class LaunchWindowScanner
+{
+	private static final int SUN = 0;
+
+	private final Universe universe;
+	private final int origin;
+	private final int target;
+	private final double stepSize;
+
+	private int[] departureSteps = new int[0];
+	private int[] flightSteps = new int[0];
+	private double[][] departureDeltaV;
+	private double[][] arrivalDeltaV;
+
+	public LaunchWindowScanner(Universe universe, int origin, int target, double stepSize)
+	{
+		this.universe = universe;
+		this.origin = origin;
+		this.target = target;
+		this.stepSize = stepSize;
+	}
+
+	/**
+	 * Evaluate every combination of departure step and flight time.
+	 * Cells arriving after the end of the universe, or whose transfer is undefined, are NaN.
+	 * @param firstDeparture first departure step
+	 * @param lastDeparture last departure step, inclusive
+	 * @param departureStride steps between departures
+	 * @param minFlight shortest flight in steps
+	 * @param maxFlight longest flight in steps, inclusive
+	 * @param flightStride steps between flight times
+	 */
+	public void scan(int firstDeparture, int lastDeparture, int departureStride, int minFlight, int maxFlight, int flightStride)
+	{
+		if(departureStride < 1 || flightStride < 1 || minFlight < 1 || firstDeparture < 0)
+		{
+			throw new IllegalArgumentException("Strides and flight times must be positive");
+		}
+		if(lastDeparture < firstDeparture || maxFlight < minFlight)
+		{
+			throw new IllegalArgumentException("Empty grid");
+		}
+		departureSteps = range(firstDeparture, lastDeparture, departureStride);
+		flightSteps = range(minFlight, maxFlight, flightStride);
+		int lastStep = universe.getNoOfTimeSteps() - 1;
+
+		// Heliocentric states, read sequentially so the grid never waits on the ephemeris
+		double[][] originStates = new double[departureSteps.length][];
+		for(int i = 0; i < departureSteps.length; i++)
+		{
+			originStates[i] = departureSteps[i] <= lastStep ? heliocentricState(origin, departureSteps[i]) : null;
+		}
+		int firstArrival = firstDeparture + minFlight;
+		int lastArrival = Math.min(lastStep, departureSteps[departureSteps.length - 1] + flightSteps[flightSteps.length - 1]);
+		double[][] targetStates = new double[Math.max(0, lastArrival - firstArrival + 1)][];
+		for(int i = 0; i < departureSteps.length; i++)
+		{
+			for(int j = 0; j < flightSteps.length; j++)
+			{
+				int arrival = departureSteps[i] + flightSteps[j];
+				if(arrival <= lastArrival && targetStates[arrival - firstArrival] == null)
+					targetStates[arrival - firstArrival] = heliocentricState(target, arrival);
+			}
+		}
+
+		double mu = NewtonGravityFunction.GRAVITY * universe.masses[SUN];
+		departureDeltaV = new double[departureSteps.length][flightSteps.length];
+		arrivalDeltaV = new double[departureSteps.length][flightSteps.length];
+		IntStream.range(0, departureSteps.length).parallel().forEach(i ->
+		{
+			for(int j = 0; j < flightSteps.length; j++)
+			{
+				int arrival = departureSteps[i] + flightSteps[j];
+				if(originStates[i] == null || arrival > lastArrival)
+				{
+					departureDeltaV[i][j] = Double.NaN;
+					arrivalDeltaV[i][j] = Double.NaN;
+					continue;
+				}
+				evaluateCell(i, j, originStates[i], targetStates[arrival - firstArrival], mu);
+			}
+		});
+	}
+
+	private void evaluateCell(int i, int j, double[] from, double[] to, double mu)
+	{
+		try
+		{
+			LambertSolver solver = new LambertSolver(new Vector3d(from[0], from[1], from[2]), new Vector3d(to[0], to[1], to[2]),
+													 flightSteps[j] * stepSize, mu, true);
+			departureDeltaV[i][j] = solver.getDepartureVelocity().dist(new Vector3d(from[3], from[4], from[5]));
+			arrivalDeltaV[i][j] = solver.getArrivalVelocity().dist(new Vector3d(to[3], to[4], to[5]));
+		}
+		catch(RuntimeException e)
+		{
+			departureDeltaV[i][j] = Double.NaN;
+			arrivalDeltaV[i][j] = Double.NaN;
+		}
+	}
+
+	private double[] heliocentricState(int body, int step)
+	{
+		CelestialBody sun = universe.getBody(SUN, step);
+		CelestialBody each = universe.getBody(body, step);
+		Vector3d position = each.location.sub(sun.location);
+		Vector3d velocity = each.velocity.sub(sun.velocity);
+		return new double[] {position.getX(), position.getY(), position.getZ(), velocity.getX(), velocity.getY(), velocity.getZ()};
+	}
+
+	private static int[] range(int first, int last, int stride)
+	{
+		int n = last < first ? 0 : (last - first) / stride + 1;
+		int[] values = new int[n];
+		for(int i = 0; i < n; i++)
+		{
+			values[i] = first + i * stride;
+		}
+		return values;
+	}
+
+	/**
+	 * @return departure plus arrival hyperbolic excess speed of the cell, NaN if it was not evaluated
+	 */
+	public double getDeltaV(int departure, int flight)
+	{
+		return departureDeltaV[departure][flight] + arrivalDeltaV[departure][flight];
+	}
+
+	public double getDepartureDeltaV(int departure, int flight)
+	{
+		return departureDeltaV[departure][flight];
+	}
+
+	public double getArrivalDeltaV(int departure, int flight)
+	{
+		return arrivalDeltaV[departure][flight];
+	}
+
+	/**
+	 * @return {departure index, flight index} of the cheapest cell, or null if no cell was evaluated
+	 */
+	public int[] getBestCell()
+	{
+		int[] best = null;
+		double bestDeltaV = Double.POSITIVE_INFINITY;
+		for(int i = 0; i < departureSteps.length; i++)
+		{
+			for(int j = 0; j < flightSteps.length; j++)
+			{
+				double deltaV = getDeltaV(i, j);
+				if(deltaV < bestDeltaV)
+				{
+					bestDeltaV = deltaV;
+					best = new int[] {i, j};
+				}
+			}
+		}
+		return best;
+	}
+
+	public int getDepartureStep(int departure)	{return departureSteps[departure];}
+	public int getFlightSteps(int flight)		{return flightSteps[flight];}
+	public int getNoOfDepartures()				{return departureSteps.length;}
+	public int getNoOfFlights()					{return flightSteps.length;}
+	public double getStepSize()					{return stepSize;}
+	public int getOrigin()						{return origin;}
+	public int getTarget()						{return target;}
+}
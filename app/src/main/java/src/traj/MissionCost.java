@@ -0,0 +1,103 @@
+package src.traj;
+
+/**
+ * What a candidate mission costs, by objective, all lower is better: the miss distance at the target, the delta
+ * v of the burns and the time of flight. One propagation gives every objective, so candidates can be weighed
+ * against each other with any weights, or kept on a {@link ParetoFront}, without being flown again.
+ * NaN objectives count as infinitely bad, as in {@link FitnessEvaluator}.
+ */
+public final class MissionCost
+{
+	public static final int MISS_DISTANCE = 0;		// m
+	public static final int DELTA_V = 1;			// m/s
+	public static final int TIME_OF_FLIGHT = 2;		// s
+	public static final int OBJECTIVES = 3;
+
+	private final double[] objectives;
+	private final boolean partial;
+
+	public MissionCost(double missDistance, double deltaV, double timeOfFlight)
+	{
+		this(missDistance, deltaV, timeOfFlight, false);
+	}
+
+	private MissionCost(double missDistance, double deltaV, double timeOfFlight, boolean partial)
+	{
+		this.partial = partial;
+		objectives = new double[] {missDistance, deltaV, timeOfFlight};
+		for(int i = 0; i < OBJECTIVES; i++)
+		{
+			if(Double.isNaN(objectives[i]))
+				objectives[i] = Double.POSITIVE_INFINITY;
+		}
+	}
+
+	/**
+	 * The cost of a route abandoned before its end, the objectives so far still rank it against other candidates
+	 * but are not what the whole route would cost
+	 */
+	public static MissionCost partial(double missDistance, double deltaV, double timeOfFlight)
+	{
+		return new MissionCost(missDistance, deltaV, timeOfFlight, true);
+	}
+
+	public double get(int objective)
+	{
+		return objectives[objective];
+	}
+
+	public double getMissDistance()		{return objectives[MISS_DISTANCE];}
+	public double getDeltaV()			{return objectives[DELTA_V];}
+	public double getTimeOfFlight()		{return objectives[TIME_OF_FLIGHT];}
+	public boolean isPartial()			{return partial;}
+
+	/**
+	 * @param weights per unit of each objective, such as metres of miss worth one m/s of delta v
+	 * @return the weighted sum, objectives with no weight are left out even if infinite
+	 */
+	public double weighted(double[] weights)
+	{
+		if(weights.length != OBJECTIVES)
+			throw new IllegalArgumentException("Expected " + OBJECTIVES + " weights, one per objective");
+		double sum = 0;
+		for(int i = 0; i < OBJECTIVES; i++)
+		{
+			if(weights[i] != 0)
+				sum += weights[i] * objectives[i];
+		}
+		return sum;
+	}
+
+	/**
+	 * @return true if this is no worse than the other in every objective and better in at least one
+	 */
+	public boolean dominates(MissionCost other)
+	{
+		boolean better = false;
+		for(int i = 0; i < OBJECTIVES; i++)
+		{
+			if(objectives[i] > other.objectives[i])
+				return false;
+			if(objectives[i] < other.objectives[i])
+				better = true;
+		}
+		return better;
+	}
+
+	public boolean isFinite()
+	{
+		for(double objective : objectives)
+		{
+			if(Double.isInfinite(objective))
+				return false;
+		}
+		return true;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "Miss: " + getMissDistance() + " m, delta v: " + getDeltaV() + " m/s, time of flight: " + getTimeOfFlight() + " s"
+				+ (partial ? ", partial" : "");
+	}
+}
@@ -0,0 +1,62 @@
+package src.traj;
+
+import java.util.stream.IntStream;
+
+/**
+ * Turns a {@link MissionObjective} into the single cost an {@link Optimizer} minimises, a weighted sum of the
+ * objectives, while every candidate evaluated is offered to a {@link ParetoFront}. The optimiser follows one
+ * trade between the objectives and the front keeps the others that were found along the way.
+ */
+public class MissionCostFunction implements FitnessFunction
+{
+	private final MissionObjective objective;
+	private final double[] weights;
+	private final ParetoFront front = new ParetoFront();
+
+	/**
+	 * @param weights per unit of each objective, see {@link MissionCost#weighted}
+	 */
+	public MissionCostFunction(MissionObjective objective, double[] weights)
+	{
+		if(weights.length != MissionCost.OBJECTIVES)
+			throw new IllegalArgumentException("Expected " + MissionCost.OBJECTIVES + " weights, one per objective");
+		this.objective = objective;
+		this.weights = weights.clone();
+	}
+
+	@Override
+	public double evaluate(double[] x)
+	{
+		return evaluateAll(x).weighted(weights);
+	}
+
+	/**
+	 * @return every objective of the candidate, which joins the front if nothing dominates it
+	 */
+	public MissionCost evaluateAll(double[] x)
+	{
+		MissionCost cost = objective.evaluate(x);
+		front.offer(x, cost);
+		return cost;
+	}
+
+	/**
+	 * @return every objective of every point, in the same order, evaluated in parallel
+	 */
+	public MissionCost[] evaluateAll(double[][] points)
+	{
+		MissionCost[] costs = new MissionCost[points.length];
+		IntStream.range(0, points.length).parallel().forEach(i -> costs[i] = evaluateAll(points[i]));
+		return costs;
+	}
+
+	public double[] getWeights()
+	{
+		return weights.clone();
+	}
+
+	public ParetoFront getParetoFront()
+	{
+		return front;
+	}
+}
@@ -0,0 +1,10 @@
+package src.traj;
+
+/**
+ * Every objective of a candidate solution from one evaluation, see {@link MissionCost}.
+ * Implementations are called from several threads at once, as a {@link FitnessFunction} is.
+ */
+public interface MissionObjective
+{
+	public MissionCost evaluate(double[] x);
+}
@@ -0,0 +1,166 @@
+package src.traj;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import src.conf.SimulationSettings;
+import src.peng.Vector3d;
+import src.univ.Universe;
+
+/**
+ * Plans the legs of a mission and remembers the converged solution of every leg by name, so that planning
+ * the mission again after a small change to the settings starts from the previous answer instead of from scratch.
+ *
+ * A transfer leg seen before starts from its previous launch velocity, or from the Lambert seed if that lands
+ * closer, and corrects with Broyden updates of its previous Jacobian. When the start still misses the new target
+ * by more than the continuation distance the aim point is walked from where it lands to the target in stages
+ * (natural parameter continuation), each stage starting from the solution of the one before. An orbit insertion seen before is refined
+ * with a few Nelder-Mead evaluations around the previous speed instead of the full scan.
+ */
+public class MissionPlanner
+{
+	public static final double CONTINUATION_DISTANCE = 2e10;		// m, larger misses are split into stages
+	private static final int MAX_STAGES = 8;
+	private static final double STAGE_EPSILON = 1e4;				// Intermediate aim points only need to be close
+	private static final double INSERTION_SCALE = 0.5;				// m/s, first simplex around the previous speed
+	private static final int INSERTION_EVALUATIONS = 10;
+
+	private final Map<String, TransferSolution> transfers = new HashMap<>();
+	private final Map<String, Double> insertions = new HashMap<>();
+	private double continuationDistance = CONTINUATION_DISTANCE;
+	private int lastIterations;
+	private int lastStages;
+
+	/**
+	 * Solve a transfer, warm started from the last solution of the same leg if there is one
+	 * @param leg name of the leg, the same name on a re-run reuses its solution
+	 * @return the converged solver, its starting velocity is the launch velocity
+	 */
+	public NewtonRaphson solveTransfer(String leg, Universe universe, int origin, int target, SimulationSettings settings)
+	{
+		NewtonRaphson nr = new NewtonRaphson(universe, origin, target, settings);
+		TransferSolution previous = transfers.get(leg);
+		lastStages = 1;
+		if(previous == null)
+		{
+			nr.newtonRaphsonIterativeMethod();
+		}
+		else
+		{
+			// Past a few steps of change the fresh Lambert seed lands closer than the old solution
+			Vector3d targetPoint = nr.getTargetPoint();
+			Vector3d lambertLanding = landing(nr, nr.getStartingVelocity());
+			Vector3d landing = landing(nr, previous.velocity);
+			if(landing.dist(targetPoint) <= lambertLanding.dist(targetPoint))
+				nr.setStartingVelocity(previous.velocity);
+			else
+				landing = lambertLanding;
+			double miss = landing.dist(targetPoint);
+			lastStages = (int) Math.max(1, Math.min(MAX_STAGES, Math.ceil(miss / continuationDistance)));
+
+			double epsilon = nr.getEpsilon();
+			Matrix3d jacobian = previous.jacobian;
+			for(int stage = 1; stage < lastStages; stage++)
+			{
+				double lambda = (double) stage / lastStages;
+				nr.setTargetPoint(landing.add(targetPoint.sub(landing).mul(lambda)));
+				nr.setEpsilon(STAGE_EPSILON);
+				nr.broydenIterativeMethod(jacobian);
+				jacobian = nr.getJacobian();
+			}
+			nr.setTargetPoint(targetPoint);
+			nr.setEpsilon(epsilon);
+			nr.broydenIterativeMethod(jacobian);
+		}
+		lastIterations = nr.getIteration();
+		transfers.put(leg, new TransferSolution(nr.getStartingVelocity(), nr.getJacobian()));
+		return nr;
+	}
+
+	private static Vector3d landing(NewtonRaphson nr, Vector3d velocity)
+	{
+		Vector3d[] route = nr.planRoute(velocity);
+		return route[route.length - 1];
+	}
+
+	/**
+	 * Tune the orbit insertion speed, refining the last speed of the same leg if there is one
+	 * @return the insertion speed along x
+	 */
+	public double solveOrbitInsertion(String leg, OrbitController controller, Universe universe, int target, SimulationSettings settings)
+	{
+		Double previous = insertions.get(leg);
+		double speed;
+		if(previous == null)
+			speed = controller.linearClimbing(universe, target, settings);
+		else
+			speed = controller.optimisedClimbing(universe, target, settings, new NelderMead(), previous, INSERTION_SCALE, INSERTION_EVALUATIONS);
+		insertions.put(leg, speed);
+		return speed;
+	}
+
+	/**
+	 * @param distance miss in metres above which a warm start is split into continuation stages
+	 */
+	public void setContinuationDistance(double distance)
+	{
+		this.continuationDistance = distance;
+	}
+
+	public boolean isWarm(String leg)
+	{
+		return transfers.containsKey(leg) || insertions.containsKey(leg);
+	}
+
+	/**
+	 * @return the last launch velocity of the leg, null if it was never solved
+	 */
+	public Vector3d getLaunchVelocity(String leg)
+	{
+		TransferSolution solution = transfers.get(leg);
+		return solution == null ? null : solution.velocity;
+	}
+
+	/**
+	 * Drop a leg, its next solve starts from scratch
+	 */
+	public void forget(String leg)
+	{
+		transfers.remove(leg);
+		insertions.remove(leg);
+	}
+
+	public void clear()
+	{
+		transfers.clear();
+		insertions.clear();
+	}
+
+	/**
+	 * @return Newton or Broyden iterations of the last transfer solved, over all of its stages
+	 */
+	public int getLastIterations()
+	{
+		return lastIterations;
+	}
+
+	/**
+	 * @return continuation stages of the last transfer solved, 1 when it was solved directly
+	 */
+	public int getLastStages()
+	{
+		return lastStages;
+	}
+
+	private static class TransferSolution
+	{
+		private final Vector3d velocity;
+		private final Matrix3d jacobian;
+
+		private TransferSolution(Vector3d velocity, Matrix3d jacobian)
+		{
+			this.velocity = velocity;
+			this.jacobian = jacobian;
+		}
+	}
+}
@@ -0,0 +1,350 @@
+package src.traj;
+
+import java.util.stream.IntStream;
+
+import src.conf.SimulationSettings;
+import src.peng.Vector3d;
+import src.univ.CelestialBody;
+import src.univ.Universe;
+
+/**
+ * Multiple shooting corrector for a transfer between two bodies.
+ * The transfer is split into segments whose start states are unknowns next to the launch velocity,
+ * every segment is propagated independently, in parallel, and Newton's method drives the mismatch
+ * (defect) between the end of each segment and the start of the next one to zero together with the
+ * miss distance at the target. A single segment only has to be accurate over a fraction of the flight,
+ * so the linearisation holds much further than for single shooting over the whole transfer.
+ *
+ * The Newton system is block bidiagonal: the correction of node k+1 only depends on that of node k
+ * through the state transition matrix of segment k. It is eliminated forward from the launch node,
+ * which leaves a 3 x 3 system in the launch velocity, instead of factorising the full (6M - 3) square matrix.
+ */
+public class MultipleShooting extends GuidanceController
+{
+	private static final double POSITION_DELTA = 10;				// Finite difference steps for the transition matrices
+	private static final double VELOCITY_DELTA = 0.001;
+	private static final int HALVING_LIMIT = 5;
+
+	private final SimulationSettings settings;
+	private final ProbePropagator propagator;
+	private final int noOfSegments;
+	private final int[] nodeSteps;									// Universe step at the start of every segment, plus the arrival step
+	private Vector3d launchPoint;
+	private Vector3d targetPoint;
+
+	private double epsilon = 0.1;									// Miss distance at the target
+	private double defectTolerance = 0.01;							// Position defect, velocity defects are scaled by the segment duration
+	private int iterationLimit = 30;
+	private int iteration = 0;
+	private double lastMerit;
+	private Vector3d velocityAtTarget;
+
+	private double[][] nodes;										// {x, y, z, vx, vy, vz} at the start of every segment
+
+	public MultipleShooting(Universe universe, int origin, int target, SimulationSettings settings, int noOfSegments)
+	{
+		super(universe, target);
+		if(noOfSegments < 1 || noOfSegments > settings.noOfSteps)
+		{
+			throw new IllegalArgumentException("Between 1 and " + settings.noOfSteps + " segments");
+		}
+		this.settings = settings;
+		this.noOfSegments = noOfSegments;
+		this.propagator = new ProbePropagator(universe, settings.stepSize);
+
+		nodeSteps = new int[noOfSegments + 1];
+		for(int k = 0; k <= noOfSegments; k++)
+		{
+			nodeSteps[k] = settings.stepOffset + (int) ((long) settings.noOfSteps * k / noOfSegments);
+		}
+
+		CelestialBody targetPlanet = universe.getBody(target, nodeSteps[noOfSegments]);
+		targetPoint = targetPlanet.calculateTargetPoint();
+		CelestialBody launchPlanet = universe.getBody(origin, settings.stepOffset);
+		launchPoint = launchPlanet.closestLaunchPoint(targetPoint);
+	}
+
+	/**
+	 * Correct the launch velocity until the probe reaches the target point and all segments join up
+	 * @param initialVelocity the first guess, the other nodes start on its trajectory
+	 * @return the corrected launch velocity
+	 */
+	public Vector3d solve(Vector3d initialVelocity)
+	{
+		initialiseNodes(initialVelocity);
+		double[][] ends = propagateSegments(nodes);
+		double merit = merit(nodes, ends);
+
+		while(!converged(nodes, ends))
+		{
+			if(iteration++ >= iterationLimit)
+				throw new RuntimeException("Multiple shooting did not converge");
+
+			double[][][] transitions = transitionMatrices(nodes, ends);
+			double[][] corrections = solveNewtonStep(nodes, ends, transitions);
+
+			// Halve the step while it makes the defects worse
+			double lambda = 1;
+			for(int halving = 0; ; halving++)
+			{
+				double[][] trial = applyCorrection(nodes, corrections, lambda);
+				double[][] trialEnds = propagateSegments(trial);
+				double trialMerit = merit(trial, trialEnds);
+				if(trialMerit < merit || halving == HALVING_LIMIT)
+				{
+					nodes = trial;
+					ends = trialEnds;
+					merit = trialMerit;
+					break;
+				}
+				lambda /= 2;
+			}
+		}
+		lastMerit = merit;
+		trajectory = buildTrajectory();
+		return getLaunchVelocity();
+	}
+
+	private void initialiseNodes(Vector3d initialVelocity)
+	{
+		nodes = new double[noOfSegments][];
+		nodes[0] = toArray(launchPoint, initialVelocity);
+		for(int k = 1; k < noOfSegments; k++)
+		{
+			nodes[k] = propagateSegment(k - 1, nodes[k - 1]);
+		}
+	}
+
+	private double[] propagateSegment(int segment, double[] start)
+	{
+		Vector3d[] end = propagator.propagate(nodeSteps[segment], nodeSteps[segment + 1] - nodeSteps[segment],
+											  new Vector3d(start[0], start[1], start[2]), new Vector3d(start[3], start[4], start[5]));
+		return toArray(end[0], end[1]);
+	}
+
+	private double[][] propagateSegments(double[][] starts)
+	{
+		double[][] ends = new double[noOfSegments][];
+		IntStream.range(0, noOfSegments).parallel().forEach(k -> ends[k] = propagateSegment(k, starts[k]));
+		return ends;
+	}
+
+	/**
+	 * Forward difference state transition matrix of every segment, all columns of all segments in parallel.
+	 * The launch position is fixed, so the first segment only needs its velocity columns.
+	 */
+	private double[][][] transitionMatrices(double[][] starts, double[][] ends)
+	{
+		double[][][] transitions = new double[noOfSegments][6][6];
+		IntStream.range(0, noOfSegments * 6).parallel().forEach(task ->
+		{
+			int k = task / 6;
+			int column = task % 6;
+			if(k == 0 && column < 3)
+				return;
+			double delta = column < 3 ? POSITION_DELTA : VELOCITY_DELTA;
+			double[] perturbed = starts[k].clone();
+			perturbed[column] += delta;
+			double[] end = propagateSegment(k, perturbed);
+			for(int row = 0; row < 6; row++)
+			{
+				transitions[k][row][column] = (end[row] - ends[k][row]) / delta;
+			}
+		});
+		return transitions;
+	}
+
+	/**
+	 * Correction dx_k of every node, with dx_{k+1} = Phi_k dx_k + d_k written as A_k dv0 + b_k
+	 */
+	private double[][] solveNewtonStep(double[][] starts, double[][] ends, double[][][] transitions)
+	{
+		double[][] a = new double[6][3];
+		for(int i = 0; i < 3; i++)
+		{
+			a[i + 3][i] = 1;
+		}
+		double[] b = new double[6];
+		double[][][] as = new double[noOfSegments][][];
+		double[][] bs = new double[noOfSegments][];
+		as[0] = a;
+		bs[0] = b;
+		for(int k = 0; k < noOfSegments - 1; k++)
+		{
+			double[] defect = subtract(ends[k], starts[k + 1]);
+			as[k + 1] = multiply(transitions[k], as[k]);
+			bs[k + 1] = add(multiply(transitions[k], bs[k]), defect);
+		}
+
+		// Position rows at the target: miss + Phi (A dv0 + b) = 0
+		int last = noOfSegments - 1;
+		double[][] finalA = multiply(transitions[last], as[last]);
+		double[] finalB = multiply(transitions[last], bs[last]);
+		Matrix3d jacobian = new Matrix3d();
+		Vector3d rhs = new Vector3d();
+		for(int i = 0; i < 3; i++)
+		{
+			for(int j = 0; j < 3; j++)
+			{
+				jacobian.set(i, j, finalA[i][j]);
+			}
+			rhs.set(i, -(ends[last][i] - targetPoint.get(i) + finalB[i]));
+		}
+		Vector3d dv0 = jacobian.calculateInverseMatrix().vectorMultiplication(rhs);
+
+		double[][] corrections = new double[noOfSegments][];
+		double[] dv = {dv0.getX(), dv0.getY(), dv0.getZ()};
+		for(int k = 0; k < noOfSegments; k++)
+		{
+			corrections[k] = add(multiply(as[k], dv), bs[k]);
+		}
+		return corrections;
+	}
+
+	private double[][] applyCorrection(double[][] starts, double[][] corrections, double lambda)
+	{
+		double[][] next = new double[noOfSegments][6];
+		for(int k = 0; k < noOfSegments; k++)
+		{
+			for(int i = 0; i < 6; i++)
+			{
+				next[k][i] = starts[k][i] + lambda * corrections[k][i];
+			}
+		}
+		return next;
+	}
+
+	/*
+	 * Root sum square of the miss distance and all defects, velocity defects in metres over the segment
+	 */
+	private double merit(double[][] starts, double[][] ends)
+	{
+		double sum = squaredMiss(ends);
+		for(int k = 0; k < noOfSegments - 1; k++)
+		{
+			double duration = (nodeSteps[k + 1] - nodeSteps[k]) * settings.stepSize;
+			for(int i = 0; i < 6; i++)
+			{
+				double defect = (ends[k][i] - starts[k + 1][i]) * (i < 3 ? 1 : duration);
+				sum += defect * defect;
+			}
+		}
+		return Math.sqrt(sum);
+	}
+
+	private boolean converged(double[][] starts, double[][] ends)
+	{
+		if(Math.sqrt(squaredMiss(ends)) > epsilon)
+			return false;
+		for(int k = 0; k < noOfSegments - 1; k++)
+		{
+			double duration = (nodeSteps[k + 1] - nodeSteps[k]) * settings.stepSize;
+			for(int i = 0; i < 6; i++)
+			{
+				if(Math.abs(ends[k][i] - starts[k + 1][i]) * (i < 3 ? 1 : duration) > defectTolerance)
+					return false;
+			}
+		}
+		return true;
+	}
+
+	private double squaredMiss(double[][] ends)
+	{
+		double sum = 0;
+		for(int i = 0; i < 3; i++)
+		{
+			double miss = ends[noOfSegments - 1][i] - targetPoint.get(i);
+			sum += miss * miss;
+		}
+		return sum;
+	}
+
+	/*
+	 * Full trajectory from the launch velocity alone, the segments join up once converged
+	 */
+	private Vector3d[] buildTrajectory()
+	{
+		Vector3d[] route = new Vector3d[settings.noOfSteps + 1];
+		velocityAtTarget = propagator.propagate(settings.stepOffset, settings.noOfSteps, launchPoint, getLaunchVelocity(), route)[1];
+		return route;
+	}
+
+	private static double[] toArray(Vector3d position, Vector3d velocity)
+	{
+		return new double[] {position.getX(), position.getY(), position.getZ(), velocity.getX(), velocity.getY(), velocity.getZ()};
+	}
+
+	private static double[][] multiply(double[][] m, double[][] n)
+	{
+		double[][] result = new double[m.length][n[0].length];
+		for(int i = 0; i < m.length; i++)
+		{
+			for(int j = 0; j < n[0].length; j++)
+			{
+				double sum = 0;
+				for(int l = 0; l < n.length; l++)
+				{
+					sum += m[i][l] * n[l][j];
+				}
+				result[i][j] = sum;
+			}
+		}
+		return result;
+	}
+
+	private static double[] multiply(double[][] m, double[] v)
+	{
+		double[] result = new double[m.length];
+		for(int i = 0; i < m.length; i++)
+		{
+			for(int j = 0; j < v.length; j++)
+			{
+				result[i] += m[i][j] * v[j];
+			}
+		}
+		return result;
+	}
+
+	private static double[] add(double[] u, double[] v)
+	{
+		double[] result = new double[u.length];
+		for(int i = 0; i < u.length; i++)
+		{
+			result[i] = u[i] + v[i];
+		}
+		return result;
+	}
+
+	private static double[] subtract(double[] u, double[] v)
+	{
+		double[] result = new double[u.length];
+		for(int i = 0; i < u.length; i++)
+		{
+			result[i] = u[i] - v[i];
+		}
+		return result;
+	}
+
+	public Vector3d getLaunchVelocity()
+	{
+		return new Vector3d(nodes[0][3], nodes[0][4], nodes[0][5]);
+	}
+
+	/**
+	 * @return {position, velocity} at the start of the segment
+	 */
+	public Vector3d[] getNode(int segment)
+	{
+		double[] node = nodes[segment];
+		return new Vector3d[] {new Vector3d(node[0], node[1], node[2]), new Vector3d(node[3], node[4], node[5])};
+	}
+
+	public Vector3d getVelocityAtTarget()		{return velocityAtTarget;}
+	public Vector3d getLaunchPoint()			{return launchPoint;}
+	public Vector3d getTargetPoint()			{return targetPoint;}
+	public int getNoOfSegments()				{return noOfSegments;}
+	public int getIteration()					{return iteration;}
+	public double getMerit()					{return lastMerit;}
+	public void setEpsilon(double epsilon)		{this.epsilon = epsilon;}
+	public void setIterationLimit(int limit)	{this.iterationLimit = limit;}
+}
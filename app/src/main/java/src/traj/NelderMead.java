@@ -0,0 +1,142 @@
+package src.traj;
+
+import java.util.Arrays;
+
+/**
+ * Nelder-Mead downhill simplex. Needs only one or two evaluations per iteration, so it suits expensive
+ * smooth costs in a few dimensions. The initial simplex and shrink steps are evaluated as a batch.
+ */
+public class NelderMead implements Optimizer
+{
+	private static final double REFLECTION = 1;
+	private static final double EXPANSION = 2;
+	private static final double CONTRACTION = 0.5;
+	private static final double SHRINK = 0.5;
+
+	@Override
+	public double[] minimize(FitnessEvaluator evaluator, double[] start, double[] scale, double tolerance, int maxEvaluations)
+	{
+		int n = start.length;
+		double[][] simplex = new double[n + 1][];
+		simplex[0] = start.clone();
+		for(int i = 0; i < n; i++)
+		{
+			simplex[i + 1] = start.clone();
+			simplex[i + 1][i] += scale[i];
+		}
+		double[] values = evaluator.evaluate(simplex);
+		long budgetEnd = evaluator.getEvaluations() - (n + 1) + maxEvaluations;
+
+		sort(simplex, values);
+		while(evaluator.getEvaluations() < budgetEnd && size(simplex) > tolerance)
+		{
+			double[] centroid = new double[n];
+			for(int i = 0; i < n; i++)
+			{
+				for(int j = 0; j < n; j++)
+				{
+					centroid[j] += simplex[i][j] / n;
+				}
+			}
+
+			double[] reflected = along(centroid, simplex[n], -REFLECTION);
+			double reflectedValue = evaluator.evaluate(reflected);
+			if(reflectedValue < values[0])
+			{
+				double[] expanded = along(centroid, simplex[n], -EXPANSION);
+				double expandedValue = evaluator.evaluate(expanded);
+				if(expandedValue < reflectedValue)
+					replaceWorst(simplex, values, expanded, expandedValue);
+				else
+					replaceWorst(simplex, values, reflected, reflectedValue);
+			}
+			else if(reflectedValue < values[n - 1])
+			{
+				replaceWorst(simplex, values, reflected, reflectedValue);
+			}
+			else
+			{
+				boolean outside = reflectedValue < values[n];
+				double[] contracted = outside ? along(centroid, simplex[n], -CONTRACTION) : along(centroid, simplex[n], CONTRACTION);
+				double contractedValue = evaluator.evaluate(contracted);
+				if(contractedValue < Math.min(reflectedValue, values[n]))
+				{
+					replaceWorst(simplex, values, contracted, contractedValue);
+				}
+				else
+				{
+					double[][] shrunk = new double[n][];
+					for(int i = 1; i <= n; i++)
+					{
+						shrunk[i - 1] = along(simplex[0], simplex[i], SHRINK);
+					}
+					double[] shrunkValues = evaluator.evaluate(shrunk);
+					for(int i = 1; i <= n; i++)
+					{
+						simplex[i] = shrunk[i - 1];
+						values[i] = shrunkValues[i - 1];
+					}
+				}
+			}
+			sort(simplex, values);
+		}
+		return simplex[0];
+	}
+
+	/*
+	 * from + factor * (towards - from)
+	 */
+	private static double[] along(double[] from, double[] towards, double factor)
+	{
+		double[] point = new double[from.length];
+		for(int i = 0; i < from.length; i++)
+		{
+			point[i] = from[i] + factor * (towards[i] - from[i]);
+		}
+		return point;
+	}
+
+	private static void replaceWorst(double[][] simplex, double[] values, double[] point, double value)
+	{
+		simplex[simplex.length - 1] = point;
+		values[values.length - 1] = value;
+	}
+
+	private static void sort(double[][] simplex, double[] values)
+	{
+		Integer[] order = new Integer[values.length];
+		for(int i = 0; i < order.length; i++)
+		{
+			order[i] = i;
+		}
+		Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+		double[][] sortedSimplex = new double[simplex.length][];
+		double[] sortedValues = new double[values.length];
+		for(int i = 0; i < order.length; i++)
+		{
+			sortedSimplex[i] = simplex[order[i]];
+			sortedValues[i] = values[order[i]];
+		}
+		System.arraycopy(sortedSimplex, 0, simplex, 0, simplex.length);
+		System.arraycopy(sortedValues, 0, values, 0, values.length);
+	}
+
+	/*
+	 * Largest distance of a vertex from the best one
+	 */
+	private static double size(double[][] simplex)
+	{
+		double size = 0;
+		for(int i = 1; i < simplex.length; i++)
+		{
+			double sum = 0;
+			for(int j = 0; j < simplex[i].length; j++)
+			{
+				double d = simplex[i][j] - simplex[0][j];
+				sum += d * d;
+			}
+			size = Math.max(size, Math.sqrt(sum));
+		}
+		return size;
+	}
+}
@@ -1,11 +1,9 @@
 package src.traj;
 
+import java.util.Arrays;
+
 import src.conf.SimulationSettings;
-import src.peng.NewtonGravityFunction;
-import src.peng.ODEFunctionInterface;
-import src.peng.State;
 import src.peng.Vector3d;
-import src.solv.Verlet;
 import src.univ.CelestialBody;
 import src.univ.Universe;
 
@@ -23,6 +21,14 @@ public class NewtonRaphson extends GuidanceController
     private int iterationLimit = 30;
     private int iteration = 0;
     private Vector3d velocityAtTarget;
+    private Matrix3d jacobian;
+    private ClosestApproachTracker closestApproach;
+    private final ProbePropagator propagator;
+    private PruningPredicate pruning;
+    private final EvaluationCache<Route> routeCache = new EvaluationCache<Route>(ROUTE_CACHE_CAPACITY);
+
+    private static final int ROUTE_CACHE_CAPACITY = 16;         // Whole trajectories, a few Jacobians worth
+    private static final int MAX_BACKTRACKS = 8;                // Halvings of a step whose route is pruned
 
     private static boolean visualize = true;
 
@@ -34,43 +40,89 @@ public class NewtonRaphson extends GuidanceController
         this.origin = origin;
         this.target = target;
         this.startingVelocity = startingVelocity;
+        this.propagator = new ProbePropagator(universe, settings.stepSize);
+        this.pruning = PruningPredicate.collision(universe, origin, target);
 
         calculateLaunchAndTargetCoordinates();
     }
 
+    /**
+     * Start from the two-body Lambert transfer between the launch and target points instead of a fixed guess
+     */
+    public NewtonRaphson(Universe universe, int origin, int target, SimulationSettings settings)
+    {
+        this(universe, origin, target, settings, null);
+        this.startingVelocity = LambertSolver.seedVelocity(universe, origin, launchPoint, settings.stepOffset, targetPoint,
+                                                           settings.stepOffset + settings.noOfSteps, settings.stepSize);
+    }
+
+    /**
+     * Fly the probe from the launch point, re-planning a velocity already flown returns the memoised route
+     * @return the position at every step, from the launch point to the end of the route,
+     * or to the step it was pruned at
+     */
     public Vector3d[] planRoute(Vector3d initVelocity)
     {
-        double[] masses = addMassToEnd(universe.masses, 700);
-        ODEFunctionInterface funct = new NewtonGravityFunction(masses);
+        Route route = route(initVelocity);
+        if(!route.isPruned())
+            setVelocityAtTarget(route.velocityAtTarget);
+        closestApproach = route.closestApproach;
+        return route.trajectory.clone();
+    }
 
-        Verlet solver = new Verlet();
-        int currentStep = settings.stepOffset;
-        int trajectoryIndex = 0;
-        Vector3d[] trajectory = new Vector3d[settings.noOfSteps+1];
+    /**
+     * Plan a route that is flown to the end even where pruning would abandon it, for a velocity the solve
+     * cannot step away from: a crash point says nothing about where the route goes
+     * @return the position at every step, from the launch point to the end of the route
+     */
+    public Vector3d[] planFullRoute(Vector3d initVelocity)
+    {
+        Route route = route(initVelocity);
+        if(route.isPruned())
+            route = propagateRoute(initVelocity, null);
+        setVelocityAtTarget(route.velocityAtTarget);
+        closestApproach = route.closestApproach;
+        return route.trajectory.clone();
+    }
 
-        Vector3d currentPosition = launchPoint;
-        Vector3d currentVelocity = initVelocity;
-        trajectory[trajectoryIndex] = currentPosition;
+    private Route route(Vector3d initVelocity)
+    {
+        return routeCache.get(launchPoint, initVelocity, settings.stepOffset, settings.noOfSteps, settings.stepSize,
+                              () -> propagateRoute(initVelocity, pruning));
+    }
 
-        while(trajectoryIndex < settings.noOfSteps)
+    private Route propagateRoute(Vector3d initVelocity, PruningPredicate pruning)
+    {
+        Vector3d[] trajectory = new Vector3d[settings.noOfSteps+1];
+        ClosestApproachTracker tracker = new ClosestApproachTracker(target);
+        Vector3d[] end = propagator.propagate(settings.stepOffset, settings.noOfSteps, launchPoint, initVelocity, trajectory, tracker, pruning);
+        if(end == null)
         {
-            double currentTime = currentStep * settings.stepSize;
-            State currentState = addProbe(universe.getStateAt(currentStep), currentPosition, currentVelocity);
-            State nextState = solver.step(funct, currentTime, currentState, settings.stepSize);
-
-            currentPosition = getProbePosition(nextState);
-            currentVelocity = getProbeVelocity(nextState);
-            currentStep++;
-            trajectoryIndex++;
-            trajectory[trajectoryIndex] = currentPosition;
+            int length = 0;
+            while(length < trajectory.length && trajectory[length] != null)
+                length++;
+            return new Route(Arrays.copyOf(trajectory, length), null, tracker);
         }
-        setVelocityAtTarget(currentVelocity);
-        return trajectory;
+        return new Route(trajectory, end[1], tracker);
+    }
+
+    /*
+     * Halve a step whose route is pruned, towards the velocity it starts from, until the route survives
+     */
+    private Vector3d backtrack(Vector3d velocity, Vector3d nextVelocity)
+    {
+        for(int i = 0; i < MAX_BACKTRACKS && route(nextVelocity).isPruned(); i++)
+        {
+            nextVelocity = velocity.add(nextVelocity.sub(velocity).mul(0.5));
+        }
+        if(route(nextVelocity).isPruned())
+            throw new RuntimeException("Every step from " + velocity + " leads to a pruned route");
+        return nextVelocity;
     }
 
     public Vector3d newtonRaphsonIterativeMethod()
     {
-        Vector3d[] trajectory = planRoute(startingVelocity);
+        Vector3d[] trajectory = planFullRoute(startingVelocity);
         Vector3d closestPoint = calculateClosestPoint(trajectory);
         double distance = closestPointDistanceToTarget(closestPoint);
         
@@ -81,7 +133,7 @@ public class NewtonRaphson extends GuidanceController
 
         while(distance > epsilon)
         {
-            Vector3d nextVelocity = newtonRaphsonStep(startingVelocity, closestPoint);
+            Vector3d nextVelocity = backtrack(startingVelocity, newtonRaphsonStep(startingVelocity, closestPoint));
 
             startingVelocity = nextVelocity;
             trajectory = planRoute(nextVelocity);
@@ -106,9 +158,80 @@ public class NewtonRaphson extends GuidanceController
         return startingVelocity;
     }
 
+    /**
+     * Newton Raphson that differences the Jacobian once, or not at all when given one from a nearby solve,
+     * and then keeps it current with Broyden rank one updates from the steps it takes.
+     * A fresh Jacobian is only differenced again when a step fails to bring the probe closer to the target.
+     * @param initialJacobian Jacobian of a previous solve to start from, or null to difference one
+     * @return the velocity that reaches the target point
+     */
+    public Vector3d broydenIterativeMethod(Matrix3d initialJacobian)
+    {
+        Vector3d[] trajectory = planFullRoute(startingVelocity);
+        Vector3d closestPoint = calculateClosestPoint(trajectory);
+        Vector3d residual = componentDistanceMeasure(closestPoint);
+        double distance = residual.norm();
+        boolean fresh = initialJacobian == null;
+        jacobian = fresh ? calculateJacobian(startingVelocity, closestPoint) : initialJacobian;
+        int iterations = 0;
+
+        while(distance > epsilon)
+        {
+            if(iterations++ > iterationLimit)
+                throw new RuntimeException("Broyden iteration did not converge");
+            iteration++;
+
+            Vector3d step = jacobian.calculateInverseMatrix().vectorMultiplication(residual).mul(-1);
+            Vector3d nextVelocity = backtrack(startingVelocity, startingVelocity.add(step));
+            step = nextVelocity.sub(startingVelocity);
+            Vector3d[] nextTrajectory = planRoute(nextVelocity);
+            Vector3d nextClosestPoint = calculateClosestPoint(nextTrajectory);
+            Vector3d nextResidual = componentDistanceMeasure(nextClosestPoint);
+            double nextDistance = nextResidual.norm();
+
+            if(nextDistance >= distance && !fresh)
+            {
+                // The carried Jacobian is too far off, replace it and retry from the same velocity
+                jacobian = calculateJacobian(startingVelocity, closestPoint);
+                fresh = true;
+                continue;
+            }
+
+            // J += (df - J dv) dv^T / (dv . dv)
+            Vector3d update = nextResidual.sub(residual).sub(jacobian.vectorMultiplication(step)).mul(1 / step.dotProduct(step));
+            Matrix3d updated = new Matrix3d();
+            for(int i = 0; i < 3; i++)
+            {
+                for(int j = 0; j < 3; j++)
+                {
+                    updated.set(i, j, jacobian.get(i, j) + update.get(i) * step.get(j));
+                }
+            }
+            jacobian = updated;
+            fresh = false;
+
+            startingVelocity = nextVelocity;
+            trajectory = nextTrajectory;
+            closestPoint = nextClosestPoint;
+            residual = nextResidual;
+            distance = nextDistance;
+
+            if(visualize)
+                universe.addTempTrajectory(trajectory);
+        }
+
+        if(visualize)
+        {
+            universe.addPermTrajectory(trajectory);
+            universe.clearTempTrajectories();
+        }
+        planRoute(startingVelocity);                                // Velocity at target of the solution, not of a difference
+        return startingVelocity;
+    }
+
     public Vector3d newtonRaphsonStep(Vector3d initVelocity, Vector3d closestPoint)
     {
-        Matrix3d jacobian = calculateJacobian(initVelocity, closestPoint);
+        jacobian = calculateJacobian(initVelocity, closestPoint);
         Matrix3d inverseJacobian = jacobian.calculateInverseMatrix();
         Vector3d componentDistanceMeasure = componentDistanceMeasure(closestPoint);
         Vector3d inverseJacobianAndDistanceCalculation = inverseJacobian.vectorMultiplication(componentDistanceMeasure);
@@ -141,8 +264,8 @@ public class NewtonRaphson extends GuidanceController
         /*Determine distance in x,y,z components*/
         double individualComponentResult = individualComponentResult(closestPoint, row);
 
-        /*Generate new trajectory from deltaValue and subsequent closest point*/
-        Vector3d[] derivativeTrajectory = planRoute(velocityDelta);
+        /*Generate new trajectory from deltaValue and subsequent closest point, never cut short by pruning*/
+        Vector3d[] derivativeTrajectory = planFullRoute(velocityDelta);
         Vector3d nextClosestPoint = calculateClosestPoint(derivativeTrajectory);
         double derivativeIndividualComponentResult = individualComponentResult(nextClosestPoint, row);
 
@@ -167,6 +290,10 @@ public class NewtonRaphson extends GuidanceController
         return closestPoint.dist(targetPoint);
     }
 
+    /**
+     * Newton targets the point at the arrival step, so the residual is taken at the end of the route.
+     * The true closest approach to the target body is in {@link #getClosestApproach()}.
+     */
     public Vector3d calculateClosestPoint(Vector3d[] trajectory)
     {
         int finalIndex = trajectory.length - 1;
@@ -175,7 +302,7 @@ public class NewtonRaphson extends GuidanceController
 
     public void calculateRelativeStartingVelocity(Vector3d startingVelocity)
     {
-        Vector3d originVelocity = universe.U[origin][0].velocity;
+        Vector3d originVelocity = universe.getBody(origin, 0).velocity;
         this.startingVelocity =  originVelocity.add(startingVelocity);
         System.out.println("Starting velocity: " + this.startingVelocity.toString());
     }
@@ -183,11 +310,11 @@ public class NewtonRaphson extends GuidanceController
     private void calculateLaunchAndTargetCoordinates()
     {
         int targetPointIndex = settings.stepOffset + settings.noOfSteps;
-        CelestialBody targetPlanet = universe.U[target][targetPointIndex];
+        CelestialBody targetPlanet = universe.getBody(target, targetPointIndex);
         targetPoint = targetPlanet.calculateTargetPoint();
 
         int launchPointIndex = settings.stepOffset;
-        CelestialBody launchPlanet = universe.U[origin][launchPointIndex];
+        CelestialBody launchPlanet = universe.getBody(origin, launchPointIndex);
         launchPoint = launchPlanet.closestLaunchPoint(targetPoint);
     }
 
@@ -201,6 +328,47 @@ public class NewtonRaphson extends GuidanceController
         return iteration;
     }
 
+    /**
+     * @return the last Jacobian of the miss with respect to the launch velocity, null before the first step
+     */
+    public Matrix3d getJacobian()
+    {
+        return jacobian;
+    }
+
+    public Vector3d getStartingVelocity()
+    {
+        return startingVelocity;
+    }
+
+    public void setStartingVelocity(Vector3d startingVelocity)
+    {
+        this.startingVelocity = startingVelocity;
+    }
+
+    public Vector3d getTargetPoint()
+    {
+        return targetPoint;
+    }
+
+    /**
+     * Aim at another point than the target planet, continuation walks the aim point towards the planet
+     */
+    public void setTargetPoint(Vector3d targetPoint)
+    {
+        this.targetPoint = targetPoint;
+    }
+
+    public double getEpsilon()
+    {
+        return epsilon;
+    }
+
+    public void setEpsilon(double epsilon)
+    {
+        this.epsilon = epsilon;
+    }
+
     public double getDelta()
     {
         return delta;
@@ -218,6 +386,48 @@ public class NewtonRaphson extends GuidanceController
         return velocityAtTarget;
     }
 
+    /**
+     * @return closest approach to the target body on the last route planned, between steps
+     */
+    public ClosestApproachTracker getClosestApproach()
+    {
+        return closestApproach;
+    }
+
+    /**
+     * @param pruning abandons candidate routes during propagation, null to fly every route to the end.
+     * By default routes that crash into a body other than the origin and the target are abandoned
+     */
+    public void setPruning(PruningPredicate pruning)
+    {
+        this.pruning = pruning;
+        routeCache.clear();
+    }
+
+    public EvaluationCache<?> getRouteCache()
+    {
+        return routeCache;
+    }
+
+    private static class Route
+    {
+        private final Vector3d[] trajectory;
+        private final Vector3d velocityAtTarget;
+        private final ClosestApproachTracker closestApproach;
+
+        private Route(Vector3d[] trajectory, Vector3d velocityAtTarget, ClosestApproachTracker closestApproach)
+        {
+            this.trajectory = trajectory;
+            this.velocityAtTarget = velocityAtTarget;
+            this.closestApproach = closestApproach;
+        }
+
+        private boolean isPruned()
+        {
+            return velocityAtTarget == null;
+        }
+    }
+
     public void visualizerOff()
     {
         visualize = false;
@@ -0,0 +1,17 @@
+package src.traj;
+
+/**
+ * Derivative free minimiser used by the guidance controllers to tune launch and insertion velocities.
+ */
+public interface Optimizer
+{
+	/**
+	 * @param evaluator evaluates and counts the candidates, holds the best one when this returns
+	 * @param start first guess
+	 * @param scale initial search width per coordinate
+	 * @param tolerance stop once the search has narrowed below this width, in the units of x
+	 * @param maxEvaluations stop after about this many evaluations
+	 * @return the best point found
+	 */
+	public double[] minimize(FitnessEvaluator evaluator, double[] start, double[] scale, double tolerance, int maxEvaluations);
+}
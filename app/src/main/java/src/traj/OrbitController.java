@@ -24,15 +24,33 @@ public class OrbitController extends GuidanceController
 	private double[] velocityCollection;
 	private int loggingIndex = 0;
 	SimulationSettings settings;
+	private double[] lastDistances;
+	private ClosestApproachTracker closestApproach;
+	private EvaluationCache<double[]> distanceCache = new EvaluationCache<double[]>(DISTANCE_CACHE_CAPACITY);
+	private PruningPredicate pruning;
+
+	private static final int DISTANCE_CACHE_CAPACITY = 64;
 
 
 	public OrbitController(Universe universe, int target, SimulationSettings settings)
 	{
 		super(universe, target);
 		this.settings = settings;
+		// The orbit is held orbitalHeight from the centre of the target, which is inside it, so only other bodies count
+		this.pruning = PruningPredicate.collision(universe, target);
 	}
 
 	public Vector3d[] planRoute(Vector3d optimumVelocity, int target, Universe universe)
+	{
+		return planRoute(optimumVelocity, target, universe, null, 0, Double.POSITIVE_INFINITY);
+	}
+
+	/*
+	 * Fly the orbit, abandoning it once the pruning predicate holds or the running error of trajectoryFitnessCalculation
+	 * can no longer come in under the error bound. Returns null for an abandoned orbit
+	 */
+	private Vector3d[] planRoute(Vector3d optimumVelocity, int target, Universe universe, PruningPredicate pruning,
+								 double orbitalHeight, double errorBound)
 	{
 		double[] masses = addMassToEnd(universe.masses, 700);
 		ODEFunctionInterface funct = new NewtonGravityFunction(masses);
@@ -41,26 +59,44 @@ public class OrbitController extends GuidanceController
 		Vector3d[] trajectory = new Vector3d[settings.noOfSteps+1];
 
 		int currentStep = settings.stepOffset;
-		CelestialBody temp = universe.U[target][0];
+		CelestialBody temp = universe.getBody(target, 0);
 		Vector3d currentPosition = temp.calculateTargetPoint();
 		trajectory[0] = currentPosition;
 		Vector3d currentVelocity = optimumVelocity;
 
+		// Distance to the target at every step and the closest approach, measured while the orbit is flown
+		double[] distances = new double[settings.noOfSteps+1];
+		ClosestApproachTracker tracker = new ClosestApproachTracker(target);
+		distances[0] = currentPosition.dist(temp.location);
+		double errorLimit = errorBound * distances.length;
+		double errorSum = Math.abs(distances[0] - orbitalHeight);
+		tracker.observe(currentStep * settings.stepSize, currentPosition, currentVelocity, temp.location, temp.velocity);
+
 		while(currentStep < settings.noOfSteps)
 		{
 			double currentTime = currentStep * settings.stepSize;
 			State currentState = addProbe(universe.getStateAt(currentStep), currentPosition, currentVelocity);
 			State nextState = solver.step(funct, currentTime, currentState, settings.stepSize);
 
-			CelestialBody targetPlanet = universe.U[target][currentStep];
+			CelestialBody targetPlanet = universe.getBody(target, currentStep);
 			Vector3d impulse = calculateImpulsionToRemainInOrbit(nextState, targetPlanet);
 
 			currentPosition = getProbePosition(nextState);
 			currentVelocity = getProbeVelocity(nextState).add(impulse);
 			currentStep++;
 			trajectory[currentStep] = currentPosition;
+
+			CelestialBody targetNow = universe.getBody(target, currentStep);
+			distances[currentStep] = currentPosition.dist(targetNow.location);
+			tracker.observe(currentStep * settings.stepSize, currentPosition, currentVelocity, targetNow.location, targetNow.velocity);
+
+			errorSum += Math.abs(distances[currentStep] - orbitalHeight);
+			if(errorSum > errorLimit || (pruning != null && pruning.prune(currentStep, nextState)))
+				return null;
 		}
 		setVelocityAtEndOfOrbit(currentVelocity);
+		lastDistances = distances;
+		closestApproach = tracker;
 		return trajectory;
 	}
 
@@ -154,7 +190,8 @@ public class OrbitController extends GuidanceController
 
 		while(temp>0)
 		{
-			double newError = routeEvaluation(currentVelocity, settings, universe, target, orbitalHeight);
+			// Worse candidates are abandoned early, unless the whole error curve is being logged
+			double newError = routeEvaluation(currentVelocity, settings, universe, target, orbitalHeight, log ? Double.POSITIVE_INFINITY : error);
 
 			System.out.println("Current velocity " + currentVelocity + " Error: " + newError);
 			if(newError < error)
@@ -178,16 +215,76 @@ public class OrbitController extends GuidanceController
 		return bestVelocity;
 	}
 
+	/**
+	 * Tune the insertion velocity with an optimiser instead of the fixed 0.1 m/s scan of {@link #linearClimbing}.
+	 * Each candidate is flown by its own controller, planRoute keeps state, so the candidates can run in parallel.
+	 * @param maxEvaluations number of orbits to fly at most
+	 */
+	public double optimisedClimbing(Universe universe, int target, SimulationSettings settings, Optimizer optimizer, int maxEvaluations)
+	{
+		return optimisedClimbing(universe, target, settings, optimizer, 9619, 1, maxEvaluations);
+	}
+
+	/**
+	 * @param startVelocity insertion speed to search around, a previous optimum when re-planning
+	 * @param scale initial search width in m/s
+	 */
+	public double optimisedClimbing(Universe universe, int target, SimulationSettings settings, Optimizer optimizer, double startVelocity,
+									double scale, int maxEvaluations)
+	{
+		double orbitalHeight = getOrbitalHeight(universe, target);
+		FitnessEvaluator evaluator = new FitnessEvaluator(velocity ->
+		{
+			SimulationSettings trialSettings = settings.copy();
+			trialSettings.stepOffset = settings.stepOffset;
+			OrbitController trial = new OrbitController(universe, target, trialSettings);
+			trial.distanceCache = distanceCache;
+			return trial.routeEvaluation(velocity[0], settings, universe, target, orbitalHeight);
+		});
+		optimizer.minimize(evaluator, new double[] {startVelocity}, new double[] {scale}, 0.01, maxEvaluations);
+		double bestVelocity = evaluator.getBest()[0];
+		System.out.println("Optimum velocity is: " + bestVelocity + " Error: " + evaluator.getBestValue());
+		return bestVelocity;
+	}
+
 	public double routeEvaluation(double velocity, SimulationSettings settings, Universe universe, int target, double orbitalHeight)
 	{
-		Vector3d trialVelocity = optimumVelocityScalerToVector(velocity);
-		Vector3d[] route = planRoute(trialVelocity, target, universe);
+		return routeEvaluation(velocity, settings, universe, target, orbitalHeight, Double.POSITIVE_INFINITY);
+	}
 
-		double[] distanceMeasure = trajectoryToDistanceMeasure(route, universe, target);
+	/**
+	 * @param errorBound abandon the orbit as soon as its error is sure to exceed this, usually the best error so far
+	 * @return the error of the orbit, infinite if it crashed or was abandoned
+	 */
+	public double routeEvaluation(double velocity, SimulationSettings settings, Universe universe, int target, double orbitalHeight,
+								  double errorBound)
+	{
+		Vector3d trialVelocity = optimumVelocityScalerToVector(velocity);
+		double[] distanceMeasure;
+		if(universe == this.universe && target == this.target)
+		{
+			// Keyed on the insertion point, the orbit height is applied after the lookup
+			Vector3d insertionPoint = universe.getBody(target, 0).calculateTargetPoint();
+			distanceMeasure = distanceCache.get(insertionPoint, trialVelocity, settings.stepOffset, settings.noOfSteps, settings.stepSize,
+												() -> flyDistanceMeasure(trialVelocity, target, universe, orbitalHeight, errorBound));
+		}
+		else
+		{
+			distanceMeasure = flyDistanceMeasure(trialVelocity, target, universe, orbitalHeight, errorBound);
+		}
+		if(distanceMeasure == null)
+			return Double.POSITIVE_INFINITY;
 		double routeError = trajectoryFitnessCalculation(orbitalHeight, distanceMeasure);
 		return routeError;
 	}
 
+	private double[] flyDistanceMeasure(Vector3d velocity, int target, Universe universe, double orbitalHeight, double errorBound)
+	{
+		if(planRoute(velocity, target, universe, pruning, orbitalHeight, errorBound) == null)
+			return null;
+		return lastDistances;
+	}
+
 	public double trajectoryFitnessCalculation(double orbitalHeight, double[] distanceMeasure)
 	{
 		double sum = 0;
@@ -205,14 +302,14 @@ public class OrbitController extends GuidanceController
 
 		for(int i = 0; i< trajectory.length; i++)
 		{
-			distanceMeasure[i] = trajectory[i].dist(universe.U[target][i].location);
+			distanceMeasure[i] = trajectory[i].dist(universe.getBody(target, i).location);
 		}
 		return distanceMeasure;
 	}
 
 	public double getOrbitalHeight(Universe universe, int target)
 	{
-		return universe.U[target][0].orbitalHeight;
+		return universe.getBody(target, 0).orbitalHeight;
 	}
 
 	public static void setLogActive()
@@ -241,6 +338,19 @@ public class OrbitController extends GuidanceController
 		return velocityAtEndOfOrbit;
 	}
 
+	/**
+	 * @return closest approach to the target on the last orbit flown, between steps
+	 */
+	public ClosestApproachTracker getClosestApproach()
+	{
+		return closestApproach;
+	}
+
+	public EvaluationCache<double[]> getDistanceCache()
+	{
+		return distanceCache;
+	}
+
 	public static void visualizerOff()
 	{
 		visualize = false;
@@ -0,0 +1,193 @@
+package src.traj;
+
+import src.conf.SimulationSettings;
+import src.peng.NewtonGravityFunction;
+import src.peng.ODEFunctionInterface;
+import src.peng.State;
+import src.peng.Vector3d;
+import src.solv.ODESolver;
+import src.solv.Verlet;
+import src.univ.CelestialBody;
+import src.univ.Universe;
+
+/**
+ * Inserts the probe into a circular orbit around the target and keeps it there without searching.
+ * The insertion burn is worked out from the state of the probe relative to the target: the radial velocity is
+ * cancelled and the tangential speed set to the circular speed of {@link CelestialBody#orbitalVelocity}.
+ *
+ * Station keeping only burns at an apsis, where the radial velocity changes sign. There the vis-viva equation
+ * gives the far apsis of the current orbit, and when that is out of tolerance a tangential burn puts it back on
+ * the orbit radius. A well inserted orbit therefore needs a burn every few orbits at most.
+ */
+public class OrbitInsertionController extends GuidanceController
+{
+	public static final double DEFAULT_TOLERANCE = 10e3;		// m, allowed error of the far apsis
+
+	private final SimulationSettings settings;
+	private final double tolerance;
+	private final ODESolver solver = new Verlet();
+
+	private double orbitRadius;
+	private Vector3d insertionPoint;
+	private Vector3d insertionVelocity;
+	private double insertionDeltaV;
+	private double stationKeepingDeltaV = 0;
+	private int stationKeepingBurns = 0;
+
+	/**
+	 * @param arrivalVelocity velocity of the probe when it reaches the target, the insertion burn starts from it
+	 */
+	public OrbitInsertionController(Universe universe, int target, SimulationSettings settings, Vector3d arrivalVelocity)
+	{
+		this(universe, target, settings, arrivalVelocity, DEFAULT_TOLERANCE);
+	}
+
+	/**
+	 * @param tolerance m, station keeping burns once the far apsis is further than this from the orbit radius
+	 */
+	public OrbitInsertionController(Universe universe, int target, SimulationSettings settings, Vector3d arrivalVelocity, double tolerance)
+	{
+		super(universe, target);
+		this.settings = settings;
+		this.tolerance = tolerance;
+		trajectory = insert(arrivalVelocity);
+	}
+
+	private Vector3d[] insert(Vector3d arrivalVelocity)
+	{
+		double[] masses = addMassToEnd(universe.masses, ProbePropagator.PROBE_MASS);
+		ODEFunctionInterface funct = new NewtonGravityFunction(masses);
+
+		// Above the target at its orbital height, on the side the old insertion point was on
+		CelestialBody body = universe.getBody(target, settings.stepOffset);
+		orbitRadius = body.radius + body.orbitalHeight;
+		insertionPoint = body.location.add(new Vector3d(0, -orbitRadius, 0));
+		insertionVelocity = body.velocity.add(circularVelocity(body, insertionPoint.sub(body.location), arrivalVelocity.sub(body.velocity)));
+		insertionDeltaV = insertionVelocity.sub(arrivalVelocity).norm();
+
+		Vector3d[] trajectory = new Vector3d[settings.noOfSteps + 1];
+		corrections = new Vector3d[settings.noOfSteps + 1];
+		trajectory[0] = insertionPoint;
+		corrections[0] = insertionVelocity.sub(arrivalVelocity);
+
+		int currentStep = settings.stepOffset;
+		Vector3d currentPosition = insertionPoint;
+		Vector3d currentVelocity = insertionVelocity;
+		double radialSpeed = 0;
+		while(currentStep < settings.stepOffset + settings.noOfSteps)
+		{
+			double currentTime = currentStep * settings.stepSize;
+			State currentState = addProbe(universe.getStateAt(currentStep), currentPosition, currentVelocity);
+			State nextState = solver.step(funct, currentTime, currentState, settings.stepSize);
+			currentStep++;
+			currentPosition = getProbePosition(nextState);
+			currentVelocity = getProbeVelocity(nextState);
+
+			Vector3d targetPosition = nextState.position.get(target);
+			Vector3d targetVelocity = nextState.velocity.get(target);
+			Vector3d relativePosition = currentPosition.sub(targetPosition);
+			Vector3d relativeVelocity = currentVelocity.sub(targetVelocity);
+			double nextRadialSpeed = relativePosition.dotProduct(relativeVelocity) / relativePosition.norm();
+
+			int index = currentStep - settings.stepOffset;
+			if(nextRadialSpeed * radialSpeed <= 0 && nextRadialSpeed != radialSpeed)
+			{
+				Vector3d correction = apsisCorrection(body, relativePosition, relativeVelocity);
+				if(correction != null)
+				{
+					corrections[index] = correction;
+					currentVelocity = currentVelocity.add(correction);
+					stationKeepingDeltaV += correction.norm();
+					stationKeepingBurns++;
+					nextRadialSpeed = 0;
+				}
+			}
+			radialSpeed = nextRadialSpeed;
+			trajectory[index] = currentPosition;
+		}
+
+		finalSettings = settings.copy();
+		finalSettings.probeStartPosition = currentPosition;
+		finalSettings.probeStartVelocity = currentVelocity;
+		finalSettings.stepOffset = currentStep;
+		return trajectory;
+	}
+
+	/*
+	 * Velocity relative to the body for a circular orbit through the relative position, in the plane of the
+	 * relative velocity the probe already has, or about the z axis if it has none across the radius
+	 */
+	private Vector3d circularVelocity(CelestialBody body, Vector3d relativePosition, Vector3d relativeVelocity)
+	{
+		double r = relativePosition.norm();
+		return tangent(relativePosition, relativeVelocity).mul(body.orbitalVelocity(r - body.radius));
+	}
+
+	/*
+	 * At an apsis, the burn that puts the far apsis back on the orbit radius, null if it is within tolerance
+	 */
+	private Vector3d apsisCorrection(CelestialBody body, Vector3d relativePosition, Vector3d relativeVelocity)
+	{
+		double r = relativePosition.norm();
+		double circularSpeed = body.orbitalVelocity(r - body.radius);
+		double mu = circularSpeed * circularSpeed * r;
+
+		// Vis-viva, v^2 = mu (2/r - 1/a), the far apsis is at 2a - r
+		double speed = relativeVelocity.norm();
+		double semiMajorAxis = 1 / (2 / r - speed * speed / mu);
+		double farApsis = 2 * semiMajorAxis - r;
+		if(semiMajorAxis > 0 && Math.abs(farApsis - orbitRadius) <= tolerance)
+			return null;
+
+		double targetSpeed = Math.sqrt(mu * (2 / r - 2 / (r + orbitRadius)));
+		return tangent(relativePosition, relativeVelocity).mul(targetSpeed).sub(relativeVelocity);
+	}
+
+	private static Vector3d tangent(Vector3d relativePosition, Vector3d relativeVelocity)
+	{
+		Vector3d radial = relativePosition.unitVector();
+		Vector3d across = relativeVelocity.addMul(-relativeVelocity.dotProduct(radial), radial);
+		if(across.norm() < 1e-9 * Math.max(1, relativeVelocity.norm()))
+		{
+			across = Math.abs(radial.getZ()) < 0.9 ? new Vector3d(-radial.getY(), radial.getX(), 0) : new Vector3d(1, 0, 0);
+			across = across.addMul(-across.dotProduct(radial), radial);
+		}
+		return across.unitVector();
+	}
+
+	/**
+	 * @return distance from the centre of the target the orbit is held at, its radius plus its orbital height
+	 */
+	public double getOrbitRadius()
+	{
+		return orbitRadius;
+	}
+
+	public Vector3d getInsertionPoint()
+	{
+		return insertionPoint;
+	}
+
+	public Vector3d getInsertionVelocity()
+	{
+		return insertionVelocity;
+	}
+
+	public double getInsertionDeltaV()
+	{
+		return insertionDeltaV;
+	}
+
+	/**
+	 * @return sum of the station keeping burns, without the insertion burn
+	 */
+	public double getStationKeepingDeltaV()
+	{
+		return stationKeepingDeltaV;
+	}
+
+	public int getStationKeepingBurns()
+	{
+		return stationKeepingBurns;
+	}
+}
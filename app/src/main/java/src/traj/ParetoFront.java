@@ -0,0 +1,116 @@
+package src.traj;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The candidates no other candidate offered so far dominates, kept as they are evaluated so the trade between
+ * the objectives can be made afterwards with {@link #select} instead of by optimising again.
+ * Candidates with an infinite objective, or only a {@link MissionCost#partial} cost, are never kept. Safe to offer to from several threads at once.
+ */
+public class ParetoFront
+{
+	private final List<Entry> entries = new ArrayList<Entry>();
+
+	/**
+	 * @return true if the candidate joined the front, dropping any it dominates
+	 */
+	public synchronized boolean offer(double[] x, MissionCost cost)
+	{
+		if(!cost.isFinite() || cost.isPartial())
+			return false;
+		for(Entry entry : entries)
+		{
+			if(entry.cost.dominates(cost) || sameCost(entry.cost, cost))
+				return false;
+		}
+		entries.removeIf(entry -> cost.dominates(entry.cost));
+		entries.add(new Entry(x.clone(), cost));
+		return true;
+	}
+
+	/**
+	 * @return the front, by increasing miss distance
+	 */
+	public synchronized List<Entry> getEntries()
+	{
+		List<Entry> sorted = new ArrayList<Entry>(entries);
+		sorted.sort(Comparator.comparingDouble(entry -> entry.cost.getMissDistance()));
+		return sorted;
+	}
+
+	public synchronized int size()
+	{
+		return entries.size();
+	}
+
+	/**
+	 * Pick the candidate of the front that best meets the weights, each objective scaled to the span it takes on
+	 * the front so the weights compare objectives in different units
+	 * @param weights per objective, as a share of its span on the front
+	 * @return the chosen candidate, null if the front is empty
+	 */
+	public synchronized Entry select(double[] weights)
+	{
+		if(weights.length != MissionCost.OBJECTIVES)
+			throw new IllegalArgumentException("Expected " + MissionCost.OBJECTIVES + " weights, one per objective");
+		if(entries.isEmpty())
+			return null;
+
+		double[] lowest = new double[MissionCost.OBJECTIVES];
+		double[] span = new double[MissionCost.OBJECTIVES];
+		for(int i = 0; i < MissionCost.OBJECTIVES; i++)
+		{
+			double low = Double.POSITIVE_INFINITY;
+			double high = Double.NEGATIVE_INFINITY;
+			for(Entry entry : entries)
+			{
+				low = Math.min(low, entry.cost.get(i));
+				high = Math.max(high, entry.cost.get(i));
+			}
+			lowest[i] = low;
+			span[i] = high > low ? high - low : 1;
+		}
+
+		Entry best = null;
+		double bestValue = Double.POSITIVE_INFINITY;
+		for(Entry entry : entries)
+		{
+			double value = 0;
+			for(int i = 0; i < MissionCost.OBJECTIVES; i++)
+				value += weights[i] * (entry.cost.get(i) - lowest[i]) / span[i];
+			if(best == null || value < bestValue)
+			{
+				best = entry;
+				bestValue = value;
+			}
+		}
+		return best;
+	}
+
+	private static boolean sameCost(MissionCost a, MissionCost b)
+	{
+		for(int i = 0; i < MissionCost.OBJECTIVES; i++)
+		{
+			if(a.get(i) != b.get(i))
+				return false;
+		}
+		return true;
+	}
+
+	public static final class Entry
+	{
+		private final double[] point;
+		private final MissionCost cost;
+
+		private Entry(double[] point, MissionCost cost)
+		{
+			this.point = point;
+			this.cost = cost;
+		}
+
+		public double[] getPoint()		{return point.clone();}
+		public MissionCost getCost()	{return cost;}
+	}
+}
@@ -0,0 +1,336 @@
+package src.traj;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import src.peng.NewtonGravityFunction;
+import src.peng.Vector3d;
+import src.prob.Probe;
+import src.prob.Spacecraft;
+import src.univ.CelestialBody;
+import src.univ.Universe;
+
+/**
+ * Preliminary design of an out and back mission with patched conics: heliocentric Lambert arcs between the
+ * centres of the two bodies, joined to planetocentric hyperbolas at their spheres of influence. The probe
+ * leaves a parking orbit of the origin, is captured into a parking orbit of the target, releases the lander,
+ * escapes again and is captured back into the parking orbit of the origin. All burns are impulsive at periapsis.
+ *
+ * The ephemeris is copied once into primitive arrays, after which a mission is a handful of arithmetic
+ * and two Lambert solves, cheap enough to screen millions of combinations before refining the best one with
+ * the N-body correctors. A moon, like Titan, is treated as if it orbited the sun directly: its sphere of
+ * influence is taken about its planet, but the potential of the planet itself is left out of the costs.
+ */
+public class PatchedConicMission
+{
+	private static final int SUN = 0;
+
+	private final int origin;
+	private final int target;
+	private final double stepSize;
+	private final int noOfSteps;
+	private final double mu;
+
+	private final double[] originStates;							// Heliocentric {x, y, z, vx, vy, vz} at every step
+	private final double[] targetStates;
+	private final double[] originSOI;								// Sphere of influence radius at every step
+	private final double[] targetSOI;
+
+	private final CelestialBody originBody;
+	private final CelestialBody targetBody;
+
+	// Mass model of the probe when the mission was created
+	private final double startMass;
+	private final double fuelMass;
+	private final double landerMass;
+	private final Spacecraft spacecraft;
+
+	public PatchedConicMission(Universe universe, int origin, int target, double stepSize)
+	{
+		this(universe, origin, target, stepSize, Probe.getInstance().getSpacecraft());
+	}
+
+	/**
+	 * @param spacecraft mass model of the probe at departure, a value of its own so evaluations can run in parallel
+	 */
+	public PatchedConicMission(Universe universe, int origin, int target, double stepSize, Spacecraft spacecraft)
+	{
+		this.origin = origin;
+		this.target = target;
+		this.stepSize = stepSize;
+		this.noOfSteps = universe.getNoOfTimeSteps();
+		this.mu = NewtonGravityFunction.GRAVITY * universe.masses[SUN];
+		this.originBody = universe.getBody(origin, 0);
+		this.targetBody = universe.getBody(target, 0);
+
+		int originPrimary = primaryOf(universe, origin);
+		int targetPrimary = primaryOf(universe, target);
+		originStates = new double[6 * noOfSteps];
+		targetStates = new double[6 * noOfSteps];
+		originSOI = new double[noOfSteps];
+		targetSOI = new double[noOfSteps];
+		for(int step = 0; step < noOfSteps; step++)
+		{
+			CelestialBody[] bodies = universe.getCelestialBodyAt(step);
+			copyState(bodies[origin], bodies[SUN], originStates, step);
+			copyState(bodies[target], bodies[SUN], targetStates, step);
+			originSOI[step] = soi(bodies[origin], bodies[originPrimary]);
+			targetSOI[step] = soi(bodies[target], bodies[targetPrimary]);
+		}
+
+		this.spacecraft = spacecraft;
+		startMass = spacecraft.getMass();
+		fuelMass = spacecraft.getFuelMass();
+		landerMass = spacecraft.getLanderMass();
+	}
+
+	/**
+	 * The body whose sphere of influence holds this one: the lightest heavier body whose sphere contains it,
+	 * the sun when there is none
+	 */
+	private static int primaryOf(Universe universe, int body)
+	{
+		CelestialBody[] bodies = universe.getCelestialBodyAt(0);
+		int primary = SUN;
+		for(int i = 0; i < bodies.length; i++)
+		{
+			if(i == body || i == SUN || bodies[i].mass <= bodies[body].mass)
+				continue;
+			if(primary != SUN && bodies[i].mass >= bodies[primary].mass)
+				continue;
+			if(bodies[i].location.dist(bodies[body].location) < soi(bodies[i], bodies[SUN]))
+				primary = i;
+		}
+		return primary;
+	}
+
+	private static double soi(CelestialBody body, CelestialBody primary)
+	{
+		return body.calculateSOI(body.mass, primary.mass, body.location.dist(primary.location));
+	}
+
+	private static void copyState(CelestialBody body, CelestialBody sun, double[] states, int step)
+	{
+		Vector3d position = body.location.sub(sun.location);
+		Vector3d velocity = body.velocity.sub(sun.velocity);
+		for(int i = 0; i < 3; i++)
+		{
+			states[6 * step + i] = position.get(i);
+			states[6 * step + 3 + i] = velocity.get(i);
+		}
+	}
+
+	/**
+	 * @param departureStep step at which the probe leaves the origin
+	 * @param outboundSteps flight time to the target in steps
+	 * @param staySteps time in orbit about the target in steps
+	 * @param returnSteps flight time back to the origin in steps
+	 * @return the cost of the mission, with NaN delta-v if a transfer is undefined
+	 */
+	public Estimate evaluate(int departureStep, int outboundSteps, int staySteps, int returnSteps)
+	{
+		int arrivalStep = departureStep + outboundSteps;
+		int leaveStep = arrivalStep + staySteps;
+		checkRange(departureStep, outboundSteps);
+		checkRange(leaveStep, returnSteps);
+		double[] outbound = arc(originStates, departureStep, targetStates, arrivalStep);
+		double[] back = arc(targetStates, leaveStep, originStates, leaveStep + returnSteps);
+		return estimate(departureStep, outboundSteps, staySteps, returnSteps, outbound, back);
+	}
+
+	private void checkRange(int step, int flight)
+	{
+		if(step < 0 || flight < 1 || step + flight >= noOfSteps)
+		{
+			throw new IllegalArgumentException("Mission runs outside the " + noOfSteps + " steps of the universe");
+		}
+	}
+
+	/**
+	 * Evaluate every combination of the given departures, flight times and stays and keep the one that needs the
+	 * least fuel. Each Lambert arc is solved once and shared by all the missions that fly it.
+	 * @return the cheapest mission inside the universe, or null if none is defined
+	 */
+	public Estimate best(int[] departures, int[] outboundFlights, int[] stays, int[] returnFlights)
+	{
+		// Outbound arcs, one per departure and flight time
+		double[][][] outbound = new double[departures.length][outboundFlights.length][];
+		IntStream.range(0, departures.length).parallel().forEach(i ->
+		{
+			for(int j = 0; j < outboundFlights.length; j++)
+			{
+				if(departures[i] >= 0 && departures[i] + outboundFlights[j] < noOfSteps)
+					outbound[i][j] = arc(originStates, departures[i], targetStates, departures[i] + outboundFlights[j]);
+			}
+		});
+
+		// Return arcs, one per step the probe can leave the target at
+		boolean[] leaves = new boolean[noOfSteps];
+		for(int departure: departures)
+			for(int flight: outboundFlights)
+				for(int stay: stays)
+				{
+					int leave = departure + flight + stay;
+					if(leave >= 0 && leave < noOfSteps)
+						leaves[leave] = true;
+				}
+		double[][][] back = new double[noOfSteps][][];
+		IntStream.range(0, noOfSteps).parallel().filter(step -> leaves[step]).forEach(step ->
+		{
+			back[step] = new double[returnFlights.length][];
+			for(int k = 0; k < returnFlights.length; k++)
+			{
+				if(step + returnFlights[k] < noOfSteps)
+					back[step][k] = arc(targetStates, step, originStates, step + returnFlights[k]);
+			}
+		});
+
+		int combinations = departures.length * outboundFlights.length * stays.length * returnFlights.length;
+		return IntStream.range(0, combinations).parallel().mapToObj(index ->
+		{
+			int k = index % returnFlights.length;
+			int s = index / returnFlights.length % stays.length;
+			int j = index / returnFlights.length / stays.length % outboundFlights.length;
+			int i = index / returnFlights.length / stays.length / outboundFlights.length;
+			int leave = departures[i] + outboundFlights[j] + stays[s];
+			if(outbound[i][j] == null || leave >= noOfSteps || back[leave][k] == null)
+				return null;
+			Estimate estimate = estimate(departures[i], outboundFlights[j], stays[s], returnFlights[k], outbound[i][j], back[leave][k]);
+			return Double.isNaN(estimate.fuel) ? null : estimate;
+		}).filter(estimate -> estimate != null).reduce((a, b) -> b.fuel < a.fuel ? b : a).orElse(null);
+	}
+
+	/**
+	 * @return {departure excess speed, arrival excess speed}, NaN when the transfer is undefined
+	 */
+	private double[] arc(double[] from, int fromStep, double[] to, int toStep)
+	{
+		Vector3d r1 = new Vector3d(from[6 * fromStep], from[6 * fromStep + 1], from[6 * fromStep + 2]);
+		Vector3d r2 = new Vector3d(to[6 * toStep], to[6 * toStep + 1], to[6 * toStep + 2]);
+		try
+		{
+			LambertSolver solver = new LambertSolver(r1, r2, (toStep - fromStep) * stepSize, mu, true);
+			Vector3d v1 = new Vector3d(from[6 * fromStep + 3], from[6 * fromStep + 4], from[6 * fromStep + 5]);
+			Vector3d v2 = new Vector3d(to[6 * toStep + 3], to[6 * toStep + 4], to[6 * toStep + 5]);
+			return new double[] {solver.getDepartureVelocity().dist(v1), solver.getArrivalVelocity().dist(v2)};
+		}
+		catch(RuntimeException e)
+		{
+			return new double[] {Double.NaN, Double.NaN};
+		}
+	}
+
+	private Estimate estimate(int departureStep, int outboundSteps, int staySteps, int returnSteps, double[] outbound, double[] back)
+	{
+		int arrivalStep = departureStep + outboundSteps;
+		int leaveStep = arrivalStep + staySteps;
+		int homeStep = leaveStep + returnSteps;
+		double departureDeltaV = periapsisBurn(originBody, outbound[0], originSOI[departureStep]);
+		double insertionDeltaV = periapsisBurn(targetBody, outbound[1], targetSOI[arrivalStep]);
+		double escapeDeltaV = periapsisBurn(targetBody, back[0], targetSOI[leaveStep]);
+		double captureDeltaV = periapsisBurn(originBody, back[1], originSOI[homeStep]);
+
+		// Rocket equation burn by burn, the lander stays at the target
+		double mass = startMass;
+		double fuel = 0;
+		double[] burns = {departureDeltaV, insertionDeltaV, escapeDeltaV, captureDeltaV};
+		for(int b = 0; b < burns.length; b++)
+		{
+			double used = spacecraft.fuelForDeltaV(mass, burns[b]);
+			fuel += used;
+			mass -= used;
+			if(b == 1)
+				mass -= landerMass;
+		}
+		double orbits = staySteps * stepSize / targetBody.orbitalPeriod(targetBody.orbitalHeight);
+		return new Estimate(departureStep, outboundSteps, staySteps, returnSteps,
+							departureDeltaV, insertionDeltaV, escapeDeltaV, captureDeltaV, fuel, fuel <= fuelMass, orbits);
+	}
+
+	/**
+	 * Burn at the periapsis of the hyperbola between the parking orbit and the edge of the sphere of influence,
+	 * the speed at the edge is the excess speed of the heliocentric arc
+	 */
+	private static double periapsisBurn(CelestialBody body, double excessSpeed, double soi)
+	{
+		double parkingRadius = body.radius + body.orbitalHeight;
+		double gm = NewtonGravityFunction.GRAVITY * body.mass;
+		double periapsisSpeed = Math.sqrt(excessSpeed * excessSpeed + 2 * gm * (1 / parkingRadius - 1 / soi));
+		return periapsisSpeed - body.orbitalVelocity(body.orbitalHeight);
+	}
+
+	public int getOrigin()			{return origin;}
+	public int getTarget()			{return target;}
+	public double getStepSize()		{return stepSize;}
+	public int getNoOfSteps()		{return noOfSteps;}
+
+	/**
+	 * @return sphere of influence of the target at the step, from its primary
+	 */
+	public double getTargetSOI(int step)
+	{
+		return targetSOI[step];
+	}
+
+	/**
+	 * Costs of one mission, immutable
+	 */
+	public static class Estimate
+	{
+		private final int departureStep;
+		private final int outboundSteps;
+		private final int staySteps;
+		private final int returnSteps;
+		private final double[] deltaV;
+		private final double fuel;
+		private final boolean feasible;
+		private final double orbits;
+
+		private Estimate(int departureStep, int outboundSteps, int staySteps, int returnSteps, double departureDeltaV,
+						 double insertionDeltaV, double escapeDeltaV, double captureDeltaV, double fuel, boolean feasible, double orbits)
+		{
+			this.departureStep = departureStep;
+			this.outboundSteps = outboundSteps;
+			this.staySteps = staySteps;
+			this.returnSteps = returnSteps;
+			this.deltaV = new double[] {departureDeltaV, insertionDeltaV, escapeDeltaV, captureDeltaV};
+			this.fuel = fuel;
+			this.feasible = feasible;
+			this.orbits = orbits;
+		}
+
+		public int getDepartureStep()			{return departureStep;}
+		public int getOutboundSteps()			{return outboundSteps;}
+		public int getStaySteps()				{return staySteps;}
+		public int getReturnSteps()				{return returnSteps;}
+		public int getArrivalStep()				{return departureStep + outboundSteps;}
+		public int getLeaveStep()				{return departureStep + outboundSteps + staySteps;}
+		public double getDepartureDeltaV()		{return deltaV[0];}
+		public double getInsertionDeltaV()		{return deltaV[1];}
+		public double getEscapeDeltaV()			{return deltaV[2];}
+		public double getCaptureDeltaV()		{return deltaV[3];}
+		public double getFuel()					{return fuel;}
+
+		/**
+		 * @return true if the probe carries enough fuel for every burn
+		 */
+		public boolean isFeasible()				{return feasible;}
+
+		/**
+		 * @return parking orbits completed about the target during the stay
+		 */
+		public double getOrbitsAtTarget()		{return orbits;}
+
+		public double getTotalDeltaV()
+		{
+			return Arrays.stream(deltaV).sum();
+		}
+
+		@Override
+		public String toString()
+		{
+			return "Departure " + departureStep + " out " + outboundSteps + " stay " + staySteps + " back " + returnSteps
+				+ " delta-v " + getTotalDeltaV() + " fuel " + fuel + (feasible ? "" : " (not enough fuel)");
+		}
+	}
+}
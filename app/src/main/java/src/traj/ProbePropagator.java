@@ -0,0 +1,157 @@
+package src.traj;
+
+import src.peng.NewtonGravityFunction;
+import src.peng.ODEFunctionInterface;
+import src.peng.State;
+import src.peng.Vector3d;
+import src.prob.FiniteBurn;
+import src.prob.Spacecraft;
+import src.solv.Verlet;
+import src.univ.Universe;
+
+/**
+ * Propagates a probe through a universe the same way the guidance controllers do: one Verlet step of the
+ * whole system per step, with the bodies reset to the universe at the start of every step.
+ * Holds no state between calls, so one propagator can be shared by any number of threads.
+ */
+public class ProbePropagator
+{
+	public static final double PROBE_MASS = 700;
+
+	private final Universe universe;
+	private final double stepSize;
+	private final ODEFunctionInterface function;
+	private final Verlet solver = new Verlet();
+
+	public ProbePropagator(Universe universe, double stepSize)
+	{
+		this.universe = universe;
+		this.stepSize = stepSize;
+		this.function = new NewtonGravityFunction(GuidanceController.addMassToEnd(universe.masses, PROBE_MASS));
+	}
+
+	/**
+	 * @param startStep step of the universe the probe starts at
+	 * @param steps number of steps to take
+	 * @return {position, velocity} of the probe after the last step
+	 */
+	public Vector3d[] propagate(int startStep, int steps, Vector3d position, Vector3d velocity)
+	{
+		return propagate(startStep, steps, position, velocity, null);
+	}
+
+	/**
+	 * @param trajectory filled with the position at every step, from the start position at index 0 to index steps
+	 * @return {position, velocity} of the probe after the last step
+	 */
+	public Vector3d[] propagate(int startStep, int steps, Vector3d position, Vector3d velocity, Vector3d[] trajectory)
+	{
+		return propagate(startStep, steps, position, velocity, trajectory, null);
+	}
+
+	/**
+	 * @param trajectory filled up to the step the route stopped at, may be null
+	 * @param tracker follows the closest approach to its body and stops the route once the probe recedes, may be null
+	 * @return {position, velocity} of the probe after the last step taken
+	 */
+	public Vector3d[] propagate(int startStep, int steps, Vector3d position, Vector3d velocity, Vector3d[] trajectory,
+								ClosestApproachTracker tracker)
+	{
+		return propagate(startStep, steps, position, velocity, trajectory, tracker, null);
+	}
+
+	/**
+	 * @param pruning checked after every step, abandons the route as soon as it holds, may be null
+	 * @return {position, velocity} of the probe after the last step taken, null if the route was pruned
+	 */
+	public Vector3d[] propagate(int startStep, int steps, Vector3d position, Vector3d velocity, Vector3d[] trajectory,
+								ClosestApproachTracker tracker, PruningPredicate pruning)
+	{
+		if(trajectory != null)
+			trajectory[0] = position;
+		for(int i = 0; i < steps; i++)
+		{
+			int step = startStep + i;
+			State state = GuidanceController.addProbe(universe.getStateAt(step), position, velocity);
+			if(tracker != null && i == 0)
+				observe(tracker, step, state);
+			State next = solver.step(function, step * stepSize, state, stepSize);
+			position = GuidanceController.getProbePosition(next);
+			velocity = GuidanceController.getProbeVelocity(next);
+			if(trajectory != null)
+				trajectory[i + 1] = position;
+			if(tracker != null)
+			{
+				observe(tracker, step + 1, next);
+				if(tracker.isReceding())
+					break;
+			}
+			if(pruning != null && pruning.prune(step + 1, next))
+				return null;
+		}
+		return new Vector3d[] {position, velocity};
+	}
+
+	/**
+	 * Fly the probe through finite burns. The velocity change of the thrust over a step, from the rocket equation
+	 * for the fuel the step burns, is split between before and after the Verlet step of gravity by where in the
+	 * step the burn falls, so it drifts as far as it would from the middle of the burn. The spacecraft of the
+	 * state loses the fuel, and a burn gives no more thrust once the tank is empty.
+	 * @param trajectory filled with the position at every step, may be null
+	 * @param burns times in s from the start step
+	 * @return the state after the last step
+	 */
+	public FlightState propagate(int startStep, int steps, FlightState start, Vector3d[] trajectory, FiniteBurn... burns)
+	{
+		Vector3d position = start.getPosition();
+		Vector3d velocity = start.getVelocity();
+		Spacecraft spacecraft = start.getSpacecraft();
+		if(trajectory != null)
+			trajectory[0] = position;
+		for(int i = 0; i < steps; i++)
+		{
+			int step = startStep + i;
+			double from = i * stepSize;
+			double to = from + stepSize;
+			Vector3d kickBefore = new Vector3d();
+			Vector3d kickAfter = new Vector3d();
+			for(FiniteBurn burn : burns)
+			{
+				double seconds = burn.thrustTime(spacecraft, from, to);
+				if(seconds == 0)
+					continue;
+				double mass = spacecraft.getMass();
+				spacecraft = burn.apply(spacecraft, from, to);
+				double deltaV = spacecraft.getExhaustVelocity() * Math.log(mass / spacecraft.getMass());
+				double middle = Math.max(from, burn.getStartTime()) + seconds / 2;
+				double after = (middle - from) / stepSize;
+				kickBefore = kickBefore.addMul(deltaV * (1 - after), burn.getDirection());
+				kickAfter = kickAfter.addMul(deltaV * after, burn.getDirection());
+			}
+
+			State state = GuidanceController.addProbe(universe.getStateAt(step), position, velocity.add(kickBefore));
+			State next = solver.step(function, step * stepSize, state, stepSize);
+			position = GuidanceController.getProbePosition(next);
+			velocity = GuidanceController.getProbeVelocity(next).add(kickAfter);
+			if(trajectory != null)
+				trajectory[i + 1] = position;
+		}
+		return new FlightState(position, velocity, spacecraft);
+	}
+
+	private void observe(ClosestApproachTracker tracker, int step, State state)
+	{
+		tracker.observe(step * stepSize, GuidanceController.getProbePosition(state), GuidanceController.getProbeVelocity(state),
+						state.position.get(tracker.getTarget()), state.velocity.get(tracker.getTarget()));
+	}
+
+	public Universe getUniverse()
+	{
+		return universe;
+	}
+
+	public double getStepSize()
+	{
+		return stepSize;
+	}
+}
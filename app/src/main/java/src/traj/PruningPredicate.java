@@ -0,0 +1,81 @@
+package src.traj;
+
+import java.util.Arrays;
+
+import src.peng.State;
+import src.peng.Vector3d;
+import src.univ.Universe;
+
+/**
+ * Decides during propagation that a candidate route is hopeless, so the optimiser can abandon it at that step
+ * instead of flying it to the end. Predicates are called from several threads at once by parallel optimisers
+ * and must not keep state between routes.
+ */
+@FunctionalInterface
+public interface PruningPredicate
+{
+	public static final double REACH_MARGIN = 1.5;		// Allowance for the target pulling the probe in faster
+
+	/**
+	 * @param step step of the universe the state belongs to
+	 * @param state bodies and probe after the step, the probe is the last entry
+	 * @return true to abandon the route
+	 */
+	public boolean prune(int step, State state);
+
+	/**
+	 * @return a predicate that prunes when either of the two does
+	 */
+	public default PruningPredicate or(PruningPredicate other)
+	{
+		return (step, state) -> prune(step, state) || other.prune(step, state);
+	}
+
+	/**
+	 * Prune a route that ends up inside a body
+	 * @param ignored bodies the probe may pass through, such as the one it launches from
+	 */
+	public static PruningPredicate collision(Universe universe, int... ignored)
+	{
+		boolean[] checked = new boolean[universe.getNoOfBodies()];
+		Arrays.fill(checked, true);
+		for(int body: ignored)
+			checked[body] = false;
+		return (step, state) ->
+		{
+			Vector3d probe = GuidanceController.getProbePosition(state);
+			for(int body = 0; body < checked.length; body++)
+			{
+				if(checked[body] && universe.getBody(body, step).collision(probe))
+					return true;
+			}
+			return false;
+		};
+	}
+
+	/**
+	 * Prune a route that drifts further from the sun, body 0, than the radius
+	 * @param radius m
+	 */
+	public static PruningPredicate heliocentricBound(double radius)
+	{
+		return (step, state) -> GuidanceController.getProbePosition(state).dist(state.position.get(0)) > radius;
+	}
+
+	/**
+	 * Prune a route that cannot come closer to the target than the bound before the last step, even flying straight
+	 * at it with a margin on its current relative speed for the pull of the target
+	 * @param endStep step the route stops at
+	 * @param bound m, usually the best closest approach found so far
+	 */
+	public static PruningPredicate unreachable(int target, int endStep, double stepSize, double bound)
+	{
+		return (step, state) ->
+		{
+			Vector3d relativePosition = GuidanceController.getProbePosition(state).sub(state.position.get(target));
+			Vector3d relativeVelocity = GuidanceController.getProbeVelocity(state).sub(state.velocity.get(target));
+			double reach = REACH_MARGIN * relativeVelocity.norm() * (endStep - step) * stepSize;
+			return relativePosition.norm() - reach > bound;
+		};
+	}
+}
@@ -1,7 +1,5 @@
 package src.traj;
 
-import java.util.ArrayList;
-
 import src.conf.SimulationSettings;
 import src.peng.NewtonGravityFunction;
 import src.peng.ODEFunctionInterface;
@@ -16,67 +14,101 @@ public class RouteController extends GuidanceController
 {
 	private double mutationRate;
 	private double initialSpeed;
-	private final int GENERATION_KILL = 100;
+	private final int MAX_EVALUATIONS = 1500;
+	private final double MINIMUM_MUTATION = 0.001;
 	private final double MAXIMUM_SPEED = 10000; 
+	private final double RECEDING_FACTOR = 2;		// Stop a test route once it is twice as far from the target as it came
+	private final double HELIOCENTRIC_FACTOR = 2;	// Abandon a test route twice as far from the sun as either end
+	private static final double[] MISS_ONLY = {1, 0, 0};
 	private ODESolver solver = new Verlet();
+	private Optimizer optimizer;
+	private long evaluations;
+	private final EvaluationCache<MissionCost> routeCache = new EvaluationCache<MissionCost>();
+	private ProbePropagator propagator;
+	private PruningPredicate pruning;
+	private FitnessEvaluator evaluator;
+	private MissionCostFunction cost;
+	private long prunedRoutes;
 	
 	public RouteController(Universe universe, int source, int target, SimulationSettings settings) 
+	{
+		this(universe, source, target, settings, 10000);
+	}
+	
+	/**
+	 * @param mutationRate the initial search width, small when the settings are already seeded close to the answer
+	 */
+	public RouteController(Universe universe, int source, int target, SimulationSettings settings, double mutationRate) 
+	{
+		this(universe, source, target, settings, mutationRate, new CMAES());
+	}
+	
+	public RouteController(Universe universe, int source, int target, SimulationSettings settings, double mutationRate,
+						   Optimizer optimizer) 
+	{
+		this(universe, source, target, settings, mutationRate, optimizer, MISS_ONLY);
+	}
+	
+	/**
+	 * @param weights of miss distance, delta v and time of flight, see {@link MissionCost#weighted}
+	 */
+	public RouteController(Universe universe, int source, int target, SimulationSettings settings, double mutationRate,
+						   Optimizer optimizer, double[] weights) 
 	{
 		super(universe, target);
-		mutationRate = 10000;
+		this.mutationRate = mutationRate;
+		this.optimizer = optimizer;
 		initialSpeed = settings.probeStartVelocity.norm();
-		Vector3d targetVector = universe.U[target][settings.getEndStep()].location;
-		trajectory = hillClimbAlogrithm(targetVector, settings);
+		propagator = new ProbePropagator(universe, settings.stepSize);
+		Vector3d sun = universe.getBody(0, 0).location;
+		double orbit = Math.max(universe.getBody(source, 0).location.dist(sun), universe.getBody(target, 0).location.dist(sun));
+		pruning = PruningPredicate.collision(universe, source, target).or(PruningPredicate.heliocentricBound(HELIOCENTRIC_FACTOR * orbit));
+		cost = new MissionCostFunction(velocity -> routeCost(velocity, settings), weights);
+		trajectory = optimiseRoute(settings);
 	}
 	
 	/**
-	 * An implementation of the Hill Climbing algorithm that tests the current settings and every
-	 * combination of steps that can be generated by mutating the initial velocity vector.
-	 * Picking the closest vector at each iterative step.
+	 * Minimise the weighted cost of the route over the initial velocity, the closest approach to the target
+	 * unless weighed against delta v and time of flight, evaluating the candidates of every generation in parallel
 	 */
-	private Vector3d[] hillClimbAlogrithm(Vector3d target, SimulationSettings settings)
+	private Vector3d[] optimiseRoute(SimulationSettings settings)
 	{
-		boolean keepGoing = true;
-		int generations = 0;
+		Vector3d start = (Vector3d) settings.probeStartVelocity;
+		evaluator = new FitnessEvaluator(cost);
+		double[] scale = {mutationRate, mutationRate, mutationRate};
+		optimizer.minimize(evaluator, new double[] {start.getX(), start.getY(), start.getZ()}, scale, MINIMUM_MUTATION, MAX_EVALUATIONS);
 		
-		while(keepGoing && (generations < GENERATION_KILL)) 
-		{
-			SimulationSettings newSettings = takeStep(target, settings);
-			
-			if(newSettings.probeStartVelocity.equals(settings.probeStartVelocity))
-			{
-				if(mutationRate > 0.001)
-					mutationRate = mutationRate/10;
-				else
-					keepGoing = false;
-			}
-			else
-				settings = newSettings;
-			generations++;
-			System.out.println(generations + " " + settings.probeStartVelocity.toString() 
-				+ " Speed: " + (settings.probeStartVelocity.norm()-initialSpeed));
-			universe.clearTempTrajectories();
-		}
-		return planRoute(settings);
+		double[] best = evaluator.getBest();
+		evaluations = evaluator.getEvaluations();
+		SimulationSettings bestSettings = settings.copy();
+		bestSettings.probeStartVelocity = new Vector3d(best[0], best[1], best[2]);
+		bestSettings.spacecraft = settings.spacecraft.burn(bestSettings.probeStartVelocity.dist(start));
+		System.out.println(evaluations + " routes " + bestSettings.probeStartVelocity.toString() 
+			+ " Speed: " + (bestSettings.probeStartVelocity.norm()-initialSpeed) + " Cost: " + evaluator.getBestValue()
+			+ " Fuel: " + bestSettings.spacecraft.getFuelMass());
+		return planRoute(bestSettings);
 	}
 	
-	private SimulationSettings takeStep(Vector3d target, SimulationSettings settings)
+	/*
+	 * Every objective of a route from one propagation: closest approach, the burn from the start velocity and
+	 * the time to the closest approach. Each candidate burns its own copy of the spacecraft, a burn it has no
+	 * fuel for is not flown
+	 */
+	private MissionCost routeCost(double[] velocity, SimulationSettings settings)
 	{
-		ArrayList<SimulationSettings> settingsGrid = generateSettingsGrid(settings);
-				
-		SimulationSettings bestSettings = settings;
-		Vector3d closestPoint = testRoute(settings);
-		
-		for(SimulationSettings each: settingsGrid)
-		{
-			Vector3d currentPoint = testRoute(each);
-			if(closerToTarget(currentPoint, closestPoint, target))
-			{
-				bestSettings = each;
-				closestPoint = currentPoint;
-			}
-		}
-		return bestSettings;
+		SimulationSettings trialSettings = settings.copy();
+		trialSettings.probeStartVelocity = new Vector3d(velocity[0], velocity[1], velocity[2]);
+		if(overMaxSpeed(trialSettings.probeStartVelocity))
+			return new MissionCost(Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY);
+		double deltaV = trialSettings.probeStartVelocity.dist(settings.probeStartVelocity);
+		trialSettings.spacecraft = settings.spacecraft.burn(deltaV);
+		if(!trialSettings.spacecraft.hasFuel())
+			return new MissionCost(Double.POSITIVE_INFINITY, deltaV, Double.POSITIVE_INFINITY);
+		// A partial cost depends on the best route when it was flown, so it is returned without being cached
+		MissionCost[] partial = {null};
+		MissionCost cost = routeCache.get(trialSettings.probeStartPosition, trialSettings.probeStartVelocity, 0,
+										  trialSettings.noOfSteps, trialSettings.stepSize, () -> testRoute(trialSettings, deltaV, partial));
+		return cost != null ? cost : partial[0];
 	}
 
 	/*
@@ -117,64 +149,76 @@ public class RouteController extends GuidanceController
 	}
 	
 	/*
-	 * Test routes to compare different parameters return only the final location for comparison
+	 * Test routes to compare different parameters return only the closest approach to the target and when it
+	 * happens, a route stops as soon as the probe is clearly moving away from the target.
+	 * Routes that hit a body, leave the region of the target or can no longer beat the best route so far are abandoned,
+	 * a route that cannot beat the best returns null and its cost so far in partial
 	 */
-	private Vector3d testRoute(SimulationSettings settings)
+	private MissionCost testRoute(SimulationSettings settings, double deltaV, MissionCost[] partial)
 	{
-		double[] masses = addMassToEnd(universe.masses, 700);
-		ODEFunctionInterface funct = new NewtonGravityFunction(masses);
-		
-		Vector3d[] trajectory = new Vector3d[settings.noOfSteps];
-		trajectory[0] = (Vector3d) settings.probeStartPosition;
-		
-		int currentStep = 0;
-		Vector3d currentPosition = (Vector3d) settings.probeStartPosition;
-		Vector3d currentVelocity = (Vector3d) settings.probeStartVelocity;
-		while(currentStep < settings.noOfSteps)
-		{		
-			double currentTime = currentStep * settings.stepSize;
-			State currentState = addProbe(universe.getStateAt(currentStep), currentPosition, currentVelocity);
-			State nextState = solver.step(funct, currentTime, currentState, settings.stepSize);
-			
-			currentPosition = getProbePosition(nextState);
-			currentVelocity = getProbeVelocity(nextState);
-			trajectory[currentStep++] = currentPosition;
-		}
-		universe.addTempTrajectory(trajectory);
-		return trajectory[trajectory.length-1];
-	}
-	
-	private ArrayList<SimulationSettings> generateSettingsGrid(SimulationSettings initialSettings)
-	{
-		ArrayList<SimulationSettings> outputSettings = new ArrayList<SimulationSettings>();
-		
-		for(int x = -1; x <= 1; x++)
+		Vector3d[] trajectory = new Vector3d[settings.noOfSteps + 1];
+		ClosestApproachTracker tracker = new ClosestApproachTracker(target, RECEDING_FACTOR);
+		PruningPredicate bound = PruningPredicate.unreachable(target, settings.noOfSteps, settings.stepSize, missBound(deltaV));
+		boolean[] unreachable = {false};
+		PruningPredicate candidatePruning = pruning.or((step, state) -> unreachable[0] = bound.prune(step, state));
+		Vector3d[] end = propagator.propagate(0, settings.noOfSteps, (Vector3d) settings.probeStartPosition,
+											  (Vector3d) settings.probeStartVelocity, trajectory, tracker, candidatePruning);
+		if(end == null)
 		{
-			for(int y = -1; y <= 1; y++)
+			synchronized(this)
 			{
-				for(int z = -1; z <= 1; z++)
-				{
-					Vector3d changeAmount = new Vector3d(mutationRate * x, mutationRate * y, mutationRate * z);
-					SimulationSettings modifiedSettings = initialSettings.copy();
-					modifiedSettings.probeStartVelocity = modifiedSettings.probeStartVelocity.add(changeAmount);
-					if(!overMaxSpeed(modifiedSettings.probeStartVelocity))
-						outputSettings.add(modifiedSettings);
-				}
+				prunedRoutes++;
 			}
+			// A route that cannot beat the best keeps its closest approach so far, so the optimiser can still rank it
+			if(!unreachable[0])
+				return new MissionCost(Double.POSITIVE_INFINITY, deltaV, Double.POSITIVE_INFINITY);
+			partial[0] = MissionCost.partial(tracker.getDistance(), deltaV, tracker.getTime());
+			return null;
 		}
-		return outputSettings;
+		universe.addTempTrajectory(trajectory);
+		return new MissionCost(tracker.getDistance(), deltaV, tracker.getTime());
 	}
-			
+	
 	/*
-	 * returns {@code true} if a is closer to the target than b
+	 * Closest approach a route with the given burn must beat to beat the best weighted cost so far, the time of
+	 * flight only adds to the cost
 	 */
-	private boolean closerToTarget(Vector3d a, Vector3d b, Vector3d target)
+	private double missBound(double deltaV)
 	{
-		double dA = a.dist(target);
-		double dB = b.dist(target);
-		if( dA < dB )
-			return true;
-		return false;
+		double[] weights = cost.getWeights();
+		if(weights[MissionCost.MISS_DISTANCE] <= 0 || weights[MissionCost.TIME_OF_FLIGHT] < 0)
+			return Double.POSITIVE_INFINITY;
+		return (evaluator.getBestValue() - weights[MissionCost.DELTA_V] * deltaV) / weights[MissionCost.MISS_DISTANCE];
+	}
+	
+	public long getEvaluations()
+	{
+		return evaluations;
+	}
+	
+	/**
+	 * @return test routes abandoned before their end by the pruning predicates
+	 */
+	public synchronized long getPrunedRoutes()
+	{
+		return prunedRoutes;
+	}
+	
+	/**
+	 * @return the routes evaluated that no other route beat in every objective, to trade accuracy against fuel
+	 * and time without optimising again
+	 */
+	public ParetoFront getParetoFront()
+	{
+		return cost.getParetoFront();
+	}
+	
+	/**
+	 * @return the memo of test routes, repeated candidates are not propagated again
+	 */
+	public EvaluationCache<MissionCost> getRouteCache()
+	{
+		return routeCache;
 	}
 	
 	private boolean overMaxSpeed(Vector3dInterface vector)
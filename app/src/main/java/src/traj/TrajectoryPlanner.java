@@ -1,38 +1,57 @@
 package src.traj;
 
+import java.io.IOException;
 import java.util.ArrayList;
 
+import src.conf.PorkchopFileManager;
 import src.conf.SimulationSettings;
 import src.peng.Vector3d;
-import src.prob.Probe;
 import src.univ.CelestialBody;
 import src.univ.Universe;
+import src.visu.PorkchopPlot;
 
 public abstract class TrajectoryPlanner
 {
 	static ArrayList<Vector3d[]> trajectories = new ArrayList<>();
+	private static final double SEEDED_MUTATION_RATE = 1000;		// The Lambert seed is within a few hundred m/s of the answer
+	private static final String ROUTE_TO_TITAN = "Route to Titan";
+	private static final String ROUTE_TO_EARTH = "Route to Earth";
 
 	public static void integratedPlot(Universe universe, SimulationSettings settings)
+	{
+		integratedPlot(universe, settings, new MissionPlanner());
+	}
+
+	/**
+	 * Plan the whole mission, the planner warm starts every leg it has solved before. Each leg burns the spacecraft
+	 * the one before left, and the settings end with the spacecraft after the last leg
+	 * @param planner keep the same planner between runs to re-plan with changed settings cheaply
+	 */
+	public static void integratedPlot(Universe universe, SimulationSettings settings, MissionPlanner planner)
 	{
 		/*Route to Titan*/
 		SimulationSettings routeToTitanSettings = createRouteToTitanSettings(settings);
-		newtonRaphsonPlot(universe, 3, 8, routeToTitanSettings, new Vector3d(0,0,0), new Vector3d(0,0,0));
+		NewtonRaphson toTitan = planner.solveTransfer(ROUTE_TO_TITAN, universe, 3, 8, routeToTitanSettings);
+		publishTransfer(toTitan, toTitan.getStartingVelocity(), routeToTitanSettings);
 		int stepOffsetTitan = routeToTitanSettings.stepOffset - 2;
 		CelestialBody[] lastState = universe.getCelestialBodyAt(routeToTitanSettings.noOfSteps);
 
 		/*Titan Orbit*/
 		Vector3d previousVelocity_01 = (Vector3d) routeToTitanSettings.probeStartVelocity;
 		SimulationSettings orbitSettings = createOrbitalSettings(settings, lastState);
+		orbitSettings.spacecraft = routeToTitanSettings.spacecraft;
 		Universe subUniverse = new Universe(orbitSettings);
 		Vector3d[] trajectory = plotOrbit(subUniverse, orbitSettings, previousVelocity_01);
 		universe.addPermTrajectory(trajectory);
 
 		/*RouteToEarth*/
-		Vector3d previousVelocity_02 = (Vector3d) orbitSettings.probeStartVelocity;
 		int orbitOffset = (int) (orbitSettings.stepSize * orbitSettings.noOfSteps / routeToTitanSettings.stepSize);
 		System.out.println("Orbit offset: " + orbitOffset);
 		SimulationSettings routeToEarthSettings = createRouteToEarthSettings(settings, stepOffsetTitan, orbitOffset);
-		newtonRaphsonPlot(universe, 8, 3, routeToEarthSettings, new Vector3d(-8000,8000,0), previousVelocity_02);
+		routeToEarthSettings.spacecraft = orbitSettings.spacecraft;
+		NewtonRaphson toEarth = planner.solveTransfer(ROUTE_TO_EARTH, universe, 8, 3, routeToEarthSettings);
+		publishTransfer(toEarth, toEarth.getStartingVelocity(), routeToEarthSettings);
+		settings.spacecraft = routeToEarthSettings.spacecraft;
 	}
 	public static Vector3d[] simplePlot(Universe universe, SimulationSettings settings)
 	{
@@ -40,30 +59,129 @@ public abstract class TrajectoryPlanner
 		return lc.getTrajectory();
 	}
 
+	/**
+	 * Insert into a circular orbit around Titan with an analytic burn and hold it with station keeping burns
+	 * @param prevVelocity velocity of the probe on arrival
+	 */
 	public static Vector3d[] plotOrbit(Universe universe, SimulationSettings settings, Vector3d prevVelocity)
 	{
 		int target = 8;
-		OrbitController oc = new OrbitController(universe, target, settings);
-		double optimumVelocityScaler = oc.linearClimbing(universe, target, settings);
-		Vector3d optimumVelocity = oc.optimumVelocityScalerToVector(optimumVelocityScaler);
-		Probe.getInstance().burn(prevVelocity, optimumVelocity, settings.stepSize);
-		System.out.println("Fuel Remaining: " + Probe.getInstance().getFuelMass());
-		Vector3d[] trajectory = oc.planRoute(optimumVelocity, target, universe);
-		return trajectory;
+		OrbitInsertionController insertion = new OrbitInsertionController(universe, target, settings, prevVelocity);
+		settings.spacecraft = settings.spacecraft.burn(insertion.getInsertionVelocity().dist(prevVelocity));
+		Vector3d[] corrections = insertion.getCorrections();
+		for(int i = 1; i < corrections.length; i++)
+		{
+			if(corrections[i] != null)
+				settings.spacecraft = settings.spacecraft.burn(corrections[i].norm());
+		}
+		System.out.println("Insertion: " + insertion.getInsertionDeltaV() + " m/s, station keeping: " + insertion.getStationKeepingDeltaV()
+						   + " m/s in " + insertion.getStationKeepingBurns() + " burns");
+		System.out.println("Fuel Remaining: " + settings.spacecraft.getFuelMass());
+		settings.probeStartVelocity = insertion.getFinalSettings().probeStartVelocity;
+		return insertion.getTrajectory();
 	}
 
 	public static Vector3d[] newtonRaphsonPlot(Universe universe, int origin, int target, SimulationSettings settings, Vector3d startingVelocity, Vector3d prevVelocity)
 	{
-		NewtonRaphson nr = new NewtonRaphson(universe, origin, target, settings, startingVelocity);
-		Vector3d optimalVelocity = nr.newtonRaphsonIterativeMethod();
-		Probe.getInstance().burn((Vector3d)settings.probeStartVelocity, optimalVelocity, 150);
-		System.out.println("Fuel Remaining: " + Probe.getInstance().getFuelMass());
+		return newtonRaphsonPlot(new NewtonRaphson(universe, origin, target, settings, startingVelocity), settings);
+	}
+
+	/**
+	 * Newton Raphson seeded with the Lambert transfer between the launch and target points
+	 */
+	public static Vector3d[] newtonRaphsonPlot(Universe universe, int origin, int target, SimulationSettings settings, Vector3d prevVelocity)
+	{
+		return newtonRaphsonPlot(new NewtonRaphson(universe, origin, target, settings), settings);
+	}
+
+	private static Vector3d[] newtonRaphsonPlot(NewtonRaphson nr, SimulationSettings settings)
+	{
+		return publishTransfer(nr, nr.newtonRaphsonIterativeMethod(), settings);
+	}
+
+	private static Vector3d[] publishTransfer(NewtonRaphson nr, Vector3d optimalVelocity, SimulationSettings settings)
+	{
+		settings.spacecraft = settings.spacecraft.burn(optimalVelocity.dist((Vector3d) settings.probeStartVelocity));
+		System.out.println("Fuel Remaining: " + settings.spacecraft.getFuelMass());
 		Vector3d[] trajectory = nr.planRoute(optimalVelocity);
 		settings.stepOffset = settings.noOfSteps;
 		return trajectory;
 
 	}
 
+	/**
+	 * Multiple shooting over the given number of segments, seeded with the Lambert transfer
+	 */
+	public static Vector3d[] multipleShootingPlot(Universe universe, int origin, int target, SimulationSettings settings, int noOfSegments)
+	{
+		MultipleShooting ms = new MultipleShooting(universe, origin, target, settings, noOfSegments);
+		Vector3d seed = LambertSolver.seedVelocity(universe, origin, ms.getLaunchPoint(), settings.stepOffset, ms.getTargetPoint(),
+												   settings.stepOffset + settings.noOfSteps, settings.stepSize);
+		Vector3d optimalVelocity = ms.solve(seed);
+		settings.spacecraft = settings.spacecraft.burn(optimalVelocity.dist((Vector3d) settings.probeStartVelocity));
+		System.out.println("Fuel Remaining: " + settings.spacecraft.getFuelMass());
+		universe.addPermTrajectory(ms.getTrajectory());
+		settings.probeStartVelocity = ms.getVelocityAtTarget();
+		settings.stepOffset = settings.noOfSteps;
+		return ms.getTrajectory();
+	}
+
+	/**
+	 * Sweep every departure step and flight time the universe spans between two bodies,
+	 * saving the porkchop matrix and plot under the given name
+	 * @param stride steps between grid lines in both directions
+	 * @return the scanner holding the grid, {@link LaunchWindowScanner#getBestCell()} is the cheapest window
+	 */
+	public static LaunchWindowScanner scanLaunchWindows(Universe universe, int origin, int target, SimulationSettings settings,
+														int stride, String name) throws IOException
+	{
+		int lastStep = universe.getNoOfTimeSteps() - 1;
+		LaunchWindowScanner scanner = new LaunchWindowScanner(universe, origin, target, settings.stepSize);
+		scanner.scan(0, lastStep - stride, stride, stride, lastStep, stride);
+		PorkchopFileManager.saveCSV(scanner, name);
+		PorkchopFileManager.saveImage(PorkchopPlot.render(scanner, 4), name);
+		return scanner;
+	}
+
+	/**
+	 * Settings for the cheapest window found by a scan, in place of the hand picked offset and flight time
+	 */
+	public static SimulationSettings createLaunchWindowSettings(SimulationSettings baseSettings, LaunchWindowScanner scanner)
+	{
+		int[] best = scanner.getBestCell();
+		if(best == null)
+		{
+			throw new IllegalArgumentException("Scan has no valid launch window");
+		}
+		SimulationSettings windowSettings = baseSettings.copy();
+		windowSettings.stepOffset = scanner.getDepartureStep(best[0]);
+		windowSettings.noOfSteps = scanner.getFlightSteps(best[1]);
+		windowSettings.stepSize = scanner.getStepSize();
+		return windowSettings;
+	}
+
+	/**
+	 * Settings of the outbound leg of a patched conic estimate, to refine it with the N-body correctors
+	 */
+	public static SimulationSettings createOutboundSettings(SimulationSettings baseSettings, PatchedConicMission.Estimate estimate)
+	{
+		SimulationSettings outboundSettings = baseSettings.copy();
+		outboundSettings.stepOffset = estimate.getDepartureStep();
+		outboundSettings.noOfSteps = estimate.getOutboundSteps();
+		return outboundSettings;
+	}
+
+	/**
+	 * Settings of the return leg of a patched conic estimate
+	 */
+	public static SimulationSettings createReturnSettings(SimulationSettings baseSettings, PatchedConicMission.Estimate estimate)
+	{
+		SimulationSettings returnSettings = baseSettings.copy();
+		returnSettings.stepOffset = estimate.getLeaveStep();
+		returnSettings.noOfSteps = estimate.getReturnSteps();
+		return returnSettings;
+	}
+
 	public static Vector3d[] plotRoute(Universe universe, SimulationSettings settings)
 	{
 		int earth = 3;
@@ -72,25 +190,27 @@ public abstract class TrajectoryPlanner
 		int wp1 = settings.noOfSteps/4;
 		int wp2 = settings.noOfSteps/4 * 2;
 
-		CelestialBody earthStartPsn = universe.U[earth][0];
-		Vector3d titanEndPsn = universe.U[titan][wp1].location;
+		CelestialBody earthStartPsn = universe.getBody(earth, 0);
+		Vector3d titanEndPsn = universe.getBody(titan, wp1).location;
 
 		SimulationSettings outSettings = settings.copy();
-		outSettings.probeStartVelocity = universe.U[earth][0].velocity;
 		outSettings.probeStartPosition = earthStartPsn.closestLaunchPoint(titanEndPsn);
+		outSettings.probeStartVelocity = LambertSolver.seedVelocity(universe, earth, (Vector3d) outSettings.probeStartPosition, 0,
+																	titanEndPsn, wp1, settings.stepSize);
 		outSettings.noOfSteps = wp1;
-		RouteController outController = new RouteController(universe, earth, titan, outSettings);
+		RouteController outController = new RouteController(universe, earth, titan, outSettings, SEEDED_MUTATION_RATE);
 		trajectories.add(outController.getTrajectory());
 
-		CelestialBody titanStartPsn = universe.U[titan][wp2];
-		Vector3d earthEndPsn = universe.U[earth][settings.noOfSteps].location;
+		CelestialBody titanStartPsn = universe.getBody(titan, wp2);
+		Vector3d earthEndPsn = universe.getBody(earth, settings.noOfSteps).location;
 
 		SimulationSettings backSettings = outController.getFinalSettings();
 		backSettings.probeStartPosition = titanStartPsn.closestLaunchPoint(earthEndPsn);
-		backSettings.probeStartVelocity = universe.U[titan][wp2].velocity;;
 		backSettings.noOfSteps = (settings.noOfSteps/4);
 		backSettings.stepOffset = wp2;
-		RouteController backController = new RouteController(universe, titan, earth, backSettings);
+		backSettings.probeStartVelocity = LambertSolver.seedVelocity(universe, titan, (Vector3d) backSettings.probeStartPosition, wp2,
+																	 earthEndPsn, settings.noOfSteps, settings.stepSize);
+		RouteController backController = new RouteController(universe, titan, earth, backSettings, SEEDED_MUTATION_RATE);
 		trajectories.add(backController.getTrajectory());
 
 		return sewUpTrajectories();
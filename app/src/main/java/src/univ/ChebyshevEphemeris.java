@@ -0,0 +1,382 @@
+package src.univ;
+
+import java.time.LocalDateTime;
+
+import src.peng.Vector3d;
+
+/**
+ * A compressed ephemeris holding piecewise Chebyshev polynomials for every body, in the spirit
+ * of the JPL DE files. Each body is split into equal length segments so any step can be found
+ * in O(1), and every segment stores one set of coefficients per axis. Positions are evaluated
+ * directly and velocities are taken from the derivative of the same polynomial.
+ */
+public class ChebyshevEphemeris
+{
+	public static final int DEFAULT_DEGREE = 12;
+	public static final double DEFAULT_TOLERANCE = 1000;	// meters
+	private static final int MAX_SEGMENT_LENGTH = 1024;		// steps
+
+	private CelestialBody[] templates;
+	private LocalDateTime startTime;
+	private double stepSize;
+	private int noOfSteps;
+	private int degree;
+	private int[] segmentLength;							// Steps covered by each segment of a body
+	private double[][][] coefficients;						// [body][segment][axis * (degree+1) + k]
+
+	public ChebyshevEphemeris(CelestialBody[] templates, LocalDateTime startTime, double stepSize, int noOfSteps,
+							  int degree, int[] segmentLength, double[][][] coefficients)
+	{
+		this.templates = templates;
+		this.startTime = startTime;
+		this.stepSize = stepSize;
+		this.noOfSteps = noOfSteps;
+		this.degree = degree;
+		this.segmentLength = segmentLength;
+		this.coefficients = coefficients;
+	}
+
+	// ----- Fitting -----
+
+	/**
+	 * Fit a Chebyshev ephemeris to a fully integrated universe using the default degree and tolerance
+	 * @param U the universe as [body][step]
+	 * @param stepSize the time between two steps in seconds
+	 * @return a compressed ephemeris reproducing U within {@link #DEFAULT_TOLERANCE}
+	 */
+	public static ChebyshevEphemeris fit(CelestialBody[][] U, double stepSize)
+	{
+		return fit(U, stepSize, DEFAULT_TOLERANCE, DEFAULT_DEGREE);
+	}
+
+	/**
+	 * Fit a Chebyshev ephemeris to a fully integrated universe.
+	 * The segment length of every body is halved until every segment reproduces the positions within the tolerance.
+	 * Velocities are not fitted, the integrator only keeps them to second order, they are taken from the derivative.
+	 * @param U the universe as [body][step]
+	 * @param stepSize the time between two steps in seconds
+	 * @param tolerance the largest error allowed in meters
+	 * @param degree the degree of the polynomial of every segment
+	 * @return a compressed ephemeris reproducing U
+	 */
+	public static ChebyshevEphemeris fit(CelestialBody[][] U, double stepSize, double tolerance, int degree)
+	{
+		int noOfBodies = U.length;
+		int noOfSteps = U[0].length - 1;
+		CelestialBody[] templates = new CelestialBody[noOfBodies];
+		int[] segmentLength = new int[noOfBodies];
+		double[][][] coefficients = new double[noOfBodies][][];
+		int minimumLength = Math.max(1, degree);
+
+		for(int i = 0; i < noOfBodies; i++)
+		{
+			templates[i] = U[i][0];
+			int length = Math.min(MAX_SEGMENT_LENGTH, Math.max(noOfSteps, 1));
+			double[][] bodyCoefficients = fitBody(U[i], stepSize, degree, length, tolerance);
+			while(bodyCoefficients == null && length > minimumLength)
+			{
+				length = Math.max(minimumLength, length / 2);
+				bodyCoefficients = fitBody(U[i], stepSize, degree, length, tolerance);
+			}
+			if(bodyCoefficients == null)
+			{
+				bodyCoefficients = fitBody(U[i], stepSize, degree, length, Double.MAX_VALUE);	// Best effort at the smallest length
+			}
+			segmentLength[i] = length;
+			coefficients[i] = bodyCoefficients;
+		}
+		return new ChebyshevEphemeris(templates, U[0][0].time, stepSize, noOfSteps, degree, segmentLength, coefficients);
+	}
+
+	/*
+	 * Fit every segment of one body, returns null as soon as a segment breaks the tolerance
+	 */
+	private static double[][] fitBody(CelestialBody[] body, double stepSize, int degree, int length, double tolerance)
+	{
+		int noOfSteps = body.length - 1;
+		int noOfSegments = Math.max(1, (noOfSteps + length - 1) / length);
+		double[][] result = new double[noOfSegments][];
+
+		for(int s = 0; s < noOfSegments; s++)
+		{
+			int first = s * length;
+			int last = Math.min(first + length, noOfSteps);
+			result[s] = fitSegment(body, first, last, length, stepSize, degree);
+			if(segmentError(body, first, last, length, degree, result[s]) > tolerance)
+				return null;
+		}
+		return result;
+	}
+
+	/*
+	 * Least squares fit of the positions over the steps [first, last] of a segment starting at first and spanning
+	 * length steps. Positions are taken relative to the first sample to keep the system well conditioned.
+	 */
+	private static double[] fitSegment(CelestialBody[] body, int first, int last, int length, double stepSize, int degree)
+	{
+		int samples = last - first + 1;
+		int usedDegree = Math.min(degree, samples - 1);								// Keep the system determined on short tails
+		int n = usedDegree + 1;
+		double[][] a = new double[samples][n];
+		double[][] b = new double[3][samples];
+		double[] t = new double[degree + 1];
+		double[] d = new double[degree + 1];
+		Vector3d reference = body[first].location;
+
+		for(int i = 0; i < samples; i++)
+		{
+			double tau = 2.0 * i / length - 1;
+			basis(tau, degree, t, d);
+			System.arraycopy(t, 0, a[i], 0, n);
+			for(int axis = 0; axis < 3; axis++)
+			{
+				b[axis][i] = body[first + i].location.get(axis) - reference.get(axis);
+			}
+		}
+
+		double[][] solution = leastSquares(a, b);
+		double[] segment = new double[3 * (degree + 1)];
+		for(int axis = 0; axis < 3; axis++)
+		{
+			System.arraycopy(solution[axis], 0, segment, axis * (degree + 1), n);
+			segment[axis * (degree + 1)] += reference.get(axis);
+		}
+		return segment;
+	}
+
+	private static double segmentError(CelestialBody[] body, int first, int last, int length, int degree, double[] segment)
+	{
+		double[] t = new double[degree + 1];
+		double[] d = new double[degree + 1];
+		double maxError = 0;
+
+		for(int step = first; step <= last; step++)
+		{
+			double tau = 2.0 * (step - first) / length - 1;
+			basis(tau, degree, t, d);
+			double error = 0;
+			for(int axis = 0; axis < 3; axis++)
+			{
+				double p = 0;
+				for(int k = 0; k <= degree; k++)
+				{
+					p += segment[axis * (degree + 1) + k] * t[k];
+				}
+				error += Math.pow(p - body[step].location.get(axis), 2);
+			}
+			maxError = Math.max(maxError, Math.sqrt(error));
+		}
+		return maxError;
+	}
+
+	/*
+	 * Chebyshev polynomials T_k(tau) and their derivatives dT_k/dtau
+	 */
+	private static void basis(double tau, int degree, double[] t, double[] d)
+	{
+		t[0] = 1;
+		d[0] = 0;
+		if(degree == 0)
+			return;
+		t[1] = tau;
+		d[1] = 1;
+		for(int k = 1; k < degree; k++)
+		{
+			t[k+1] = 2 * tau * t[k] - t[k-1];
+			d[k+1] = 2 * t[k] + 2 * tau * d[k] - d[k-1];
+		}
+	}
+
+	/*
+	 * Householder QR least squares of a x = b for every right hand side, overwrites a and b
+	 */
+	private static double[][] leastSquares(double[][] a, double[][] b)
+	{
+		int m = a.length;
+		int n = a[0].length;
+		for(int col = 0; col < n; col++)
+		{
+			double norm = 0;
+			for(int row = col; row < m; row++)
+			{
+				norm += a[row][col] * a[row][col];
+			}
+			norm = Math.sqrt(norm);
+			if(norm == 0)
+				continue;
+			double alpha = a[col][col] > 0 ? -norm : norm;
+			double[] v = new double[m];
+			v[col] = a[col][col] - alpha;
+			for(int row = col + 1; row < m; row++)
+			{
+				v[row] = a[row][col];
+			}
+			double vv = 0;
+			for(int row = col; row < m; row++)
+			{
+				vv += v[row] * v[row];
+			}
+			if(vv == 0)
+				continue;
+			for(int k = col; k < n; k++)
+			{
+				reflect(v, vv, col, m, a, k);
+			}
+			for(double[] rhs: b)
+			{
+				double dot = 0;
+				for(int row = col; row < m; row++)
+				{
+					dot += v[row] * rhs[row];
+				}
+				double factor = 2 * dot / vv;
+				for(int row = col; row < m; row++)
+				{
+					rhs[row] -= factor * v[row];
+				}
+			}
+		}
+
+		double[][] x = new double[b.length][n];
+		for(int r = 0; r < b.length; r++)
+		{
+			for(int row = n - 1; row >= 0; row--)
+			{
+				double sum = b[r][row];
+				for(int k = row + 1; k < n; k++)
+				{
+					sum -= a[row][k] * x[r][k];
+				}
+				x[r][row] = sum / a[row][row];
+			}
+		}
+		return x;
+	}
+
+	private static void reflect(double[] v, double vv, int col, int m, double[][] a, int k)
+	{
+		double dot = 0;
+		for(int row = col; row < m; row++)
+		{
+			dot += v[row] * a[row][k];
+		}
+		double factor = 2 * dot / vv;
+		for(int row = col; row < m; row++)
+		{
+			a[row][k] -= factor * v[row];
+		}
+	}
+
+	// ----- Evaluation -----
+
+	/**
+	 * Evaluate the position and velocity of a body, without allocating
+	 * @param body index of the body
+	 * @param step the (possibly fractional) step to evaluate at
+	 * @param position array of length 3 receiving the position in meters
+	 * @param velocity array of length 3 receiving the velocity in m/s, may be null
+	 */
+	public void evaluate(int body, double step, double[] position, double[] velocity)
+	{
+		int length = segmentLength[body];
+		double[][] segments = coefficients[body];
+		int segment = (int) Math.floor(step / length);
+		segment = Math.max(0, Math.min(segment, segments.length - 1));		// O(1) lookup, clamped to the fitted span
+		double tau = 2.0 * (step - segment * length) / length - 1;
+		double velocityScale = 2.0 / (length * stepSize);
+		double[] c = segments[segment];
+
+		// Walk the recurrence once for position and derivative together
+		double t0 = 1, t1 = tau;
+		double d0 = 0, d1 = 1;
+		for(int axis = 0; axis < 3; axis++)
+		{
+			position[axis] = c[axis * (degree + 1)];
+			if(velocity != null)
+				velocity[axis] = 0;
+		}
+		for(int k = 1; k <= degree; k++)
+		{
+			for(int axis = 0; axis < 3; axis++)
+			{
+				double coefficient = c[axis * (degree + 1) + k];
+				position[axis] += coefficient * t1;
+				if(velocity != null)
+					velocity[axis] += coefficient * d1 * velocityScale;
+			}
+			double t2 = 2 * tau * t1 - t0;
+			double d2 = 2 * t1 + 2 * tau * d1 - d0;
+			t0 = t1; t1 = t2;
+			d0 = d1; d1 = d2;
+		}
+	}
+
+	public Vector3d getPosition(int body, double step)
+	{
+		double[] position = new double[3];
+		evaluate(body, step, position, null);
+		return new Vector3d(position[0], position[1], position[2]);
+	}
+
+	public Vector3d getVelocity(int body, double step)
+	{
+		double[] position = new double[3];
+		double[] velocity = new double[3];
+		evaluate(body, step, position, velocity);
+		return new Vector3d(velocity[0], velocity[1], velocity[2]);
+	}
+
+	/**
+	 * @return a copy of the body at the given step, with position and velocity evaluated from the polynomials
+	 */
+	public CelestialBody getCelestialBody(int body, int step)
+	{
+		double[] position = new double[3];
+		double[] velocity = new double[3];
+		evaluate(body, step, position, velocity);
+		LocalDateTime time = startTime.plusSeconds((long) (stepSize * step));
+		return templates[body].updateCopy(new Vector3d(position[0], position[1], position[2]),
+										  new Vector3d(velocity[0], velocity[1], velocity[2]),
+										  time);
+	}
+
+	/**
+	 * Expand the ephemeris back to a full [body][step] universe
+	 */
+	public CelestialBody[][] toCelestialBodies()
+	{
+		CelestialBody[][] U = new CelestialBody[templates.length][noOfSteps + 1];
+		for(int i = 0; i < templates.length; i++)
+		{
+			for(int j = 0; j <= noOfSteps; j++)
+			{
+				U[i][j] = getCelestialBody(i, j);
+			}
+		}
+		return U;
+	}
+
+	// ----- Getters -----
+
+	public CelestialBody[] getTemplates() 	{return templates;}
+	public LocalDateTime getStartTime() 	{return startTime;}
+	public double getStepSize() 			{return stepSize;}
+	public int getNoOfSteps() 				{return noOfSteps;}
+	public int getDegree() 					{return degree;}
+	public int getNoOfBodies() 				{return templates.length;}
+	public int getSegmentLength(int body) 	{return segmentLength[body];}
+	public double[][] getCoefficients(int body) {return coefficients[body];}
+
+	/**
+	 * @return the number of doubles held by the polynomials of every body
+	 */
+	public int getCoefficientCount()
+	{
+		int count = 0;
+		for(double[][] body: coefficients)
+		{
+			count += body.length * 3 * (degree + 1);
+		}
+		return count;
+	}
+}
@@ -0,0 +1,179 @@
+package src.univ;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+
+import src.peng.NewtonGravityFunction;
+import src.peng.ODEFunctionInterface;
+import src.peng.State;
+import src.peng.Vector3d;
+import src.solv.Verlet;
+
+/**
+ * Integrates the universe on a background thread, filling the [body][step] array chunk by chunk.
+ * Every completed chunk is published by raising a volatile high-water mark, so readers only pay for a
+ * volatile read while they stay behind the producer and only block once they outrun it.
+ */
+public class EphemerisProducer implements Runnable
+{
+	public static final int DEFAULT_CHUNK_SIZE = 250;
+
+	private final CelestialBody[][] U;
+	private final CelestialBody[] startVariables;
+	private final LocalDateTime startTime;
+	private final double stepSize;
+	private final int noOfSteps;
+	private final int chunkSize;
+	private final ODEFunctionInterface function;
+	private final Verlet solver = new Verlet();
+
+	private volatile int highWaterMark = -1;						// Last step that is safe to read
+	private volatile RuntimeException failure = null;
+	private final Object lock = new Object();
+	private Thread thread;
+
+	public EphemerisProducer(CelestialBody[] startVariables, double[] masses, LocalDateTime startTime, double stepSize, int noOfSteps)
+	{
+		this(startVariables, masses, startTime, stepSize, noOfSteps, DEFAULT_CHUNK_SIZE);
+	}
+
+	public EphemerisProducer(CelestialBody[] startVariables, double[] masses, LocalDateTime startTime, double stepSize, int noOfSteps,
+							 int chunkSize)
+	{
+		this.startVariables = startVariables;
+		this.startTime = startTime;
+		this.stepSize = stepSize;
+		this.noOfSteps = noOfSteps;
+		this.chunkSize = Math.max(1, chunkSize);
+		this.function = new NewtonGravityFunction(masses);
+		this.U = new CelestialBody[startVariables.length][noOfSteps + 1];
+	}
+
+	/**
+	 * Start integrating on a daemon thread
+	 * @return the array that is being filled, only read steps up to {@link #getHighWaterMark()}
+	 */
+	public CelestialBody[][] start()
+	{
+		thread = new Thread(this, "ephemeris-producer");
+		thread.setDaemon(true);
+		thread.start();
+		return U;
+	}
+
+	@Override
+	public void run()
+	{
+		try
+		{
+			State state = convertToState(startVariables);
+			double time = 0;
+			record(0, state);
+			publish(0);
+			for(int step = 1; step <= noOfSteps; step++)
+			{
+				state = solver.step(function, time, state, stepSize);
+				time += stepSize;
+				record(step, state);
+				if(step % chunkSize == 0 || step == noOfSteps)
+					publish(step);
+			}
+		}
+		catch(RuntimeException e)
+		{
+			failure = e;
+			synchronized(lock)
+			{
+				lock.notifyAll();
+			}
+		}
+	}
+
+	private void record(int step, State state)
+	{
+		LocalDateTime dateTime = startTime.plusSeconds((long) (step * stepSize));
+		for(int j = 0; j < startVariables.length; j++)
+		{
+			U[j][step] = startVariables[j].updateCopy(state.position.get(j), state.velocity.get(j), dateTime);
+		}
+	}
+
+	private void publish(int step)
+	{
+		highWaterMark = step;
+		synchronized(lock)
+		{
+			lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Block until the step has been integrated
+	 */
+	public void awaitStep(int step)
+	{
+		if(step <= highWaterMark)
+			return;
+		if(step > noOfSteps || step < 0)
+		{
+			throw new IndexOutOfBoundsException("Step " + step + " outside of 0 - " + noOfSteps);
+		}
+		synchronized(lock)
+		{
+			while(step > highWaterMark)
+			{
+				if(failure != null)
+					throw new IllegalStateException("Ephemeris producer failed", failure);
+				try
+				{
+					lock.wait();
+				}
+				catch(InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("Interrupted while waiting for step " + step, e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Block until the whole span has been integrated
+	 */
+	public void awaitCompletion()
+	{
+		awaitStep(noOfSteps);
+	}
+
+	public boolean isAvailable(int step)
+	{
+		return step >= 0 && step <= highWaterMark;
+	}
+
+	public boolean isComplete()
+	{
+		return highWaterMark == noOfSteps;
+	}
+
+	public int getHighWaterMark()
+	{
+		return highWaterMark;
+	}
+
+	public int getNoOfSteps()
+	{
+		return noOfSteps;
+	}
+
+	private static State convertToState(CelestialBody[] bodies)
+	{
+		ArrayList<Vector3d> velocity = new ArrayList<Vector3d>();
+		ArrayList<Vector3d> position = new ArrayList<Vector3d>();
+		for(int i = 0; i < bodies.length; i++)
+		{
+			velocity.add(bodies[i].velocity);
+			position.add(bodies[i].location);
+		}
+		return new State(velocity, position);
+	}
+}
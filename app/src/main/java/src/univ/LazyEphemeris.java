@@ -0,0 +1,180 @@
+package src.univ;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import src.peng.NewtonGravityFunction;
+import src.peng.ODEFunctionInterface;
+import src.peng.State;
+import src.peng.Vector3d;
+import src.solv.Verlet;
+
+/**
+ * Generates the universe on demand in blocks of steps instead of integrating the whole span up front.
+ * Only a bounded window of blocks is kept in memory, the least recently used block is evicted first.
+ * The state at the start of every block reached so far is kept as a checkpoint, so an evicted block
+ * is regenerated by integrating that one block again rather than from the start of the span.
+ */
+public class LazyEphemeris
+{
+	public static final int DEFAULT_BLOCK_SIZE = 1000;
+	public static final int DEFAULT_RESIDENT_BLOCKS = 8;
+
+	private final CelestialBody[] startVariables;
+	private final LocalDateTime startTime;
+	private final double stepSize;
+	private final int noOfSteps;
+	private final int blockSize;
+	private final int residentBlocks;
+
+	private final Verlet solver = new Verlet();
+	private final ODEFunctionInterface function;
+	private final State[] checkpoints;
+	private final LinkedHashMap<Integer, CelestialBody[][]> window;
+
+	private int lastBlockIndex = -1;									// Fast path for repeated reads of the same block
+	private CelestialBody[][] lastBlock;
+	private int blocksGenerated = 0;
+
+	public LazyEphemeris(CelestialBody[] startVariables, double[] masses, LocalDateTime startTime, double stepSize, int noOfSteps)
+	{
+		this(startVariables, masses, startTime, stepSize, noOfSteps, DEFAULT_BLOCK_SIZE, DEFAULT_RESIDENT_BLOCKS);
+	}
+
+	public LazyEphemeris(CelestialBody[] startVariables, double[] masses, LocalDateTime startTime, double stepSize, int noOfSteps,
+						 int blockSize, int residentBlocks)
+	{
+		if(blockSize < 1 || residentBlocks < 1)
+		{
+			throw new IllegalArgumentException("Block size and resident blocks must be positive");
+		}
+		this.startVariables = startVariables;
+		this.startTime = startTime;
+		this.stepSize = stepSize;
+		this.noOfSteps = noOfSteps;
+		this.blockSize = blockSize;
+		this.residentBlocks = residentBlocks;
+		this.function = new NewtonGravityFunction(masses);
+		this.checkpoints = new State[noOfSteps / blockSize + 2];
+		this.checkpoints[0] = convertToState(startVariables);
+		this.window = new LinkedHashMap<Integer, CelestialBody[][]>(16, 0.75f, true)
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, CelestialBody[][]> eldest)
+			{
+				return size() > LazyEphemeris.this.residentBlocks;
+			}
+		};
+	}
+
+	/**
+	 * @return the body at the given step, generating its block first if it is not resident
+	 */
+	public synchronized CelestialBody getBody(int body, int step)
+	{
+		if(step < 0 || step > noOfSteps)
+		{
+			throw new IndexOutOfBoundsException("Step " + step + " outside of 0 - " + noOfSteps);
+		}
+		int blockIndex = step / blockSize;
+		if(blockIndex != lastBlockIndex)
+		{
+			lastBlock = getBlock(blockIndex);
+			lastBlockIndex = blockIndex;
+		}
+		return lastBlock[body][step - blockIndex * blockSize];
+	}
+
+	/**
+	 * @return true if the step can be read without integrating
+	 */
+	public synchronized boolean isResident(int step)
+	{
+		return step >= 0 && step <= noOfSteps && window.containsKey(step / blockSize);
+	}
+
+	private CelestialBody[][] getBlock(int blockIndex)
+	{
+		CelestialBody[][] block = window.get(blockIndex);
+		if(block != null)
+			return block;
+
+		// Walk forward from the latest checkpoint before the block, only keeping the states at block boundaries
+		int from = blockIndex;
+		while(checkpoints[from] == null)
+		{
+			from--;
+		}
+		for(int i = from; i < blockIndex; i++)
+		{
+			advanceCheckpoint(i);
+		}
+		block = generateBlock(blockIndex);
+		window.put(blockIndex, block);
+		return block;
+	}
+
+	private void advanceCheckpoint(int blockIndex)
+	{
+		State state = checkpoints[blockIndex];
+		double time = blockIndex * blockSize * stepSize;
+		for(int i = 0; i < blockSize; i++)
+		{
+			state = solver.step(function, time, state, stepSize);
+			time += stepSize;
+		}
+		checkpoints[blockIndex + 1] = state;
+	}
+
+	private CelestialBody[][] generateBlock(int blockIndex)
+	{
+		int firstStep = blockIndex * blockSize;
+		int length = Math.min(blockSize, noOfSteps - firstStep + 1);
+		CelestialBody[][] block = new CelestialBody[startVariables.length][length];
+		State state = checkpoints[blockIndex];
+		double time = firstStep * stepSize;
+
+		for(int i = 0; i < length; i++)
+		{
+			LocalDateTime dateTime = startTime.plusSeconds((long) ((firstStep + i) * stepSize));
+			for(int j = 0; j < startVariables.length; j++)
+			{
+				block[j][i] = startVariables[j].updateCopy(state.position.get(j), state.velocity.get(j), dateTime);
+			}
+			if(i < length - 1 || firstStep + length <= noOfSteps)
+			{
+				state = solver.step(function, time, state, stepSize);
+				time += stepSize;
+			}
+		}
+		if(firstStep + length <= noOfSteps)
+		{
+			checkpoints[blockIndex + 1] = state;
+		}
+		blocksGenerated++;
+		return block;
+	}
+
+	private static State convertToState(CelestialBody[] bodies)
+	{
+		ArrayList<Vector3d> velocity = new ArrayList<Vector3d>();
+		ArrayList<Vector3d> position = new ArrayList<Vector3d>();
+		for(int i = 0; i < bodies.length; i++)
+		{
+			velocity.add(bodies[i].velocity);
+			position.add(bodies[i].location);
+		}
+		return new State(velocity, position);
+	}
+
+	public int getNoOfBodies()				{return startVariables.length;}
+	public int getNoOfSteps()				{return noOfSteps;}
+	public int getBlockSize()				{return blockSize;}
+	public int getResidentBlockLimit()		{return residentBlocks;}
+	public synchronized int getResidentBlocks()	{return window.size();}
+	public synchronized int getBlocksGenerated()	{return blocksGenerated;}
+}
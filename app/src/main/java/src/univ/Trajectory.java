@@ -0,0 +1,184 @@
+package src.univ;
+
+import src.peng.Vector3d;
+
+/**
+ * Immutable probe trajectory stored as primitive coordinate arrays instead of one Vector3d per step.
+ * Each point remembers the step it was recorded at, so a simplified trajectory can still be related
+ * back to the universe it was planned in.
+ */
+public class Trajectory
+{
+	private final double[] x;
+	private final double[] y;
+	private final double[] z;
+	private final int[] steps;
+
+	private Trajectory(double[] x, double[] y, double[] z, int[] steps)
+	{
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		this.steps = steps;
+	}
+
+	/**
+	 * @param points one position per step, null entries (steps never reached) are skipped
+	 */
+	public static Trajectory of(Vector3d[] points)
+	{
+		int n = 0;
+		for(Vector3d each: points)
+		{
+			if(each != null)
+				n++;
+		}
+		double[] x = new double[n];
+		double[] y = new double[n];
+		double[] z = new double[n];
+		int[] steps = new int[n];
+		int j = 0;
+		for(int i = 0; i < points.length; i++)
+		{
+			if(points[i] == null)
+				continue;
+			x[j] = points[i].getX();
+			y[j] = points[i].getY();
+			z[j] = points[i].getZ();
+			steps[j++] = i;
+		}
+		return new Trajectory(x, y, z, steps);
+	}
+
+	/**
+	 * Douglas-Peucker simplification in 3D.
+	 * Every dropped point lies within the tolerance of the polyline through the kept points.
+	 * @param tolerance maximum distance in metres
+	 * @return a trajectory keeping only the points needed to stay within the tolerance
+	 */
+	public Trajectory simplify(double tolerance)
+	{
+		int n = size();
+		if(n < 3)
+			return this;
+
+		boolean[] keep = new boolean[n];
+		keep[0] = true;
+		keep[n - 1] = true;
+		int[] stack = new int[2 * n];					// Explicit stack of [first, last] ranges, recursion would overflow on 80k points
+		int top = 0;
+		stack[top++] = 0;
+		stack[top++] = n - 1;
+		double toleranceSquared = tolerance * tolerance;
+
+		while(top > 0)
+		{
+			int last = stack[--top];
+			int first = stack[--top];
+			double maxDistance = -1;
+			int furthest = -1;
+			for(int i = first + 1; i < last; i++)
+			{
+				double distance = segmentDistanceSquared(i, first, last);
+				if(distance > maxDistance)
+				{
+					maxDistance = distance;
+					furthest = i;
+				}
+			}
+			if(furthest != -1 && maxDistance > toleranceSquared)
+			{
+				keep[furthest] = true;
+				stack[top++] = first;
+				stack[top++] = furthest;
+				stack[top++] = furthest;
+				stack[top++] = last;
+			}
+		}
+		return select(keep);
+	}
+
+	/**
+	 * Keep every stride-th point plus the last one
+	 */
+	public Trajectory decimate(int stride)
+	{
+		if(stride < 1)
+		{
+			throw new IllegalArgumentException("Stride must be positive");
+		}
+		boolean[] keep = new boolean[size()];
+		for(int i = 0; i < keep.length; i += stride)
+		{
+			keep[i] = true;
+		}
+		if(keep.length > 0)
+			keep[keep.length - 1] = true;
+		return select(keep);
+	}
+
+	private Trajectory select(boolean[] keep)
+	{
+		int n = 0;
+		for(boolean each: keep)
+		{
+			if(each)
+				n++;
+		}
+		if(n == size())
+			return this;
+		double[] sx = new double[n];
+		double[] sy = new double[n];
+		double[] sz = new double[n];
+		int[] sSteps = new int[n];
+		int j = 0;
+		for(int i = 0; i < keep.length; i++)
+		{
+			if(!keep[i])
+				continue;
+			sx[j] = x[i];
+			sy[j] = y[i];
+			sz[j] = z[i];
+			sSteps[j++] = steps[i];
+		}
+		return new Trajectory(sx, sy, sz, sSteps);
+	}
+
+	/**
+	 * @return squared distance from point i to the segment between points a and b
+	 */
+	private double segmentDistanceSquared(int i, int a, int b)
+	{
+		double dx = x[b] - x[a], dy = y[b] - y[a], dz = z[b] - z[a];
+		double px = x[i] - x[a], py = y[i] - y[a], pz = z[i] - z[a];
+		double lengthSquared = dx*dx + dy*dy + dz*dz;
+		double t = lengthSquared == 0 ? 0 : (px*dx + py*dy + pz*dz) / lengthSquared;
+		t = Math.max(0, Math.min(1, t));
+		double ex = px - t*dx, ey = py - t*dy, ez = pz - t*dz;
+		return ex*ex + ey*ey + ez*ez;
+	}
+
+	public Vector3d getPoint(int i)
+	{
+		return new Vector3d(x[i], y[i], z[i]);
+	}
+
+	/**
+	 * @return the points as vectors, one per stored point (not one per step once simplified)
+	 */
+	public Vector3d[] toVectors()
+	{
+		Vector3d[] points = new Vector3d[size()];
+		for(int i = 0; i < points.length; i++)
+		{
+			points[i] = getPoint(i);
+		}
+		return points;
+	}
+
+	public int size()				{return x.length;}
+	public double getX(int i)		{return x[i];}
+	public double getY(int i)		{return y[i];}
+	public double getZ(int i)		{return z[i];}
+	public int getStep(int i)		{return steps[i];}
+}
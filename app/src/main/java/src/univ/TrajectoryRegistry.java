@@ -0,0 +1,203 @@
+package src.univ;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.swing.SwingUtilities;
+
+import src.peng.Vector3d;
+
+/**
+ * Holds the temporary (candidate) and permanent (chosen) trajectories of a universe.
+ * Planner threads publish, the paint thread reads. Every publish replaces an immutable snapshot,
+ * so readers never lock and never see a list being modified. Temporary trajectories are bounded,
+ * the oldest one is dropped first, and repaint requests are coalesced into at most one pending
+ * repaint on the Swing thread however many trajectories are published in between.
+ * Trajectories are simplified to the display tolerance when they are published, only permanent
+ * trajectories also keep their full resolution, so memory stays flat however long planning runs.
+ */
+public class TrajectoryRegistry
+{
+	public static final int DEFAULT_TEMP_CAPACITY = 64;
+	public static final double DEFAULT_DISPLAY_TOLERANCE = 1e6;		// Metres, well below a pixel at every zoom level in use
+
+	private final int tempCapacity;
+	private volatile double displayTolerance = DEFAULT_DISPLAY_TOLERANCE;
+	private volatile List<Trajectory> tempSnapshot = Collections.emptyList();
+	private volatile List<Trajectory> permSnapshot = Collections.emptyList();
+	private volatile List<Trajectory> permFullSnapshot = Collections.emptyList();
+	private final AtomicBoolean repaintPending = new AtomicBoolean(false);
+	private volatile Runnable repaintListener = null;
+	private long published = 0;
+
+	public TrajectoryRegistry()
+	{
+		this(DEFAULT_TEMP_CAPACITY);
+	}
+
+	public TrajectoryRegistry(int tempCapacity)
+	{
+		if(tempCapacity < 1)
+		{
+			throw new IllegalArgumentException("Capacity must be positive");
+		}
+		this.tempCapacity = tempCapacity;
+	}
+
+	/**
+	 * Publish a candidate trajectory, dropping the oldest one once the capacity is reached
+	 */
+	public void publishTemp(Vector3d[] trajectory)
+	{
+		publishTemp(Trajectory.of(trajectory).simplify(displayTolerance));		// Simplified before taking the lock
+	}
+
+	private void publishTemp(Trajectory display)
+	{
+		synchronized(this)
+		{
+			List<Trajectory> current = tempSnapshot;
+			int from = Math.max(0, current.size() + 1 - tempCapacity);
+			ArrayList<Trajectory> next = new ArrayList<Trajectory>(current.size() - from + 1);
+			next.addAll(current.subList(from, current.size()));
+			next.add(display);
+			tempSnapshot = Collections.unmodifiableList(next);
+			published++;
+		}
+		requestRepaint();
+	}
+
+	public void publishPerm(Vector3d[] trajectory)
+	{
+		Trajectory full = Trajectory.of(trajectory);
+		publishPerm(full, full.simplify(displayTolerance));
+	}
+
+	private void publishPerm(Trajectory full, Trajectory display)
+	{
+		synchronized(this)
+		{
+			permSnapshot = append(permSnapshot, display);
+			permFullSnapshot = append(permFullSnapshot, full);
+			published++;
+		}
+		requestRepaint();
+	}
+
+	private static List<Trajectory> append(List<Trajectory> current, Trajectory trajectory)
+	{
+		ArrayList<Trajectory> next = new ArrayList<Trajectory>(current.size() + 1);
+		next.addAll(current);
+		next.add(trajectory);
+		return Collections.unmodifiableList(next);
+	}
+
+	public void clearTemp()
+	{
+		synchronized(this)
+		{
+			tempSnapshot = Collections.emptyList();
+		}
+		requestRepaint();
+	}
+
+	/**
+	 * @return an immutable snapshot of the simplified temporary trajectories, oldest first
+	 */
+	public List<Trajectory> getTemp()
+	{
+		return tempSnapshot;
+	}
+
+	/**
+	 * @return an immutable snapshot of the simplified permanent trajectories, oldest first
+	 */
+	public List<Trajectory> getPerm()
+	{
+		return permSnapshot;
+	}
+
+	/**
+	 * @return an immutable snapshot of the permanent trajectories with every recorded step
+	 */
+	public List<Trajectory> getPermFullResolution()
+	{
+		return permFullSnapshot;
+	}
+
+	/**
+	 * Add every trajectory of another registry to this one
+	 */
+	public void importFrom(TrajectoryRegistry other)
+	{
+		List<Trajectory> full;
+		List<Trajectory> display;
+		synchronized(other)
+		{
+			full = other.permFullSnapshot;
+			display = other.permSnapshot;
+		}
+		for(int i = 0; i < full.size(); i++)
+		{
+			publishPerm(full.get(i), display.get(i));
+		}
+		for(Trajectory each: other.getTemp())
+		{
+			publishTemp(each);
+		}
+	}
+
+	/**
+	 * @param listener run on the Swing thread after one or more publishes, null to stop repainting
+	 */
+	public void setRepaintListener(Runnable listener)
+	{
+		repaintListener = listener;
+	}
+
+	private void requestRepaint()
+	{
+		if(repaintListener == null)
+			return;
+		if(repaintPending.compareAndSet(false, true))
+		{
+			SwingUtilities.invokeLater(() ->
+			{
+				repaintPending.set(false);				// Cleared first so a publish during the repaint schedules another
+				Runnable listener = repaintListener;
+				if(listener != null)
+					listener.run();
+			});
+		}
+	}
+
+	/**
+	 * @param tolerance maximum distance in metres between a dropped point and the simplified trajectory,
+	 * applies to trajectories published from now on
+	 */
+	public void setDisplayTolerance(double tolerance)
+	{
+		if(tolerance < 0)
+		{
+			throw new IllegalArgumentException("Tolerance must not be negative");
+		}
+		displayTolerance = tolerance;
+	}
+
+	public double getDisplayTolerance()
+	{
+		return displayTolerance;
+	}
+
+	public int getTempCapacity()
+	{
+		return tempCapacity;
+	}
+
+	public synchronized long getPublishedCount()
+	{
+		return published;
+	}
+}
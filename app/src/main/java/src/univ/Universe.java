@@ -3,16 +3,16 @@ package src.univ;
 import src.peng.Vector3d;
 import src.peng.StateInterface;
 import src.conf.DataFileManager;
+import src.conf.EphemerisFileManager;
 import src.conf.SimulationSettings;
 import src.peng.NewtonGravityFunction;
 import src.peng.ODEFunctionInterface;
 import src.peng.State;
 import src.solv.Verlet;
-import src.visu.Visualiser;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Stack;
+import java.util.List;
 
 public class Universe
 {
@@ -27,11 +27,9 @@ public class Universe
 	private int noOfSteps;
 	private double stepSize;
 	
-    private ArrayList<Vector3d[]> permTrajectories = new ArrayList<Vector3d[]>();
-    private ArrayList<Vector3d[]> tempTrajectories = new ArrayList<Vector3d[]>();
-	private Stack<Vector3d[]> tempStack = new Stack<Vector3d[]>();
-	private Stack<Vector3d[]> permStack = new Stack<Vector3d[]>();
-	private boolean purgeTempTrajs = false;
+    private TrajectoryRegistry trajectories = new TrajectoryRegistry();
+	private LazyEphemeris lazyEphemeris = null;
+	private EphemerisProducer producer = null;
 	
 	// ----- Universe Construction -----
 	
@@ -45,8 +43,47 @@ public class Universe
     	SAVE_TO_FILE = save;
     	constructor(settings);
     }
-        
-    private void constructor(SimulationSettings settings)
+    
+    /**
+     * Create a lazy universe, steps are integrated in blocks the first time they are read and only
+     * a bounded window of blocks is kept in memory. {@code U} is left null in this mode.
+     * @param blockSize the number of steps integrated at once
+     * @param residentBlocks the number of blocks kept in memory
+     */
+    public Universe(SimulationSettings settings, int blockSize, int residentBlocks)
+    {
+    	readSettings(settings);
+    	U = null;
+    	lazyEphemeris = new LazyEphemeris(startVariables, masses, startTime, stepSize, noOfSteps, blockSize, residentBlocks);
+    }
+    
+    private Universe()
+    {
+    	// Used by startInBackground
+    }
+    
+    /**
+     * Create a universe from the data or ephemeris file of the settings if there is one, otherwise
+     * integrate it on a background thread, in chunks of steps.
+     * Reading a step that has not been integrated yet blocks until the producer reaches it,
+     * so planning can start while the rest of the span is still being generated.
+     * @param chunkSize the number of steps published at once
+     */
+    public static Universe startInBackground(SimulationSettings settings, int chunkSize)
+    {
+    	Universe universe = new Universe();
+    	universe.readSettings(settings);
+    	universe.U = loadFromFiles(settings);
+    	if(universe.U != null)
+    		return universe;
+    	universe.producer = new EphemerisProducer(universe.startVariables, universe.masses, universe.startTime,
+    											  universe.stepSize, universe.noOfSteps, chunkSize);
+    	System.out.println("Creating new Universe in the background ...");
+    	universe.U = universe.producer.start();
+    	return universe;
+    }
+    
+    private void readSettings(SimulationSettings settings)
     {
     	startTime = settings.startTime;
     	noOfSteps = settings.noOfSteps;
@@ -57,21 +94,54 @@ public class Universe
     	{
     		masses[i] = startVariables[i].mass;
     	}
+    }
+        
+    private void constructor(SimulationSettings settings)
+    {
+    	readSettings(settings);
     	
     	U = new CelestialBody[startVariables.length][noOfSteps+1];
+    	CelestialBody[][] loaded = loadFromFiles(settings);
+    	if(loaded != null)
+    	{
+    		U = loaded;
+    		return;
+    	}
+    	U = generateNewUniverse();
+    	if(SAVE_TO_FILE)
+    	{
+    		saveToFile();
+    		saveToEphemerisFile(ChebyshevEphemeris.DEFAULT_TOLERANCE);
+    	}
+    }
+    
+    /**
+     * @return the universe saved for the settings, from the data file or else the ephemeris file, null if neither exists
+     */
+    private static CelestialBody[][] loadFromFiles(SimulationSettings settings)
+    {
     	try
 		{
     		System.out.print("Loading from file ...");
-    		U = DataFileManager.load(settings);
+    		CelestialBody[][] bodies = DataFileManager.load(settings);
     		System.out.println(" Done");
+    		return bodies;
 		}
 		catch (Exception e)
 		{
 			System.out.println("Unable to load config file");
-			U = generateNewUniverse();
-				
-			if(SAVE_TO_FILE)	
-				saveToFile();
+			try
+			{
+				System.out.print("Loading from ephemeris ...");
+				CelestialBody[][] bodies = EphemerisFileManager.load(settings).toCelestialBodies();
+				System.out.println(" Done");
+				return bodies;
+			}
+			catch (Exception ex)
+			{
+				System.out.println(" Unable to load ephemeris file");
+				return null;
+			}
      	}
     }
          
@@ -138,36 +208,112 @@ public class Universe
         ArrayList<Vector3d> velocity = new ArrayList<Vector3d>();
         ArrayList<Vector3d> position = new ArrayList<Vector3d>();
 
-        for(int i = 0; i < U.length; i++)
+        for(int i = 0; i < getNoOfBodies(); i++)
         {
-            velocity.add(U[i][timeStep].velocity);
-            position.add(U[i][timeStep].location);
+        	CelestialBody body = getBody(i, timeStep);
+            velocity.add(body.velocity);
+            position.add(body.location);
         }
         return new State(velocity, position);
     }
     
     public void setStateAt(int timeStep, StateInterface state)
     {
+    	requireEager();
     	U[timeStep] = convertToCelestialBody(state);
     }
     
     public CelestialBody[] getCelestialBodyAt(int timeStep)
     {
-        CelestialBody[] letTheBodiesHitTheFloor = new CelestialBody[U.length];
+        CelestialBody[] letTheBodiesHitTheFloor = new CelestialBody[getNoOfBodies()];
     	
-    	for(int i = 0; i < U.length; i++)
+    	for(int i = 0; i < letTheBodiesHitTheFloor.length; i++)
         {
-            letTheBodiesHitTheFloor[i] = U[i][timeStep];
+            letTheBodiesHitTheFloor[i] = getBody(i, timeStep);
         }
         return letTheBodiesHitTheFloor;
     }
     
+    // ----- Ephemeris Access -----
+    
+    /**
+     * Read a body at a step, works for both eager and lazy universes
+     */
+    public CelestialBody getBody(int body, int timeStep)
+    {
+    	if(lazyEphemeris != null)
+    		return lazyEphemeris.getBody(body, timeStep);
+    	if(producer != null)
+    		producer.awaitStep(timeStep);
+    	return U[body][timeStep];
+    }
+    
+    public int getNoOfBodies()
+    {
+    	return startVariables.length;
+    }
+    
+    /**
+     * @return the number of steps that can be read, including the initial state
+     */
+    public int getNoOfTimeSteps()
+    {
+    	if(lazyEphemeris != null)
+    		return noOfSteps + 1;
+    	return U[0].length;
+    }
+    
+    /**
+     * @return true if the step can be read without having to integrate it first
+     */
+    public boolean isAvailable(int timeStep)
+    {
+    	if(lazyEphemeris != null)
+    		return lazyEphemeris.isResident(timeStep);
+    	if(producer != null)
+    		return producer.isAvailable(timeStep);
+    	return timeStep >= 0 && timeStep < U[0].length;
+    }
+    
+    /**
+     * @return true if the step is still waiting on the background producer, reading it would block
+     */
+    public boolean isBeingProduced(int timeStep)
+    {
+    	return producer != null && !producer.isAvailable(timeStep);
+    }
+    
+    public boolean isLazy()
+    {
+    	return lazyEphemeris != null;
+    }
+    
+    /**
+     * Block until a universe integrated in the background is complete, returns straight away otherwise
+     */
+    public void awaitCompletion()
+    {
+    	if(producer != null)
+    		producer.awaitCompletion();
+    }
+    
+    /*
+     * Operations working on the whole of U, waits for a background universe to finish
+     */
+    private void requireEager()
+    {
+    	if(lazyEphemeris != null)
+    		throw new UnsupportedOperationException("Not available for a lazy universe");
+    	awaitCompletion();
+    }
+    
     // ----- Merging Universes -----
     
     public void append(Universe other)
     {
-    	this.permTrajectories.addAll(other.getPermTrajectories());
-    	this.tempTrajectories.addAll(other.getTempTrajectories());
+    	requireEager();
+    	other.requireEager();
+    	trajectories.importFrom(other.trajectories);
     	U = resizeUniverse(other.noOfSteps);
     	importUniverse(other.U);
     }
@@ -206,55 +352,70 @@ public class Universe
         
     public void addTempTrajectory(Vector3d[] trajectory)
     {
-    	tempStack.add(trajectory);
-    	Visualiser.getInstance().update();
+    	trajectories.publishTemp(trajectory);
     }
     
-    public ArrayList<Vector3d[]> getTempTrajectories()
+    /**
+     * @return an immutable snapshot simplified for display, safe to iterate while planners keep publishing
+     */
+    public List<Trajectory> getTempTrajectories()
     {
-    	if(purgeTempTrajs)
-    	{
-    		tempStack.clear();
-    		tempTrajectories.clear();
-    		purgeTempTrajs = false;
-    	}
-    	
-    	while(!tempStack.empty())
-    	{
-    		tempTrajectories.add(tempStack.pop());
-    	}
-    	return tempTrajectories;
+    	return trajectories.getTemp();
     }
     
     public void clearTempTrajectories()
     {
-    	purgeTempTrajs = true;
+    	trajectories.clearTemp();
     }
     
     public void addPermTrajectory(Vector3d[] trajectory)
     {
-    	permStack.add(trajectory);
-    	Visualiser.getInstance().update();
+    	trajectories.publishPerm(trajectory);
     }
     
-    public ArrayList<Vector3d[]> getPermTrajectories()
+    /**
+     * @return an immutable snapshot simplified for display, safe to iterate while planners keep publishing
+     */
+    public List<Trajectory> getPermTrajectories()
     {
-    	while(!permStack.empty())
-    	{
-    		permTrajectories.add(permStack.pop());
-    	}
-    	return permTrajectories;
+    	return trajectories.getPerm();
+    }
+    
+    /**
+     * @return the permanent trajectories with every recorded step, for analysis rather than display
+     */
+    public List<Trajectory> getPermTrajectoriesFullResolution()
+    {
+    	return trajectories.getPermFullResolution();
+    }
+    
+    public TrajectoryRegistry getTrajectoryRegistry()
+    {
+    	return trajectories;
     }
     
     // ----- Saving -----
         
     public void saveToFile()
     {
+    	requireEager();
     	System.out.print("Saving to file ...");
     	DataFileManager.overwrite(U);
 		System.out.println(" Done");
     }
     
+    /**
+     * Compress U into piecewise Chebyshev polynomials and save them as a single binary file
+     * @param tolerance the largest position error allowed in meters
+     */
+    public void saveToEphemerisFile(double tolerance)
+    {
+    	requireEager();
+    	System.out.print("Saving to ephemeris ...");
+    	EphemerisFileManager.overwrite(ChebyshevEphemeris.fit(U, stepSize, tolerance, ChebyshevEphemeris.DEFAULT_DEGREE));
+    	System.out.println(" Done");
+    }
+    
     public void setSaveToFile(boolean b)
     {
     	SAVE_TO_FILE = b;
@@ -7,11 +7,11 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.image.BufferedImage;
+import java.util.List;
 
 import javax.swing.JPanel;
 
 import src.misc.ResourceLoader;
-import src.peng.Vector3d;
 import src.univ.*;
 
 /**
@@ -24,7 +24,6 @@ public class Canvas extends JPanel
 {
 	private static final long serialVersionUID = 1L;
 	private final int ORBIT_PAINT_RATE = 10;
-	private final int TRAJ_PAINT_RATE = 20;
 	
 	private int xOffset;
 	private int yOffset;
@@ -40,7 +39,6 @@ public class Canvas extends JPanel
 	
 	private Dimension screen;
 	private Universe universe;
-	private CelestialBody[][] U;
 
 	private int time;						// Current time
 	private int endTime;
@@ -50,11 +48,10 @@ public class Canvas extends JPanel
 	public Canvas(Universe universe, Dimension screen)
 	{
 		this.universe = universe;
-		this.U = universe.U;
 		this.screen = screen;
 		setSize(screen);
 		time = 0;
-		endTime = U[0].length;
+		endTime = universe.getNoOfTimeSteps();
 		xOffset = -224;
 		yOffset = 170;
 		xOrigin = getWidth()/ 2;
@@ -73,8 +70,9 @@ public class Canvas extends JPanel
 		{
 			distScaling = detailDist;
 			sizeScaling = detailSize;
-			xOffset = (int) - (U[following][time].location.getX() * distScaling);
-			yOffset = (int) - (U[following][time].location.getY() * distScaling);	
+			CelestialBody followed = universe.getBody(following, time);
+			xOffset = (int) - (followed.location.getX() * distScaling);
+			yOffset = (int) - (followed.location.getY() * distScaling);	
 		}
 		
 		paintOrbits(g);
@@ -89,22 +87,25 @@ public class Canvas extends JPanel
 		g.setFont(font);
 		int timeX = 10;
 		int timeY = (int) screen.getHeight()- 140;
-		g.drawString(U[0][time].time.toString(), timeX, timeY);
+		g.drawString(universe.getBody(0, time).time.toString(), timeX, timeY);
 	}
 	
 	private void paintOrbits(Graphics2D g)
 	{
 		g.setColor(Color.GREEN);
-		for(int i = 0; i < U.length; i++)		
+		for(int i = 0; i < universe.getNoOfBodies(); i++)		
 		{
-			for(int j = 0; j < U[i].length; j += ORBIT_PAINT_RATE)
+			for(int j = 0; j < endTime; j += ORBIT_PAINT_RATE)
 			{
+				if(!universe.isAvailable(j))		// Do not force a lazy universe to integrate just to paint
+					continue;
+				CelestialBody body = universe.getBody(i, j);
 				int x = xOrigin;
-				x += (int) (U[i][j].location.getX() * distScaling);
+				x += (int) (body.location.getX() * distScaling);
 				x += xOffset;
 				
 				int y = yOrigin;
-				y += (int) (U[i][j].location.getY() * distScaling);
+				y += (int) (body.location.getY() * distScaling);
 				y += yOffset;
 				
 				g.fillOval(x, y, 2, 2);
@@ -115,24 +116,25 @@ public class Canvas extends JPanel
 	private void paintCelestialBodies(Graphics2D g)
 	{
 		g.setColor(Color.WHITE);
-		for(int i = 0; i < U.length; i++)		
+		for(int i = 0; i < universe.getNoOfBodies(); i++)		
 		{		
-			int r = (int) (U[i][time].radius * sizeScaling);
+			CelestialBody body = universe.getBody(i, time);
+			int r = (int) (body.radius * sizeScaling);
 			
 			int x = xOrigin;
-			x += (int) (U[i][time].location.getX() * distScaling);
+			x += (int) (body.location.getX() * distScaling);
 			x -= r/2;
 			x += xOffset;
 			
 			int y = yOrigin;
-			y += (int) (U[i][time].location.getY()  * distScaling);
+			y += (int) (body.location.getY()  * distScaling);
 			y -= r/2;
 			y += yOffset;
 			
 			// If the planet has a skin, draw a scaled image
-            if(U[i][time].image != null)
+            if(body.image != null)
             {
-                    BufferedImage img = ResourceLoader.getImage(U[i][time].image);
+                    BufferedImage img = ResourceLoader.getImage(body.image);
                     g.drawImage(img, x, y, r, r, null);
             }
             else
@@ -144,53 +146,57 @@ public class Canvas extends JPanel
 	private void paintTempTrajs(Graphics2D g)
 	{
 		
-		if(universe.getTempTrajectories().isEmpty())
+		List<Trajectory> trajectories = universe.getTempTrajectories();		// One snapshot per paint
+		if(trajectories.isEmpty())
 			return;
 		
 		g.setColor(Color.RED);
-		for(Vector3d[] each: universe.getTempTrajectories())		
+		for(Trajectory each: trajectories)		
 		{
-			for(int i = 0; i < each.length; i+= TRAJ_PAINT_RATE)
-			{
-				int x = xOrigin;
-				x += (int) (each[i].getX() * distScaling);
-				x += xOffset;
-				
-				int y = yOrigin;
-				y += (int) (each[i].getY() * distScaling);
-				y += yOffset;
-				
-				g.fillOval(x, y, 2, 2);
-			}
+			paintTrajectory(g, each);
 		}
 	}
 	
 	private void paintPermTrajs(Graphics2D g)
 	{
-		if(universe.getPermTrajectories().isEmpty())
+		List<Trajectory> trajectories = universe.getPermTrajectories();
+		if(trajectories.isEmpty())
 			return;
 		
 		g.setColor(Color.YELLOW);
-		for(Vector3d[] each: universe.getPermTrajectories())		
+		for(Trajectory each: trajectories)		
 		{
-			for(int i = 0; i < each.length; i++)
-			{
-				int x = xOrigin;
-				x += (int) (each[i].getX() * distScaling);
-				x += xOffset;
-				
-				int y = yOrigin;
-				y += (int) (each[i].getY() * distScaling);
-				y += yOffset;
-				
-				g.fillOval(x, y, 2, 2);
-			}
+			paintTrajectory(g, each);
+		}
+	}
+	
+	/*
+	 * Trajectories are simplified, so the kept points are joined with lines rather than dotted
+	 */
+	private void paintTrajectory(Graphics2D g, Trajectory trajectory)
+	{
+		int previousX = 0;
+		int previousY = 0;
+		for(int i = 0; i < trajectory.size(); i++)
+		{
+			int x = xOrigin;
+			x += (int) (trajectory.getX(i) * distScaling);
+			x += xOffset;
+			
+			int y = yOrigin;
+			y += (int) (trajectory.getY(i) * distScaling);
+			y += yOffset;
+			
+			if(i > 0)
+				g.drawLine(previousX, previousY, x, y);
+			previousX = x;
+			previousY = y;
 		}
 	}
 		
 	public void incrementTime(int interval)
 	{
-		if((time+interval < endTime) && (time+interval >= 0))
+		if((time+interval < endTime) && (time+interval >= 0) && !universe.isBeingProduced(time+interval))
 		{
 			time += interval;
 			repaint();
@@ -199,7 +205,7 @@ public class Canvas extends JPanel
 	
 	public void setTime(int t)
 	{
-		if((time < endTime) && (time > 0))
+		if((time < endTime) && (time > 0) && !universe.isBeingProduced(t))
 		{
 			time = t;
 			repaint();
@@ -217,7 +223,7 @@ public class Canvas extends JPanel
 	{
 		if(i == -1)
 			follow = false;
-		else if(i >= 0 && i < U.length)
+		else if(i >= 0 && i < universe.getNoOfBodies())
 		{
 			following = i;
 			follow = true;
@@ -0,0 +1,88 @@
+package src.visu;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import src.traj.LaunchWindowScanner;
+
+/**
+ * Renders the delta-v grid of a {@link LaunchWindowScanner} as a porkchop plot: departure step along
+ * the x axis, flight time up the y axis, cheap cells blue and expensive ones red, with a contour every
+ * contour interval and the cheapest cell marked in white.
+ */
+public abstract class PorkchopPlot
+{
+	public static final double DEFAULT_CONTOUR_INTERVAL = 2000;		// m/s
+	private static final double COLOUR_RANGE = 3;					// Cells above 3 times the minimum saturate
+
+	public static BufferedImage render(LaunchWindowScanner scanner, int cellSize)
+	{
+		return render(scanner, cellSize, DEFAULT_CONTOUR_INTERVAL);
+	}
+
+	/**
+	 * @param cellSize pixels per grid cell
+	 * @param contourInterval delta-v between contour lines in m/s
+	 */
+	public static BufferedImage render(LaunchWindowScanner scanner, int cellSize, double contourInterval)
+	{
+		int columns = scanner.getNoOfDepartures();
+		int rows = scanner.getNoOfFlights();
+		BufferedImage image = new BufferedImage(columns * cellSize, rows * cellSize, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		g.setColor(Color.BLACK);
+		g.fillRect(0, 0, image.getWidth(), image.getHeight());
+
+		int[] best = scanner.getBestCell();
+		if(best == null || Double.isNaN(scanner.getDeltaV(best[0], best[1])))		// No cell solved
+		{
+			g.dispose();
+			return image;
+		}
+		double min = scanner.getDeltaV(best[0], best[1]);
+		double max = min * COLOUR_RANGE;
+
+		for(int i = 0; i < columns; i++)
+		{
+			for(int j = 0; j < rows; j++)
+			{
+				double deltaV = scanner.getDeltaV(i, j);
+				if(Double.isNaN(deltaV))
+					continue;
+				// With a minimum of zero there is no range, only the free cells are cheap
+				double fraction = max > min ? Math.min(1, (deltaV - min) / (max - min)) : (deltaV > min ? 1 : 0);
+				g.setColor(Color.getHSBColor((float) (0.66 * (1 - fraction)), 0.9f, 0.9f));
+				int x = i * cellSize;
+				int y = (rows - 1 - j) * cellSize;						// Longest flights at the top
+				g.fillRect(x, y, cellSize, cellSize);
+
+				if(isContour(scanner, i, j, contourInterval))
+				{
+					g.setColor(Color.DARK_GRAY);
+					g.fillRect(x, y, Math.max(1, cellSize / 3), Math.max(1, cellSize / 3));
+				}
+			}
+		}
+		g.setColor(Color.WHITE);
+		g.drawRect(best[0] * cellSize - 1, (rows - 1 - best[1]) * cellSize - 1, cellSize + 1, cellSize + 1);
+		g.dispose();
+		return image;
+	}
+
+	/*
+	 * A cell lies on a contour when a neighbour falls in a different delta-v band
+	 */
+	private static boolean isContour(LaunchWindowScanner scanner, int i, int j, double interval)
+	{
+		long band = (long) Math.floor(scanner.getDeltaV(i, j) / interval);
+		if(i + 1 < scanner.getNoOfDepartures() && differentBand(scanner.getDeltaV(i + 1, j), band, interval))
+			return true;
+		return j + 1 < scanner.getNoOfFlights() && differentBand(scanner.getDeltaV(i, j + 1), band, interval);
+	}
+
+	private static boolean differentBand(double deltaV, long band, double interval)
+	{
+		return !Double.isNaN(deltaV) && (long) Math.floor(deltaV / interval) != band;
+	}
+}
@@ -63,7 +63,8 @@ public class Visualiser extends JFrame implements MouseMotionListener, ActionLis
 	
 	public void update()
 	{
-		canvas.repaint();
+		if(canvas != null)
+			canvas.repaint();
 	}
 		
 	public void addUniverse(Universe universe)
@@ -83,10 +84,10 @@ public class Visualiser extends JFrame implements MouseMotionListener, ActionLis
 		rLayout.setVgap(5);
 		rPanel.setLayout(rLayout);
 		rPanel.setBackground(Color.BLACK);
-		planetBtn = new PlanetButton[universe.U.length];
+		planetBtn = new PlanetButton[universe.getNoOfBodies()];
 		for(int i = 0; i < 11; i++)
 		{
-			Icon btnIcon = ResourceLoader.getIcon(universe.U[i][0].icon);
+			Icon btnIcon = ResourceLoader.getIcon(universe.getBody(i, 0).icon);
 			planetBtn[i] = new PlanetButton(btnIcon, i);
 			planetBtn[i].addActionListener(this);
 			rPanel.add(planetBtn[i]);
@@ -104,7 +105,7 @@ public class Visualiser extends JFrame implements MouseMotionListener, ActionLis
 		revBtn.addActionListener(e -> playRev());
 
 		// Create time slider
-		timeSlider = new JSlider(0, universe.U[0].length);
+		timeSlider = new JSlider(0, universe.getNoOfTimeSteps());
 		timeSlider.setBorder(BorderFactory.createEmptyBorder());
 		timeSlider.setBackground(Color.BLACK);
 		timeSlider.setValue(0);
@@ -131,6 +132,7 @@ public class Visualiser extends JFrame implements MouseMotionListener, ActionLis
 
 		this.add(canvas, BorderLayout.CENTER);
 		setVisible(true);
+		universe.getTrajectoryRegistry().setRepaintListener(this::update);
 		
 		// Set timing interval
 		ActionListener timeEvent = new ActionListener() 
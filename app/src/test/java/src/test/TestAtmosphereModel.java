@@ -0,0 +1,91 @@
+package src.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import src.land.AtmosphereModel;
+import src.land.LandingStatistics;
+import src.land.LinearAtmosphere;
+import src.land.MonteCarloLanding;
+import src.land.TabulatedAtmosphere;
+
+class TestAtmosphereModel
+{
+	@Test void testLinearAtmosphere()
+	{
+		LinearAtmosphere atmosphere = new LinearAtmosphere();
+		assertEquals(1.5, atmosphere.pressure(0));
+		assertEquals(1.5, atmosphere.pressure(-10));
+		assertEquals(0.75, atmosphere.pressure(300000), 1e-12);
+		assertEquals(0, atmosphere.pressure(700000));
+	}
+
+	@Test void testTitanTable()
+	{
+		TabulatedAtmosphere titan = TabulatedAtmosphere.titan();
+		assertSame(titan, TabulatedAtmosphere.titan());
+		assertEquals(0, titan.getBottom());
+		assertEquals(600e3, titan.getTop());
+
+		// Huygens measured 1467 mbar and 93.6 K on the ground, about 5.4 kg/m^3
+		assertEquals(1.467, titan.pressure(0), 1e-9);
+		assertEquals(93.6, titan.temperature(0), 1e-9);
+		assertEquals(5.2, titan.density(0), 0.2);
+		assertEquals(70.4, titan.temperature(44e3), 1e-9);
+		assertEquals(0, titan.pressure(601e3));
+
+		double previous = Double.POSITIVE_INFINITY;
+		for(double height = 0; height < 600e3; height += 777)
+		{
+			assertTrue(titan.pressure(height) < previous);
+			previous = titan.pressure(height);
+		}
+	}
+
+	@Test void testInterpolation()
+	{
+		// An exponential atmosphere given every 50 km comes back between the rows from the 1 km grid
+		double[] heights = new double[13];
+		double[] temperatures = new double[13];
+		double[] pressures = new double[13];
+		for(int i = 0; i < heights.length; i++)
+		{
+			heights[i] = i * 50e3;
+			temperatures[i] = 90;
+			pressures[i] = Math.exp(-heights[i] / 20e3);
+		}
+		TabulatedAtmosphere atmosphere = new TabulatedAtmosphere(heights, temperatures, pressures);
+		for(double height = 0; height < 600e3; height += 1234.5)
+		{
+			double exact = Math.exp(-height / 20e3);
+			assertEquals(exact, atmosphere.pressure(height), exact * 1e-3);
+		}
+
+		assertThrows(IllegalArgumentException.class, () -> new TabulatedAtmosphere(new double[] {0, 0}, new double[] {90, 90}, new double[] {1, 0.5}));
+		assertThrows(IllegalArgumentException.class, () -> new TabulatedAtmosphere(new double[] {0, 1}, new double[] {90, 90}, new double[] {1, 0}));
+	}
+
+	@Test void testPerturbation()
+	{
+		TabulatedAtmosphere titan = TabulatedAtmosphere.titan();
+		AtmosphereModel first = titan.perturbed(new SplittableRandom(5), 0.1);
+		AtmosphereModel second = titan.perturbed(new SplittableRandom(5), 0.1);
+		AtmosphereModel unperturbed = titan.perturbed(new SplittableRandom(5), 0);
+		for(double height = 0; height < 600e3; height += 10e3)
+		{
+			assertEquals(first.pressure(height), second.pressure(height));
+			assertEquals(titan.pressure(height), unperturbed.pressure(height), 1e-15);
+			assertEquals(titan.temperature(height), first.temperature(height));
+		}
+		assertNotEquals(titan.pressure(100e3), first.pressure(100e3));
+
+		MonteCarloLanding monteCarlo = new MonteCarloLanding();
+		monteCarlo.setAtmosphere(titan, 0.1);
+		LandingStatistics statistics = monteCarlo.run(8, 3);
+		assertEquals(8, statistics.getLandings());
+		assertTrue(statistics.getDownrange().getStandardDeviation() > 0);
+	}
+}
@@ -0,0 +1,106 @@
+package src.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+import src.conf.EphemerisFileManager;
+import src.conf.SettingsFileManager;
+import src.conf.SimulationSettings;
+import src.peng.Vector3d;
+import src.univ.CelestialBody;
+import src.univ.ChebyshevEphemeris;
+import src.univ.Universe;
+
+class TestChebyshevEphemeris
+{
+	static final double RADIUS = 1.5e11;
+	static final double PERIOD = 3.15576e7;
+	static final double STEP_SIZE = 10000;
+	static final int STEPS = 3000;
+
+	@Test void testSubStepPosition()
+	{
+		ChebyshevEphemeris ephemeris = ChebyshevEphemeris.fit(circularOrbit(), STEP_SIZE, 1, ChebyshevEphemeris.DEFAULT_DEGREE);
+		double step = 1234.5;
+		Vector3d expected = circularPosition(step * STEP_SIZE);
+		assertEquals(0, ephemeris.getPosition(0, step).dist(expected), 10);
+	}
+
+	@Test void testSubStepVelocity()
+	{
+		ChebyshevEphemeris ephemeris = ChebyshevEphemeris.fit(circularOrbit(), STEP_SIZE, 1, ChebyshevEphemeris.DEFAULT_DEGREE);
+		double step = 2500.25;
+		Vector3d expected = circularVelocity(step * STEP_SIZE);
+		assertEquals(0, ephemeris.getVelocity(0, step).dist(expected), 1e-3);
+	}
+
+	@Test void testCompression()
+	{
+		ChebyshevEphemeris ephemeris = ChebyshevEphemeris.fit(circularOrbit(), STEP_SIZE, 1, ChebyshevEphemeris.DEFAULT_DEGREE);
+		int rawValues = (STEPS + 1) * 6;
+		assertTrue(ephemeris.getCoefficientCount() * 10 < rawValues);
+	}
+
+	@Test void testWriteAndRead() throws IOException
+	{
+		ChebyshevEphemeris ephemeris = ChebyshevEphemeris.fit(circularOrbit(), STEP_SIZE);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		EphemerisFileManager.write(new DataOutputStream(bytes), ephemeris);
+		ChebyshevEphemeris copy = EphemerisFileManager.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+		assertEquals(ephemeris.getPosition(0, 777.7), copy.getPosition(0, 777.7));
+		assertEquals(ephemeris.getStartTime(), copy.getStartTime());
+		assertEquals("test", copy.getCelestialBody(0, 10).name);
+	}
+
+	@Test void testUniverseWithinTolerance() throws IOException
+	{
+		SimulationSettings settings = SettingsFileManager.load();
+		settings.noOfSteps = 500;
+		Universe universe = new Universe(settings);
+		double tolerance = 100;
+		ChebyshevEphemeris ephemeris = ChebyshevEphemeris.fit(universe.U, settings.stepSize, tolerance, ChebyshevEphemeris.DEFAULT_DEGREE);
+
+		for(int i = 0; i < universe.U.length; i++)
+		{
+			for(int j = 0; j < universe.U[i].length; j += 7)
+			{
+				double error = ephemeris.getCelestialBody(i, j).location.dist(universe.U[i][j].location);
+				assertTrue(error <= tolerance, universe.U[i][0].name + " step " + j + " error " + error);
+			}
+		}
+	}
+
+	private CelestialBody[][] circularOrbit()
+	{
+		LocalDateTime start = LocalDateTime.of(2020, 4, 1, 0, 0);
+		CelestialBody[][] U = new CelestialBody[1][STEPS + 1];
+		for(int i = 0; i <= STEPS; i++)
+		{
+			double t = i * STEP_SIZE;
+			U[0][i] = new CelestialBody(circularPosition(t), circularVelocity(t), 1, 1, "test", null, null, start.plusSeconds((long) t));
+		}
+		return U;
+	}
+
+	private Vector3d circularPosition(double t)
+	{
+		double angle = 2 * Math.PI * t / PERIOD;
+		return new Vector3d(RADIUS * Math.cos(angle), RADIUS * Math.sin(angle), 0);
+	}
+
+	private Vector3d circularVelocity(double t)
+	{
+		double angle = 2 * Math.PI * t / PERIOD;
+		double speed = 2 * Math.PI * RADIUS / PERIOD;
+		return new Vector3d(-speed * Math.sin(angle), speed * Math.cos(angle), 0);
+	}
+}
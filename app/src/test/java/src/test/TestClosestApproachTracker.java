@@ -0,0 +1,87 @@
+package src.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+import src.conf.SettingsFileManager;
+import src.conf.SimulationSettings;
+import src.peng.Vector3d;
+import src.traj.ClosestApproachTracker;
+import src.traj.ProbePropagator;
+import src.univ.CelestialBody;
+import src.univ.Universe;
+
+class TestClosestApproachTracker
+{
+	private static final Vector3d ORIGIN = new Vector3d(0, 0, 0);
+
+	@Test void testClosestApproachBetweenSteps()
+	{
+		// Straight flyby 500 m from a body at rest, closest at t = 1000 s, sampled every 300 s
+		ClosestApproachTracker tracker = new ClosestApproachTracker(0);
+		Vector3d velocity = new Vector3d(1000, 0, 0);
+		for(int t = 0; t <= 3000; t += 300)
+		{
+			tracker.observe(t, new Vector3d(-1e6 + 1000 * t, 500, 0), velocity, ORIGIN, ORIGIN);
+		}
+		assertEquals(500, tracker.getDistance(), 1e-6);
+		assertEquals(1000, tracker.getTime(), 1e-3);
+		assertEquals(0, tracker.getPoint().dist(new Vector3d(0, 500, 0)), 1e-3);
+	}
+
+	@Test void testMovingTarget()
+	{
+		// Both move, the relative motion is the same flyby as above
+		ClosestApproachTracker tracker = new ClosestApproachTracker(0);
+		Vector3d targetVelocity = new Vector3d(-300, 200, 50);
+		for(int t = 0; t <= 3000; t += 300)
+		{
+			Vector3d targetPosition = targetVelocity.mul(t);
+			Vector3d probePosition = targetPosition.add(new Vector3d(-1e6 + 1000 * t, 500, 0));
+			tracker.observe(t, probePosition, targetVelocity.add(new Vector3d(1000, 0, 0)), targetPosition, targetVelocity);
+		}
+		assertEquals(500, tracker.getDistance(), 1e-6);
+		assertEquals(1000, tracker.getTime(), 1e-3);
+	}
+
+	@Test void testReceding()
+	{
+		ClosestApproachTracker tracker = new ClosestApproachTracker(0, 2);
+		Vector3d velocity = new Vector3d(1000, 0, 0);
+		int t = 0;
+		while(!tracker.isReceding())
+		{
+			tracker.observe(t, new Vector3d(-5000 + 1000 * t, 500, 0), velocity, ORIGIN, ORIGIN);
+			t++;
+		}
+		// Past the flyby and further than twice the closest approach
+		assertTrue(t > 5);
+		assertTrue(new Vector3d(-5000 + 1000 * (t - 1), 500, 0).norm() > 1000);
+		assertFalse(new ClosestApproachTracker(0).isReceding());
+		assertThrows(IllegalArgumentException.class, () -> new ClosestApproachTracker(0, 0.5));
+	}
+
+	@Test void testPropagationStopsWhenReceding() throws IOException
+	{
+		SimulationSettings settings = SettingsFileManager.load();
+		settings.noOfSteps = 200;
+		Universe universe = new Universe(settings);
+		ProbePropagator propagator = new ProbePropagator(universe, settings.stepSize);
+
+		// Leaving the earth from well outside its gravity well, the closest approach is the start
+		CelestialBody earth = universe.getBody(3, 0);
+		Vector3d launchPoint = earth.location.add(new Vector3d(1e9, 0, 0));
+		Vector3d velocity = earth.velocity.add(new Vector3d(15000, 0, 0));
+		Vector3d[] trajectory = new Vector3d[201];
+		ClosestApproachTracker tracker = new ClosestApproachTracker(3, 2);
+		propagator.propagate(0, 200, launchPoint, velocity, trajectory, tracker);
+
+		assertTrue(tracker.isReceding());
+		assertTrue(tracker.getSamples() < 200);
+		assertNull(trajectory[200]);
+		assertEquals(1e9, tracker.getDistance(), 1);
+	}
+}
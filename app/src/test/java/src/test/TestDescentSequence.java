@@ -0,0 +1,94 @@
+package src.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import src.land.DescentSequence;
+import src.land.DescentSequence.Phase;
+import src.land.LanderBody;
+import src.land.LanderEvent;
+import src.land.LanderPropagator;
+import src.land.LanderState;
+import src.land.MonteCarloLanding;
+import src.land.PidLandingController;
+
+class TestDescentSequence
+{
+	private static final double TITAN_MASS = MonteCarloLanding.TITAN_MASS;
+	private static final double TITAN_RADIUS = MonteCarloLanding.TITAN_RADIUS;
+	private static final LanderBody LANDER = new LanderBody(6e3, 4e3, 30e3, 200);
+
+	@Test void testEventsAtTheirHeights()
+	{
+		// Even with 10 s steps every phase starts where it should
+		DescentSequence sequence = new DescentSequence();
+		LanderPropagator propagator = new LanderPropagator(TITAN_MASS, TITAN_RADIUS, 10);
+		assertTrue(propagator.propagate(entry(), sequence, null, null, 0));
+
+		assertEquals(Phase.JETTISONED, sequence.getPhase());
+		assertEquals(DescentSequence.DEFAULT_DROGUE_HEIGHT, sequence.getPhaseHeight(Phase.DROGUE), 1e-3);
+		assertEquals(DescentSequence.DEFAULT_MAIN_HEIGHT, sequence.getPhaseHeight(Phase.MAIN), 1e-3);
+		double jettison = sequence.getPhaseTime(Phase.MAIN) + DescentSequence.DEFAULT_JETTISON_DELAY;
+		assertEquals(jettison, sequence.getPhaseTime(Phase.JETTISONED), 2 * LanderPropagator.EVENT_TOLERANCE);
+		assertTrue(sequence.getPhaseTime(Phase.DROGUE) < sequence.getPhaseTime(Phase.MAIN));
+		assertTrue(Double.isNaN(sequence.getPhaseTime(Phase.POWERED)));
+		assertEquals(0, sequence.getPhaseTime(Phase.ENTRY));
+	}
+
+	@Test void testParachutesOpenOverTheirFillTimes()
+	{
+		DescentSequence sequence = new DescentSequence();
+		LanderPropagator propagator = new LanderPropagator(TITAN_MASS, TITAN_RADIUS, 1);
+		propagator.propagate(new LanderState(TITAN_RADIUS + 25e3, 0, 0, 0), sequence, null, null, 0);
+
+		// Opened from the moment of the event, not from a step
+		double main = sequence.getPhaseTime(Phase.MAIN);
+		assertNotEquals(Math.rint(main), main);
+		double lander = 3.822;
+		double fill = DescentSequence.DEFAULT_MAIN_FILL_TIME;
+		assertEquals(lander + DescentSequence.DEFAULT_MAIN_AREA, sequence.getArea(main + fill), 1e-9);
+		assertEquals(lander + DescentSequence.DEFAULT_MAIN_AREA / 4, sequence.getArea(main + fill / 4), 1e-9);
+		assertEquals(lander, sequence.getArea(main - 1), 1e-9);
+		assertTrue(propagator.getTouchdownVelocity().norm() < 5);
+	}
+
+	@Test void testPoweredDescent()
+	{
+		DescentSequence sequence = new DescentSequence();
+		sequence.setPoweredDescent(PidLandingController.DEFAULT_IGNITION_HEIGHT, new PidLandingController(LANDER, TITAN_MASS, PidLandingController.defaultGains()));
+		LanderPropagator propagator = new LanderPropagator(TITAN_MASS, TITAN_RADIUS, 0.1);
+		assertTrue(propagator.propagate(entry(), sequence, LANDER, null, 0));
+
+		assertEquals(Phase.POWERED, sequence.getPhase());
+		assertEquals(PidLandingController.DEFAULT_IGNITION_HEIGHT, sequence.getPhaseHeight(Phase.POWERED), 1e-3);
+		assertTrue(propagator.getTouchdownVelocity().norm() < 2, propagator.getTouchdownVelocity().toString());
+		assertTrue(propagator.getControllerDeltaV() > 0);
+	}
+
+	@Test void testPassedEventsStartAtOnce()
+	{
+		// Below the drogue and main heights both open at the start, the drogue released straight away
+		DescentSequence sequence = new DescentSequence();
+		sequence.setHeatShield(0, 1000);
+		LanderPropagator propagator = new LanderPropagator(TITAN_MASS, TITAN_RADIUS, 1);
+		propagator.propagate(new LanderState(TITAN_RADIUS + 3000, 0, 0, 0), sequence, null, null, 0);
+		assertEquals(0, sequence.getPhaseTime(Phase.DROGUE));
+		assertEquals(0, sequence.getPhaseTime(Phase.MAIN));
+		assertEquals(3000, sequence.getPhaseHeight(Phase.MAIN), 1e-9);
+		assertEquals(Phase.MAIN, sequence.getPhase());
+
+		LanderEvent stuck = new LanderEvent()
+		{
+			public double eventFunction(LanderState state, double planetRadius)	{return -1;}
+			public void eventOccurred(LanderState state, double planetRadius)	{}
+		};
+		assertThrows(IllegalStateException.class, () -> propagator.propagate(new LanderState(TITAN_RADIUS + 3000, 0, 0, 0), null, null, null, stuck, null, 0));
+		assertThrows(IllegalArgumentException.class, () -> sequence.setMain(5000, -1, 20));
+	}
+
+	private static LanderState entry()
+	{
+		return new LanderState(TITAN_RADIUS + 600e3, 0, 0, 1200);
+	}
+}
@@ -0,0 +1,104 @@
+package src.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import src.land.Disturbance;
+import src.land.GustyWind;
+import src.land.LanderPropagator;
+import src.land.LanderState;
+import src.land.LandingStatistics;
+import src.land.MonteCarloLanding;
+import src.land.OpenLoopController;
+import src.land.RunningStatistics;
+import src.land.WindProfile;
+import src.peng.Vector3d;
+
+class TestDisturbance
+{
+	private static final double TITAN_MASS = MonteCarloLanding.TITAN_MASS;
+	private static final double TITAN_RADIUS = MonteCarloLanding.TITAN_RADIUS;
+
+	@Test void testTitanWindProfile()
+	{
+		WindProfile titan = WindProfile.titan();
+		assertEquals(0.3, titan.windAt(0), 1e-12);
+		assertEquals(0.3, titan.windAt(-5), 1e-12);
+		assertEquals(35, titan.windAt(45e3), 1e-12);
+		assertEquals(110, titan.windAt(500e3), 1e-12);
+		assertEquals(0.5 * (4 + 8), titan.windAt(12.5e3), 1e-12);
+
+		Disturbance sample = titan.sample(new SplittableRandom(1));
+		sample.update(45e3, 1);
+		assertEquals(35, sample.getHorizontalWind(), 1e-12);
+		assertEquals(0, sample.getVerticalWind());
+	}
+
+	@Test void testGustStatistics()
+	{
+		// Gusts keep their standard deviation and forget themselves over the time constant
+		GustyWind gusts = new GustyWind(Disturbance.NONE, 3, 1, 10);
+		Disturbance sample = gusts.sample(new SplittableRandom(9));
+		RunningStatistics horizontal = new RunningStatistics();
+		RunningStatistics vertical = new RunningStatistics();
+		double[] history = new double[300000];
+		for(int i = 0; i < history.length; i++)
+		{
+			sample.update(1000, 1);
+			history[i] = sample.getHorizontalWind();
+			horizontal.add(history[i]);
+			vertical.add(sample.getVerticalWind());
+		}
+		assertEquals(0, horizontal.getMean(), 0.2);
+		assertEquals(3, horizontal.getStandardDeviation(), 0.1);
+		assertEquals(1, vertical.getStandardDeviation(), 0.05);
+
+		double lagged = 0;
+		for(int i = 10; i < history.length; i++)
+			lagged += history[i] * history[i - 10];
+		double autocorrelation = lagged / (history.length - 10) / horizontal.getVariance();
+		assertEquals(Math.exp(-1), autocorrelation, 0.05);
+
+		assertThrows(IllegalStateException.class, () -> gusts.update(0, 1));
+		assertEquals(10, GustyWind.dryden(Disturbance.NONE, 1, 1, 500, 50).getTimeConstant(), 1e-12);
+	}
+
+	@Test void testWindCarriesTheLander()
+	{
+		// A steady wind blowing anticlockwise drifts the lander that way, in both simulations
+		WindProfile wind = new WindProfile(new double[] {0, 600e3}, new double[] {20, 20});
+		Vector3d position = new Vector3d(TITAN_RADIUS + 10e3, 0, 0);
+		Vector3d velocity = new Vector3d(0, 0, 0);
+
+		LanderPropagator calm = new LanderPropagator(TITAN_MASS, TITAN_RADIUS, 1);
+		calm.propagate(new LanderState(position, velocity), new OpenLoopController(5000, 1000));
+		LanderPropagator windy = new LanderPropagator(TITAN_MASS, TITAN_RADIUS, 1);
+		windy.setWind(wind.sample(new SplittableRandom(0)));
+		windy.propagate(new LanderState(position, velocity), new OpenLoopController(5000, 1000));
+		assertEquals(0, calm.getTouchdownPosition().getY(), 1e-6);
+		assertTrue(windy.getTouchdownPosition().getY() > 1000);
+
+		OpenLoopController controller = new OpenLoopController(5000, 1000);
+		controller.setRecording(false);
+		controller.setDisturbance(wind.sample(new SplittableRandom(0)));
+		controller.plotTrajectory(position, velocity, 6e3, new Vector3d(), new Vector3d(), TITAN_MASS, TITAN_RADIUS);
+		assertEquals(windy.getTouchdownPosition().getY(), controller.getTouchdownPosition().getY(), 10);
+	}
+
+	@Test void testGustsDisperseTheLandings()
+	{
+		MonteCarloLanding monteCarlo = new MonteCarloLanding();
+		monteCarlo.setEntry(new Vector3d(TITAN_RADIUS + 600e3, 0, 0), new Vector3d(0, 1200, 0), 0, 0);
+		monteCarlo.setAtmosphere(0);
+		monteCarlo.setParachute(5000, 0, 1000, 0);
+		monteCarlo.setWind(new GustyWind(WindProfile.titan(), 2, 0.5, 20));
+		LandingStatistics first = monteCarlo.run(4, 1);
+		LandingStatistics second = monteCarlo.run(4, 1, false);
+
+		assertTrue(first.getDownrange().getStandardDeviation() > 1);
+		assertEquals(first.getDownrange().getMean(), second.getDownrange().getMean(), 1e-9);
+	}
+}
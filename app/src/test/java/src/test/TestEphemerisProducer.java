@@ -0,0 +1,78 @@
+package src.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+import src.conf.SettingsFileManager;
+import src.conf.SimulationSettings;
+import src.univ.Universe;
+
+class TestEphemerisProducer
+{
+	@Test void testMatchesEagerUniverse() throws IOException
+	{
+		SimulationSettings settings = generateSettings(400);
+		Universe eager = new Universe(settings);
+		Universe background = Universe.startInBackground(settings, 16);
+
+		for(int step = 400; step >= 0; step -= 37)		// Read backwards so the first read has to wait
+		{
+			for(int i = 0; i < eager.getNoOfBodies(); i++)
+			{
+				assertEquals(eager.U[i][step].location, background.getBody(i, step).location);
+			}
+		}
+	}
+
+	@Test void testAwaitCompletion() throws IOException
+	{
+		Universe background = Universe.startInBackground(generateSettings(300), 50);
+		background.awaitCompletion();
+		assertTrue(background.isAvailable(300));
+		assertFalse(background.isBeingProduced(300));
+		assertEquals(301, background.getNoOfTimeSteps());
+		assertNotNull(background.U[10][300]);
+	}
+
+	@Test void testConcurrentReaders() throws Exception
+	{
+		SimulationSettings settings = generateSettings(300);
+		Universe eager = new Universe(settings);
+		Universe background = Universe.startInBackground(settings, 10);
+		boolean[] matches = new boolean[4];
+
+		Thread[] readers = new Thread[matches.length];
+		for(int r = 0; r < readers.length; r++)
+		{
+			int reader = r;
+			readers[r] = new Thread(() ->
+			{
+				boolean same = true;
+				for(int step = reader; step <= 300; step += readers.length)
+				{
+					same &= eager.U[8][step].location.equals(background.getBody(8, step).location);
+				}
+				matches[reader] = same;
+			});
+			readers[r].start();
+		}
+		for(Thread each: readers)
+		{
+			each.join();
+		}
+		for(boolean each: matches)
+		{
+			assertTrue(each);
+		}
+	}
+
+	private SimulationSettings generateSettings(int noOfSteps) throws IOException
+	{
+		SimulationSettings settings = SettingsFileManager.load();
+		settings.noOfSteps = noOfSteps;
+		return settings;
+	}
+}
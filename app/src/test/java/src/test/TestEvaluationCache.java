@@ -0,0 +1,100 @@
+package src.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import src.conf.SettingsFileManager;
+import src.conf.SimulationSettings;
+import src.peng.Vector3d;
+import src.traj.EvaluationCache;
+import src.traj.NewtonRaphson;
+import src.traj.TrajectoryPlanner;
+import src.univ.Universe;
+
+class TestEvaluationCache
+{
+	private static final Vector3d POSITION = new Vector3d(1.5e11, -2e10, 3e8);
+	private static final Vector3d VELOCITY = new Vector3d(3e4, 1e3, -10);
+
+	@Test void testRepeatedRouteIsNotEvaluatedAgain()
+	{
+		EvaluationCache<Double> cache = new EvaluationCache<Double>();
+		AtomicInteger evaluations = new AtomicInteger();
+
+		double first = cache.get(POSITION, VELOCITY, 0, 100, 10000, () -> (double) evaluations.incrementAndGet());
+		double second = cache.get(POSITION, VELOCITY.copyOf(), 0, 100, 10000, () -> (double) evaluations.incrementAndGet());
+
+		assertEquals(1, evaluations.get());
+		assertEquals(first, second);
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		assertEquals(0.5, cache.getHitRate());
+	}
+
+	@Test void testEveryKeyComponentCounts()
+	{
+		EvaluationCache<Integer> cache = new EvaluationCache<Integer>();
+		cache.get(POSITION, VELOCITY, 0, 100, 10000, () -> 0);
+		cache.get(POSITION.add(new Vector3d(1, 0, 0)), VELOCITY, 0, 100, 10000, () -> 1);
+		cache.get(POSITION, VELOCITY.add(new Vector3d(0, 0, 1e-3)), 0, 100, 10000, () -> 2);
+		cache.get(POSITION, VELOCITY, 1, 100, 10000, () -> 3);
+		cache.get(POSITION, VELOCITY, 0, 101, 10000, () -> 4);
+		cache.get(POSITION, VELOCITY, 0, 100, 5000, () -> 5);
+
+		assertEquals(0, cache.getHits());
+		assertEquals(6, cache.size());
+	}
+
+	@Test void testQuantisation()
+	{
+		EvaluationCache<Integer> cache = new EvaluationCache<Integer>(16, 1, 0.01);
+		cache.get(POSITION, VELOCITY, 0, 100, 10000, () -> 1);
+		int value = cache.get(POSITION.add(new Vector3d(0.2, 0, 0)), VELOCITY.add(new Vector3d(0.001, 0, 0)), 0, 100, 10000, () -> 2);
+
+		assertEquals(1, value);
+		assertEquals(1, cache.getHits());
+	}
+
+	@Test void testLeastRecentlyUsedIsEvicted()
+	{
+		EvaluationCache<Integer> cache = new EvaluationCache<Integer>(2);
+		cache.get(POSITION, VELOCITY, 0, 1, 1, () -> 1);
+		cache.get(POSITION, VELOCITY, 0, 2, 1, () -> 2);
+		cache.get(POSITION, VELOCITY, 0, 1, 1, () -> -1);			// Touch the first entry
+		cache.get(POSITION, VELOCITY, 0, 3, 1, () -> 3);			// Evicts the second
+
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getEvictions());
+		assertEquals(1, (int) cache.get(POSITION, VELOCITY, 0, 1, 1, () -> -1));
+		assertEquals(-2, (int) cache.get(POSITION, VELOCITY, 0, 2, 1, () -> -2));
+	}
+
+	@Test void testInvalidCapacity()
+	{
+		assertThrows(IllegalArgumentException.class, () -> new EvaluationCache<Integer>(0));
+		assertThrows(IllegalArgumentException.class, () -> new EvaluationCache<Integer>(1, 0, 1));
+	}
+
+	@Test void testNewtonRaphsonReusesRoutes() throws IOException
+	{
+		SimulationSettings settings = SettingsFileManager.load();
+		settings.noOfSteps = 3800;
+		Universe universe = new Universe(settings);
+
+		NewtonRaphson nr = new NewtonRaphson(universe, 3, 8, TrajectoryPlanner.createRouteToTitanSettings(settings));
+		nr.visualizerOff();
+		Vector3d velocity = nr.newtonRaphsonIterativeMethod();
+		Vector3d velocityAtTarget = nr.getVelocityAtTarget();
+		Vector3d[] route = nr.planRoute(velocity);
+
+		// Every Jacobian re-plans the same perturbed velocity for each row, and the final plan repeats the last iteration
+		EvaluationCache<?> cache = nr.getRouteCache();
+		assertTrue(cache.getHits() >= 6 * (nr.getIteration() - 1) + 1, "Hits: " + cache.getHits());
+		assertEquals(velocityAtTarget, nr.getVelocityAtTarget());
+		assertEquals(route[route.length - 1], nr.planRoute(velocity)[route.length - 1]);
+	}
+}
@@ -0,0 +1,112 @@
+package src.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+import src.conf.SettingsFileManager;
+import src.conf.SimulationSettings;
+import src.peng.Vector3d;
+import src.traj.LambertSolver;
+import src.traj.NewtonRaphson;
+import src.traj.TrajectoryPlanner;
+import src.univ.Universe;
+
+class TestLambertSolver
+{
+	private static final double MU_EARTH = 3.986e14;
+	private static final double MU_SUN = 1.32712e20;
+
+	@Test void testCurtisExample()
+	{
+		// Curtis, Orbital Mechanics for Engineering Students, example 5.2
+		Vector3d r1 = new Vector3d(5000e3, 10000e3, 2100e3);
+		Vector3d r2 = new Vector3d(-14600e3, 2500e3, 7000e3);
+		LambertSolver solver = new LambertSolver(r1, r2, 3600, MU_EARTH, true);
+
+		assertEquals(-5992.5, solver.getDepartureVelocity().getX(), 1);
+		assertEquals(1925.4, solver.getDepartureVelocity().getY(), 1);
+		assertEquals(3245.6, solver.getDepartureVelocity().getZ(), 1);
+		assertEquals(-3312.5, solver.getArrivalVelocity().getX(), 1);
+		assertEquals(-4196.6, solver.getArrivalVelocity().getY(), 1);
+		assertEquals(-385.29, solver.getArrivalVelocity().getZ(), 1);
+		assertTrue(solver.getZ() > 0);
+	}
+
+	@Test void testTransferReachesTarget()
+	{
+		// Earth-like departure to a Saturn-like arrival, long way round and hyperbolic short hop
+		Vector3d r1 = new Vector3d(-1.47e11, -2.86e10, 0);
+		Vector3d r2 = new Vector3d(6.33e11, -1.36e12, 1e9);
+		double[] timesOfFlight = {3.78e7, 1.5e8, 5e6};
+		for(double tof: timesOfFlight)
+		{
+			LambertSolver solver = new LambertSolver(r1, r2, tof, MU_SUN, true);
+			Vector3d arrival = propagate(r1, solver.getDepartureVelocity(), tof, 20000);
+			assertTrue(arrival.dist(r2) < 1e-6 * r2.norm(), "Time of flight " + tof + " missed by " + arrival.dist(r2));
+		}
+	}
+
+	@Test void testDegenerateTransfer()
+	{
+		Vector3d r1 = new Vector3d(1e11, 0, 0);
+		assertThrows(IllegalArgumentException.class, () -> new LambertSolver(r1, r1.mul(-2), 1e7, MU_SUN, true));
+		assertThrows(IllegalArgumentException.class, () -> new LambertSolver(r1, new Vector3d(0, 1e11, 0), -1, MU_SUN, true));
+	}
+
+	@Test void testSeededNewtonRaphson() throws IOException
+	{
+		SimulationSettings settings = SettingsFileManager.load();
+		settings.noOfSteps = 3800;
+		Universe universe = new Universe(settings);
+
+		NewtonRaphson seeded = new NewtonRaphson(universe, 3, 8, TrajectoryPlanner.createRouteToTitanSettings(settings));
+		seeded.visualizerOff();
+		seeded.newtonRaphsonIterativeMethod();
+
+		NewtonRaphson fixed = new NewtonRaphson(universe, 3, 8, TrajectoryPlanner.createRouteToTitanSettings(settings), new Vector3d(0,0,0));
+		fixed.newtonRaphsonIterativeMethod();
+
+		assertTrue(seeded.getIteration() < fixed.getIteration());
+	}
+
+	/*
+	 * Two-body RK4 reference propagation
+	 */
+	private static Vector3d propagate(Vector3d position, Vector3d velocity, double time, int steps)
+	{
+		double h = time / steps;
+		double[] s = {position.getX(), position.getY(), position.getZ(), velocity.getX(), velocity.getY(), velocity.getZ()};
+		for(int i = 0; i < steps; i++)
+		{
+			double[] k1 = derivative(s);
+			double[] k2 = derivative(add(s, k1, h / 2));
+			double[] k3 = derivative(add(s, k2, h / 2));
+			double[] k4 = derivative(add(s, k3, h));
+			for(int j = 0; j < 6; j++)
+			{
+				s[j] += h / 6 * (k1[j] + 2 * k2[j] + 2 * k3[j] + k4[j]);
+			}
+		}
+		return new Vector3d(s[0], s[1], s[2]);
+	}
+
+	private static double[] derivative(double[] s)
+	{
+		double r = Math.sqrt(s[0]*s[0] + s[1]*s[1] + s[2]*s[2]);
+		double k = -MU_SUN / (r * r * r);
+		return new double[] {s[3], s[4], s[5], k * s[0], k * s[1], k * s[2]};
+	}
+
+	private static double[] add(double[] s, double[] k, double h)
+	{
+		double[] result = new double[6];
+		for(int j = 0; j < 6; j++)
+		{
+			result[j] = s[j] + h * k[j];
+		}
+		return result;
+	}
+}
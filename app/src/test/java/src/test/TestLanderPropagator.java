@@ -0,0 +1,130 @@
+package src.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import src.land.Disturbance;
+import src.land.LanderBody;
+import src.land.LanderObject;
+import src.land.LanderPropagator;
+import src.land.LanderState;
+import src.land.LinearAtmosphere;
+import src.land.OpenLoopController;
+import src.peng.NewtonGravityFunction;
+import src.peng.Vector3d;
+
+class TestLanderPropagator
+{
+	private static final double TITAN_MASS = 1.34553e23;
+	private static final double TITAN_RADIUS = 2575.5e3;
+	private static final Vector3d ORIGIN = new Vector3d(0, 0, 0);
+	private static final LanderBody LANDER = new LanderBody(6e3, 4e3, 30e3, 200);
+
+	@Test void testMatchesLandingController()
+	{
+		Vector3d position = new Vector3d(TITAN_RADIUS + 600e3, 0, 0);
+		Vector3d velocity = new Vector3d(0, 1200, 0);
+
+		OpenLoopController reference = new OpenLoopController(5000, 1000);
+		reference.setRecording(false);
+		reference.plotTrajectory(position, velocity, 6e3, ORIGIN, ORIGIN, TITAN_MASS, TITAN_RADIUS);
+
+		LanderPropagator propagator = new LanderPropagator(TITAN_MASS, TITAN_RADIUS, 1);
+		OpenLoopController control = new OpenLoopController(5000, 1000);
+		control.setRecording(false);
+		assertTrue(propagator.propagate(new LanderState(position, velocity), control));
+
+		// The general solver also moves the planet a little, so not to the bit
+		assertEquals(reference.getFlightTime(), propagator.getFlightTime());
+		assertEquals(0, reference.getTouchdownPosition().dist(propagator.getTouchdownPosition()), 10);
+		assertEquals(reference.getTouchdownVelocity().norm(), propagator.getTouchdownVelocity().norm(), 0.1);
+		assertEquals(reference.getPeakDeceleration(), propagator.getPeakDeceleration(), 1e-3);
+	}
+
+	@Test void testSampling()
+	{
+		LanderPropagator propagator = new LanderPropagator(TITAN_MASS, TITAN_RADIUS, 1);
+		LanderState state = new LanderState(TITAN_RADIUS + 10e3, 0, 0, 0);
+		ArrayList<LanderObject> everyStep = new ArrayList<LanderObject>();
+		propagator.propagate(state, null, everyStep, 1);
+		assertEquals((int) state.time, everyStep.size());
+		assertTrue(state.height(TITAN_RADIUS) <= 0);
+
+		ArrayList<LanderObject> sparse = new ArrayList<LanderObject>();
+		propagator.propagate(new LanderState(TITAN_RADIUS + 10e3, 0, 0, 0), null, sparse, 10);
+		assertEquals(everyStep.size() / 10 + (everyStep.size() % 10 == 0 ? 0 : 1), sparse.size());
+		assertEquals(everyStep.get(everyStep.size() - 1).getPosition(), sparse.get(sparse.size() - 1).getPosition());
+
+		assertThrows(IllegalArgumentException.class, () -> propagator.propagate(state, null, sparse, 0));
+	}
+
+	@Test void testHover()
+	{
+		// Upright in a vacuum with the engine just holding the weight
+		LanderPropagator propagator = new LanderPropagator(TITAN_MASS, TITAN_RADIUS, 1);
+		propagator.setAtmosphere(new LinearAtmosphere(0));
+		double r = TITAN_RADIUS + 1000;
+		double throttle = NewtonGravityFunction.GRAVITY * TITAN_MASS / (r * r) / LANDER.getMaxAcceleration();
+		LanderState state = new LanderState(0, r, 0, 0);
+		ArrayList<LanderObject> trajectory = new ArrayList<LanderObject>();
+		propagator.propagate(state, LANDER, (lander, radius, step, command) ->
+		{
+			command.throttle = lander.time < 100 ? throttle : 0;
+		}, trajectory, 1);
+
+		assertTrue(propagator.hasLanded());
+		assertEquals(r, trajectory.get(99).getPosition().getY(), 1e-6);
+		assertEquals(0, trajectory.get(99).getAngle());
+		assertEquals(100 * throttle * LANDER.getMaxAcceleration(), propagator.getControllerDeltaV(), 1e-9);
+	}
+
+	@Test void testTurn()
+	{
+		// Side thrusters at full command from rest turn the lander by half the angular acceleration times t^2
+		LanderPropagator propagator = new LanderPropagator(TITAN_MASS, TITAN_RADIUS, 0.5);
+		propagator.setAtmosphere(new LinearAtmosphere(0));
+		LanderState state = new LanderState(TITAN_RADIUS + 10e3, 0, 0, 0);
+		ArrayList<LanderObject> trajectory = new ArrayList<LanderObject>();
+		propagator.propagate(state, LANDER, (lander, radius, step, command) ->
+		{
+			command.torque = lander.time < 10 ? 2 : 0;		// Clamped to full command
+		}, trajectory, 2);
+
+		double angularAcceleration = LANDER.getMaxAngularAcceleration();
+		assertEquals(10 * angularAcceleration, state.angularVelocity, 1e-12);
+		double tilt = 0.5 * angularAcceleration * 5 * 5;
+		assertEquals(Math.toDegrees(tilt), trajectory.get(4).getAngle(), 1e-9);
+		assertEquals(0, propagator.getControllerDeltaV());
+
+		assertThrows(IllegalArgumentException.class, () -> propagator.propagate(state, null, (lander, radius, step, command) -> {}));
+		assertThrows(IllegalArgumentException.class, () -> new LanderBody(0, 1, 1, 1));
+	}
+
+	@Test void testSplitStepsAdvanceOnce()
+	{
+		// The parachute splits a step, the wind and the engine still move on by one step at a time
+		LanderPropagator propagator = new LanderPropagator(TITAN_MASS, TITAN_RADIUS, 1);
+		double[] windTime = {0};
+		propagator.setWind(new Disturbance()
+		{
+			public void update(double height, double stepSize)			{windTime[0] += stepSize;}
+			public double getHorizontalWind()							{return 0;}
+			public double getVerticalWind()								{return 0;}
+			public Disturbance sample(SplittableRandom random)			{return this;}
+		});
+		double[] commandTime = {0};
+		OpenLoopController parachute = new OpenLoopController(5000, 1000);
+		parachute.setRecording(false);
+		LanderState state = new LanderState(TITAN_RADIUS + 10e3, 0, 0, 0);
+		assertTrue(propagator.propagate(state, parachute, LANDER, (lander, radius, step, command) -> commandTime[0] += step, parachute, null, 0));
+
+		double steps = Math.rint(state.time);
+		assertEquals(steps, state.time, 1e-9);
+		assertEquals(steps, windTime[0]);
+		assertEquals(steps, commandTime[0]);
+	}
+}
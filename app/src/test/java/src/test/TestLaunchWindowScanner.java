@@ -0,0 +1,73 @@
+package src.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import src.conf.SettingsFileManager;
+import src.conf.SimulationSettings;
+import src.peng.NewtonGravityFunction;
+import src.traj.LambertSolver;
+import src.traj.LaunchWindowScanner;
+import src.traj.TrajectoryPlanner;
+import src.univ.Universe;
+import src.visu.PorkchopPlot;
+
+class TestLaunchWindowScanner
+{
+	private static SimulationSettings settings;
+	private static Universe universe;
+
+	@BeforeAll
+	public static void init() throws IOException
+	{
+		settings = SettingsFileManager.load();
+		settings.noOfSteps = 4000;
+		universe = new Universe(settings);
+	}
+
+	@Test void testCellMatchesLambert()
+	{
+		LaunchWindowScanner scanner = new LaunchWindowScanner(universe, 3, 5, settings.stepSize);
+		scanner.scan(0, 1000, 100, 1000, 2500, 250);
+
+		int departure = 300;
+		int flight = 1500;
+		double mu = NewtonGravityFunction.GRAVITY * universe.masses[0];
+		LambertSolver solver = new LambertSolver(universe.getBody(3, departure).location.sub(universe.getBody(0, departure).location),
+				universe.getBody(5, departure + flight).location.sub(universe.getBody(0, departure + flight).location),
+				flight * settings.stepSize, mu, true);
+		double expected = solver.getDepartureVelocity().dist(universe.getBody(3, departure).velocity.sub(universe.getBody(0, departure).velocity));
+		assertEquals(expected, scanner.getDepartureDeltaV(3, 2), 1e-6);
+	}
+
+	@Test void testBestWindowAndRange()
+	{
+		LaunchWindowScanner scanner = new LaunchWindowScanner(universe, 3, 5, settings.stepSize);
+		scanner.scan(0, 3000, 50, 500, 3000, 50);
+
+		assertTrue(Double.isNaN(scanner.getDeltaV(60, 50)));			// Arrives at step 3000 + 3000, past the universe
+		int[] best = scanner.getBestCell();
+		assertNotNull(best);
+		double bestDeltaV = scanner.getDeltaV(best[0], best[1]);
+		assertTrue(bestDeltaV > 1000 && bestDeltaV < 20000, "Earth to Mars cheapest window " + bestDeltaV);
+
+		SimulationSettings window = TrajectoryPlanner.createLaunchWindowSettings(settings, scanner);
+		assertEquals(scanner.getDepartureStep(best[0]), window.stepOffset);
+		assertEquals(scanner.getFlightSteps(best[1]), window.noOfSteps);
+	}
+
+	@Test void testRender()
+	{
+		LaunchWindowScanner scanner = new LaunchWindowScanner(universe, 3, 8, settings.stepSize);
+		scanner.scan(0, 2000, 100, 1000, 3000, 100);
+		BufferedImage image = PorkchopPlot.render(scanner, 3);
+		assertEquals(21 * 3, image.getWidth());
+		assertEquals(21 * 3, image.getHeight());
+		assertThrows(IllegalArgumentException.class, () -> scanner.scan(0, 10, 0, 1, 10, 1));
+	}
+}
@@ -0,0 +1,83 @@
+package src.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+import src.conf.SettingsFileManager;
+import src.conf.SimulationSettings;
+import src.univ.LazyEphemeris;
+import src.univ.Universe;
+
+class TestLazyEphemeris
+{
+	@Test void testMatchesEagerUniverse() throws IOException
+	{
+		SimulationSettings settings = generateSettings(300);
+		Universe eager = new Universe(settings);
+		Universe lazy = new Universe(settings, 64, 2);
+
+		int[] steps = {0, 63, 64, 200, 299, 300, 5};
+		for(int step: steps)
+		{
+			for(int i = 0; i < eager.getNoOfBodies(); i++)
+			{
+				assertEquals(eager.U[i][step].location, lazy.getBody(i, step).location);
+				assertEquals(eager.U[i][step].velocity, lazy.getBody(i, step).velocity);
+				assertEquals(eager.U[i][step].time, lazy.getBody(i, step).time);
+			}
+		}
+		assertEquals(eager.getNoOfTimeSteps(), lazy.getNoOfTimeSteps());
+	}
+
+	@Test void testWindowIsBounded() throws IOException
+	{
+		SimulationSettings settings = generateSettings(500);
+		LazyEphemeris ephemeris = new LazyEphemeris(settings.celestialBodies, masses(settings), settings.startTime,
+													settings.stepSize, settings.noOfSteps, 50, 3);
+		for(int step = 0; step <= settings.noOfSteps; step += 25)
+		{
+			ephemeris.getBody(3, step);
+			assertTrue(ephemeris.getResidentBlocks() <= 3);
+		}
+		assertTrue(ephemeris.isResident(500));
+		assertFalse(ephemeris.isResident(0));
+	}
+
+	@Test void testEvictedBlockIsRegenerated() throws IOException
+	{
+		SimulationSettings settings = generateSettings(400);
+		LazyEphemeris ephemeris = new LazyEphemeris(settings.celestialBodies, masses(settings), settings.startTime,
+													settings.stepSize, settings.noOfSteps, 100, 1);
+		double before = ephemeris.getBody(4, 120).location.getX();
+		ephemeris.getBody(4, 390);
+		assertFalse(ephemeris.isResident(120));
+		assertEquals(before, ephemeris.getBody(4, 120).location.getX());
+	}
+
+	@Test void testOutOfRange() throws IOException
+	{
+		Universe lazy = new Universe(generateSettings(10), 4, 2);
+		assertThrows(IndexOutOfBoundsException.class, () -> lazy.getBody(0, 11));
+		assertThrows(UnsupportedOperationException.class, () -> lazy.saveToFile());
+	}
+
+	private SimulationSettings generateSettings(int noOfSteps) throws IOException
+	{
+		SimulationSettings settings = SettingsFileManager.load();
+		settings.noOfSteps = noOfSteps;
+		return settings;
+	}
+
+	private double[] masses(SimulationSettings settings)
+	{
+		double[] masses = new double[settings.celestialBodies.length];
+		for(int i = 0; i < masses.length; i++)
+		{
+			masses[i] = settings.celestialBodies[i].mass;
+		}
+		return masses;
+	}
+}
@@ -0,0 +1,89 @@
+package src.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import src.traj.MissionCost;
+import src.traj.MissionCostFunction;
+import src.traj.ParetoFront;
+import src.traj.ParetoFront.Entry;
+
+class TestMissionCost
+{
+	@Test void testWeighted()
+	{
+		MissionCost cost = new MissionCost(1000, 50, Double.NaN);
+		assertEquals(Double.POSITIVE_INFINITY, cost.getTimeOfFlight());
+		assertFalse(cost.isFinite());
+
+		// An objective without weight is left out, even if it is infinite
+		assertEquals(1000, cost.weighted(new double[] {1, 0, 0}));
+		assertEquals(1000 + 2 * 50, cost.weighted(new double[] {1, 2, 0}));
+		assertEquals(Double.POSITIVE_INFINITY, cost.weighted(new double[] {1, 2, 1}));
+		assertThrows(IllegalArgumentException.class, () -> cost.weighted(new double[] {1, 0}));
+	}
+
+	@Test void testDominates()
+	{
+		MissionCost cost = new MissionCost(1000, 50, 100);
+		assertTrue(cost.dominates(new MissionCost(1000, 60, 100)));
+		assertFalse(cost.dominates(new MissionCost(1000, 50, 100)));
+		assertFalse(cost.dominates(new MissionCost(900, 60, 100)));
+		assertFalse(new MissionCost(900, 60, 100).dominates(cost));
+	}
+
+	@Test void testParetoFront()
+	{
+		ParetoFront front = new ParetoFront();
+		assertNull(front.select(new double[] {1, 1, 0}));
+		assertTrue(front.offer(new double[] {0}, new MissionCost(100, 10, 0)));
+		assertTrue(front.offer(new double[] {1}, new MissionCost(10, 100, 0)));
+		assertTrue(front.offer(new double[] {2}, new MissionCost(50, 50, 0)));
+
+		// Dominated, repeated and infinite costs are refused, and a better cost drops those it dominates
+		assertFalse(front.offer(new double[] {3}, new MissionCost(60, 60, 0)));
+		assertFalse(front.offer(new double[] {4}, new MissionCost(50, 50, 0)));
+		assertFalse(front.offer(new double[] {5}, new MissionCost(0, Double.POSITIVE_INFINITY, 0)));
+		assertTrue(front.offer(new double[] {6}, new MissionCost(40, 40, 0)));
+		assertEquals(3, front.size());
+
+		// A route cut short ranks by its cost so far, but its cost is not one the front can offer
+		MissionCost partial = MissionCost.partial(1, 1, 0);
+		assertTrue(partial.isPartial());
+		assertEquals(2, partial.weighted(new double[] {1, 1, 0}));
+		assertFalse(front.offer(new double[] {7}, partial));
+		assertEquals(3, front.size());
+
+		List<Entry> entries = front.getEntries();
+		assertArrayEquals(new double[] {1}, entries.get(0).getPoint());
+		assertArrayEquals(new double[] {6}, entries.get(1).getPoint());
+		assertArrayEquals(new double[] {0}, entries.get(2).getPoint());
+
+		// The weights trade accuracy against fuel without evaluating again
+		assertArrayEquals(new double[] {1}, front.select(new double[] {1, 0, 0}).getPoint());
+		assertArrayEquals(new double[] {0}, front.select(new double[] {0, 1, 0}).getPoint());
+		assertArrayEquals(new double[] {6}, front.select(new double[] {1, 1, 0}).getPoint());
+	}
+
+	@Test void testCostFunction()
+	{
+		// Miss and fuel in opposition: every point on the line between the two extremes is on the front
+		MissionCostFunction function = new MissionCostFunction(x -> new MissionCost(Math.abs(x[0]), Math.abs(1 - x[0]), 1), new double[] {1, 2, 0});
+		assertEquals(0.5 + 2 * 0.5, function.evaluate(new double[] {0.5}));
+
+		double[][] points = new double[101][];
+		for(int i = 0; i < points.length; i++)
+			points[i] = new double[] {i / 100.0 - 0.5};
+		MissionCost[] costs = function.evaluateAll(points);
+		for(int i = 0; i < points.length; i++)
+			assertEquals(Math.abs(points[i][0]), costs[i].getMissDistance());
+
+		// Points below 0 are dominated by 0, the rest from 0 to 0.5 are kept, and 0.5 twice is kept once
+		assertEquals(51, function.getParetoFront().size());
+		assertEquals(0, function.getParetoFront().getEntries().get(0).getCost().getMissDistance());
+		assertThrows(IllegalArgumentException.class, () -> new MissionCostFunction(x -> null, new double[] {1}));
+	}
+}
@@ -0,0 +1,88 @@
+package src.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import src.conf.SettingsFileManager;
+import src.conf.SimulationSettings;
+import src.peng.Vector3d;
+import src.traj.MissionPlanner;
+import src.traj.NewtonRaphson;
+import src.traj.TrajectoryPlanner;
+import src.univ.Universe;
+
+class TestMissionPlanner
+{
+	private static SimulationSettings settings;
+	private static Universe universe;
+
+	@BeforeAll
+	public static void init() throws IOException
+	{
+		settings = SettingsFileManager.load();
+		settings.noOfSteps = 3900;
+		universe = new Universe(settings);
+		new NewtonRaphson(universe, 3, 8, settings).visualizerOff();
+	}
+
+	@Test void testColdSolveIsRemembered()
+	{
+		MissionPlanner planner = new MissionPlanner();
+		assertFalse(planner.isWarm("leg"));
+		NewtonRaphson nr = planner.solveTransfer("leg", universe, 3, 8, TrajectoryPlanner.createRouteToTitanSettings(settings));
+
+		assertTrue(planner.isWarm("leg"));
+		assertEquals(nr.getStartingVelocity(), planner.getLaunchVelocity("leg"));
+		assertNotNull(nr.getJacobian());
+		planner.forget("leg");
+		assertFalse(planner.isWarm("leg"));
+	}
+
+	@Test void testWarmStartAfterSmallChange()
+	{
+		for(int shift: new int[] {1, 20})
+		{
+			MissionPlanner cold = new MissionPlanner();
+			NewtonRaphson coldSolution = cold.solveTransfer("leg", universe, 3, 8, shiftedSettings(shift));
+
+			MissionPlanner warm = new MissionPlanner();
+			warm.solveTransfer("leg", universe, 3, 8, shiftedSettings(0));
+			NewtonRaphson warmSolution = warm.solveTransfer("leg", universe, 3, 8, shiftedSettings(shift));
+
+			long coldRoutes = coldSolution.getRouteCache().getMisses();
+			long warmRoutes = warmSolution.getRouteCache().getMisses();
+			assertTrue(warmRoutes < coldRoutes, "Shift " + shift + ": " + warmRoutes + " routes warm, " + coldRoutes + " cold");
+			assertEquals(0, warmSolution.getStartingVelocity().dist(coldSolution.getStartingVelocity()), 1e-6);
+		}
+	}
+
+	@Test void testContinuationOverLargeChange()
+	{
+		SimulationSettings shorter = shiftedSettings(0);
+		shorter.noOfSteps = 3000;
+		NewtonRaphson direct = new MissionPlanner().solveTransfer("leg", universe, 3, 8, shorter);
+
+		MissionPlanner planner = new MissionPlanner();
+		planner.setContinuationDistance(1e9);
+		planner.solveTransfer("leg", universe, 3, 8, shiftedSettings(0));
+		shorter = shiftedSettings(0);
+		shorter.noOfSteps = 3000;
+		NewtonRaphson nr = planner.solveTransfer("leg", universe, 3, 8, shorter);
+
+		Vector3d[] route = nr.planRoute(nr.getStartingVelocity());
+		assertTrue(planner.getLastStages() > 1);
+		assertEquals(0, route[route.length - 1].dist(nr.getTargetPoint()), 0.1);
+		assertEquals(0, nr.getStartingVelocity().dist(direct.getStartingVelocity()), 1e-6);
+	}
+
+	private static SimulationSettings shiftedSettings(int shift)
+	{
+		SimulationSettings shifted = TrajectoryPlanner.createRouteToTitanSettings(settings);
+		shifted.stepOffset = shift;
+		return shifted;
+	}
+}
@@ -0,0 +1,110 @@
+package src.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import src.land.Descent;
+import src.land.FootprintStatistics;
+import src.land.LandingStatistics;
+import src.land.MonteCarloLanding;
+import src.land.RunningStatistics;
+import src.peng.Vector3d;
+
+class TestMonteCarloLanding
+{
+	private static final double[] VALUES = {4, 7, 13, 16, 1e3, -2.5, 8};
+
+	@Test void testRunningStatistics()
+	{
+		RunningStatistics statistics = new RunningStatistics();
+		double sum = 0;
+		for(double value: VALUES)
+		{
+			statistics.add(value);
+			sum += value;
+		}
+		double mean = sum / VALUES.length;
+		double squares = 0;
+		for(double value: VALUES)
+			squares += (value - mean) * (value - mean);
+
+		assertEquals(VALUES.length, statistics.getCount());
+		assertEquals(mean, statistics.getMean(), 1e-12);
+		assertEquals(squares / (VALUES.length - 1), statistics.getVariance(), 1e-9);
+		assertEquals(-2.5, statistics.getMin());
+		assertEquals(1e3, statistics.getMax());
+		assertTrue(Double.isNaN(new RunningStatistics().getMean()));
+	}
+
+	@Test void testMergeMatchesOneStream()
+	{
+		RunningStatistics all = new RunningStatistics();
+		RunningStatistics first = new RunningStatistics();
+		RunningStatistics second = new RunningStatistics();
+		for(int i = 0; i < VALUES.length; i++)
+		{
+			all.add(VALUES[i]);
+			(i < 3 ? first : second).add(VALUES[i]);
+		}
+		first.merge(second);
+		first.merge(new RunningStatistics());
+
+		assertEquals(all.getCount(), first.getCount());
+		assertEquals(all.getMean(), first.getMean(), 1e-12);
+		assertEquals(all.getVariance(), first.getVariance(), 1e-9);
+		assertEquals(all.getMin(), first.getMin());
+		assertEquals(all.getMax(), first.getMax());
+	}
+
+	@Test void testFootprintEllipse()
+	{
+		// Points along the line y = x, the ellipse collapses onto it
+		FootprintStatistics footprint = new FootprintStatistics();
+		FootprintStatistics half = new FootprintStatistics();
+		for(int i = 0; i < 10; i++)
+		{
+			(i < 5 ? footprint : half).add(i, i);
+		}
+		footprint.merge(half);
+
+		assertEquals(4.5, footprint.getMeanX(), 1e-12);
+		assertEquals(Math.PI / 4, footprint.getOrientation(), 1e-12);
+		assertEquals(0, footprint.getSemiMinorAxis(3), 1e-6);
+		assertEquals(3 * Math.sqrt(2 * footprint.getVarianceX()), footprint.getSemiMajorAxis(3), 1e-9);
+	}
+
+	@Test void testRunsAreReproducible()
+	{
+		MonteCarloLanding monteCarlo = new MonteCarloLanding();
+		LandingStatistics parallel = monteCarlo.run(16, 7);
+		LandingStatistics serial = monteCarlo.run(16, 7, false);
+
+		assertEquals(16, parallel.getRuns());
+		assertEquals(serial.getLandings(), parallel.getLandings());
+		assertEquals(serial.getDownrange().getMean(), parallel.getDownrange().getMean(), 1e-9);
+		assertEquals(serial.getTouchdownSpeed().getVariance(), parallel.getTouchdownSpeed().getVariance(), 1e-9);
+		assertEquals(serial.getPeakDeceleration().getMax(), parallel.getPeakDeceleration().getMax());
+
+		// Any one descent of the set can be flown again on its own
+		Descent first = monteCarlo.sample(MonteCarloLanding.runSeed(7, 3));
+		Descent second = monteCarlo.sample(MonteCarloLanding.runSeed(7, 3));
+		assertEquals(first.getTouchdownPosition(), second.getTouchdownPosition());
+		assertNotEquals(first.getTouchdownPosition(), monteCarlo.sample(MonteCarloLanding.runSeed(7, 4)).getTouchdownPosition());
+	}
+
+	@Test void testDispersionsSpreadTheLandings()
+	{
+		MonteCarloLanding monteCarlo = new MonteCarloLanding();
+		monteCarlo.setEntry(new Vector3d(MonteCarloLanding.TITAN_RADIUS + 600e3, 0, 0), new Vector3d(0, 1200, 0), 0, 0);
+		monteCarlo.setAtmosphere(0);
+		monteCarlo.setParachute(5000, 0, 1000, 0);
+		LandingStatistics nominal = monteCarlo.run(4, 1);
+		assertEquals(0, nominal.getDownrange().getStandardDeviation(), 1e-6);
+
+		monteCarlo.setAtmosphere(0.1);
+		LandingStatistics dispersed = monteCarlo.run(4, 1);
+		assertTrue(dispersed.getDownrange().getStandardDeviation() > 1);
+		assertEquals(4, dispersed.getLandings());
+	}
+}
@@ -0,0 +1,74 @@
+package src.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import src.conf.SettingsFileManager;
+import src.conf.SimulationSettings;
+import src.peng.Vector3d;
+import src.traj.LambertSolver;
+import src.traj.MultipleShooting;
+import src.traj.NewtonRaphson;
+import src.traj.ProbePropagator;
+import src.traj.TrajectoryPlanner;
+import src.univ.Universe;
+
+class TestMultipleShooting
+{
+	private static SimulationSettings settings;
+	private static Universe universe;
+
+	@BeforeAll
+	public static void init() throws IOException
+	{
+		settings = SettingsFileManager.load();
+		settings.noOfSteps = 3800;
+		universe = new Universe(settings);
+	}
+
+	@Test void testPropagatorMatchesNewtonRaphson()
+	{
+		SimulationSettings routeSettings = TrajectoryPlanner.createRouteToTitanSettings(settings);
+		routeSettings.noOfSteps = 200;
+		NewtonRaphson nr = new NewtonRaphson(universe, 3, 8, routeSettings, new Vector3d(1000, -2000, 0));
+		Vector3d[] expected = nr.planRoute(new Vector3d(1000, -2000, 0));
+
+		Vector3d[] actual = new Vector3d[201];
+		Vector3d[] end = new ProbePropagator(universe, routeSettings.stepSize).propagate(0, 200, nr.getLaunchPoint(), new Vector3d(1000, -2000, 0), actual);
+		assertEquals(expected[200], actual[200]);
+		assertEquals(expected[200], end[0]);
+		assertEquals(nr.getVelocityAtTarget(), end[1]);
+	}
+
+	@Test void testConvergesToTarget()
+	{
+		SimulationSettings routeSettings = TrajectoryPlanner.createRouteToTitanSettings(settings);
+		MultipleShooting ms = new MultipleShooting(universe, 3, 8, routeSettings, 4);
+		Vector3d seed = LambertSolver.seedVelocity(universe, 3, ms.getLaunchPoint(), 0, ms.getTargetPoint(),
+												   routeSettings.noOfSteps, routeSettings.stepSize);
+		Vector3d launchVelocity = ms.solve(seed);
+
+		Vector3d[] trajectory = ms.getTrajectory();
+		assertEquals(routeSettings.noOfSteps + 1, trajectory.length);
+		assertTrue(trajectory[trajectory.length - 1].dist(ms.getTargetPoint()) < 1, "Missed by " + trajectory[trajectory.length - 1].dist(ms.getTargetPoint()));
+		assertTrue(ms.getIteration() < 10);
+
+		// Nodes lie on the stitched trajectory
+		for(int k = 1; k < ms.getNoOfSegments(); k++)
+		{
+			int step = routeSettings.noOfSteps * k / ms.getNoOfSegments();
+			assertTrue(trajectory[step].dist(ms.getNode(k)[0]) < 1);
+		}
+		assertEquals(launchVelocity, ms.getNode(0)[1]);
+	}
+
+	@Test void testSegmentCount()
+	{
+		SimulationSettings routeSettings = TrajectoryPlanner.createRouteToTitanSettings(settings);
+		assertThrows(IllegalArgumentException.class, () -> new MultipleShooting(universe, 3, 8, routeSettings, 0));
+	}
+}
@@ -0,0 +1,73 @@
+package src.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import src.traj.CMAES;
+import src.traj.DifferentialEvolution;
+import src.traj.FitnessEvaluator;
+import src.traj.FitnessFunction;
+import src.traj.NelderMead;
+import src.traj.Optimizer;
+
+class TestOptimizers
+{
+	// Shifted, badly scaled and correlated quadratic with its minimum at (1000, -2000, 30)
+	private static final FitnessFunction ELLIPSOID = x ->
+	{
+		double a = x[0] - 1000, b = x[1] + 2000, c = x[2] - 30;
+		return a*a + 100 * (a + b) * (a + b) + 10000 * c*c;
+	};
+
+	private static final FitnessFunction ROSENBROCK = x ->
+		100 * Math.pow(x[1] - x[0]*x[0], 2) + Math.pow(1 - x[0], 2);
+
+	@Test void testNelderMead()
+	{
+		assertSolves(new NelderMead(), 2000);
+	}
+
+	@Test void testCMAES()
+	{
+		assertSolves(new CMAES(1), 3000);
+	}
+
+	@Test void testDifferentialEvolution()
+	{
+		assertSolves(new DifferentialEvolution(1), 20000);
+	}
+
+	@Test void testRosenbrock()
+	{
+		Optimizer[] optimizers = {new NelderMead(), new CMAES(2), new DifferentialEvolution(2)};
+		for(Optimizer each: optimizers)
+		{
+			FitnessEvaluator evaluator = new FitnessEvaluator(ROSENBROCK);
+			double[] best = each.minimize(evaluator, new double[] {-1.2, 1}, new double[] {0.5, 0.5}, 1e-8, 20000);
+			assertEquals(1, best[0], 1e-3, each.getClass().getSimpleName());
+			assertEquals(1, best[1], 1e-3, each.getClass().getSimpleName());
+		}
+	}
+
+	@Test void testEvaluatorTracksBest()
+	{
+		FitnessEvaluator evaluator = new FitnessEvaluator(x -> x[0] == 2 ? Double.NaN : Math.abs(x[0] - 3));
+		double[] values = evaluator.evaluate(new double[][] {{1}, {2}, {4}, {3.5}});
+		assertEquals(Double.POSITIVE_INFINITY, values[1]);
+		assertEquals(4, evaluator.getEvaluations());
+		assertEquals(0.5, evaluator.getBestValue());
+		assertEquals(3.5, evaluator.getBest()[0]);
+	}
+
+	private static void assertSolves(Optimizer optimizer, int budget)
+	{
+		FitnessEvaluator evaluator = new FitnessEvaluator(ELLIPSOID);
+		double[] best = optimizer.minimize(evaluator, new double[] {0, 0, 0}, new double[] {1000, 1000, 1000}, 1e-6, budget);
+		assertTrue(evaluator.getEvaluations() <= budget + 10);
+		assertEquals(1000, best[0], 0.01);
+		assertEquals(-2000, best[1], 0.01);
+		assertEquals(30, best[2], 0.01);
+		assertEquals(evaluator.getBestValue(), ELLIPSOID.evaluate(best), 1e-9);
+	}
+}
@@ -0,0 +1,87 @@
+package src.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import src.conf.SettingsFileManager;
+import src.conf.SimulationSettings;
+import src.peng.Vector3d;
+import src.traj.OrbitInsertionController;
+import src.univ.CelestialBody;
+import src.univ.Universe;
+
+class TestOrbitInsertionController
+{
+	private static final int TITAN = 8;
+
+	private static SimulationSettings settings;
+	private static Universe universe;
+	private static CelestialBody titan;
+	private static Vector3d arrivalVelocity;
+	private static OrbitInsertionController controller;
+
+	@BeforeAll
+	public static void init() throws IOException
+	{
+		settings = SettingsFileManager.load();
+		settings.stepSize = 50;
+		settings.noOfSteps = 20000;
+		universe = new Universe(settings);
+		titan = universe.getBody(TITAN, 0);
+		arrivalVelocity = titan.velocity.add(new Vector3d(3000, 500, 1000));
+		controller = new OrbitInsertionController(universe, TITAN, settings, arrivalVelocity);
+	}
+
+	@Test void testInsertionIsCircular()
+	{
+		Vector3d relativePosition = controller.getInsertionPoint().sub(titan.location);
+		Vector3d relativeVelocity = controller.getInsertionVelocity().sub(titan.velocity);
+
+		assertEquals(titan.radius + titan.orbitalHeight, relativePosition.norm(), 1e-6);
+		assertEquals(titan.orbitalVelocity(titan.orbitalHeight), relativeVelocity.norm(), 1e-6);
+		assertEquals(0, relativePosition.unitVector().dotProduct(relativeVelocity), 1e-6);
+		assertEquals(controller.getInsertionVelocity().sub(arrivalVelocity).norm(), controller.getInsertionDeltaV(), 1e-9);
+
+		// Stays in the plane the probe arrived in
+		Vector3d arrival = arrivalVelocity.sub(titan.velocity);
+		Vector3d across = arrival.addMul(-arrival.dotProduct(relativePosition.unitVector()), relativePosition.unitVector());
+		assertEquals(1, across.unitVector().dotProduct(relativeVelocity.unitVector()), 1e-9);
+	}
+
+	@Test void testOrbitIsHeld()
+	{
+		Vector3d[] trajectory = controller.getTrajectory();
+		double radius = controller.getOrbitRadius();
+		for(int i = 0; i < trajectory.length; i++)
+		{
+			double distance = trajectory[i].dist(universe.getBody(TITAN, i).location);
+			assertEquals(radius, distance, 2 * OrbitInsertionController.DEFAULT_TOLERANCE);
+		}
+	}
+
+	@Test void testStationKeepingIsSparse()
+	{
+		// About a hundred orbits of ten thousand seconds
+		int burns = 0;
+		for(Vector3d correction: controller.getCorrections())
+		{
+			if(correction != null)
+				burns++;
+		}
+		assertEquals(controller.getStationKeepingBurns() + 1, burns);
+		assertTrue(controller.getStationKeepingBurns() < 100);
+		assertTrue(controller.getStationKeepingDeltaV() < 0.01 * controller.getInsertionDeltaV());
+	}
+
+	@Test void testFinalSettings()
+	{
+		SimulationSettings end = controller.getFinalSettings();
+		Vector3d[] trajectory = controller.getTrajectory();
+		assertEquals(settings.noOfSteps, end.stepOffset);
+		assertEquals(trajectory[trajectory.length - 1], end.probeStartPosition);
+	}
+}
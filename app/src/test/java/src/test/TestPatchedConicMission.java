@@ -0,0 +1,102 @@
+package src.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import src.conf.SettingsFileManager;
+import src.conf.SimulationSettings;
+import src.prob.Probe;
+import src.traj.PatchedConicMission;
+import src.traj.TrajectoryPlanner;
+import src.univ.CelestialBody;
+import src.univ.Universe;
+
+class TestPatchedConicMission
+{
+	private static SimulationSettings settings;
+	private static Universe universe;
+	private static PatchedConicMission mission;
+
+	@BeforeAll
+	public static void init() throws IOException
+	{
+		settings = SettingsFileManager.load();
+		settings.noOfSteps = 9000;
+		universe = new Universe(settings);
+		Probe.getInstance().reset();
+		mission = new PatchedConicMission(universe, 3, 8, settings.stepSize);
+	}
+
+	@Test void testTitanSOIIsAboutSaturn()
+	{
+		CelestialBody titan = universe.getBody(8, 100);
+		CelestialBody saturn = universe.getBody(7, 100);
+		double expected = titan.calculateSOI(titan.mass, saturn.mass, titan.location.dist(saturn.location));
+		assertEquals(expected, mission.getTargetSOI(100), 1e-6 * expected);
+	}
+
+	@Test void testMissionCosts()
+	{
+		PatchedConicMission.Estimate estimate = mission.evaluate(0, 3784, 800, 3784);
+		assertTrue(estimate.getDepartureDeltaV() > 0);
+		assertTrue(estimate.getInsertionDeltaV() > 0);
+		assertTrue(estimate.getEscapeDeltaV() > 0);
+		assertTrue(estimate.getCaptureDeltaV() > 0);
+		assertEquals(estimate.getDepartureDeltaV() + estimate.getInsertionDeltaV() + estimate.getEscapeDeltaV()
+					 + estimate.getCaptureDeltaV(), estimate.getTotalDeltaV(), 1e-6);
+
+		// Fuel follows the rocket equation burn by burn, the lander is left at the target
+		Probe probe = Probe.getInstance();
+		double mass = probe.getMass();
+		double fuel = 0;
+		double[] burns = {estimate.getDepartureDeltaV(), estimate.getInsertionDeltaV(), estimate.getEscapeDeltaV(), estimate.getCaptureDeltaV()};
+		for(int b = 0; b < burns.length; b++)
+		{
+			double used = mass * (1 - Math.exp(-burns[b] / probe.getExhaustVelocity()));
+			fuel += used;
+			mass -= used + (b == 1 ? probe.getLanderMass() : 0);
+		}
+		assertEquals(fuel, estimate.getFuel(), 1e-6 * fuel);
+		assertEquals(fuel <= probe.getFuelMass(), estimate.isFeasible());
+
+		CelestialBody titan = universe.getBody(8, 0);
+		assertEquals(800 * settings.stepSize / titan.orbitalPeriod(titan.orbitalHeight), estimate.getOrbitsAtTarget(), 1e-9);
+	}
+
+	@Test void testBestMatchesEvaluate()
+	{
+		int[] departures = {0, 500, 1000, 1500};
+		int[] outbound = {2500, 3000, 3500};
+		int[] stays = {200, 600};
+		int[] back = {2500, 3000, 3500};
+		PatchedConicMission.Estimate best = mission.best(departures, outbound, stays, back);
+		assertNotNull(best);
+
+		for(int departure: departures)
+			for(int out: outbound)
+				for(int stay: stays)
+					for(int ret: back)
+					{
+						if(departure + out + stay + ret >= mission.getNoOfSteps())
+							continue;
+						double fuel = mission.evaluate(departure, out, stay, ret).getFuel();
+						assertTrue(Double.isNaN(fuel) || fuel >= best.getFuel());
+					}
+		PatchedConicMission.Estimate again = mission.evaluate(best.getDepartureStep(), best.getOutboundSteps(), best.getStaySteps(), best.getReturnSteps());
+		assertEquals(again.getFuel(), best.getFuel(), 1e-9);
+
+		SimulationSettings returnSettings = TrajectoryPlanner.createReturnSettings(settings, best);
+		assertEquals(best.getLeaveStep(), returnSettings.stepOffset);
+		assertEquals(best.getReturnSteps(), returnSettings.noOfSteps);
+	}
+
+	@Test void testOutsideUniverse()
+	{
+		assertThrows(IllegalArgumentException.class, () -> mission.evaluate(0, 5000, 100, 5000));
+		assertNull(mission.best(new int[] {8000}, new int[] {3000}, new int[] {100}, new int[] {3000}));
+	}
+}
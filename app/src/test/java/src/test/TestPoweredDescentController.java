@@ -0,0 +1,89 @@
+package src.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import src.land.AttitudeControl;
+import src.land.FeedbackLinearisingController;
+import src.land.GainTuner;
+import src.land.LanderBody;
+import src.land.LqrLandingController;
+import src.land.MonteCarloLanding;
+import src.land.PidController;
+import src.land.PidLandingController;
+
+class TestPoweredDescentController
+{
+	private static final LanderBody LANDER = new LanderBody(6e3, 4e3, 30e3, 200);
+	private static final double TITAN_MASS = MonteCarloLanding.TITAN_MASS;
+	private static MonteCarloLanding scenario;
+
+	@BeforeAll
+	public static void init()
+	{
+		// A small parachute that leaves the lander falling at over 10 m/s
+		scenario = new MonteCarloLanding();
+		scenario.setParachute(5000, 250, 100, 10);
+	}
+
+	@Test void testPidController()
+	{
+		PidController pid = new PidController(2, 1, 0.5);
+		pid.setIntegralLimit(1.5);
+		assertEquals(2 * 1 + 1 * 1 + 0, pid.update(1, 1));
+		assertEquals(2 * 3 + 1.5 + 0.5 * 2, pid.update(3, 1));		// Integral of 4 clamped to 1.5
+		pid.reset();
+		assertEquals(-2 - 0.5, pid.update(-1, 0.5));
+	}
+
+	@Test void testPidLanding()
+	{
+		assertLandsSoftly(gains -> new PidLandingController(LANDER, TITAN_MASS, gains), PidLandingController.defaultGains());
+	}
+
+	@Test void testLqrLanding()
+	{
+		assertLandsSoftly(gains -> new LqrLandingController(LANDER, TITAN_MASS, gains), LqrLandingController.defaultGains());
+	}
+
+	@Test void testFeedbackLinearisingLanding()
+	{
+		assertLandsSoftly(gains -> new FeedbackLinearisingController(LANDER, TITAN_MASS, gains), FeedbackLinearisingController.defaultGains());
+		assertThrows(IllegalArgumentException.class, () -> new FeedbackLinearisingController(LANDER, TITAN_MASS, new double[3]));
+	}
+
+	@Test void testTunerRanksGains()
+	{
+		GainTuner tuner = new GainTuner(scenario, LANDER, gains -> new PidLandingController(LANDER, TITAN_MASS, gains));
+		double[] idle = new double[PidLandingController.GAINS];
+		List<GainTuner.Result> results = tuner.evaluate(Arrays.asList(idle, PidLandingController.defaultGains()), 6, 11);
+
+		assertArrayEquals(PidLandingController.defaultGains(), results.get(0).getGains());
+		assertEquals(1, results.get(0).getSuccessRate());
+		assertEquals(0, results.get(1).getSuccessRate());
+
+		// The same descents for the same seed
+		GainTuner.Result again = tuner.evaluate(PidLandingController.defaultGains(), 6, 11);
+		assertEquals(results.get(0).getStatistics().getFuel().getMean(), again.getStatistics().getFuel().getMean());
+
+		List<GainTuner.Result> search = tuner.search(idle, PidLandingController.defaultGains(), 8, 2, 5);
+		assertEquals(8, search.size());
+		for(int i = 1; i < search.size(); i++)
+			assertTrue(search.get(i - 1).compareTo(search.get(i)) <= 0);
+	}
+
+	private static void assertLandsSoftly(Function<double[], AttitudeControl> controllers, double[] gains)
+	{
+		GainTuner tuner = new GainTuner(scenario, LANDER, controllers);
+		GainTuner.Result result = tuner.evaluate(gains, 10, 1);
+		assertEquals(10, result.getStatistics().getLandings());
+		assertEquals(1, result.getSuccessRate(), result.toString());
+		assertTrue(result.getStatistics().getFuel().getMean() > 0);
+	}
+}
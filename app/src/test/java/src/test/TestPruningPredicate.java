@@ -0,0 +1,133 @@
+package src.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import src.conf.SettingsFileManager;
+import src.conf.SimulationSettings;
+import src.peng.State;
+import src.peng.Vector3d;
+import src.traj.EvaluationCache;
+import src.traj.Matrix3d;
+import src.traj.NewtonRaphson;
+import src.traj.ProbePropagator;
+import src.traj.PruningPredicate;
+import src.univ.CelestialBody;
+import src.univ.Universe;
+
+class TestPruningPredicate
+{
+	private static SimulationSettings settings;
+	private static Universe universe;
+
+	@BeforeAll
+	public static void init() throws IOException
+	{
+		settings = SettingsFileManager.load();
+		settings.noOfSteps = 200;
+		universe = new Universe(settings);
+	}
+
+	private static State withProbe(int step, Vector3d position, Vector3d velocity)
+	{
+		State bodies = universe.getStateAt(step);
+		ArrayList<Vector3d> positions = new ArrayList<Vector3d>(bodies.position);
+		ArrayList<Vector3d> velocities = new ArrayList<Vector3d>(bodies.velocity);
+		positions.add(position);
+		velocities.add(velocity);
+		return new State(velocities, positions);
+	}
+
+	@Test void testCollision()
+	{
+		CelestialBody mars = universe.getBody(5, 10);
+		State inside = withProbe(10, mars.location.add(new Vector3d(0.5 * mars.radius, 0, 0)), mars.velocity);
+		State outside = withProbe(10, mars.location.add(new Vector3d(2 * mars.radius, 0, 0)), mars.velocity);
+
+		assertTrue(PruningPredicate.collision(universe).prune(10, inside));
+		assertFalse(PruningPredicate.collision(universe).prune(10, outside));
+		assertFalse(PruningPredicate.collision(universe, 5).prune(10, inside));
+	}
+
+	@Test void testHeliocentricBound()
+	{
+		Vector3d sun = universe.getBody(0, 0).location;
+		PruningPredicate bound = PruningPredicate.heliocentricBound(1e12);
+		assertFalse(bound.prune(0, withProbe(0, sun.add(new Vector3d(9e11, 0, 0)), new Vector3d(0, 0, 0))));
+		assertTrue(bound.prune(0, withProbe(0, sun.add(new Vector3d(0, 1.1e12, 0)), new Vector3d(0, 0, 0))));
+	}
+
+	@Test void testUnreachable()
+	{
+		// 1e9 m from the earth closing at 1000 m/s, 1.5e8 m of reach with 10 steps left
+		CelestialBody earth = universe.getBody(3, 0);
+		State state = withProbe(0, earth.location.add(new Vector3d(1e9, 0, 0)), earth.velocity.add(new Vector3d(-1000, 0, 0)));
+		assertTrue(PruningPredicate.unreachable(3, 10, 10000, 5e8).prune(0, state));
+		assertFalse(PruningPredicate.unreachable(3, 10, 10000, 9e8).prune(0, state));
+		assertFalse(PruningPredicate.unreachable(3, 100, 10000, 5e8).prune(0, state));
+	}
+
+	@Test void testEitherPrunes()
+	{
+		PruningPredicate never = (step, state) -> false;
+		PruningPredicate always = (step, state) -> true;
+		State state = universe.getStateAt(0);
+		assertFalse(never.or(never).prune(0, state));
+		assertTrue(never.or(always).prune(0, state));
+		assertTrue(always.or(never).prune(0, state));
+	}
+
+	@Test void testPropagationIsAbandoned()
+	{
+		ProbePropagator propagator = new ProbePropagator(universe, settings.stepSize);
+		CelestialBody earth = universe.getBody(3, 0);
+		Vector3d start = earth.location.add(new Vector3d(1e9, 0, 0));
+		Vector3d[] trajectory = new Vector3d[201];
+
+		// Abandoned after the fifth step
+		assertNull(propagator.propagate(0, 200, start, earth.velocity, trajectory, null, (step, state) -> step >= 5));
+		assertNotNull(trajectory[5]);
+		assertNull(trajectory[6]);
+
+		Vector3d[] pruned = new Vector3d[201];
+		Vector3d[] full = new Vector3d[201];
+		Vector3d[] end = propagator.propagate(0, 200, start, earth.velocity, full);
+		assertArrayEquals(end, propagator.propagate(0, 200, start, earth.velocity, pruned, null, (step, state) -> false));
+		assertArrayEquals(full, pruned);
+	}
+
+	@Test void testAbandonedRoutesAreNotCached()
+	{
+		EvaluationCache<double[]> cache = new EvaluationCache<double[]>();
+		Vector3d position = new Vector3d(0, 0, 0);
+		assertNull(cache.get(position, position, 0, 10, 1, () -> null));
+		assertEquals(0, cache.size());
+		assertNotNull(cache.get(position, position, 0, 10, 1, () -> new double[1]));
+		assertEquals(1, cache.size());
+	}
+
+	@Test void testNewtonIgnoresPrunedRoutes()
+	{
+		NewtonRaphson nr = new NewtonRaphson(universe, 3, 8, settings, new Vector3d(1000, -2000, 0));
+		nr.visualizerOff();
+		Vector3d velocity = nr.getStartingVelocity();
+		nr.setPruning(null);
+		Vector3d closestPoint = nr.calculateClosestPoint(nr.planRoute(velocity));
+		Matrix3d full = nr.calculateJacobian(velocity, closestPoint);
+
+		// Difference routes are flown to the end, and a step that cannot escape the pruning is refused
+		nr.setPruning((step, state) -> step >= 5);
+		Matrix3d differenced = nr.calculateJacobian(velocity, closestPoint);
+		for(int i = 0; i < 3; i++)
+		{
+			for(int j = 0; j < 3; j++)
+				assertEquals(full.get(i, j), differenced.get(i, j));
+		}
+		assertThrows(RuntimeException.class, () -> nr.newtonRaphsonIterativeMethod());
+	}
+}
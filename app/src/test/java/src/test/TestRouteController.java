@@ -0,0 +1,71 @@
+package src.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import src.conf.SettingsFileManager;
+import src.conf.SimulationSettings;
+import src.peng.Vector3d;
+import src.prob.Spacecraft;
+import src.traj.CMAES;
+import src.traj.LambertSolver;
+import src.traj.ParetoFront.Entry;
+import src.traj.RouteController;
+import src.univ.Universe;
+
+class TestRouteController
+{
+	private static SimulationSettings settings;
+	private static Universe universe;
+
+	@BeforeAll
+	public static void init() throws IOException
+	{
+		settings = SettingsFileManager.load();
+		settings.noOfSteps = 300;
+		universe = new Universe(settings);
+	}
+
+	/*
+	 * Earth to Titan from the Lambert seed, with fuel for the given delta v
+	 */
+	private static SimulationSettings routeSettings(double deltaV)
+	{
+		SimulationSettings route = settings.copy();
+		Vector3d target = universe.getBody(8, route.noOfSteps).location;
+		route.probeStartPosition = universe.getBody(3, 0).closestLaunchPoint(target);
+		route.probeStartVelocity = LambertSolver.seedVelocity(universe, 3, (Vector3d) route.probeStartPosition, 0, target,
+															  route.noOfSteps, route.stepSize);
+		double dryMass = 7.8e4;
+		route.spacecraft = new Spacecraft(dryMass, dryMass * (Math.exp(deltaV / 2e4) - 1), 0, 2e4 / Spacecraft.STANDARD_GRAVITY, Spacecraft.PROBE_THRUST);
+		return route;
+	}
+
+	@Test void testFuelLimitsCandidates()
+	{
+		// Fuel for 1 m/s, too little to close the miss, so the best route burns nearly all of it
+		SimulationSettings route = routeSettings(1);
+		Vector3d seed = (Vector3d) route.probeStartVelocity;
+		RouteController controller = new RouteController(universe, 3, 8, route, 1, new CMAES(), new double[] {1, 0, 0});
+		Spacecraft after = controller.getFinalSettings().spacecraft;
+		assertTrue(after.hasFuel());
+		assertTrue(after.getFuelMass() < 0.01 * route.spacecraft.getFuelMass());
+
+		// Every route on the front was flown with fuel, and costs the burn from the seed
+		assertTrue(controller.getParetoFront().size() > 0);
+		for(Entry entry : controller.getParetoFront().getEntries())
+		{
+			assertTrue(entry.getCost().getDeltaV() <= 1);
+			double[] point = entry.getPoint();
+			assertEquals(entry.getCost().getDeltaV(), new Vector3d(point[0], point[1], point[2]).dist(seed), 1e-9);
+		}
+
+		// Without fuel only the start velocity can be flown
+		SimulationSettings empty = routeSettings(0);
+		assertEquals(empty.spacecraft, new RouteController(universe, 3, 8, empty, 1).getFinalSettings().spacecraft);
+	}
+}
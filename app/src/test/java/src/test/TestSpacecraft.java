@@ -0,0 +1,120 @@
+package src.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import src.conf.SettingsFileManager;
+import src.conf.SimulationSettings;
+import src.peng.Vector3d;
+import src.prob.FiniteBurn;
+import src.prob.Probe;
+import src.prob.Spacecraft;
+import src.traj.FlightState;
+import src.traj.ProbePropagator;
+import src.univ.CelestialBody;
+import src.univ.Universe;
+
+class TestSpacecraft
+{
+	private static SimulationSettings settings;
+	private static Universe universe;
+
+	@BeforeAll
+	public static void init() throws IOException
+	{
+		settings = SettingsFileManager.load();
+		settings.noOfSteps = 200;
+		universe = new Universe(settings);
+	}
+
+	@Test void testRocketEquation()
+	{
+		Spacecraft probe = Spacecraft.probe();
+		assertEquals(Probe.getInstance().getDryMass() + Probe.getInstance().getLanderMass() + 1e5, probe.getMass());
+		assertEquals(2e4, probe.getExhaustVelocity(), 1e-9);
+		assertEquals(Spacecraft.PROBE_THRUST / 2e4, probe.getMassFlow(), 1e-9);
+
+		// A burn gives a new spacecraft and leaves the old one as it was
+		Spacecraft after = probe.burn(1000);
+		assertEquals(1e5, probe.getFuelMass());
+		assertEquals(probe.getMass() * Math.exp(-1000 / 2e4), after.getMass(), 1e-6);
+		assertEquals(1000, probe.getDeltaVCapacity() - after.getDeltaVCapacity(), 1e-6);
+		assertEquals(probe.fuelForDeltaV(1000) / probe.getMassFlow(), probe.getBurnTime(1000), 1e-9);
+		assertEquals(probe.getMassFlow() * 10, probe.getFuelMass() - probe.burnFor(10).getFuelMass(), 1e-9);
+
+		assertEquals(probe, Spacecraft.probe());
+		assertEquals(probe.hashCode(), Spacecraft.probe().hashCode());
+		assertFalse(probe.releaseLander().isLanderAttached());
+		assertFalse(probe.burn(1e6).hasFuel());
+		assertEquals(0, probe.burn(1e6).getDeltaVCapacity());
+		assertThrows(IllegalArgumentException.class, () -> new Spacecraft(1, 1, 0, 0, 1));
+	}
+
+	@Test void testProbeBurnIgnoresStepSize()
+	{
+		Probe.getInstance().reset();
+		Probe.getInstance().burn(new Vector3d(0, 0, 0), new Vector3d(100, 0, 0));
+		double fuel = Probe.getInstance().getFuelMass();
+		Probe.getInstance().reset();
+		Probe.getInstance().burn(new Vector3d(0, 0, 0), new Vector3d(100, 0, 0), 150);
+		assertEquals(fuel, Probe.getInstance().getFuelMass());
+		assertEquals(Spacecraft.probe().burn(100), Probe.getInstance().getSpacecraft());
+		Probe.getInstance().reset();
+	}
+
+	@Test void testFiniteBurn()
+	{
+		// A short centred finite burn flies like the impulse and burns the fuel of the rocket equation
+		ProbePropagator propagator = new ProbePropagator(universe, settings.stepSize);
+		CelestialBody earth = universe.getBody(3, 0);
+		Vector3d position = earth.location.add(new Vector3d(1e9, 0, 0));
+		Vector3d velocity = earth.velocity;
+		Spacecraft probe = Spacecraft.probe();
+		FlightState start = new FlightState(position, velocity, probe);
+
+		FlightState coast = propagator.propagate(0, 100, start, null);
+		Vector3d[] reference = propagator.propagate(0, 100, position, velocity);
+		assertEquals(reference[0], coast.getPosition());
+		assertEquals(probe, coast.getSpacecraft());
+
+		Vector3d deltaV = new Vector3d(0, 100, 0);
+		FiniteBurn burn = FiniteBurn.centred(probe, 20 * settings.stepSize, deltaV);
+		assertEquals(probe.getBurnTime(100), burn.getDuration(), 1e-9);
+		Vector3d[] trajectory = new Vector3d[101];
+		FlightState powered = propagator.propagate(0, 100, start, trajectory, burn);
+		assertEquals(probe.getFuelMass() - probe.fuelForDeltaV(100), powered.getSpacecraft().getFuelMass(), 1e-6);
+		assertEquals(burn.apply(probe).getFuelMass(), powered.getSpacecraft().getFuelMass(), 1e-6);
+		Vector3d[] before = propagator.propagate(0, 20, position, velocity);
+		Vector3d[] impulsive = propagator.propagate(20, 80, before[0], before[1].add(deltaV));
+		assertEquals(0, powered.getVelocity().dist(impulsive[1]), 1e-3);
+		assertEquals(0, powered.getPosition().dist(impulsive[0]), 10);
+		assertEquals(powered.getPosition(), trajectory[100]);
+
+		assertThrows(IllegalArgumentException.class, () -> new FiniteBurn(0, 1, new Vector3d(), 1));
+	}
+
+	@Test void testFiniteBurnRunsDry()
+	{
+		// Fuel for half a step, a burn planned for three steps gives the capacity and no more
+		double exhaustVelocity = 2e4;
+		double thrust = 100 / (0.5 * settings.stepSize) * exhaustVelocity;
+		Spacecraft small = new Spacecraft(1000, 100, 0, exhaustVelocity / Spacecraft.STANDARD_GRAVITY, thrust);
+		FiniteBurn burn = new FiniteBurn(0, 3 * settings.stepSize, new Vector3d(0, 1, 0), 1);
+		assertEquals(0.5 * settings.stepSize, burn.thrustTime(small, 0, settings.stepSize), 1e-9);
+		assertEquals(0, burn.apply(small).getFuelMass());
+		assertEquals(0, burn.thrustTime(burn.apply(small), 0, settings.stepSize));
+
+		ProbePropagator propagator = new ProbePropagator(universe, settings.stepSize);
+		CelestialBody earth = universe.getBody(3, 0);
+		FlightState start = new FlightState(earth.location.add(new Vector3d(1e9, 0, 0)), earth.velocity, small);
+		FlightState coast = propagator.propagate(0, 2, start, null);
+		FlightState powered = propagator.propagate(0, 2, start, null, burn);
+		assertEquals(0, powered.getSpacecraft().getFuelMass());
+		assertTrue(powered.getSpacecraft().hasFuel());
+		assertEquals(small.getDeltaVCapacity(), powered.getVelocity().dist(coast.getVelocity()), 1e-3 * small.getDeltaVCapacity());
+	}
+}
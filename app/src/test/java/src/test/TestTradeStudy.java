@@ -0,0 +1,104 @@
+package src.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import src.land.Descent;
+import src.land.LanderBody;
+import src.land.MonteCarloLanding;
+import src.land.PidLandingController;
+import src.land.TradeStudy;
+import src.land.TradeStudy.Parameter;
+
+class TestTradeStudy
+{
+	@Test void testGrid()
+	{
+		TradeStudy study = new TradeStudy();
+		assertThrows(IllegalStateException.class, () -> study.grid(3));
+		study.vary(Parameter.DEPLOY_HEIGHT, 2000, 6000);
+		study.vary(Parameter.PARACHUTE_AREA, 500, 1500);
+		assertEquals(Arrays.asList(Parameter.PARACHUTE_AREA, Parameter.DEPLOY_HEIGHT), study.getParameters());
+
+		double[][] grid = study.grid(3);
+		assertEquals(2, grid.length);
+		assertEquals(9, grid[0].length);
+		assertArrayEquals(new double[] {500, 500, 500, 1000, 1000, 1000, 1500, 1500, 1500}, grid[0]);
+		assertArrayEquals(new double[] {2000, 4000, 6000, 2000, 4000, 6000, 2000, 4000, 6000}, grid[1]);
+		assertThrows(IllegalArgumentException.class, () -> study.grid(1));
+		assertThrows(IllegalArgumentException.class, () -> study.vary(Parameter.LANDER_AREA, 2, 1));
+	}
+
+	@Test void testLatinHypercube()
+	{
+		// Every parameter takes each of its strata exactly once
+		TradeStudy study = new TradeStudy();
+		study.vary(Parameter.LANDER_AREA, 2, 6);
+		study.vary(Parameter.DRAG_COEFFICIENT, 1e-4, 2e-4);
+		int samples = 50;
+		double[][] design = study.latinHypercube(samples, 3);
+		double[] lower = {2, 1e-4};
+		double[] width = {4, 1e-4};
+		for(int j = 0; j < design.length; j++)
+		{
+			boolean[] taken = new boolean[samples];
+			for(double value : design[j])
+			{
+				int stratum = (int) ((value - lower[j]) / width[j] * samples);
+				assertFalse(taken[stratum]);
+				taken[stratum] = true;
+			}
+		}
+		assertArrayEquals(design[0], study.latinHypercube(samples, 3)[0]);
+	}
+
+	@Test void testRun()
+	{
+		TradeStudy study = new TradeStudy();
+		study.vary(Parameter.PARACHUTE_AREA, 250, 1000);
+		double[][] design = study.grid(4);
+		StringWriter out = new StringWriter();
+		assertEquals(4, study.run(design, out));
+
+		String[] lines = out.toString().split("\n");
+		assertEquals("parachute_area,landed,flight_time,touchdown_speed,downrange,peak_deceleration,delta_v", lines[0]);
+		assertEquals(5, lines.length);
+
+		// Each line is the descent of its configuration, and a bigger parachute lands slower
+		double previous = Double.POSITIVE_INFINITY;
+		for(int i = 0; i < 4; i++)
+		{
+			String[] values = lines[i + 1].split(",");
+			assertEquals(design[0][i], Double.parseDouble(values[0]));
+			Descent descent = study.fly(new double[] {design[0][i]});
+			assertEquals(descent.getTouchdownVelocity().norm(), Double.parseDouble(values[3]));
+			assertTrue(Double.parseDouble(values[3]) < previous);
+			previous = Double.parseDouble(values[3]);
+			assertTrue(Double.parseDouble(values[4]) > 0);
+		}
+	}
+
+	@Test void testBurnHeight()
+	{
+		TradeStudy study = new TradeStudy();
+		study.vary(Parameter.BURN_HEIGHT, 1000, 3000);
+		assertThrows(IllegalStateException.class, () -> study.fly(new double[] {2000}));
+
+		LanderBody lander = new LanderBody(6e3, 4e3, 30e3, 200);
+		study.vary(Parameter.PARACHUTE_AREA, 100, 100);
+		study.setLander(lander, height ->
+		{
+			PidLandingController controller = new PidLandingController(lander, MonteCarloLanding.TITAN_MASS, PidLandingController.defaultGains());
+			controller.setGuidance(height, 1, 20, Math.toRadians(20));
+			return controller;
+		});
+		Descent descent = study.fly(new double[] {100, 2000});
+		assertTrue(descent.hasLanded());
+		assertTrue(descent.getTouchdownVelocity().norm() < 2);
+		assertTrue(descent.getControllerDeltaV() > 0);
+	}
+}
@@ -0,0 +1,81 @@
+package src.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import src.peng.Vector3d;
+import src.univ.Trajectory;
+
+class TestTrajectory
+{
+	@Test void testSimplifyWithinTolerance()
+	{
+		Vector3d[] points = helix(20000);
+		Trajectory full = Trajectory.of(points);
+		double tolerance = 1e8;
+		Trajectory simplified = full.simplify(tolerance);
+
+		assertTrue(simplified.size() < full.size() / 10);
+		assertEquals(0, simplified.getStep(0));
+		assertEquals(points.length - 1, simplified.getStep(simplified.size() - 1));
+
+		// Every original point must lie within the tolerance of the segment spanning its step
+		int segment = 0;
+		for(int i = 0; i < points.length; i++)
+		{
+			while(simplified.getStep(segment + 1) < i)
+			{
+				segment++;
+			}
+			Vector3d a = simplified.getPoint(segment);
+			Vector3d b = simplified.getPoint(segment + 1);
+			assertTrue(distanceToSegment(points[i], a, b) <= tolerance * (1 + 1e-9), "Point " + i);
+		}
+	}
+
+	@Test void testZeroToleranceKeepsCorners()
+	{
+		Vector3d[] points = {new Vector3d(0, 0, 0), new Vector3d(1, 0, 0), new Vector3d(2, 0, 0), new Vector3d(2, 1, 0)};
+		Trajectory simplified = Trajectory.of(points).simplify(0);
+		assertEquals(3, simplified.size());
+		assertEquals(2, simplified.getStep(1));
+	}
+
+	@Test void testDecimateAndNullSteps()
+	{
+		Vector3d[] points = new Vector3d[10];
+		for(int i = 0; i < 9; i++)
+		{
+			points[i] = new Vector3d(i, i, i);
+		}
+		Trajectory trajectory = Trajectory.of(points);
+		assertEquals(9, trajectory.size());
+
+		Trajectory decimated = trajectory.decimate(4);
+		assertEquals(3, decimated.size());
+		assertEquals(8, decimated.getStep(2));
+		assertEquals(new Vector3d(4, 4, 4), decimated.getPoint(1));
+		assertThrows(IllegalArgumentException.class, () -> trajectory.decimate(0));
+	}
+
+	private static Vector3d[] helix(int n)
+	{
+		Vector3d[] points = new Vector3d[n];
+		for(int i = 0; i < n; i++)
+		{
+			double angle = i * 1e-3;
+			points[i] = new Vector3d(1.5e11 * Math.cos(angle), 1.5e11 * Math.sin(angle), 1e4 * i);
+		}
+		return points;
+	}
+
+	private static double distanceToSegment(Vector3d p, Vector3d a, Vector3d b)
+	{
+		Vector3d ab = b.sub(a);
+		Vector3d ap = p.sub(a);
+		double lengthSquared = ab.dotProduct(ab);
+		double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, ap.dotProduct(ab) / lengthSquared));
+		return ap.dist(ab.mul(t));
+	}
+}
@@ -0,0 +1,96 @@
+package src.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import src.peng.Vector3d;
+import src.univ.Trajectory;
+import src.univ.TrajectoryRegistry;
+
+class TestTrajectoryRegistry
+{
+	@Test void testTempCapacityDropsOldest()
+	{
+		TrajectoryRegistry registry = new TrajectoryRegistry(3);
+		Vector3d[][] trajectories = new Vector3d[5][];
+		for(int i = 0; i < trajectories.length; i++)
+		{
+			trajectories[i] = new Vector3d[] {new Vector3d(i, 0, 0)};
+			registry.publishTemp(trajectories[i]);
+		}
+		List<Trajectory> temp = registry.getTemp();
+		assertEquals(3, temp.size());
+		assertEquals(2, temp.get(0).getX(0));
+		assertEquals(4, temp.get(2).getX(0));
+	}
+
+	@Test void testSnapshotIsImmutable()
+	{
+		TrajectoryRegistry registry = new TrajectoryRegistry();
+		registry.publishPerm(new Vector3d[] {new Vector3d()});
+		List<Trajectory> before = registry.getPerm();
+		registry.publishPerm(new Vector3d[] {new Vector3d()});
+
+		assertEquals(1, before.size());
+		assertEquals(2, registry.getPerm().size());
+		assertThrows(UnsupportedOperationException.class, () -> before.add(null));
+
+		registry.publishTemp(new Vector3d[0]);
+		registry.clearTemp();
+		assertTrue(registry.getTemp().isEmpty());
+		assertEquals(2, registry.getPerm().size());
+	}
+
+	@Test void testConcurrentPublish() throws InterruptedException
+	{
+		TrajectoryRegistry registry = new TrajectoryRegistry(1000);
+		Thread[] writers = new Thread[4];
+		for(int w = 0; w < writers.length; w++)
+		{
+			writers[w] = new Thread(() ->
+			{
+				for(int i = 0; i < 200; i++)
+				{
+					registry.publishTemp(new Vector3d[0]);
+					registry.publishPerm(new Vector3d[0]);
+				}
+			});
+			writers[w].start();
+		}
+		int reads = 0;
+		while(reads < 1000)
+		{
+			for(Trajectory each: registry.getTemp())		// Must never throw ConcurrentModificationException
+			{
+				assertNotNull(each);
+			}
+			reads++;
+		}
+		for(Thread each: writers)
+		{
+			each.join();
+		}
+		assertEquals(800, registry.getTemp().size());
+		assertEquals(800, registry.getPerm().size());
+		assertEquals(1600, registry.getPublishedCount());
+	}
+
+	@Test void testPermKeepsFullResolution()
+	{
+		TrajectoryRegistry registry = new TrajectoryRegistry();
+		Vector3d[] line = new Vector3d[1000];
+		for(int i = 0; i < line.length; i++)
+		{
+			line[i] = new Vector3d(i * 1e7, 0, 0);
+		}
+		registry.publishPerm(line);
+		registry.publishTemp(line);
+
+		assertEquals(2, registry.getPerm().get(0).size());
+		assertEquals(2, registry.getTemp().get(0).size());
+		assertEquals(1000, registry.getPermFullResolution().get(0).size());
+	}
+}